@@ -20,17 +20,18 @@ package eu.slipo.athenarc.triplegeo;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FilenameUtils;
 
 import eu.slipo.athenarc.triplegeo.partitioning.CsvPartitioner;
+import eu.slipo.athenarc.triplegeo.partitioning.FileRange;
 import eu.slipo.athenarc.triplegeo.partitioning.Partitioner;
 import eu.slipo.athenarc.triplegeo.partitioning.ShpPartitioner;
 import eu.slipo.athenarc.triplegeo.partitioning.SparkPartitioner;
@@ -39,7 +40,9 @@ import eu.slipo.athenarc.triplegeo.utils.Classification;
 import eu.slipo.athenarc.triplegeo.utils.Configuration;
 import eu.slipo.athenarc.triplegeo.utils.Constants;
 import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
+import eu.slipo.athenarc.triplegeo.utils.OutputMerger;
 import eu.slipo.athenarc.triplegeo.utils.Task;
+import eu.slipo.athenarc.triplegeo.utils.TaskScheduler;
 
 /**
  * Entry point to TripleGeo for converting from various input formats (optionally enabling MULTI-THREADED execution or execution on top of Spark/GeoSpark )
@@ -62,7 +65,12 @@ import eu.slipo.athenarc.triplegeo.utils.Task;
  * Modified: 5/10/2018; included optional partitioning of .CSV  and .SHP input files to enable concurrent transformation
  * Modified: 15/1/2019 by Georgios Mandilaras; support for execution over Spark/GeoSpark for specific data formats (.CSV, .SHP, GeoJSON)
  * Modified: 12/7/2019; added notifications for existence of (spatial/thematic) filters 
- * Last modified: 10/10/2019
+ * Modified: 16/10/2026; .CSV input files partitioned into byte ranges over the original file instead of temporary copies
+ * Modified: 16/10/2026; shapefiles partitioned into ranges of records over the original file instead of temporary copies
+ * Modified: 16/10/2026; tasks executed by a bounded scheduler, largest inputs first, instead of one thread per input file; several .CSV or .SHP input files may be partitioned as well
+ * Modified: 16/10/2026; outputs of partitions merged into a single output file per input file as soon as each partition is transformed
+ * Modified: 16/10/2026; outputs of partitions kept and not merged if the transformation of any partition of the same input file fails
+ * Last modified: 16/10/2026
  */
 public class Extractor {
 
@@ -71,6 +79,8 @@ public class Extractor {
 	private static Configuration currentConfig;         //Configuration settings for the transformation
 	static Classification classification = null;        //Classification hierarchy for assigning categories to features
 	static String[] inputFiles;
+	static FileRange[] inputRanges = null;              //Virtual partitions over input files (if applicable)
+	static Map<String, String> partitionOf = new HashMap<String, String>();       //Original input file of each temporary partition (if applicable)
 	static List<String> outputFiles;
 	static int sourceSRID;                              //Source CRS according to EPSG 
 	static int targetSRID;                              //Target CRS according to EPSG
@@ -85,7 +95,6 @@ public class Extractor {
 
 		System.out.println(Constants.COPYRIGHT);
 		
-	    List<Future<Task>> runnables;                  //List of transformation tasks to be executed by concurrent threads
 	    boolean failure = false;                       //Indicates whether at least one task has failed to conclude
 	    int numParts = 1;                              //By default, input is considered as a single file
 	    
@@ -136,28 +145,69 @@ public class Extractor {
 			{
 				inputFiles = currentConfig.inputFiles.split(";");     //MULTIPLE input file names separated by ;
 				
+				//Unless specified in the configuration, large .CSV or .SHP inputs are split according to their total size and the number of tasks that may run concurrently
+				if ((currentConfig.autoPartitions) && (currentConfig.runtime.equalsIgnoreCase("JVM")) && ((currentConfig.inputFormat.equals("CSV")) || (currentConfig.inputFormat.equals("SHAPEFILE"))))
+				{
+					long totalSize = 0;
+					for (String inFile: inputFiles)
+						totalSize += TaskScheduler.inputSize(inFile);
+					numParts = TaskScheduler.suggestPartitions(currentConfig, totalSize);
+				}
+				
 				//MULTI-THREADED execution on JVM: Split large files into several partitions for concurrent transformation
 				//CAUTION! Currently, only splitting of .CSV or .SHP files  is supported
-				if ((currentConfig.runtime.equalsIgnoreCase("JVM")) && (inputFiles.length == 1) && (numParts > 1))
+				if ((currentConfig.runtime.equalsIgnoreCase("JVM")) && (numParts > 1) && ((currentConfig.inputFormat.equals("CSV")) || (currentConfig.inputFormat.equals("SHAPEFILE"))))
 				{
 					try 
 					{
-						if (currentConfig.inputFormat.equals("CSV"))               //Partition the input .CSV file
-						{
-							myPartitioner = new CsvPartitioner();						
-							inputFiles = myPartitioner.split(inputFiles[0], currentConfig.tmpDir, numParts);		
-						}
-						else if (currentConfig.inputFormat.equals("SHAPEFILE"))    //Partition the input shapefile
+						long totalSize = 0;
+						for (String inFile: inputFiles)
+							totalSize += TaskScheduler.inputSize(inFile);
+						
+						List<String> wholeFiles = new ArrayList<String>();
+						List<FileRange> ranges = new ArrayList<FileRange>();
+						for (String inFile: inputFiles)
 						{
-							myPartitioner = new ShpPartitioner();						
-							inputFiles = myPartitioner.split(inputFiles[0], currentConfig.tmpDir, numParts, currentConfig.encoding);
-							//Wait a few seconds to allow all partitions to be fully created on disk
-							try {
-								TimeUnit.SECONDS.sleep(3);
-							} catch (InterruptedException e) {
-								e.printStackTrace();
+							//A single input file is split into the specified number of partitions; with several files, each one gets partitions in proportion to its share of the total size
+							int parts = numParts;
+							if ((inputFiles.length > 1) && (totalSize > 0))
+								parts = (int) Math.round((double) numParts * TaskScheduler.inputSize(inFile) / totalSize);
+							if (parts < 2)
+							{
+								wholeFiles.add(inFile);
+								continue;
+							}
+							
+							FileRange[] fileRanges = null;
+							String[] splits = null;
+							if (currentConfig.inputFormat.equals("CSV"))               //Partition the input .CSV file
+							{
+								myPartitioner = new CsvPartitioner(currentConfig.quote);
+								//Prefer virtual partitions (byte ranges) over the original file; otherwise, copy each partition into a temporary file
+								fileRanges = myPartitioner.ranges(inFile, parts, currentConfig.encoding);
+								if (fileRanges == null)
+									splits = myPartitioner.split(inFile, currentConfig.tmpDir, parts);		
+							}
+							else                                                       //Partition the input shapefile
+							{
+								myPartitioner = new ShpPartitioner();
+								//Prefer virtual partitions (ranges of records) over the original shapefile; otherwise, copy each partition into a temporary shapefile
+								fileRanges = myPartitioner.ranges(inFile, parts, currentConfig.encoding);
+								if (fileRanges == null)
+									splits = myPartitioner.split(inFile, currentConfig.tmpDir, parts, currentConfig.encoding);
 							}
+							if (fileRanges != null)
+								ranges.addAll(Arrays.asList(fileRanges));
+							if (splits != null)
+								for (String split: splits)
+								{
+									wholeFiles.add(split);
+									partitionOf.put(split, inFile);
+								}
 						}
+						inputFiles = wholeFiles.toArray(new String[wholeFiles.size()]);
+						if (!ranges.isEmpty())
+							inputRanges = ranges.toArray(new FileRange[ranges.size()]);
 					} catch (IOException e) {
 						ExceptionHandler.abort(e, "Input file failed to split into partitions.");
 					}
@@ -222,58 +272,89 @@ public class Extractor {
 
 	        if (currentConfig.runtime.equalsIgnoreCase("JVM"))     //Single- or multi-threaded execution over JVM
 	        {
-			    //Possible executors with different behaviour
-			    ExecutorService exec = Executors.newCachedThreadPool();        //Create new threads dynamically as needed at runtime
-			    //ExecutorService exec = Executors.newFixedThreadPool(3);      //NOT USED: Predetermined number of threads to be used at runtime
-			    //ExecutorService exec = Executors.newSingleThreadExecutor();  //NOT USED: Single-thread execution, i.e., one task after the other
+			    //Tasks are executed by a bounded number of threads, largest inputs first; tiny inputs are batched together
+			    TaskScheduler scheduler = new TaskScheduler(currentConfig, myAssistant);
+			    
+			    //Outputs of the partitions of each input file are merged into a single output file, as soon as each partition is transformed
+			    final Map<String, OutputMerger> mergers = new LinkedHashMap<String, OutputMerger>();
+			    final Map<OutputMerger, Integer> expectedParts = new HashMap<OutputMerger, Integer>();     //Number of partitions whose outputs are expected by each merger
 		    
-			    //Create a list of all tasks to be executed with their respective input and output files, but with the same transformation settings
-			    //The number of tasks is equal to the number of input files specified in the configuration file
-			    List<Callable<Task>> tasks = new ArrayList<Callable<Task>>();
+			    //Create all tasks to be executed with their respective input and output files, but with the same transformation settings
+			    //The number of tasks is equal to the number of input files (or their partitions) specified in the configuration file
+			    if (inputRanges != null)
+			    {
+			    	//Each virtual partition is handled by a separate task; its output file is named after the input file and the serial number of the partition
+			    	for (final FileRange range: inputRanges) {
+			    		outputFiles.add(currentConfig.outputDir + range.getName() + myAssistant.getOutputExtension(currentConfig.serialization));
+			    		final OutputMerger merger = getMerger(mergers, range.getPath());
+			    		if (merger != null)
+			    			expectedParts.merge(merger, 1, Integer::sum);
+			    		Callable<Task> c = new Callable<Task>() {
+			    			final String outFile = outputFiles.get(outputFiles.size()-1); 
+			    			@Override
+			    			public Task call() throws Exception {
+			    				Task t = new Task(currentConfig, classification, range, outFile, sourceSRID, targetSRID);
+			    				if (merger != null)
+			    					merger.add(outFile);
+			    				return t;
+			    			}
+			    		};
+			    		scheduler.add(range.getName(), TaskScheduler.inputSize(range, inputRanges), c);
+			    	}
+			    }
 			    for (final String inFile: inputFiles) {
 			    	//CAUTION! An output file will be named as its corresponding input file, but with a different extension (auto-specified by the RDF serialization format)
 			    	outputFiles.add(currentConfig.outputDir + FilenameUtils.getBaseName(inFile) + myAssistant.getOutputExtension(currentConfig.serialization));
+			    	final OutputMerger merger = partitionOf.containsKey(inFile) ? getMerger(mergers, partitionOf.get(inFile)) : null;
+			    	if (merger != null)
+			    		expectedParts.merge(merger, 1, Integer::sum);
 		        	Callable<Task> c = new Callable<Task>() {
 		        		final String outFile = outputFiles.get(outputFiles.size()-1); 
 		        		@Override
 			        	public Task call() throws Exception {
-			            	return new Task(currentConfig, classification, inFile, outFile, sourceSRID, targetSRID);
+			            	Task t = new Task(currentConfig, classification, inFile, outFile, sourceSRID, targetSRID);
+			            	if (merger != null)
+			            		merger.add(outFile);
+			            	return t;
 			            }
 			        };
-			        tasks.add(c);
+			        scheduler.add(FilenameUtils.getName(inFile), TaskScheduler.inputSize(inFile), c);
 			    }
 	
 			    long start = System.currentTimeMillis();
 			    //Invoke all the tasks concurrently
 			    try {
-			    	System.out.print(myAssistant.getGMTime() + " Started processing features ");
-			    	if (tasks.size() > 1)
-			    		System.out.println("using " + tasks.size() + " concurrent threads...");
-			    	else
-			    		System.out.println("in a single thread...");
-			        runnables = exec.invokeAll(tasks);	
-			        
-			        //Inspect each task on possible failure
-			        for (Future<Task> r : runnables) {
-			        	try {
-							if (r.get() == null)
-								failure = true;             //At least one task has failed
-						} catch (ExecutionException e) {
-							failure = true;
-							ExceptionHandler.warn(e, "A transformation task failed.");            //Execution aborted abnormally
-						}
-			        	catch (InterruptedException e) {
-			        		failure = true;
-			        		ExceptionHandler.warn(e, "A transformation task was interrupted.");   //Execution interrupted abnormally
-					    }
-			        }
+			    	System.out.println(myAssistant.getGMTime() + " Started processing features...");
+			    	failure = !scheduler.run();         //At least one task has failed
+			    	
+			    	//Wait until the outputs of all partitions have been merged; merged outputs replace those of partitions
+			    	for (Map.Entry<String, OutputMerger> m: mergers.entrySet())
+			    	{
+			    		//CAUTION! An incomplete output must never be named as the input file; outputs of its partitions are kept instead
+			    		if (m.getValue().getParts().size() < expectedParts.get(m.getValue()))
+			    		{
+			    			m.getValue().discard();
+			    			System.out.println("Transformation of some partition failed. Outputs of the other partitions are kept, but not merged into " + m.getKey());
+			    			failure = true;
+			    			continue;
+			    		}
+			    		try {
+			    			m.getValue().close();
+			    			outputFiles.removeAll(m.getValue().getParts());
+			    			outputFiles.add(m.getKey());
+			    		} catch (IOException e) {
+			    			ExceptionHandler.warn(e, "Outputs of partitions were not merged into " + m.getKey());
+			    			m.getValue().discard();
+			    			failure = true;
+			    		}
+			    	}
 			    }		     
 			    catch(Exception e) {
 			    	ExceptionHandler.abort(e, "A transformation task failed.");      //Execution terminated abnormally
 			    }
 			    finally {
-			        exec.shutdown();
 			        long elapsed = System.currentTimeMillis() - start;
+			        scheduler.writeMetadata(currentConfig.outputDir + "scheduler_metadata.json");    //Decisions of the scheduler and execution time of each task
 			        myAssistant.cleanupFilesInDir(currentConfig.tmpDir);             //Cleanup intermediate files in the temporary directory   
 			        if (failure) {
 			        	System.out.println(myAssistant.getGMTime() + String.format(" Transformation process failed. Elapsed time: %d ms.", elapsed));
@@ -282,7 +363,6 @@ public class Extractor {
 			        else {
 				        System.out.println(myAssistant.getGMTime() + String.format(" Transformation process concluded successfully in %d ms.", elapsed));
 				        System.out.println("RDF results written into the following output files:" + outputFiles.toString());
-				        //myAssistant.mergeFiles(outputFiles, "./test/output/merged_output.rdf");
 				        System.exit(0);          //Execution completed successfully
 			        }
 			    }
@@ -300,7 +380,6 @@ public class Extractor {
 	            long elapsed = System.currentTimeMillis() - start;
 
 	            System.out.println(myAssistant.getGMTime() + String.format(" Transformation process concluded successfully in %d ms.", elapsed));
-	            //Assistant.mergeFiles(outputFiles, "./test/output/merged_output.rdf");
 	            System.exit(0); //Execution completed successfully      
 	        }
 		    
@@ -311,4 +390,25 @@ public class Extractor {
 	    }		    	 			    
 	  }
 
+	/**
+	 * Provides the merger of the outputs of all partitions of an input file, unless merging has been disabled in the configuration.
+	 * @param mergers  Mergers created so far, each one identified by its merged output file.
+	 * @param inFile  Path to the original input file.
+	 * @return  The merger for the outputs of the given input file; null, if outputs of partitions will not be merged.
+	 */
+	private static OutputMerger getMerger(Map<String, OutputMerger> mergers, String inFile) {
+		
+		if (!currentConfig.mergeOutputs)
+			return null;
+		//CAUTION! The merged output file is named as the original input file, with the extension of the RDF serialization
+		String outFile = currentConfig.outputDir + FilenameUtils.getBaseName(inFile) + myAssistant.getOutputExtension(currentConfig.serialization);
+		OutputMerger merger = mergers.get(outFile);
+		if (merger == null)
+		{
+			merger = new OutputMerger(outFile, true);
+			mergers.put(outFile, merger);
+		}
+		return merger;
+	}
+
 }
@@ -22,6 +22,7 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -64,4 +65,10 @@ public class AndExpr implements Expr {
         }
         return true;
     }
+
+    @Override
+    public void collectAttributes(Set<String> attrs) {
+        for(Expr child : children)
+            child.collectAttributes(attrs);
+    }
 }
\ No newline at end of file
@@ -19,6 +19,7 @@
 package eu.slipo.athenarc.triplegeo.expression;
 
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Interface for evaluating a logical (boolean) expression.
@@ -28,7 +29,8 @@ import java.util.Map;
 
 /* DEVELOPMENT HISTORY
  * Created by: Kostas Patroumpas, 4/7/2019; adjusted and expanded to TripleGeo functionality for thematic filtering against input datasets
- * Last modified: 10/7/2019
+ * Modified: 16/10/2026; attributes referenced in an expression can be collected, e.g., in order to keep only those when reading input records
+ * Last modified: 16/10/2026
  */
 public interface Expr {
 	
@@ -38,4 +40,10 @@ public interface Expr {
 	 * @return
 	 */
     public boolean evaluate(Map<String, String> data);
+
+    /**
+     * Collects the names of all attributes referenced in the expression.
+     * @param attrs  The set where the attribute names will be added.
+     */
+    public void collectAttributes(Set<String> attrs);
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ package eu.slipo.athenarc.triplegeo.expression;
 
 import java.text.ParseException;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang3.math.NumberUtils;
 
@@ -133,6 +134,11 @@ public class SimpleExpr implements Expr {
     	return false;
     }
 
+    @Override
+    public void collectAttributes(Set<String> attrs) {
+    	attrs.add(identifier);
+    }
+
     /**
      * Evaluates an expression involving the LIKE operator.
      * @param val  The input value to check.
@@ -20,6 +20,7 @@ package eu.slipo.athenarc.triplegeo.expression;
 
 import java.text.ParseException;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Handles sub-expressions (possibly enclosed in parentheses) in a logical expression.
@@ -63,4 +64,10 @@ public class SubExpr implements Expr {
     public boolean evaluate(Map<String, String> data) {
         return child.evaluate(data);
     }
+
+
+    @Override
+    public void collectAttributes(Set<String> attrs) {
+        child.collectAttributes(attrs);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,407 @@
+/*
+ * @(#) MultipolygonBenchmark.java	version 2.0  16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.extra;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
+import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
+import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.operation.linemerge.LineMerger;
+
+import eu.slipo.athenarc.triplegeo.osm.OSMIdSet;
+import eu.slipo.athenarc.triplegeo.osm.OSMMultipolygonAssembler;
+import eu.slipo.athenarc.triplegeo.osm.OSMNodeStore;
+import eu.slipo.athenarc.triplegeo.osm.OSMPbfReader;
+import eu.slipo.athenarc.triplegeo.utils.Constants;
+import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
+
+/**
+ * Compares the multipolygon assembler against the previous assembly of OSM multipolygons (merging of all member lines and checking each inner ring against each outer ring).
+ * Measurements are taken over the largest 'multipolygon' or 'boundary' relations (i.e., those with the most members) in an OSM PBF file, as well as over synthetic relations with many members.
+ * For each relation, the fastest of several executions of either method is reported in milliseconds.
+ * USAGE: Execution command over JVM:
+ *           java -cp target/triplegeo-2.0-SNAPSHOT.jar eu.slipo.athenarc.triplegeo.extra.MultipolygonBenchmark [<path-to-PBF-file>] [<number-of-relations>] [<number-of-synthetic-polygons>]
+ * ARGUMENTS: (1) Path to the OSM PBF file (default: ./test/data/latest.osm.pbf).
+ *            (2) Number of the largest relations to be assembled (default: 20).
+ *            (3) Number of outer rings in the synthetic relation, each one with a hole and split into several member ways (default: 2500).
+ *
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+public class MultipolygonBenchmark implements Sink {
+
+	private static final int REPETITIONS = 5;                 //Each assembly is repeated, and the fastest execution is reported
+
+	private GeometryFactory geometryFactory = new GeometryFactory();
+	private OSMPbfReader reader;
+	private int numRelations;
+	private List<Relation> relations = new ArrayList<Relation>();        //Candidate relations, eventually only the largest ones
+	private OSMIdSet wantedWays = new OSMIdSet();
+	private Map<Long, long[]> wayNodes = new HashMap<Long, long[]>();    //Node references of the wanted ways
+	private OSMNodeStore nodeStore;
+	private boolean selected = false;                          //True, once the largest relations have been selected
+	private boolean sorted = true;                             //True, if the PBF file declares its elements sorted by type and identifier, i.e., nodes before ways before relations
+	private boolean scanWays = false;                          //In an unsorted file, becomes true once all relations have been scanned in order to scan the ways in another pass
+	private boolean collectNodes = false;                      //False in the passes over relations and ways; True in the last pass (nodes)
+
+
+	/**
+	 * Constructor of the benchmark.
+	 * @param tmpDir  Directory for any temporary files.
+	 * @param numRelations  Number of the largest relations to be assembled.
+	 */
+	public MultipolygonBenchmark(String tmpDir, int numRelations) {
+		this.numRelations = numRelations;
+		nodeStore = new OSMNodeStore(tmpDir);
+	}
+
+
+	public static void main(String[] args) {
+
+		System.out.println(Constants.COPYRIGHT);
+
+		String inputFile = (args.length > 0) ? args[0] : "./test/data/latest.osm.pbf";
+		int numRelations = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+		int numSynthetic = (args.length > 2) ? Integer.parseInt(args[2]) : 2500;
+
+		try {
+			MultipolygonBenchmark benchmark = new MultipolygonBenchmark(System.getProperty("java.io.tmpdir"), numRelations);
+			benchmark.runFile(inputFile);
+			benchmark.runSynthetic(numSynthetic);
+		} catch (Exception e) {
+			ExceptionHandler.abort(e, "Benchmark over OSM PBF file " + inputFile + " failed.");
+		}
+	}
+
+
+	/**
+	 * Benchmarks assembly of the largest multipolygons in an OSM PBF file.
+	 * @param inputFile  Path to the OSM PBF file.
+	 * @throws IOException
+	 */
+	public void runFile(String inputFile) throws IOException {
+
+		File file = new File(inputFile);
+		sorted = OSMPbfReader.isSorted(file);
+
+		//Reverse pass: relations, then node references of their member ways (only relations, if the file is not sorted)
+		read(file, true);
+		if (!sorted)
+		{
+			selectLargest();
+			scanWays = true;
+			read(file, false);                 //Another pass over the entire file for node references of member ways
+		}
+		selectLargest();                       //In case that the file contains no ways
+
+		//Forward pass: locations of referenced nodes
+		nodeStore.seal();
+		collectNodes = true;
+		read(file, false);
+
+		System.out.println("RELATION\tMEMBERS\tPREVIOUS(ms)\tASSEMBLER(ms)\tPOLYGONS");
+		for (Relation r: relations)
+		{
+			List<Geometry> outers = new ArrayList<Geometry>();
+			List<Geometry> inners = new ArrayList<Geometry>();
+			for (RelationMember m: r.getMembers())
+			{
+				Geometry g = wayGeometry(m.getMemberId());
+				if ((!m.getMemberType().name().equalsIgnoreCase("way")) || (g == null))
+					continue;
+				if (m.getMemberRole().equalsIgnoreCase("inner"))
+					inners.add(g);
+				else
+					outers.add(g);
+			}
+			report("" + r.getId(), r.getMembers().size(), outers, inners);
+		}
+		nodeStore.clear();
+	}
+
+
+	/**
+	 * Reads the OSM PBF file and delivers its entities to this benchmark.
+	 */
+	private void read(File file, boolean reverse) {
+
+		reader = new OSMPbfReader(file, Runtime.getRuntime().availableProcessors());
+		reader.setReverse(reverse);
+		reader.setSink(this);
+		reader.run();
+	}
+
+
+	/**
+	 * Benchmarks assembly of a synthetic multipolygon: a grid of square outer rings, each one with a square hole; every ring is split into member ways given in random order.
+	 * @param numPolygons  Number of outer rings.
+	 */
+	public void runSynthetic(int numPolygons) {
+
+		Random random = new Random(42);
+		List<Geometry> outers = new ArrayList<Geometry>();
+		List<Geometry> inners = new ArrayList<Geometry>();
+		int side = (int) Math.ceil(Math.sqrt(numPolygons));
+		for (int i = 0; i < numPolygons; i++)
+		{
+			double x = (i % side) * 10.0;
+			double y = (i / side) * 10.0;
+			split(square(x, y, 8.0, 64), 8, outers);
+			split(square(x + 2.0, y + 2.0, 4.0, 32), 4, inners);
+		}
+		Collections.shuffle(outers, random);
+		Collections.shuffle(inners, random);
+
+		System.out.println("RELATION\tMEMBERS\tPREVIOUS(ms)\tASSEMBLER(ms)\tPOLYGONS");
+		report("synthetic", outers.size() + inners.size(), outers, inners);
+	}
+
+
+	/**
+	 * Measures and reports both assembly methods over the same members.
+	 */
+	private void report(String id, int numMembers, List<Geometry> outers, List<Geometry> inners) {
+
+		OSMMultipolygonAssembler assembler = new OSMMultipolygonAssembler(geometryFactory);
+		long previous = Long.MAX_VALUE;
+		long current = Long.MAX_VALUE;
+		Geometry result = null;
+		for (int i = 0; i < REPETITIONS; i++)
+		{
+			long start = System.nanoTime();
+			previousAssembly(outers, inners);
+			previous = Math.min(previous, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			result = assembler.assemble(outers, inners);
+			current = Math.min(current, System.nanoTime() - start);
+		}
+		System.out.println(id + "\t" + numMembers + "\t" + previous / 1000000.0 + "\t" + current / 1000000.0 + "\t" + result.getNumGeometries());
+	}
+
+
+	/**
+	 * Creates the vertices of a closed square with the given number of vertices per side.
+	 */
+	private Coordinate[] square(double x, double y, double size, int perSide) {
+
+		Coordinate[] coords = new Coordinate[4 * perSide + 1];
+		double step = size / perSide;
+		for (int i = 0; i < perSide; i++)
+		{
+			coords[i] = new Coordinate(x + i * step, y);
+			coords[perSide + i] = new Coordinate(x + size, y + i * step);
+			coords[2 * perSide + i] = new Coordinate(x + size - i * step, y + size);
+			coords[3 * perSide + i] = new Coordinate(x, y + size - i * step);
+		}
+		coords[4 * perSide] = coords[0];
+		return coords;
+	}
+
+
+	/**
+	 * Splits a closed sequence of vertices into linestrings; every other part is reversed.
+	 */
+	private void split(Coordinate[] coords, int parts, List<Geometry> ways) {
+
+		int len = (coords.length - 1) / parts;
+		for (int p = 0; p < parts; p++)
+		{
+			Coordinate[] part = Arrays.copyOfRange(coords, p * len, (p == parts - 1) ? coords.length : (p + 1) * len + 1);
+			if (p % 2 == 1)
+				Collections.reverse(Arrays.asList(part));
+			ways.add(geometryFactory.createLineString(part));
+		}
+	}
+
+
+	/**
+	 * Creates the geometry of a collected way from the locations of its nodes.
+	 */
+	private Geometry wayGeometry(long id) {
+
+		long[] refs = wayNodes.get(id);
+		if (refs == null)
+			return null;
+		List<Coordinate> coords = new ArrayList<Coordinate>(refs.length);
+		for (long ref: refs)
+		{
+			Coordinate c = nodeStore.get(ref);
+			if (c != null)
+				coords.add(c);
+		}
+		if (coords.size() < 2)
+			return null;
+		return geometryFactory.createLineString(coords.toArray(new Coordinate[coords.size()]));
+	}
+
+
+	/**
+	 * Keeps only the relations with the most members and marks their member ways as wanted.
+	 */
+	private void selectLargest() {
+
+		if (selected)
+			return;
+		selected = true;
+		relations.sort((a, b) -> Integer.compare(b.getMembers().size(), a.getMembers().size()));
+		relations = new ArrayList<Relation>(relations.subList(0, Math.min(numRelations, relations.size())));
+		for (Relation r: relations)
+			for (RelationMember m: r.getMembers())
+				if (m.getMemberType().name().equalsIgnoreCase("way"))
+					wantedWays.add(m.getMemberId());
+	}
+
+
+	/**
+	 * Assembles a multipolygon as previously done: member lines are merged, and every inner ring is checked against every outer ring.
+	 */
+	private Geometry previousAssembly(List<Geometry> outers, List<Geometry> inners) {
+
+		GeometryFactory factory = new GeometryFactory();           //A new factory per relation
+		List<LinearRing> outerRings = previousRings(factory, outers);
+		List<LinearRing> innerRings = previousRings(factory, inners);
+		if (outerRings.size() == 1)
+			return factory.createPolygon(outerRings.get(0), innerRings.toArray(new LinearRing[innerRings.size()]));
+
+		Polygon[] polygons = new Polygon[outerRings.size()];
+		for (int i = 0; i < outerRings.size(); i++)
+		{
+			List<LinearRing> holes = new ArrayList<LinearRing>();
+			for (LinearRing inner: innerRings)
+				if (factory.createPolygon(outerRings.get(i), null).contains(factory.createPolygon(inner, null)))
+					holes.add(inner);
+			polygons[i] = factory.createPolygon(outerRings.get(i), holes.toArray(new LinearRing[holes.size()]));
+		}
+		return factory.createMultiPolygon(polygons);
+	}
+
+
+	/**
+	 * Forms rings as previously done: closed members are rings already, whereas the rest are merged with a LineMerger.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<LinearRing> previousRings(GeometryFactory factory, List<Geometry> members) {
+
+		List<LinearRing> rings = new ArrayList<LinearRing>();
+		LineMerger merger = new LineMerger();
+		for (Geometry g: members)
+		{
+			if (g instanceof Polygon)
+				rings.add((LinearRing) ((Polygon) g).getExteriorRing());
+			else if (g instanceof LinearRing)
+				rings.add((LinearRing) g);
+			else if ((g instanceof LineString) && (((LineString) g).isClosed()))
+				rings.add(factory.createLinearRing(g.getCoordinates()));
+			else if (g instanceof LineString)
+				merger.add(g);
+		}
+		for (LineString l: (Collection<LineString>) merger.getMergedLineStrings())
+			if (l.isClosed())
+				rings.add(factory.createLinearRing(l.getCoordinates()));
+		return rings;
+	}
+
+
+	@Override
+	public void initialize(Map<String, Object> metaData) {
+	}
+
+
+	@Override
+	public void process(EntityContainer entityContainer) {
+
+		if (collectNodes)
+		{
+			if (entityContainer instanceof NodeContainer)
+			{
+				Node n = ((NodeContainer) entityContainer).getEntity();
+				nodeStore.put(n.getId(), n.getLongitude(), n.getLatitude());
+			}
+			else if (sorted)
+				reader.stop();                                     //All nodes precede the ways
+		}
+		else if ((entityContainer instanceof RelationContainer) && (!scanWays))
+		{
+			Relation r = ((RelationContainer) entityContainer).getEntity();
+			for (Tag t: r.getTags())
+				if ((t.getKey().equals("type")) && ((t.getValue().equalsIgnoreCase("multipolygon")) || (t.getValue().equalsIgnoreCase("boundary"))))
+					relations.add(r);
+		}
+		else if ((entityContainer instanceof WayContainer) && ((sorted) || (scanWays)))
+		{
+			selectLargest();                                       //All relations have been read
+			Way w = ((WayContainer) entityContainer).getEntity();
+			if (wantedWays.contains(w.getId()))
+			{
+				long[] refs = new long[w.getWayNodes().size()];
+				int i = 0;
+				for (WayNode wn: w.getWayNodes())
+				{
+					refs[i++] = wn.getNodeId();
+					nodeStore.reference(wn.getNodeId());
+				}
+				wayNodes.put(w.getId(), refs);
+			}
+		}
+		else if ((entityContainer instanceof NodeContainer) && (sorted))
+			reader.stop();                                         //No more ways in the reverse pass
+	}
+
+
+	@Override
+	public void complete() {
+	}
+
+
+	@Override
+	public void close() {
+	}
+
+}
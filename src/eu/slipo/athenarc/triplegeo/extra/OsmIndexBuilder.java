@@ -0,0 +1,77 @@
+/*
+ * @(#) OsmIndexBuilder.java	version 2.0  16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.extra;
+
+import java.io.File;
+
+import eu.slipo.athenarc.triplegeo.osm.OSMPersistentIndex;
+import eu.slipo.athenarc.triplegeo.utils.Constants;
+import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
+
+/**
+ * Prebuilds the persistent index over an OSM PBF file, so that subsequent transformations of this file (specifying the same 'osmIndexDir' in their configuration) parse it only once.
+ * If a valid index already exists for this file, it is kept unless rebuilding is requested.
+ * USAGE: Execution command over JVM:
+ *           java -cp target/triplegeo-2.0-SNAPSHOT.jar eu.slipo.athenarc.triplegeo.extra.OsmIndexBuilder <path-to-PBF-file> <path-to-index-dir> [<number-of-threads>] [rebuild]
+ * ARGUMENTS: (1) Path to the OSM PBF file.
+ *            (2) Path to the directory holding persistent indices; the index is created in a subdirectory named after the signature of the file (its size, modification time, and a checksum over its first and last blocks).
+ *            (3) Number of threads decoding blocks of the file (default: as many as the available processors).
+ *            (4) Specify 'rebuild' in order to build the index even if a valid one exists.
+ *
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+public class OsmIndexBuilder {
+
+	public static void main(String[] args) {
+
+		System.out.println(Constants.COPYRIGHT);
+
+		if (args.length < 2)
+		{
+			System.err.println("Incorrect arguments. Please specify the path to an OSM PBF file and the directory for persistent indices.");
+			System.exit(1);
+		}
+
+		File input = new File(args[0]);
+		String indexDir = args[1];
+		int numDecoders = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		boolean rebuild = (args.length > 3) && (args[3].equalsIgnoreCase("rebuild"));
+
+		try {
+			String signature = OSMPersistentIndex.signature(input);
+			File dir = new File(indexDir, signature);
+			if ((!rebuild) && (OSMPersistentIndex.isValid(dir, signature)))
+				System.out.println("A valid persistent index for " + input + " already exists in " + dir + ".");
+			else
+				dir = OSMPersistentIndex.build(input, signature, indexDir, numDecoders);
+
+			//Verify that the index can be opened
+			OSMPersistentIndex.open(dir, signature).close();
+		} catch (Exception e) {
+			ExceptionHandler.abort(e, "Cannot build the persistent index of OSM file " + input + ".");
+		}
+	}
+
+}
@@ -0,0 +1,351 @@
+/*
+ * @(#) OsmXmlBenchmark.java	version 2.0  16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.extra;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import eu.slipo.athenarc.triplegeo.osm.OSMNode;
+import eu.slipo.athenarc.triplegeo.osm.OSMRelation;
+import eu.slipo.athenarc.triplegeo.osm.OSMWay;
+import eu.slipo.athenarc.triplegeo.osm.OSMXmlReader;
+import eu.slipo.athenarc.triplegeo.utils.Constants;
+import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
+
+/**
+ * Compares the streaming reader of OSM XML files against the previous SAX handler, which created an object (with string identifiers and tags) for each OSM element in every pass.
+ * A sample OSM XML file is scaled up by a generator that repeats its elements with shifted identifiers and coordinates; the generated file may be compressed with gzip or bzip2.
+ * For each reader, the passes of a transformation are measured: three passes with the SAX handler (relations, ways, all elements) over the decompressed file, and two passes (ways and relations, all elements) with the streaming reader.
+ * USAGE: Execution command over JVM:
+ *           java -cp target/triplegeo-2.0-SNAPSHOT.jar eu.slipo.athenarc.triplegeo.extra.OsmXmlBenchmark [<path-to-OSM-XML-file>] [<number-of-copies>] [<compression>]
+ * ARGUMENTS: (1) Path to the sample OSM XML file (default: ./test/data/latest.osm).
+ *            (2) Number of copies of the sample in the generated file (default: 1000).
+ *            (3) Compression of the generated file: none, gz, or bz2 (default: none).
+ *
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+public class OsmXmlBenchmark {
+
+	private static final int REPETITIONS = 3;                 //Each measurement is repeated, and the fastest execution is reported
+
+	//Elements of the sample, each one as it will be written
+	private List<long[]> nodes = new ArrayList<long[]>();           //Identifier and fixed-point coordinates
+	private List<String[]> nodeTags = new ArrayList<String[]>();
+	private List<long[]> ways = new ArrayList<long[]>();            //Identifier followed by node identifiers
+	private List<String[]> wayTags = new ArrayList<String[]>();
+	private List<long[]> relations = new ArrayList<long[]>();       //Identifier followed by pairs of member types and identifiers
+	private List<String[]> relationRoles = new ArrayList<String[]>();
+	private List<String[]> relationTags = new ArrayList<String[]>();
+	private long maxId = 0;
+
+
+	public static void main(String[] args) {
+
+		System.out.println(Constants.COPYRIGHT);
+
+		String inputFile = (args.length > 0) ? args[0] : "./test/data/latest.osm";
+		int copies = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+		String compression = (args.length > 2) ? args[2].toLowerCase() : "none";
+
+		try {
+			OsmXmlBenchmark benchmark = new OsmXmlBenchmark();
+			benchmark.load(new File(inputFile));
+			File generated = File.createTempFile("osm-benchmark", ".osm" + (compression.equals("none") ? "" : "." + compression));
+			generated.deleteOnExit();
+			long start = System.currentTimeMillis();
+			benchmark.generate(generated, copies, compression);
+			System.out.println("Generated " + generated + " (" + generated.length() + " bytes) with " + copies + " copies of " + inputFile + " in " + (System.currentTimeMillis() - start) + " ms.");
+
+			System.out.println("READER\tPASSES\tELEMENTS\tTIME(ms)");
+			benchmark.report("SAX handler", generated, true);
+			benchmark.report("Streaming reader", generated, false);
+		} catch (Exception e) {
+			ExceptionHandler.abort(e, "Benchmark over OSM XML file " + inputFile + " failed.");
+		}
+	}
+
+
+	/**
+	 * Loads all elements of the sample file.
+	 */
+	private void load(File input) throws IOException {
+
+		OSMXmlReader reader = new OSMXmlReader(input);
+		reader.run(e -> {
+			maxId = Math.max(maxId, e.getId());
+			String[] t = new String[2 * e.getNumTags()];
+			for (int i = 0; i < e.getNumTags(); i++)
+			{
+				t[2 * i] = e.getTagKey(i);
+				t[2 * i + 1] = e.getTagValue(i);
+			}
+			if (e.getType() == OSMXmlReader.NODE)
+			{
+				nodes.add(new long[] {e.getId(), Math.round(e.getLon() * 1e7), Math.round(e.getLat() * 1e7)});
+				nodeTags.add(t);
+			}
+			else if (e.getType() == OSMXmlReader.WAY)
+			{
+				long[] w = new long[1 + e.getNumNodes()];
+				w[0] = e.getId();
+				for (int i = 0; i < e.getNumNodes(); i++)
+					w[1 + i] = e.getNodeId(i);
+				ways.add(w);
+				wayTags.add(t);
+			}
+			else
+			{
+				long[] r = new long[1 + 2 * e.getNumMembers()];
+				String[] roles = new String[e.getNumMembers()];
+				r[0] = e.getId();
+				for (int i = 0; i < e.getNumMembers(); i++)
+				{
+					r[1 + 2 * i] = e.getMemberType(i);
+					r[2 + 2 * i] = e.getMemberId(i);
+					roles[i] = e.getMemberRole(i);
+				}
+				relations.add(r);
+				relationRoles.add(roles);
+				relationTags.add(t);
+			}
+		});
+	}
+
+
+	/**
+	 * Generates a file with several copies of the sample: all nodes of every copy, then all ways, then all relations, as in OSM files.
+	 * Identifiers of each copy are shifted beyond those of the previous copy; coordinates are slightly shifted as well.
+	 */
+	private void generate(File output, int copies, String compression) throws IOException {
+
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(output), 1 << 20);
+		if (compression.equals("gz"))
+			out = new GZIPOutputStream(out, 1 << 16);
+		else if (compression.equals("bz2"))
+			out = new BZip2CompressorOutputStream(out);
+
+		String[] types = {"node", "way", "relation"};
+		try (Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+			w.write("<?xml version='1.0' encoding='UTF-8'?>\n<osm version=\"0.6\" generator=\"TripleGeo OsmXmlBenchmark\">\n");
+			for (int c = 0; c < copies; c++)
+				for (int i = 0; i < nodes.size(); i++)
+				{
+					long[] n = nodes.get(i);
+					w.write("\t<node id=\"" + shift(n[0], c) + "\" lat=\"" + (n[2] + c % 100) / 1e7 + "\" lon=\"" + (n[1] + c / 100) / 1e7 + "\" version=\"1\"");
+					writeTags(w, nodeTags.get(i), "node");
+				}
+			for (int c = 0; c < copies; c++)
+				for (int i = 0; i < ways.size(); i++)
+				{
+					long[] way = ways.get(i);
+					w.write("\t<way id=\"" + shift(way[0], c) + "\" version=\"1\">\n");
+					for (int j = 1; j < way.length; j++)
+						w.write("\t\t<nd ref=\"" + shift(way[j], c) + "\"/>\n");
+					writeTags(w, wayTags.get(i), null);
+					w.write("\t</way>\n");
+				}
+			for (int c = 0; c < copies; c++)
+				for (int i = 0; i < relations.size(); i++)
+				{
+					long[] r = relations.get(i);
+					w.write("\t<relation id=\"" + shift(r[0], c) + "\" version=\"1\">\n");
+					for (int j = 0; 2 * j + 1 < r.length; j++)
+						w.write("\t\t<member type=\"" + types[(int) r[1 + 2 * j]] + "\" ref=\"" + shift(r[2 + 2 * j], c) + "\" role=\"" + escape(relationRoles.get(i)[j]) + "\"/>\n");
+					writeTags(w, relationTags.get(i), null);
+					w.write("\t</relation>\n");
+				}
+			w.write("</osm>\n");
+		}
+	}
+
+
+	private long shift(long id, int copy) {
+		return id + copy * (maxId + 1);
+	}
+
+
+	/**
+	 * Writes the tags of an element; for a node, its element is closed as well.
+	 */
+	private static void writeTags(Writer w, String[] t, String node) throws IOException {
+
+		if (node != null)
+			w.write((t.length == 0) ? "/>\n" : ">\n");
+		for (int i = 0; i < t.length; i += 2)
+			w.write("\t\t<tag k=\"" + escape(t[i]) + "\" v=\"" + escape(t[i + 1]) + "\"/>\n");
+		if ((node != null) && (t.length > 0))
+			w.write("\t</node>\n");
+	}
+
+
+	private static String escape(String s) {
+		return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+	}
+
+
+	/**
+	 * Measures and reports all passes of a reader over the generated file.
+	 */
+	private void report(String name, File file, boolean sax) throws Exception {
+
+		long best = Long.MAX_VALUE;
+		long elements = 0;
+		int passes = sax ? 3 : 2;
+		for (int i = 0; i < REPETITIONS; i++)
+		{
+			long start = System.nanoTime();
+			elements = sax ? runSax(file) : runStreaming(file);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		System.out.println(name + "\t" + passes + "\t" + elements + "\t" + best / 1000000.0);
+	}
+
+
+	/**
+	 * Runs the passes of the previous SAX handler: scans of relations and ways, followed by parsing of all elements into objects.
+	 * @return  Number of elements handled in the last pass.
+	 */
+	private long runSax(File file) throws Exception {
+
+		SaxHandler handler = new SaxHandler();
+		SAXParserFactory factory = SAXParserFactory.newInstance();
+		for (String pass: new String[] {"relation", "way", null})
+		{
+			handler.pass = pass;
+			handler.count = 0;
+			try (InputStream in = OSMXmlReader.open(file)) {
+				factory.newSAXParser().parse(in, handler);
+			}
+		}
+		return handler.count;
+	}
+
+
+	/**
+	 * Runs the passes of the streaming reader: a scan of ways and relations skipping nodes, followed by parsing of all elements.
+	 * @return  Number of elements handled in the last pass.
+	 */
+	private long runStreaming(File file) throws IOException {
+
+		OSMXmlReader reader = new OSMXmlReader(file);
+		long[] refs = new long[1];
+		reader.setSkip(OSMXmlReader.NODE, true);
+		reader.run(e -> refs[0] += e.getNumNodes() + e.getNumMembers());
+		reader.setSkip(OSMXmlReader.NODE, false);
+		reader.run(e -> refs[0] += e.getNumTags());
+		return reader.getNumElements();
+	}
+
+
+	/**
+	 * Handler with the work done per element by the previous SAX-based transformation: string identifiers and tags collected into objects, and temporary lists of references in the scans.
+	 */
+	private static class SaxHandler extends DefaultHandler {
+
+		String pass;                                   //"relation" or "way" for the scans; null for the parsing of all elements
+		long count;
+		private GeometryFactory geometryFactory = new GeometryFactory();
+		private List<Long> refs = new ArrayList<Long>();
+		private OSMNode node;
+		private OSMWay way;
+		private OSMRelation relation;
+
+		@Override
+		public void startElement(String s, String s1, String name, Attributes attributes) {
+
+			if (pass != null)
+			{
+				if ((name.equals("nd")) || (name.equals("member")))
+					refs.add(Long.parseLong(attributes.getValue("ref")));
+				return;
+			}
+			switch (name) {
+			case "node":
+				node = new OSMNode();
+				node.setID(attributes.getValue("id"));
+				node.setGeometry(geometryFactory.createPoint(new Coordinate(Double.parseDouble(attributes.getValue("lon")), Double.parseDouble(attributes.getValue("lat")))));
+				break;
+			case "way":
+				way = new OSMWay();
+				way.setID(attributes.getValue("id"));
+				break;
+			case "relation":
+				relation = new OSMRelation();
+				relation.setID(attributes.getValue("id"));
+				break;
+			case "nd":
+				way.addNodeReference(attributes.getValue("ref"));
+				break;
+			case "member":
+				relation.addMemberReference(attributes.getValue("ref"), attributes.getValue("type"), attributes.getValue("role"));
+				break;
+			case "tag":
+				if (relation != null)
+					relation.setTagKeyValue(attributes.getValue("k"), attributes.getValue("v"));
+				else if (way != null)
+					way.setTagKeyValue(attributes.getValue("k"), attributes.getValue("v"));
+				else if (node != null)
+					node.setTagKeyValue(attributes.getValue("k"), attributes.getValue("v"));
+				break;
+			default:
+				break;
+			}
+		}
+
+		@Override
+		public void endElement(String s, String s1, String name) {
+
+			if ((name.equals("node")) || (name.equals("way")) || (name.equals("relation")))
+			{
+				if ((pass == null) || (pass.equals(name)))
+					count++;
+				refs.clear();
+				node = null;
+				way = null;
+				relation = null;
+			}
+		}
+	}
+
+}
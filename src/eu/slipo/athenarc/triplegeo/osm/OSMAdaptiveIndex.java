@@ -0,0 +1,516 @@
+/*
+ * @(#) OSMAdaptiveIndex.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.osm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBReader;
+import com.vividsolutions.jts.io.WKBWriter;
+
+import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
+
+/**
+ * Index over geometries of OSM elements that keeps them in memory up to a given budget and then spills the least recently used ones to a memory-mapped file on disk.
+ * Entries are grouped into segments in order of insertion; once the estimated memory of the index exceeds the budget, whole segments (the least recently accessed first) are encoded in WKB and appended to the file.
+ * The estimate covers the geometries in memory, as well as the key and bookkeeping of every entry; the latter remain in memory even for spilled entries, so a budget smaller than their total leaves nothing but the latest segment in memory.
+ * Lookups are served transparently from either tier; spilled geometries are decoded from the file on each access.
+ * Unlike a choice made in advance between an in-memory and a disk-based index, this never runs out of memory if the number of referenced elements is underestimated, and never resorts to disk if they fit in memory.
+ * Thread-safe; lookups share a read lock, so that they proceed concurrently (e.g., from threads assembling relations), whereas insertions and spilling hold a write lock.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OSMAdaptiveIndex implements OSMIndex {
+
+	private static final int SEGMENT_ENTRIES = 4096;               //Number of entries per segment
+	private static final int CHUNK_SIZE = 1 << 26;                 //Size (in bytes) of each memory-mapped chunk of the file
+	private static final int ENTRY_OVERHEAD = 96;                  //Estimated memory (in bytes) per entry for its node and slot in the hash map, its Entry object and its slot in a segment
+
+	/**
+	 * An indexed geometry, either in memory or at a given position in the file.
+	 */
+	private static class Entry {
+		Geometry geometry;                   //Null once spilled, unless it is empty (or null)...
+		long offset;                         //...then found at this position in the file...
+		int length;                          //...with this size (in bytes) of its WKB representation; 0 for an empty (or null) geometry, which is kept in memory
+		Segment segment;                     //Null once spilled
+	}
+
+	/**
+	 * Entries inserted consecutively; these are spilled together.
+	 */
+	private static class Segment {
+		List<String> keys = new ArrayList<String>(SEGMENT_ENTRIES);
+		long bytes = 0;                      //Estimated memory occupied by the geometries of these entries
+		volatile long lastAccess = 0;        //Logical time of the latest access to any of these entries; also updated by concurrent lookups
+	}
+
+	private String tmpDir;
+	private String name;
+	private long budget;                                           //Memory (in bytes) available for geometries, keys and entries
+
+	private Map<String, Entry> index = new HashMap<String, Entry>();
+	private List<Segment> segments = new ArrayList<Segment>();     //Segments with geometries in memory
+	private Segment current = null;                                //Segment receiving new entries
+	private long memoryBytes = 0;                                  //Estimated memory of geometries in memory, plus that of keys and entries (including spilled ones)
+	private long entryBytes = 0;                                   //Estimated memory of keys and entries only, which cannot be spilled
+	private int memoryEntries = 0;
+	private boolean exhausted = false;                             //True, once keys and entries alone have exceeded the budget
+	private AtomicLong clock = new AtomicLong();
+	private ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private File file = null;                                      //Created only if any segment is spilled
+	private RandomAccessFile raf = null;
+	private List<MappedByteBuffer> chunks = new ArrayList<MappedByteBuffer>();
+	private long fileSize = 0;
+
+	private WKBWriter writer = new WKBWriter();
+	private ThreadLocal<WKBReader> reader;                         //Readers are not thread-safe
+
+	private AtomicLong memoryHits = new AtomicLong();
+	private AtomicLong diskHits = new AtomicLong();
+	private AtomicLong misses = new AtomicLong();
+	private long spilledSegments = 0;
+	private long spilledEntries = 0;
+
+
+	/**
+	 * Constructor of the index.
+	 * @param tmpDir  Directory to hold the file of spilled geometries, if needed.
+	 * @param name  Name of the index, also used as prefix of its file.
+	 * @param budget  Memory (in bytes) available for geometries kept in memory, as well as for the keys and bookkeeping of all entries.
+	 * @param geometryFactory  The factory used for creating spilled geometries once decoded.
+	 */
+	public OSMAdaptiveIndex(String tmpDir, String name, long budget, GeometryFactory geometryFactory) {
+
+		this.tmpDir = tmpDir;
+		this.name = name;
+		this.budget = budget;
+		reader = ThreadLocal.withInitial(() -> new WKBReader(geometryFactory));
+	}
+
+
+	/**
+	 * Estimates the memory occupied by a geometry, dominated by the coordinates of its vertices.
+	 */
+	private static long estimateSize(Geometry g) {
+
+		if (g == null)
+			return 16;
+		return 64 + 32L * g.getNumGeometries() + 48L * g.getNumPoints();
+	}
+
+
+	/**
+	 * Estimates the memory occupied by an entry with the given key, apart from its geometry.
+	 */
+	private static long estimateOverhead(String k) {
+
+		return ENTRY_OVERHEAD + 40 + 2L * k.length();   //String object with its array of characters
+	}
+
+
+    /**
+     * Inserts (or updates) an entry into the index with the given key value and geometry.
+     * @param k  The key value of the entry.
+     * @param g  The geometry of the entry.
+     */
+	public void put(String k, Geometry g) {
+
+		lock.writeLock().lock();
+		try {
+			insert(k, g);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+
+	/**
+	 * Inserts (or updates) an entry while holding the write lock, and spills segments if the budget is exceeded.
+	 */
+	private void insert(String k, Geometry g) {
+
+		Entry e = index.get(k);
+		if (e == null)
+		{
+			e = new Entry();
+			index.put(k, e);
+			long overhead = estimateOverhead(k);
+			entryBytes += overhead;
+			memoryBytes += overhead;
+		}
+		else if (e.segment != null)          //An updated entry remains in its segment
+			release(e);
+
+		if (e.segment == null)
+		{
+			if ((current == null) || (current.keys.size() >= SEGMENT_ENTRIES))
+			{
+				current = new Segment();
+				segments.add(current);
+			}
+			current.keys.add(k);
+			e.segment = current;
+			memoryEntries++;
+		}
+		long size = estimateSize(g);
+		e.geometry = g;
+		e.segment.bytes += size;
+		e.segment.lastAccess = clock.incrementAndGet();
+		memoryBytes += size;
+
+		while ((memoryBytes > budget) && (spill()))
+			;
+		if ((!exhausted) && (entryBytes > budget))
+		{
+			exhausted = true;
+			System.out.println("WARNING: Keys and entries of index " + name + " alone exceed its memory budget of " + (budget >> 20) + " MB. Only the latest geometries are kept in memory.");
+		}
+	}
+
+
+	/**
+	 * Discounts the memory occupied by the geometry of an entry that is about to be replaced.
+	 */
+	private void release(Entry e) {
+
+		long size = estimateSize(e.geometry);
+		e.segment.bytes -= size;
+		memoryBytes -= size;
+	}
+
+
+	/**
+	 * Spills the least recently accessed segment (other than the one receiving new entries) to the file.
+	 * @return  True, if a segment was spilled; False, if no segment can be spilled.
+	 */
+	private boolean spill() {
+
+		Segment victim = null;
+		for (Segment s: segments)
+			if ((s != current) && ((victim == null) || (s.lastAccess < victim.lastAccess)))
+				victim = s;
+		if (victim == null)
+			return false;
+
+		try {
+			if (file == null)
+			{
+				file = File.createTempFile(name, ".spill", new File(tmpDir));
+				file.deleteOnExit();
+				raf = new RandomAccessFile(file, "rw");
+				System.out.println("Memory budget of " + (budget >> 20) + " MB for index " + name + " exceeded. Spilling geometries to " + file + "...");
+			}
+			for (String k: victim.keys)
+			{
+				Entry e = index.get(k);
+				if ((e == null) || (e.segment != victim))
+					continue;
+				if ((e.geometry != null) && (!e.geometry.isEmpty()))
+				{
+					write(e, writer.write(e.geometry));
+					e.geometry = null;
+				}
+				else
+				{
+					e.offset = fileSize;
+					e.length = 0;                    //Not all empty geometries can be represented in WKB, but they hardly occupy any memory
+				}
+				e.segment = null;
+				memoryEntries--;
+				spilledEntries++;
+			}
+		} catch (IOException ex) {
+			ExceptionHandler.abort(ex, "Cannot spill geometries of index " + name + " to disk.");
+		}
+
+		segments.remove(victim);
+		memoryBytes -= victim.bytes;
+		spilledSegments++;
+		return true;
+	}
+
+
+	/**
+	 * Appends the WKB representation of a geometry to the file. Any representation that does not fit in the rest of the current chunk starts at the next chunk, unless it is larger than a chunk.
+	 */
+	private void write(Entry e, byte[] wkb) throws IOException {
+
+		long remaining = CHUNK_SIZE - (fileSize % CHUNK_SIZE);
+		if ((wkb.length > remaining) && (wkb.length <= CHUNK_SIZE))
+			fileSize += remaining;
+		e.offset = fileSize;
+		e.length = wkb.length;
+		if (wkb.length > CHUNK_SIZE)
+			raf.getChannel().write(ByteBuffer.wrap(wkb), fileSize);
+		else
+		{
+			MappedByteBuffer chunk = chunk((int) (fileSize / CHUNK_SIZE));
+			chunk.position((int) (fileSize % CHUNK_SIZE));
+			chunk.put(wkb);
+		}
+		fileSize += wkb.length;
+	}
+
+
+	/**
+	 * Provides a memory-mapped chunk of the file, mapping it (and any preceding chunks) if needed.
+	 */
+	private MappedByteBuffer chunk(int i) throws IOException {
+
+		while (chunks.size() <= i)
+			chunks.add(null);
+		if (chunks.get(i) == null)
+			chunks.set(i, raf.getChannel().map(FileChannel.MapMode.READ_WRITE, (long) i * CHUNK_SIZE, CHUNK_SIZE));
+		return chunks.get(i);
+	}
+
+
+	/**
+	 * Reads the WKB representation of a spilled geometry from the file. Called under the read lock; the file and its mapped chunks only change under the write lock.
+	 */
+	private byte[] read(Entry e) throws IOException {
+
+		byte[] wkb = new byte[e.length];
+		if (e.length > CHUNK_SIZE)
+		{
+			ByteBuffer buf = ByteBuffer.wrap(wkb);
+			while (buf.hasRemaining())
+				raf.getChannel().read(buf, e.offset + buf.position());
+		}
+		else
+		{
+			ByteBuffer chunk = chunks.get((int) (e.offset / CHUNK_SIZE)).duplicate();     //Already mapped when the geometry was written
+			chunk.position((int) (e.offset % CHUNK_SIZE));
+			chunk.get(wkb);
+		}
+		return wkb;
+	}
+
+
+    /**
+     * Provides the geometry indexed under the given (unique) key value.
+     * @param k  The key value to find.
+     * @return  The geometry of the indexed entry with the specified key.
+     */
+	public Geometry get(String k) {
+
+		lock.readLock().lock();
+		try {
+			Entry e = index.get(k);
+			if (e == null)
+			{
+				misses.incrementAndGet();
+				return null;
+			}
+			Segment s = e.segment;
+			if (s != null)
+			{
+				memoryHits.incrementAndGet();
+				s.lastAccess = clock.incrementAndGet();
+				return e.geometry;
+			}
+			diskHits.incrementAndGet();
+			if (e.length == 0)
+				return e.geometry;                     //Empty (or null) geometry kept in memory
+			Geometry g = null;
+			try {
+				g = reader.get().read(read(e));        //Decode geometry from its WKB representation
+			} catch (IOException | ParseException ex) {
+				ExceptionHandler.abort(ex, "Cannot read geometry of " + k + " from file " + file + " of index " + name + ".");
+			}
+			return g;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+
+    /**
+     * Checks whether the index contains an entry with the given key value.
+	 * @param k  A key value to check with the index contents.
+	 * @return True if there is an entry with that key; otherwise, False.
+     */
+	public boolean containsKey(String k) {
+
+		lock.readLock().lock();
+		try {
+			return index.containsKey(k);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+
+    /**
+     * Inserts a collection of geometries into the index.
+	 * @param m  Collection of geometries with their keys (string values).
+     */
+	public void putAll(Map<String, Geometry> m) {
+
+		lock.writeLock().lock();
+		try {
+			for (Map.Entry<String, Geometry> e: m.entrySet())
+				insert(e.getKey(), e.getValue());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+
+    /**
+     * Provides the count of entries in the index.
+     * @return  An integer value representing the total count.
+     */
+	public int size() {
+
+		lock.readLock().lock();
+		try {
+			return index.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+
+    /**
+     * Erases all contents of the index and deletes its file on disk, if any.
+     */
+	public void clear() {
+
+		lock.writeLock().lock();
+		try {
+			erase();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+
+	/**
+	 * Erases all contents of the index while holding the write lock.
+	 */
+	private void erase() {
+
+		index.clear();
+		segments.clear();
+		current = null;
+		memoryBytes = 0;
+		entryBytes = 0;
+		memoryEntries = 0;
+		exhausted = false;
+		chunks.clear();                      //Mappings are released once garbage collected
+		if (raf != null)
+		{
+			try {
+				raf.close();
+			} catch (IOException e) {
+				ExceptionHandler.warn(e, "Cannot close file " + file + " of index " + name + ".");
+			}
+			raf = null;
+		}
+		if (file != null)
+		{
+			if (!file.delete())
+				System.out.println("Cannot delete file " + file + "; it will be deleted on exit.");
+			file = null;
+		}
+		fileSize = 0;
+	}
+
+
+    /**
+     * Print the contents of the index to standard output.
+     */
+	public void print() {
+
+		lock.readLock().lock();
+		try {
+			for (String k: index.keySet())
+				System.out.println(k + " " + get(k));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+
+	/**
+	 * Provides statistics on the use of both tiers of the index, e.g., to be included in the metadata of a transformation.
+	 * @return  A map with the value of each statistic.
+	 */
+	public Map<String, Object> getStatistics() {
+
+		lock.readLock().lock();
+		try {
+			return statistics();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+
+	/**
+	 * Collects statistics on the use of the index while holding the read lock.
+	 */
+	private Map<String, Object> statistics() {
+
+		long memoryHits = this.memoryHits.get();
+		long diskHits = this.diskHits.get();
+		long misses = this.misses.get();
+		long lookups = memoryHits + diskHits + misses;
+		Map<String, Object> stats = new LinkedHashMap<String, Object>();
+		stats.put("Entries", index.size());
+		stats.put("Memory budget (bytes)", budget);
+		stats.put("Entries in memory", memoryEntries);
+		stats.put("Estimated memory (bytes)", memoryBytes);
+		stats.put("Estimated memory of keys and entries (bytes)", entryBytes);
+		stats.put("Spilled segments", spilledSegments);
+		stats.put("Spilled entries", spilledEntries);
+		stats.put("Spill file size (bytes)", fileSize);
+		stats.put("Lookups", lookups);
+		stats.put("Memory hits", memoryHits);
+		stats.put("Disk hits", diskHits);
+		stats.put("Misses", misses);
+		stats.put("Memory hit rate", (lookups > 0) ? (double) memoryHits / lookups : 0.0);
+		stats.put("Disk hit rate", (lookups > 0) ? (double) diskHits / lookups : 0.0);
+		return stats;
+	}
+}
@@ -0,0 +1,738 @@
+/*
+ * @(#) OSMChangeState.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.osm;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.HTreeMap;
+import org.mapdb.Serializer;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * Persistent state of OSM data that has been transformed into RDF, so that subsequent changes (e.g., daily diffs in osmChange format) can be applied incrementally.
+ * The state is kept in a disk-based MapDB store in a given directory, and it contains:
+ *  - locations of all OSM nodes, node lists of all OSM ways, and members and tags of all OSM relations, so that geometries of changed or new elements can be created;
+ *  - tags of OSM nodes and ways that match the user-specified filters (i.e., those that may be transformed);
+ *  - reverse references from nodes to ways and from any element to the relations containing it, so that changes in the location of a node are propagated to the geometries of ways and relations;
+ *  - the RDF triples (in N-Triples) issued for each transformed element, so that these can be deleted once the element changes.
+ * Elements whose triples must be issued again due to changes are collected, and they are examined once all changes have been applied.
+ * Changes are applied in a transaction, which is committed once all resulting triples have been written; the state is only initialized without transactions.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OSMChangeState {
+
+	private static final int VERSION = 1;                          //Format of the state; states of other versions must be initialized again
+	private static final String PROPERTIES = "state.properties";
+	private static final double SCALE = 1e7;                       //Fixed-point precision of node locations, as in OSM
+	private static final int WAY_CACHE_SIZE = 10000;               //Geometries of ways kept while issuing triples of relations
+
+	private File dir;
+	private DB db;
+	private boolean initializing;                                  //True, if the state is created from scratch, e.g., from an OSM extract
+
+	private HTreeMap<Long, Long> nodes;                            //Packed locations of all nodes
+	private HTreeMap<Long, long[]> ways;                           //Node lists of all ways
+	private HTreeMap<Long, Object> relations;                      //Members and tags of all relations (as OSMRelation objects)
+	private HTreeMap<String, Object> tags;                         //Tags of nodes and ways that may be transformed, keyed by their type and identifier (e.g., "way/123")
+	private HTreeMap<Long, long[]> nodeWays;                       //Ways containing each node, only for ways that are transformed or members of relations
+	private HTreeMap<String, long[]> memberOf;                     //Relations containing each element, keyed by its type and identifier
+	private HTreeMap<String, String> triples;                      //Triples issued for each transformed element, keyed by its type and identifier
+
+	private Set<String> changed = new LinkedHashSet<String>();     //Elements whose triples must be issued again
+	private Map<String, Geometry> relationGeometries = new HashMap<String, Geometry>();     //Geometries of relations created while issuing triples
+	private Map<String, Geometry> wayGeometries = new LinkedHashMap<String, Geometry>(1024, 0.75f, true) {      //Recently created geometries of ways that are members of relations
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Geometry> eldest) {
+			return size() > WAY_CACHE_SIZE;
+		}
+	};
+	private Set<String> pending = new HashSet<String>();           //Relations whose geometries are being created; used to detect cycles of memberships
+
+
+	/**
+	 * Opens the state kept in the given directory, or creates it if it does not exist.
+	 * @param dir  The directory of the state.
+	 * @return  The opened state.
+	 * @throws IOException  Thrown if the state cannot be created, or if an existing state is incomplete or has an incompatible version.
+	 */
+	public static OSMChangeState open(File dir) throws IOException {
+
+		OSMChangeState state = new OSMChangeState();
+		state.dir = dir;
+		Properties props = readProperties(dir);
+		if (props == null)
+		{
+			if ((dir.exists()) && (dir.list().length > 0))
+				throw new IOException("Directory " + dir + " contains an incomplete state of OSM data. Please remove it in order to initialize the state again.");
+			if ((!dir.exists()) && (!dir.mkdirs()))
+				throw new IOException("Cannot create directory " + dir + ".");
+			state.initializing = true;
+			System.out.println("Initializing state of OSM data in " + dir + "...");
+		}
+		else if (!Integer.toString(VERSION).equals(props.getProperty("version")))
+			throw new IOException("State of OSM data in " + dir + " has an incompatible version. Please remove it in order to initialize the state again.");
+		else
+			System.out.println("Applying changes to the state of OSM data in " + dir + " last updated on " + props.getProperty("updated") + ".");
+
+		DBMaker.Maker maker = DBMaker
+				.fileDB(new File(dir, "state.db"))
+				.fileMmapEnableIfSupported()          //Activate mmap files only if a 64bit platform is detected
+				.closeOnJvmShutdown();
+		if (!state.initializing)
+			maker = maker.transactionEnable();       //Changes are applied atomically
+		state.db = maker.make();
+
+		state.nodes = state.db.hashMap("nodes", Serializer.LONG, Serializer.LONG).createOrOpen();
+		state.ways = state.db.hashMap("ways", Serializer.LONG, Serializer.LONG_ARRAY).createOrOpen();
+		state.relations = state.db.hashMap("relations", Serializer.LONG, Serializer.JAVA).createOrOpen();
+		state.tags = state.db.hashMap("tags", Serializer.STRING, Serializer.JAVA).createOrOpen();
+		state.nodeWays = state.db.hashMap("nodeWays", Serializer.LONG, Serializer.LONG_ARRAY).createOrOpen();
+		state.memberOf = state.db.hashMap("memberOf", Serializer.STRING, Serializer.LONG_ARRAY).createOrOpen();
+		state.triples = state.db.hashMap("triples", Serializer.STRING, Serializer.STRING).createOrOpen();
+		return state;
+	}
+
+
+	/**
+	 * Reads the properties of a state.
+	 * @param dir  The directory of the state.
+	 * @return  The properties; null, if the state does not exist or is incomplete.
+	 */
+	private static Properties readProperties(File dir) {
+
+		File file = new File(dir, PROPERTIES);           //Written once the state has been initialized
+		if (!file.isFile())
+			return null;
+		Properties props = new Properties();
+		try (InputStream in = new FileInputStream(file)) {
+			props.load(in);
+		} catch (IOException e) {
+			return null;
+		}
+		return props;
+	}
+
+
+	/**
+	 * Indicates whether the state is being created from scratch; then, all elements are considered as new and no triples need to be deleted.
+	 * @return  True, if the state is being initialized; False, if changes are applied to an existing state.
+	 */
+	public boolean isInitializing() {
+		return initializing;
+	}
+
+
+	/**
+	 * Packs the location of a node into a long value: longitude in the upper 32 bits, latitude in the lower ones.
+	 */
+	private static long pack(double lon, double lat) {
+		return ((long) (int) Math.round(lon * SCALE) << 32) | ((int) Math.round(lat * SCALE) & 0xFFFFFFFFL);
+	}
+
+
+	/**
+	 * Adds (or modifies) an OSM node.
+	 * @param id  The OSM identifier of the node.
+	 * @param lon  Longitude of the node.
+	 * @param lat  Latitude of the node.
+	 * @param nodeTags  Tags of the node, if it may be transformed; otherwise, null.
+	 */
+	public void putNode(long id, double lon, double lat, Map<String, String> nodeTags) {
+
+		String key = "node/" + id;
+		Long old = nodes.put(id, pack(lon, lat));
+		putTags(key, nodeTags);
+		if (initializing)
+			return;
+
+		touch(key);
+		if ((old == null) || (old != pack(lon, lat)))       //Geometries of ways and relations containing this node must be created again
+		{
+			long[] w = nodeWays.get(id);
+			if (w != null)
+				for (long wayId: w)
+					touchWay(wayId);
+			touchRelations(key);
+		}
+	}
+
+
+	/**
+	 * Removes an OSM node.
+	 * @param id  The OSM identifier of the node.
+	 */
+	public void deleteNode(long id) {
+
+		String key = "node/" + id;
+		nodes.remove(id);
+		tags.remove(key);
+		touch(key);
+		long[] w = nodeWays.remove(id);
+		if (w != null)
+			for (long wayId: w)
+				touchWay(wayId);
+		touchRelations(key);
+	}
+
+
+	/**
+	 * Adds (or modifies) an OSM way.
+	 * @param id  The OSM identifier of the way.
+	 * @param nodeIds  Identifiers of the nodes of this way, in their order.
+	 * @param wayTags  Tags of the way, if it may be transformed; otherwise, null.
+	 */
+	public void putWay(long id, long[] nodeIds, Map<String, String> wayTags) {
+
+		String key = "way/" + id;
+		long[] old = ways.put(id, nodeIds);
+		putTags(key, wayTags);
+		if ((wayTags != null) || (memberOf.containsKey(key)))      //Changes in its nodes will affect transformed elements
+			trackWay(id, old, nodeIds);
+		else if (old != null)
+			trackWay(id, old, new long[0]);
+		if (!initializing)
+			touchWay(id);
+	}
+
+
+	/**
+	 * Removes an OSM way.
+	 * @param id  The OSM identifier of the way.
+	 */
+	public void deleteWay(long id) {
+
+		String key = "way/" + id;
+		long[] old = ways.remove(id);
+		tags.remove(key);
+		if (old != null)
+			trackWay(id, old, new long[0]);
+		touchWay(id);
+	}
+
+
+	/**
+	 * Adds (or modifies) an OSM relation.
+	 * @param r  The OSM relation, including its tags and members.
+	 */
+	public void putRelation(OSMRelation r) {
+
+		long id = Long.parseLong(r.getID());
+		OSMRelation old = (OSMRelation) relations.put(id, r);
+		updateMemberships(id, old, r);
+		if (!initializing)
+			touchRelation(id);
+	}
+
+
+	/**
+	 * Removes an OSM relation.
+	 * @param id  The OSM identifier of the relation.
+	 */
+	public void deleteRelation(long id) {
+
+		OSMRelation old = (OSMRelation) relations.remove(id);
+		updateMemberships(id, old, null);
+		touchRelation(id);
+	}
+
+
+	/**
+	 * Keeps the tags of an element that may be transformed.
+	 */
+	private void putTags(String key, Map<String, String> elementTags) {
+
+		if (elementTags != null)
+			tags.put(key, new HashMap<String, String>(elementTags));
+		else if (!initializing)
+			tags.remove(key);
+	}
+
+
+	/**
+	 * Updates the reverse references from the nodes of a way to this way.
+	 * @param id  The OSM identifier of the way.
+	 * @param oldNodes  Identifiers of the nodes previously referenced by this way; null, if not any.
+	 * @param newNodes  Identifiers of the nodes currently referenced by this way.
+	 */
+	private void trackWay(long id, long[] oldNodes, long[] newNodes) {
+
+		Set<Long> current = new HashSet<Long>();
+		for (long n: newNodes)
+			current.add(n);
+		if (oldNodes != null)
+			for (long n: oldNodes)
+				if (!current.contains(n))
+				{
+					long[] w = remove(nodeWays.get(n), id);
+					if (w == null)                      //No values may be null in the store
+						nodeWays.remove(n);
+					else
+						nodeWays.put(n, w);
+				}
+		for (long n: current)
+			nodeWays.put(n, add(nodeWays.get(n), id));
+	}
+
+
+	/**
+	 * Updates the reverse references from the members of a relation to this relation.
+	 * @param id  The OSM identifier of the relation.
+	 * @param oldRelation  The relation with its previous members; null, if it did not exist.
+	 * @param newRelation  The relation with its current members; null, if it has been removed.
+	 */
+	private void updateMemberships(long id, OSMRelation oldRelation, OSMRelation newRelation) {
+
+		Set<String> current = new HashSet<String>();
+		if (newRelation != null)
+			for (Map.Entry<String, ImmutablePair<String, String>> m: newRelation.getMemberReferences().entrySet())
+				current.add(m.getValue().getKey().toLowerCase() + "/" + m.getKey());
+		if (oldRelation != null)
+			for (Map.Entry<String, ImmutablePair<String, String>> m: oldRelation.getMemberReferences().entrySet())
+			{
+				String key = m.getValue().getKey().toLowerCase() + "/" + m.getKey();
+				if (!current.contains(key))
+				{
+					long[] r = remove(memberOf.get(key), id);
+					if (r == null)
+						memberOf.remove(key);
+					else
+						memberOf.put(key, r);
+				}
+			}
+		for (String key: current)
+		{
+			boolean tracked = memberOf.containsKey(key) || tags.containsKey(key);
+			memberOf.put(key, add(memberOf.get(key), id));
+			if ((!tracked) && (key.startsWith("way/")))         //Changes in the nodes of this way will now affect this relation
+			{
+				long wayId = Long.parseLong(key.substring(4));
+				long[] wayNodes = ways.get(wayId);
+				if (wayNodes != null)
+					trackWay(wayId, null, wayNodes);
+			}
+		}
+	}
+
+
+	/**
+	 * Adds a value to a set of identifiers kept in an array.
+	 */
+	private static long[] add(long[] values, long v) {
+
+		if (values == null)
+			return new long[] {v};
+		for (long x: values)
+			if (x == v)
+				return values;
+		long[] result = Arrays.copyOf(values, values.length + 1);
+		result[values.length] = v;
+		return result;
+	}
+
+
+	/**
+	 * Removes a value from a set of identifiers kept in an array.
+	 * @return  The remaining values; null, if none remains.
+	 */
+	private static long[] remove(long[] values, long v) {
+
+		if (values == null)
+			return null;
+		long[] result = new long[values.length];
+		int n = 0;
+		for (long x: values)
+			if (x != v)
+				result[n++] = x;
+		return (n == 0) ? null : Arrays.copyOf(result, n);
+	}
+
+
+	/**
+	 * Marks an element whose triples must be issued again, i.e., if it may be transformed or it has been transformed before.
+	 */
+	private void touch(String key) {
+
+		if ((tags.containsKey(key)) || (triples.containsKey(key)) || (key.startsWith("relation/")))
+			changed.add(key);
+	}
+
+
+	private void touchWay(long id) {
+
+		String key = "way/" + id;
+		touch(key);
+		touchRelations(key);
+	}
+
+
+	private void touchRelation(long id) {
+
+		String key = "relation/" + id;
+		if (changed.add(key))
+			touchRelations(key);                     //Relations containing this one, unless already marked
+	}
+
+
+	/**
+	 * Marks all relations containing the given element, as well as any relations containing them.
+	 */
+	private void touchRelations(String key) {
+
+		long[] r = memberOf.get(key);
+		if (r != null)
+			for (long id: r)
+				touchRelation(id);
+	}
+
+
+	/**
+	 * Provides all elements whose triples must be issued again, once all changes have been applied.
+	 * @return  Keys of elements (e.g., "way/123").
+	 */
+	public List<String> getChangedElements() {
+		return new ArrayList<String>(changed);
+	}
+
+
+	/**
+	 * Provides the identifiers of all relations, e.g., in order to issue their triples once the state has been initialized.
+	 * @return  Keys of relations (e.g., "relation/123").
+	 */
+	public List<String> getRelations() {
+
+		List<String> keys = new ArrayList<String>(relations.size());
+		for (Long id: relations.keySet())
+			keys.add("relation/" + id);
+		return keys;
+	}
+
+
+	/**
+	 * Provides the tags of an element, in order to check whether it may be transformed.
+	 * @param key  The type and identifier of the element (e.g., "way/123").
+	 * @return  The tags of the element; null, if it does not exist or none of its tags is specified in the OSM filters.
+	 */
+	@SuppressWarnings("unchecked")
+	public Map<String, String> getTags(String key) {
+
+		if (key.startsWith("relation/"))
+		{
+			OSMRelation r = (OSMRelation) relations.get(Long.parseLong(key.substring(9)));
+			return (r == null) ? null : r.getTagKeyValue();
+		}
+		return (Map<String, String>) tags.get(key);
+	}
+
+
+	/**
+	 * Provides the triples issued for an element.
+	 * @param key  The type and identifier of the element (e.g., "way/123").
+	 * @return  The triples in N-Triples, one per line; null, if the element has not been transformed.
+	 */
+	public String getTriples(String key) {
+		return triples.get(key);
+	}
+
+
+	/**
+	 * Keeps the triples issued for an element.
+	 * @param key  The type and identifier of the element (e.g., "way/123").
+	 * @param nt  The triples in N-Triples, one per line; null or empty, if the element is no longer transformed.
+	 */
+	public void putTriples(String key, String nt) {
+
+		if ((nt == null) || (nt.isEmpty()))
+			triples.remove(key);
+		else
+			triples.put(key, nt);
+	}
+
+
+	/**
+	 * Creates a record of an element according to its current state, so that it can be transformed.
+	 * @param key  The type and identifier of the element (e.g., "way/123").
+	 * @param recBuilder  The builder of OSM records; its indices are replaced by ones over this state.
+	 * @param geometryFactory  The factory used for creating geometries.
+	 * @param closedRings2Polygons  True, if closed ways should become polygons; otherwise, linestrings.
+	 * @return  The record of the element; null, if the element does not exist or may not be transformed.
+	 */
+	public OSMRecord createRecord(String key, OSMRecordBuilder recBuilder, GeometryFactory geometryFactory, boolean closedRings2Polygons) {
+
+		attach(recBuilder, geometryFactory, closedRings2Polygons);
+		long id = Long.parseLong(key.substring(key.indexOf('/') + 1));
+
+		if (key.startsWith("relation/"))
+		{
+			OSMRelation r = (OSMRelation) relations.get(id);
+			return (r == null) ? null : createRelationRecord(r, recBuilder);
+		}
+
+		@SuppressWarnings("unchecked")
+		Map<String, String> elementTags = (Map<String, String>) tags.get(key);
+		if (elementTags == null)
+			return null;
+		if (key.startsWith("node/"))
+		{
+			Coordinate c = recBuilder.nodeStore.get(id);
+			if (c == null)
+				return null;
+			OSMNode n = new OSMNode();
+			n.setID(Long.toString(id));
+			for (Map.Entry<String, String> t: elementTags.entrySet())
+				n.setTagKeyValue(t.getKey(), t.getValue());
+			n.setGeometry(geometryFactory.createPoint(c));
+			return recBuilder.createOSMRecord(n);
+		}
+		long[] wayNodes = ways.get(id);
+		if (wayNodes == null)
+			return null;
+		OSMWay w = buildWay(id, wayNodes, recBuilder.nodeStore, geometryFactory, closedRings2Polygons);
+		for (Map.Entry<String, String> t: elementTags.entrySet())
+			w.setTagKeyValue(t.getKey(), t.getValue());
+		return recBuilder.createOSMRecord(w);
+	}
+
+
+	/**
+	 * Creates the record of a relation; if any of its members is missing, the record consists of its available members only.
+	 */
+	private OSMRecord createRelationRecord(OSMRelation r, OSMRecordBuilder recBuilder) {
+
+		return recBuilder.createOSMRecord(r, true);
+	}
+
+
+	/**
+	 * Creates an OSM way with a geometry from the current locations of its nodes.
+	 */
+	private OSMWay buildWay(long id, long[] wayNodes, OSMNodeStore nodeStore, GeometryFactory geometryFactory, boolean closedRings2Polygons) {
+
+		OSMWay w = new OSMWay();
+		w.setID(Long.toString(id));
+		w.reserveNodeLocations(wayNodes.length);
+		for (long n: wayNodes)
+			w.addNodeLocation(nodeStore, n);
+		w.setGeometry(w.buildGeometry(geometryFactory, closedRings2Polygons));
+		return w;
+	}
+
+
+	/**
+	 * Lets a builder of OSM records obtain locations of nodes and geometries of ways and relations from this state.
+	 */
+	private void attach(OSMRecordBuilder recBuilder, GeometryFactory geometryFactory, boolean closedRings2Polygons) {
+
+		if (recBuilder.nodeStore instanceof StateNodeStore)
+			return;
+		recBuilder.incompleteRelations = new ArrayList<OSMRelation>();
+		recBuilder.nodeStore = new StateNodeStore(dir.getPath());
+		recBuilder.wayIndex = new StateIndex() {
+			public Geometry get(String k) {
+				if (wayGeometries.containsKey(k))
+					return wayGeometries.get(k);
+				Geometry g = null;
+				try {
+					long id = Long.parseLong(k);
+					long[] wayNodes = ways.get(id);
+					g = (wayNodes == null) ? null : buildWay(id, wayNodes, recBuilder.nodeStore, geometryFactory, closedRings2Polygons).getGeometry();
+				} catch (NumberFormatException e) {
+				}
+				wayGeometries.put(k, g);
+				return g;
+			}
+			public boolean containsKey(String k) {
+				return get(k) != null;
+			}
+		};
+		recBuilder.relationIndex = new StateIndex() {
+			public Geometry get(String k) {
+				if (relationGeometries.containsKey(k))
+					return relationGeometries.get(k);
+				if (!pending.add(k))                        //A cycle of memberships
+					return null;
+				Geometry g = null;
+				try {
+					OSMRelation r = (OSMRelation) relations.get(Long.parseLong(k));
+					OSMRecord rec = (r == null) ? null : createRelationRecord(r, recBuilder);
+					g = (rec == null) ? null : rec.getGeometry();
+				} catch (NumberFormatException e) {
+				}
+				pending.remove(k);
+				relationGeometries.put(k, g);
+				return g;
+			}
+			public boolean containsKey(String k) {
+				return get(k) != null;
+			}
+		};
+	}
+
+
+	/**
+	 * Store of node locations backed by this state.
+	 */
+	private class StateNodeStore extends OSMNodeStore {
+
+		StateNodeStore(String tmpDir) {
+			super(tmpDir);
+		}
+
+		@Override
+		public Coordinate get(long id) {
+			Long v = nodes.get(id);
+			return (v == null) ? null : new Coordinate((int) (v >> 32) / SCALE, (int) v.longValue() / SCALE);
+		}
+
+		@Override
+		public boolean get(long id, double[] buffer, int offset) {
+			Long v = nodes.get(id);
+			if (v == null)
+				return false;
+			buffer[offset] = (int) (v >> 32) / SCALE;
+			buffer[offset + 1] = (int) v.longValue() / SCALE;
+			return true;
+		}
+	}
+
+
+	/**
+	 * Read-only index over geometries created from this state.
+	 */
+	private abstract class StateIndex implements OSMIndex {
+
+		public void put(String k, Geometry g) {
+		}
+
+		public void putAll(Map<String, Geometry> m) {
+		}
+
+		public int size() {
+			return 0;
+		}
+
+		public void clear() {
+		}
+
+		public void print() {
+		}
+	}
+
+
+	/**
+	 * Makes all changes permanent, once their resulting triples have been written. For a state being initialized, this marks the state as complete.
+	 * @throws IOException  Thrown if the properties of the state cannot be written.
+	 */
+	public void commit() throws IOException {
+
+		db.commit();
+		Properties props = new Properties();
+		props.setProperty("version", Integer.toString(VERSION));
+		props.setProperty("updated", new java.util.Date().toString());
+		props.setProperty("nodes", Integer.toString(nodes.size()));
+		props.setProperty("ways", Integer.toString(ways.size()));
+		props.setProperty("relations", Integer.toString(relations.size()));
+		props.setProperty("transformed", Integer.toString(triples.size()));
+		try (OutputStream out = new FileOutputStream(new File(dir, PROPERTIES))) {
+			props.store(out, "State of transformed OSM data");
+		}
+		changed.clear();
+		relationGeometries.clear();
+		wayGeometries.clear();
+	}
+
+
+	/**
+	 * Discards any changes not yet committed. A state being initialized is not transactional; it is removed once closed, unless committed.
+	 */
+	public void rollback() {
+
+		if ((db != null) && (!db.isClosed()) && (!initializing))
+			db.rollback();
+		changed.clear();
+		relationGeometries.clear();
+		wayGeometries.clear();
+	}
+
+
+	/**
+	 * Discards any changes not yet committed and closes the state. A state that has not been initialized completely is removed.
+	 */
+	public void close() {
+
+		if ((db != null) && (!db.isClosed()))
+		{
+			rollback();
+			db.close();
+		}
+		if ((initializing) && (readProperties(dir) == null))
+		{
+			try {
+				FileUtils.deleteDirectory(dir);
+			} catch (IOException e) {
+				System.out.println("Cannot remove incomplete state in " + dir + ".");
+			}
+		}
+	}
+
+
+	/**
+	 * Provides the number of elements in the state.
+	 * @return  A map with the count of nodes, ways, relations, and transformed elements.
+	 */
+	public Map<String, Object> getStatistics() {
+
+		Map<String, Object> stats = new LinkedHashMap<String, Object>();
+		stats.put("Nodes in state", nodes.size());
+		stats.put("Ways in state", ways.size());
+		stats.put("Relations in state", relations.size());
+		stats.put("Transformed elements in state", triples.size());
+		return stats;
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+ * @(#) OSMFilterIndex.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.osm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash-based index over the user-specified filters that assign categories to OSM elements according to their tags.
+ * The hierarchy of filters is compiled once into rules, each one specifying the conditions (a key with a value, or a key with any value) that must hold along the path from a top-level filter to a filter with a category.
+ * Rules are indexed by key and value of their most selective condition, so assigning a category takes a couple of hash probes per tag of an OSM element.
+ * Among all rules that hold, the one found first by a depth-first search over the filters (children before their parent, in the order specified) determines the category.
+ * Read-only once created, so it can be shared.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OSMFilterIndex {
+
+	/**
+	 * Conditions over OSM tags leading to a category.
+	 */
+	private static class Rule {
+		int priority;                        //Order of this rule in a depth-first search over the filters; a lower value takes precedence
+		String category;
+		String[] keys;                       //Any conditions other than the one used for indexing this rule...
+		String[] values;                     //...with null values for keys that may have any value
+	}
+
+	/**
+	 * Rules indexed under the same key.
+	 */
+	private static class KeyEntry {
+		Map<String, List<Rule>> byValue = new HashMap<String, List<Rule>>();     //Rules requiring a specific value for this key
+		List<Rule> anyValue = null;                                               //Rules requiring any value for this key
+	}
+
+	private Map<String, KeyEntry> index = new HashMap<String, KeyEntry>();
+	private int numRules = 0;
+
+
+	/**
+	 * Constructor of the index.
+	 * @param filters  Correspondence of OSM tags into categories, as specified in the classification scheme.
+	 */
+	public OSMFilterIndex(List<OSMFilter> filters) {
+
+		for (OSMFilter filter: filters)
+			compile(filter, null, new LinkedHashMap<String, String>(), true);
+	}
+
+
+	/**
+	 * Compiles a filter and all its children into rules. Rules are created in the order that a depth-first search would visit the filters, i.e., children (in their specified order) before their parent.
+	 * @param filter  A filter in the hierarchy.
+	 * @param key  The key of the parent filter; used if this filter specifies no key.
+	 * @param conditions  Conditions (key and value; a null value stands for any value) that must hold for the parent filter.
+	 * @param satisfiable  False, if the conditions of the parent filter can never hold together.
+	 */
+	private void compile(OSMFilter filter, String key, Map<String, String> conditions, boolean satisfiable) {
+
+		//Use key of parent filter or current
+		if (filter.hasKey())
+			key = filter.getKey();
+
+		Map<String, String> cond = new LinkedHashMap<String, String>(conditions);
+		if (key == null)
+			satisfiable = false;
+		else if (cond.get(key) == null)                    //No condition or any value for this key so far
+			cond.put(key, filter.getValue());
+		else if ((filter.hasValue()) && (!filter.getValue().equals(cond.get(key))))
+			satisfiable = false;                           //Different values required for the same key
+
+		//If children have categories, those will be used
+		for (OSMFilter child: filter.childs)
+			compile(child, key, cond, satisfiable);
+
+		if ((filter.hasCategory()) && (satisfiable))
+			addRule(cond, filter.getCategory());
+	}
+
+
+	/**
+	 * Creates a rule and indexes it by its most selective condition, i.e., the last one specifying a value (if any).
+	 * @param cond  Conditions that must hold for this rule.
+	 * @param category  The category assigned by this rule.
+	 */
+	private void addRule(Map<String, String> cond, String category) {
+
+		String anchor = null;
+		for (Map.Entry<String, String> c: cond.entrySet())
+			if ((anchor == null) || (c.getValue() != null))
+				anchor = c.getKey();
+
+		Rule rule = new Rule();
+		rule.priority = numRules++;
+		rule.category = category;
+		rule.keys = new String[cond.size() - 1];
+		rule.values = new String[cond.size() - 1];
+		int i = 0;
+		for (Map.Entry<String, String> c: cond.entrySet())
+		{
+			if (c.getKey().equals(anchor))
+				continue;
+			rule.keys[i] = c.getKey();
+			rule.values[i] = c.getValue();
+			i++;
+		}
+
+		//Rules are created in order of priority, so each list remains sorted
+		KeyEntry entry = index.computeIfAbsent(anchor, k -> new KeyEntry());
+		String value = cond.get(anchor);
+		if (value == null)
+		{
+			if (entry.anyValue == null)
+				entry.anyValue = new ArrayList<Rule>(2);
+			entry.anyValue.add(rule);
+		}
+		else
+			entry.byValue.computeIfAbsent(value, k -> new ArrayList<Rule>(1)).add(rule);
+	}
+
+
+	/**
+	 * Assigns a category to an OSM element (node, way, or relation) based on its tags.
+	 * @param tags  Key-value pairs for OSM tags and their respective values for a given element.
+	 * @return  A category according to the classification scheme based on OSM tags; null, if no filter applies to this element.
+	 */
+	public String getCategory(Map<String, String> tags) {
+
+		Rule best = null;
+		for (Map.Entry<String, String> tag: tags.entrySet())
+		{
+			KeyEntry entry = index.get(tag.getKey());
+			if (entry == null)                     //No filter specified over this tag
+				continue;
+			best = firstMatch(entry.byValue.get(tag.getValue()), tags, best);
+			best = firstMatch(entry.anyValue, tags, best);
+		}
+		return (best == null) ? null : best.category;
+	}
+
+
+	/**
+	 * Finds the rule of highest priority that holds for the given tags among candidates sorted by priority.
+	 * @param rules  Candidate rules; their indexed condition already holds.
+	 * @param tags  Key-value pairs for OSM tags of an element.
+	 * @param best  The rule of highest priority found so far; null if none.
+	 * @return  The rule of highest priority that holds, including the one found so far.
+	 */
+	private Rule firstMatch(List<Rule> rules, Map<String, String> tags, Rule best) {
+
+		if (rules == null)
+			return best;
+		for (Rule rule: rules)
+		{
+			if ((best != null) && (rule.priority >= best.priority))
+				break;
+			if (holds(rule, tags))
+				return rule;
+		}
+		return best;
+	}
+
+
+	/**
+	 * Checks whether the remaining conditions of a rule hold for the given tags.
+	 */
+	private boolean holds(Rule rule, Map<String, String> tags) {
+
+		for (int i = 0; i < rule.keys.length; i++)
+		{
+			String value = tags.get(rule.keys[i]);
+			if ((value == null) || ((rule.values[i] != null) && (!rule.values[i].equals(value))))
+				return false;
+		}
+		return true;
+	}
+
+
+	/**
+	 * Provides the number of compiled rules.
+	 * @return  The count of rules that may assign a category.
+	 */
+	public int size() {
+		return numRules;
+	}
+
+}
@@ -0,0 +1,506 @@
+/*
+ * @(#) OSMIdSet.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.osm;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact set of (64-bit) OSM identifiers, used for tracking which OSM elements are referenced by ways or relations.
+ * Identifiers are partitioned into chunks of 65536 consecutive values. Each chunk keeps the lower 16 bits of its identifiers in one of three forms:
+ *  - a sorted array, if sparse (2 bytes per identifier, up to 4096 identifiers);
+ *  - a bitmap, if dense (8KB per chunk);
+ *  - runs of consecutive identifiers, if clustered (4 bytes per run, up to 2048 runs), e.g., nodes of OSM ways usually created one after the other.
+ * An array turns into runs once full, if its identifiers form runs of at least 4 on average; otherwise, it turns into a bitmap once it exceeds 4096 identifiers. Runs turn into a bitmap once they exceed 2048.
+ * Hence, each identifier occupies at most 2 bytes, and 1 billion identifiers occupy about 125 MB if dense, much less if clustered in long runs, but up to about 2 GB if spread over chunks with a few thousand identifiers each.
+ * Once no more identifiers are expected, optimize() turns each chunk into its most compact form.
+ * Not thread-safe.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OSMIdSet {
+
+	private static final int SHIFT = 16;                     //Chunks of 64K identifiers
+	private static final int MASK = (1 << SHIFT) - 1;
+	private static final int MAX_ARRAY = 4096;               //Beyond that many identifiers, a bitmap occupies less space than a sorted array
+	private static final int MAX_RUNS = 2048;                //Beyond that many runs, a bitmap occupies less space than the runs
+	private static final int BITMAP_BYTES = 1 << (SHIFT - 3);
+
+	/**
+	 * Identifiers sharing the same upper bits. Exactly one of its forms (array, bitmap, or runs) is not null.
+	 */
+	private static class Chunk {
+		char[] values = new char[4];         //Sorted lower bits of identifiers
+		long[] bits = null;                  //Bitmap over the lower bits of identifiers
+		char[] runs = null;                  //Pairs of (start, length - 1) of runs of consecutive lower bits, sorted by start
+		int numRuns = 0;                     //Number of runs
+		int count = 0;                       //Number of identifiers in this chunk
+	}
+
+	private Map<Long, Chunk> chunks = new HashMap<Long, Chunk>();
+	private long lastKey;                    //The chunk most recently accessed; successive identifiers usually fall in the same chunk
+	private Chunk lastChunk = null;
+	private long size = 0;                   //Number of identifiers in the set
+	private long minId = Long.MAX_VALUE;
+	private long maxId = Long.MIN_VALUE;
+
+
+	/**
+	 * Provides the chunk that may contain an identifier.
+	 * @param key  The upper bits of the identifier.
+	 * @param create  True, if the chunk must be created if missing.
+	 * @return  The chunk; null if missing and not created.
+	 */
+	private Chunk chunk(long key, boolean create) {
+
+		if ((lastChunk != null) && (lastKey == key))
+			return lastChunk;
+		Chunk c = chunks.get(key);
+		if ((c == null) && (create))
+		{
+			c = new Chunk();
+			chunks.put(key, c);
+		}
+		if (c != null)
+		{
+			lastKey = key;
+			lastChunk = c;
+		}
+		return c;
+	}
+
+
+	/**
+	 * Adds an identifier into the set.
+	 * @param id  The OSM identifier.
+	 * @return  True, if the identifier was not already in the set; otherwise, False.
+	 */
+	public boolean add(long id) {
+
+		Chunk c = chunk(id >> SHIFT, true);
+		int low = (int) (id & MASK);
+		if (contains(c, low))
+			return false;
+
+		if ((c.values != null) && (c.count == c.values.length))    //Array is full, so either grow it or change its form
+		{
+			int numRuns = countRuns(c);
+			if (numRuns <= c.count / 4)
+				toRuns(c);
+			else if (c.count == MAX_ARRAY)
+				toBitmap(c);
+			else
+				c.values = Arrays.copyOf(c.values, Math.min(MAX_ARRAY, c.values.length + (c.values.length >> 1) + 1));
+		}
+
+		if (c.bits != null)
+			c.bits[low >>> 6] |= 1L << low;
+		else if (c.runs != null)
+			addToRuns(c, low);
+		else
+		{
+			int pos = -Arrays.binarySearch(c.values, 0, c.count, (char) low) - 1;
+			System.arraycopy(c.values, pos, c.values, pos + 1, c.count - pos);
+			c.values[pos] = (char) low;
+		}
+		c.count++;
+
+		if (c.runs != null)
+		{
+			if (c.numRuns > MAX_RUNS)
+				toBitmap(c);
+			else if (2 * c.numRuns > c.count)    //Runs of less than 2 identifiers on average occupy more space than an array
+				toArray(c);
+		}
+
+		size++;
+		if (id < minId)
+			minId = id;
+		if (id > maxId)
+			maxId = id;
+		return true;
+	}
+
+
+	/**
+	 * Inserts the lower bits of an identifier not yet in the chunk into its runs, extending or merging existing runs if possible.
+	 */
+	private static void addToRuns(Chunk c, int low) {
+
+		int i = findRun(c, low);                         //Last run starting before this value; -1 if none
+		boolean extendsPrev = (i >= 0) && (c.runs[2 * i] + c.runs[2 * i + 1] + 1 == low);
+		boolean extendsNext = (i + 1 < c.numRuns) && (c.runs[2 * (i + 1)] == low + 1);
+		if ((extendsPrev) && (extendsNext))              //Merge the two runs
+		{
+			c.runs[2 * i + 1] = (char) (c.runs[2 * (i + 1)] + c.runs[2 * (i + 1) + 1] - c.runs[2 * i]);
+			System.arraycopy(c.runs, 2 * (i + 2), c.runs, 2 * (i + 1), 2 * (c.numRuns - i - 2));
+			c.numRuns--;
+		}
+		else if (extendsPrev)
+			c.runs[2 * i + 1]++;
+		else if (extendsNext)
+		{
+			c.runs[2 * (i + 1)] = (char) low;
+			c.runs[2 * (i + 1) + 1]++;
+		}
+		else                                             //A new run of a single value
+		{
+			if (2 * c.numRuns == c.runs.length)
+				c.runs = Arrays.copyOf(c.runs, c.runs.length + 2 * ((c.numRuns >> 1) + 1));
+			System.arraycopy(c.runs, 2 * (i + 1), c.runs, 2 * (i + 2), 2 * (c.numRuns - i - 1));
+			c.runs[2 * (i + 1)] = (char) low;
+			c.runs[2 * (i + 1) + 1] = 0;
+			c.numRuns++;
+		}
+	}
+
+
+	/**
+	 * Finds the last run of a chunk that starts at or before the given lower bits.
+	 * @return  The position of the run; -1 if all runs start after the given lower bits.
+	 */
+	private static int findRun(Chunk c, int low) {
+
+		int lo = 0, hi = c.numRuns - 1;
+		while (lo <= hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (c.runs[2 * mid] <= low)
+				lo = mid + 1;
+			else
+				hi = mid - 1;
+		}
+		return hi;
+	}
+
+
+	/**
+	 * Counts the runs of consecutive lower bits in a chunk.
+	 */
+	private static int countRuns(Chunk c) {
+
+		if (c.runs != null)
+			return c.numRuns;
+		int n = 0;
+		if (c.bits != null)
+		{
+			long carry = 0;                              //Highest bit of the previous word
+			for (long word: c.bits)
+			{
+				n += Long.bitCount(word & ~((word << 1) | carry));     //Set bits not preceded by a set bit start a run
+				carry = word >>> 63;
+			}
+		}
+		else
+		{
+			for (int i = 0; i < c.count; i++)
+				if ((i == 0) || (c.values[i] != c.values[i - 1] + 1))
+					n++;
+		}
+		return n;
+	}
+
+
+	/**
+	 * Converts a chunk into runs of consecutive lower bits.
+	 */
+	private static void toRuns(Chunk c) {
+
+		char[] runs = new char[2 * countRuns(c) + 2];    //Room for a new run
+		int n = -1;
+		for (int i = 0, low = first(c); i < c.count; i++, low = next(c, low))
+		{
+			if ((n >= 0) && (runs[2 * n] + runs[2 * n + 1] + 1 == low))
+				runs[2 * n + 1]++;
+			else
+			{
+				n++;
+				runs[2 * n] = (char) low;
+				runs[2 * n + 1] = 0;
+			}
+		}
+		c.runs = runs;
+		c.numRuns = n + 1;
+		c.values = null;
+		c.bits = null;
+	}
+
+
+	/**
+	 * Converts a chunk into a bitmap.
+	 */
+	private static void toBitmap(Chunk c) {
+
+		long[] bits = new long[1 << (SHIFT - 6)];
+		for (int i = 0, low = first(c); i < c.count; i++, low = next(c, low))
+			bits[low >>> 6] |= 1L << low;
+		c.bits = bits;
+		c.values = null;
+		c.runs = null;
+		c.numRuns = 0;
+	}
+
+
+	/**
+	 * Converts a chunk into a sorted array with room for one more value; applicable to chunks with less than 4096 identifiers.
+	 */
+	private static void toArray(Chunk c) {
+
+		char[] values = new char[Math.min(MAX_ARRAY, c.count + 1)];
+		for (int i = 0, low = first(c); i < c.count; i++, low = next(c, low))
+			values[i] = (char) low;
+		c.values = values;
+		c.bits = null;
+		c.runs = null;
+		c.numRuns = 0;
+	}
+
+
+	/**
+	 * Provides the smallest lower bits in a chunk; the chunk must not be empty.
+	 */
+	private static int first(Chunk c) {
+
+		if (c.runs != null)
+			return c.runs[0];
+		if (c.bits != null)
+			return next(c, -1);
+		return c.values[0];
+	}
+
+
+	/**
+	 * Provides the smallest lower bits in a chunk that are greater than the given ones; beyond the largest ones, the result exceeds the range of lower bits.
+	 */
+	private static int next(Chunk c, int low) {
+
+		if (c.runs != null)
+		{
+			int i = findRun(c, low);
+			if ((i >= 0) && (low < c.runs[2 * i] + c.runs[2 * i + 1]))
+				return low + 1;
+			return (i + 1 < c.numRuns) ? c.runs[2 * (i + 1)] : MASK + 1;
+		}
+		if (c.bits != null)
+		{
+			int pos = low + 1;
+			if (pos > MASK)
+				return pos;
+			int w = pos >>> 6;
+			long word = c.bits[w] & (-1L << pos);
+			while ((word == 0) && (++w < c.bits.length))
+				word = c.bits[w];
+			return (w << 6) + Long.numberOfTrailingZeros(word);
+		}
+		int pos = Arrays.binarySearch(c.values, 0, c.count, (char) low);
+		pos = (pos >= 0) ? pos + 1 : -pos - 1;
+		return (pos < c.count) ? c.values[pos] : MASK + 1;
+	}
+
+
+	/**
+	 * Checks whether a chunk contains the given lower bits of an identifier.
+	 */
+	private static boolean contains(Chunk c, int low) {
+
+		if (c.bits != null)
+			return (c.bits[low >>> 6] & (1L << low)) != 0;
+		if (c.runs != null)
+		{
+			int i = findRun(c, low);
+			return (i >= 0) && (low <= c.runs[2 * i] + c.runs[2 * i + 1]);
+		}
+		return Arrays.binarySearch(c.values, 0, c.count, (char) low) >= 0;
+	}
+
+
+	/**
+	 * Checks whether the set contains an identifier.
+	 * @param id  The OSM identifier.
+	 * @return  True, if the identifier is in the set; otherwise, False.
+	 */
+	public boolean contains(long id) {
+
+		if ((id < minId) || (id > maxId))
+			return false;
+		Chunk c = chunk(id >> SHIFT, false);
+		if (c == null)
+			return false;
+		return contains(c, (int) (id & MASK));
+	}
+
+
+	/**
+	 * Checks whether the set contains an identifier given as a string.
+	 * @param id  The OSM identifier as a string.
+	 * @return  True, if the identifier is in the set; False, if not or if this is not a numeric identifier.
+	 */
+	public boolean contains(String id) {
+
+		try {
+			return contains(Long.parseLong(id));
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+
+	/**
+	 * Provides the number of identifiers in the set.
+	 * @return  The count of identifiers.
+	 */
+	public long size() {
+		return size;
+	}
+
+
+	/**
+	 * Provides the smallest identifier in the set.
+	 * @return  The smallest identifier; Long.MAX_VALUE if the set is empty.
+	 */
+	public long min() {
+		return minId;
+	}
+
+
+	/**
+	 * Provides the largest identifier in the set.
+	 * @return  The largest identifier; Long.MIN_VALUE if the set is empty.
+	 */
+	public long max() {
+		return maxId;
+	}
+
+
+	/**
+	 * Provides all identifiers in the set in ascending order.
+	 * @return  A sorted array of identifiers.
+	 */
+	public long[] toSortedArray() {
+
+		if (size > Integer.MAX_VALUE - 8)
+			throw new IllegalStateException("Too many OSM identifiers to be kept in an array.");
+		long[] keys = new long[chunks.size()];
+		int k = 0;
+		for (long key: chunks.keySet())
+			keys[k++] = key;
+		Arrays.sort(keys);
+
+		long[] ids = new long[(int) size];
+		int n = 0;
+		for (long key: keys)
+		{
+			Chunk c = chunks.get(key);
+			long base = key << SHIFT;
+			if (c.bits != null)
+			{
+				for (int w = 0; w < c.bits.length; w++)
+				{
+					long word = c.bits[w];
+					while (word != 0)
+					{
+						ids[n++] = base | ((w << 6) + Long.numberOfTrailingZeros(word));
+						word &= word - 1;
+					}
+				}
+			}
+			else if (c.runs != null)
+			{
+				for (int i = 0; i < c.numRuns; i++)
+					for (int low = c.runs[2 * i]; low <= c.runs[2 * i] + c.runs[2 * i + 1]; low++)
+						ids[n++] = base | low;
+			}
+			else
+			{
+				for (int i = 0; i < c.count; i++)
+					ids[n++] = base | c.values[i];
+			}
+		}
+		return ids;
+	}
+
+
+	/**
+	 * Turns each chunk into its most compact form (sorted array, bitmap, or runs) and releases any spare room in arrays and runs.
+	 * Identifiers may still be added afterwards, but this is best called once no more identifiers are expected.
+	 */
+	public void optimize() {
+
+		for (Chunk c: chunks.values())
+		{
+			long runBytes = 4L * countRuns(c);
+			long arrayBytes = (c.count <= MAX_ARRAY) ? 2L * c.count : Long.MAX_VALUE;
+			if ((runBytes < arrayBytes) && (runBytes < BITMAP_BYTES))
+			{
+				toRuns(c);
+				c.runs = Arrays.copyOf(c.runs, 2 * c.numRuns);
+			}
+			else if (arrayBytes <= BITMAP_BYTES)
+			{
+				if (c.values == null)
+					toArray(c);
+				c.values = Arrays.copyOf(c.values, c.count);
+			}
+			else if (c.bits == null)
+				toBitmap(c);
+		}
+	}
+
+
+	/**
+	 * Provides an estimate of the memory occupied by this set.
+	 * @return  The size of this set in bytes.
+	 */
+	public long memorySize() {
+
+		long bytes = 0;
+		for (Chunk c: chunks.values())
+		{
+			bytes += 64;                         //Including the overhead of the map entry
+			if (c.bits != null)
+				bytes += 8L * c.bits.length;
+			else if (c.runs != null)
+				bytes += 2L * c.runs.length;
+			else
+				bytes += 2L * c.values.length;
+		}
+		return bytes;
+	}
+
+
+	/**
+	 * Erases all contents of the set.
+	 */
+	public void clear() {
+
+		chunks.clear();
+		lastChunk = null;
+		size = 0;
+		minId = Long.MAX_VALUE;
+		maxId = Long.MIN_VALUE;
+	}
+
+}
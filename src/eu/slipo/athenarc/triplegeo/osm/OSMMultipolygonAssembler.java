@@ -0,0 +1,244 @@
+/*
+ * @(#) OSMMultipolygonAssembler.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.osm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateList;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
+/**
+ * Assembles (multi)polygons from the member ways of OSM relations of type 'multipolygon' or 'boundary'.
+ * Member ways that are not closed are joined into rings by hashing their endpoints, so this takes linear time in the number of members.
+ * Once rings are formed, each inner ring is assigned to the smallest outer ring containing it; candidate outer rings are found with an index over their envelopes and checked with prepared geometries.
+ * Stateless apart from its geometry factory, so a single instance can be shared.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OSMMultipolygonAssembler {
+
+	private GeometryFactory geometryFactory;
+
+
+	/**
+	 * Constructor of an assembler.
+	 * @param geometryFactory  The factory used for creating all geometries.
+	 */
+	public OSMMultipolygonAssembler(GeometryFactory geometryFactory) {
+		this.geometryFactory = geometryFactory;
+	}
+
+
+	/**
+	 * Assembles a polygon (if a single outer ring is formed) or a multipolygon from the geometries of member ways.
+	 * @param outers  Geometries of the outer members (or members without a role); either polygons, linear rings, or linestrings.
+	 * @param inners  Geometries of the inner members; either polygons, linear rings, or linestrings.
+	 * @return  A Polygon or a MultiPolygon (which is empty if no outer ring can be formed).
+	 */
+	public Geometry assemble(List<Geometry> outers, List<Geometry> inners) {
+
+		List<LinearRing> outerRings = rings(outers);
+		List<LinearRing> innerRings = rings(inners);
+
+		//A polygon, possibly with hole(s); all inner rings are considered as its holes
+		if (outerRings.size() == 1)
+			return geometryFactory.createPolygon(outerRings.get(0), innerRings.isEmpty() ? null : innerRings.toArray(new LinearRing[innerRings.size()]));
+
+		//A MultiPolygon consisting of multiple polygons (possibly with holes)
+		List<List<LinearRing>> holes = new ArrayList<List<LinearRing>>(outerRings.size());
+		for (int i = 0; i < outerRings.size(); i++)
+			holes.add(null);
+
+		if ((!innerRings.isEmpty()) && (!outerRings.isEmpty()))
+		{
+			//Index outer rings by their envelopes; shells are prepared only when first checked
+			STRtree index = new STRtree();
+			for (int i = 0; i < outerRings.size(); i++)
+				index.insert(outerRings.get(i).getEnvelopeInternal(), i);
+			PreparedGeometry[] shells = new PreparedGeometry[outerRings.size()];
+			double[] areas = new double[outerRings.size()];
+
+			for (LinearRing inner: innerRings)
+			{
+				Polygon innerPolygon = null;
+				int best = -1;
+				for (Object o: index.query(inner.getEnvelopeInternal()))
+				{
+					int i = (Integer) o;
+					if (!outerRings.get(i).getEnvelopeInternal().covers(inner.getEnvelopeInternal()))
+						continue;
+					if (shells[i] == null)
+					{
+						Polygon shell = geometryFactory.createPolygon(outerRings.get(i), null);
+						shells[i] = PreparedGeometryFactory.prepare(shell);
+						areas[i] = shell.getArea();
+					}
+					if ((best >= 0) && (areas[i] >= areas[best]))           //A smaller outer ring containing this inner ring has been found already
+						continue;
+					if (innerPolygon == null)
+						innerPolygon = geometryFactory.createPolygon(inner, null);
+					if (shells[i].contains(innerPolygon))
+						best = i;
+				}
+				if (best >= 0)
+				{
+					if (holes.get(best) == null)
+						holes.set(best, new ArrayList<LinearRing>());
+					holes.get(best).add(inner);
+				}
+			}
+		}
+
+		Polygon[] polygons = new Polygon[outerRings.size()];
+		for (int i = 0; i < outerRings.size(); i++)
+		{
+			List<LinearRing> h = holes.get(i);
+			polygons[i] = geometryFactory.createPolygon(outerRings.get(i), (h == null) ? null : h.toArray(new LinearRing[h.size()]));
+		}
+		return geometryFactory.createMultiPolygon(polygons);
+	}
+
+
+	/**
+	 * Forms rings from member geometries. Closed members are rings already; the rest are joined at their common endpoints, and only the resulting closed sequences are kept as rings.
+	 * @param members  Geometries of member ways.
+	 * @return  A list of linear rings.
+	 */
+	private List<LinearRing> rings(List<Geometry> members) {
+
+		List<LinearRing> rings = new ArrayList<LinearRing>();
+		List<Coordinate[]> parts = new ArrayList<Coordinate[]>();
+		for (Geometry g: members)
+		{
+			if (g instanceof Polygon)
+				rings.add((LinearRing) ((Polygon) g).getExteriorRing());
+			else if (g instanceof LinearRing)
+				rings.add((LinearRing) g);
+			else if (g instanceof LineString)
+			{
+				Coordinate[] coords = g.getCoordinates();
+				if (coords.length < 2)
+					continue;
+				if (coords[0].equals2D(coords[coords.length - 1]))
+					addRing(rings, coords);
+				else
+					parts.add(coords);
+			}
+		}
+		if (!parts.isEmpty())
+			joinParts(parts, rings);
+		return rings;
+	}
+
+
+	/**
+	 * Joins linestrings with common endpoints into rings. Starting from each unused linestring, the sequence is extended at its end with any unused linestring sharing that endpoint (possibly reversed), until it closes or cannot be extended.
+	 * @param parts  Coordinates of linestrings that are not closed.
+	 * @param rings  List where the resulting rings are added.
+	 */
+	private void joinParts(List<Coordinate[]> parts, List<LinearRing> rings) {
+
+		//Index linestrings by both their endpoints
+		Map<Coordinate, List<Integer>> endpoints = new HashMap<Coordinate, List<Integer>>(2 * parts.size());
+		for (int i = 0; i < parts.size(); i++)
+		{
+			Coordinate[] p = parts.get(i);
+			endpoints.computeIfAbsent(p[0], k -> new ArrayList<Integer>(2)).add(i);
+			endpoints.computeIfAbsent(p[p.length - 1], k -> new ArrayList<Integer>(2)).add(i);
+		}
+
+		boolean[] used = new boolean[parts.size()];
+		for (int i = 0; i < parts.size(); i++)
+		{
+			if (used[i])
+				continue;
+			used[i] = true;
+			CoordinateList ring = new CoordinateList(parts.get(i), false);
+			Coordinate start = ring.getCoordinate(0);
+			Coordinate end = ring.getCoordinate(ring.size() - 1);
+			while (!end.equals2D(start))
+			{
+				int next = nextPart(endpoints.get(end), parts, used, start);
+				if (next < 0)
+					break;                                   //This sequence cannot be closed
+				used[next] = true;
+				Coordinate[] p = parts.get(next);
+				ring.add(p, false, p[0].equals2D(end));      //Append in reverse order if the linestring ends at this endpoint
+				end = ring.getCoordinate(ring.size() - 1);
+			}
+			if (end.equals2D(start))
+				addRing(rings, ring.toCoordinateArray());
+		}
+	}
+
+
+	/**
+	 * Chooses an unused linestring with the given endpoint; preferably one that also ends at the start of the ring, so that the ring gets closed.
+	 * @param candidates  Linestrings with this endpoint.
+	 * @param parts  Coordinates of all linestrings.
+	 * @param used  Linestrings already included in rings.
+	 * @param start  The first vertex of the ring under construction.
+	 * @return  The position of the chosen linestring; -1 if none is available.
+	 */
+	private int nextPart(List<Integer> candidates, List<Coordinate[]> parts, boolean[] used, Coordinate start) {
+
+		int next = -1;
+		for (int j: candidates)
+		{
+			if (used[j])
+				continue;
+			Coordinate[] p = parts.get(j);
+			if ((p[0].equals2D(start)) || (p[p.length - 1].equals2D(start)))
+				return j;
+			if (next < 0)
+				next = j;
+		}
+		return next;
+	}
+
+
+	/**
+	 * Creates a linear ring, unless it is degenerate (i.e., with less than 4 vertices).
+	 * @param rings  List where the ring is added.
+	 * @param coords  Coordinates of a closed sequence.
+	 */
+	private void addRing(List<LinearRing> rings, Coordinate[] coords) {
+
+		if (coords.length >= 4)
+			rings.add(geometryFactory.createLinearRing(coords));
+	}
+
+}
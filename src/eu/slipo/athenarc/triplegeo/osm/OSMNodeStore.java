@@ -0,0 +1,523 @@
+/*
+ * @(#) OSMNodeStore.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.osm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongUnaryOperator;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
+
+/**
+ * Store of locations of OSM nodes keyed by their (primitive) OSM identifiers; used instead of an OSMIndex for node coordinates.
+ * Identifiers of nodes referenced by OSM ways or relations are first collected in a compact set during the preliminary scans. Once sealed (before nodes get parsed), one of these layouts is chosen according to the density of identifiers:
+ *  - DENSE: a slot per identifier between the minimum and maximum referenced one (8 bytes per slot), suitable if most identifiers in this range are referenced;
+ *  - SORTED: sorted array of referenced identifiers along with their locations (16 bytes per node), searched with binary search.
+ * Coordinates are packed into a single long as fixed-point values with 7 decimal digits (the precision of OSM). If the store does not fit in the available heap, locations are kept in a memory-mapped temporary file.
+ * A complete store can be saved into the directory of a persistent index and opened again in another run; locations are then memory-mapped read-only from that directory.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Modified: 16/10/2026; referenced identifiers collected in a compact set of identifiers
+ * Modified: 16/10/2026; locations can be copied into a buffer of coordinates without creating objects
+ * Modified: 16/10/2026; store can be saved into and opened (memory-mapped, read-only) from the directory of a persistent index
+ * Modified: 16/10/2026; chunks of memory-mapped files are mapped once, even if accessed concurrently
+ * Modified: 16/10/2026; mapped chunks safely published to concurrent readers
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OSMNodeStore {
+
+	/**
+	 * Layout of the store, chosen when it gets sealed.
+	 */
+	public enum Layout { PENDING, DENSE, SORTED }
+
+	private static final double SCALE = 1E7;                 //Fixed-point precision of coordinates, same as in OSM
+	private static final long EMPTY = Long.MIN_VALUE;        //Packed value for missing locations; stored values are XOR-ed with it, so that zero-filled slots denote no location
+
+	/**
+	 * Array of long values with long indices.
+	 */
+	interface LongStore {
+		long get(long i);
+		void set(long i, long v);
+		void close();
+	}
+
+	/**
+	 * Array of long values in the heap, allocated lazily in chunks; unallocated chunks contain zeros.
+	 */
+	private static class HeapLongStore implements LongStore {
+		private static final int SHIFT = 20;                 //Chunks of 1M values (8MB)
+		private static final int MASK = (1 << SHIFT) - 1;
+		private long[][] chunks;
+
+		HeapLongStore(long size) {
+			chunks = new long[(int) ((size + MASK) >>> SHIFT)][];
+		}
+
+		public long get(long i) {
+			long[] c = chunks[(int) (i >>> SHIFT)];
+			return (c == null) ? 0L : c[(int) (i & MASK)];
+		}
+
+		public void set(long i, long v) {
+			int k = (int) (i >>> SHIFT);
+			if (chunks[k] == null)
+				chunks[k] = new long[1 << SHIFT];
+			chunks[k][(int) (i & MASK)] = v;
+		}
+
+		public void close() {
+			chunks = null;
+		}
+	}
+
+	/**
+	 * Array of long values in a memory-mapped file, mapped lazily in chunks. Either a temporary file, where unwritten parts contain zeros; or an existing file of a persistent index, which is mapped read-only.
+	 */
+	static class MappedLongStore implements LongStore {
+		private static final int SHIFT = 27;                 //Chunks of 128M values (1GB)
+		private static final int MASK = (1 << SHIFT) - 1;
+		private File file;
+		private RandomAccessFile raf;
+		private AtomicReferenceArray<LongBuffer> chunks;     //Mapped by any thread, so each chunk must be safely published to the rest
+		private long size;                                   //Number of values
+		private boolean readOnly = false;                    //True for a file of a persistent index, which is never erased
+
+		MappedLongStore(String tmpDir, long size) throws IOException {
+			file = File.createTempFile("nodeStore", ".bin", new File(tmpDir));
+			file.deleteOnExit();
+			raf = new RandomAccessFile(file, "rw");
+			this.size = size;
+			chunks = new AtomicReferenceArray<LongBuffer>((int) ((size + MASK) >>> SHIFT));
+		}
+
+		MappedLongStore(File file, long size) throws IOException {
+			this.file = file;
+			raf = new RandomAccessFile(file, "r");
+			if (raf.length() < 8 * size)
+				throw new IOException("File " + file + " is shorter than expected.");
+			this.size = size;
+			readOnly = true;
+			chunks = new AtomicReferenceArray<LongBuffer>((int) ((size + MASK) >>> SHIFT));
+		}
+
+		private LongBuffer chunk(int k) {
+			LongBuffer c = chunks.get(k);
+			return (c != null) ? c : map(k);
+		}
+
+		private synchronized LongBuffer map(int k) {          //Concurrent readers (e.g., threads assembling OSM relations) map each chunk only once
+			if (chunks.get(k) == null)
+			{
+				long start = (long) k << SHIFT;
+				try {
+					if (readOnly)         //A read-only mapping cannot extend beyond the end of the file
+						chunks.set(k, raf.getChannel().map(FileChannel.MapMode.READ_ONLY, start * 8, Math.min(1L << SHIFT, size - start) * 8).order(ByteOrder.nativeOrder()).asLongBuffer());
+					else
+						chunks.set(k, raf.getChannel().map(FileChannel.MapMode.READ_WRITE, start * 8, (1L << SHIFT) * 8).order(ByteOrder.nativeOrder()).asLongBuffer());
+				} catch (IOException e) {
+					ExceptionHandler.abort(e, "Cannot map the file used for storing " + file.getName() + ".");
+				}
+			}
+			return chunks.get(k);
+		}
+
+		public long get(long i) {
+			return chunk((int) (i >>> SHIFT)).get((int) (i & MASK));
+		}
+
+		public void set(long i, long v) {
+			chunk((int) (i >>> SHIFT)).put((int) (i & MASK), v);
+		}
+
+		/**
+		 * Keeps the temporary file under another name (e.g., in the directory of a persistent index), instead of erasing it on close. Mapped chunks remain valid.
+		 * @param target  The new path of the file; it must be on the same file system.
+		 * @return  True, if the file has been renamed; otherwise, False.
+		 */
+		boolean moveTo(File target) {
+			if (readOnly)
+				return false;
+			try {
+				if (raf.length() < 8 * size)
+					raf.setLength(8 * size);         //Chunks never mapped are not included in the file yet
+			} catch (IOException e) {
+				return false;
+			}
+			if (!file.renameTo(target))
+				return false;
+			file = target;
+			readOnly = true;                 //Mapped chunks remain writable, but the file will not be erased
+			return true;
+		}
+
+		public void close() {
+			chunks = null;
+			try {
+				raf.close();
+			} catch (IOException e) {
+				ExceptionHandler.warn(e, "Cannot close the file used for storing " + file.getName() + ".");
+			}
+			if (!readOnly)
+				file.delete();
+		}
+	}
+
+
+	/**
+	 * Writes long values into a file in native byte order, so that the file can be memory-mapped later.
+	 * @param file  The file to be written.
+	 * @param values  Provides the value at each position.
+	 * @param count  Number of values.
+	 * @throws IOException  Thrown if the file cannot be written.
+	 */
+	static void writeLongs(File file, LongUnaryOperator values, long count) throws IOException {
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(0);
+			FileChannel channel = raf.getChannel();
+			ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.nativeOrder());
+			for (long i = 0; i < count; i++)
+			{
+				if (!buf.hasRemaining())
+				{
+					buf.flip();
+					while (buf.hasRemaining())
+						channel.write(buf);
+					buf.clear();
+				}
+				buf.putLong(values.applyAsLong(i));
+			}
+			buf.flip();
+			while (buf.hasRemaining())
+				channel.write(buf);
+		}
+	}
+
+
+	/**
+	 * Reads long values (in native byte order) from a file into an array.
+	 * @param file  The file to be read.
+	 * @param count  Number of values.
+	 * @return  An array with the values.
+	 * @throws IOException  Thrown if the file cannot be read or is shorter than expected.
+	 */
+	static long[] readLongs(File file, long count) throws IOException {
+
+		if (count > Integer.MAX_VALUE - 8)
+			throw new IOException("Too many values to be kept in an array.");
+		long[] values = new long[(int) count];
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			if (raf.length() < 8 * count)
+				throw new IOException("File " + file + " is shorter than expected.");
+			FileChannel channel = raf.getChannel();
+			ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.nativeOrder());
+			int n = 0;
+			while (n < values.length)
+			{
+				buf.clear();
+				buf.limit((int) Math.min(buf.capacity(), 8L * (values.length - n)));
+				while (buf.hasRemaining())
+					if (channel.read(buf) < 0)
+						throw new IOException("Unexpected end of file " + file + ".");
+				buf.flip();
+				LongBuffer lb = buf.asLongBuffer();
+				int len = lb.remaining();
+				lb.get(values, n, len);
+				n += len;
+			}
+		}
+		return values;
+	}
+
+	private String tmpDir;                   //Directory for the memory-mapped file, if needed
+	private Layout layout = Layout.PENDING;
+	private boolean mapped = false;          //True, if locations are kept in a memory-mapped file
+
+	private OSMIdSet referenced;             //Referenced identifiers; also kept in the DENSE layout, so that unreferenced nodes are not stored
+	private long[] ids;                      //Sorted referenced identifiers (SORTED layout)
+	private long numIds = 0;                 //Number of referenced identifiers
+	private long minId;                      //Smallest referenced identifier (DENSE layout)
+	private long range;                      //Number of slots between the smallest and the largest referenced identifier (DENSE layout)
+	private LongStore locations;             //Packed locations of nodes
+	private long numLocations = 0;           //Number of nodes with a location
+	private boolean persistent = false;      //True, if opened from a persistent index; no more locations can be stored
+
+
+	/**
+	 * Constructor of a node store.
+	 * @param tmpDir  Directory to hold a memory-mapped file, in case that the store does not fit in memory; this file will be erased once transformation is complete.
+	 */
+	public OSMNodeStore(String tmpDir) {
+		this.tmpDir = tmpDir;
+		referenced = new OSMIdSet();
+	}
+
+
+	/**
+	 * Marks a node as referenced (e.g., by an OSM way), so that its location will be kept once the node gets parsed.
+	 * @param id  The OSM identifier of the node.
+	 */
+	public void reference(long id) {
+
+		if (layout != Layout.PENDING)
+			throw new IllegalStateException("No more references to OSM nodes can be added once their locations are being stored.");
+		referenced.add(id);
+	}
+
+
+	/**
+	 * Chooses the layout of the store according to the density of referenced identifiers and allocates space for their locations.
+	 * This is called automatically when the first location is stored.
+	 */
+	public void seal() {
+
+		if (layout != Layout.PENDING)
+			return;
+
+		numIds = referenced.size();
+		range = (numIds > 0) ? referenced.max() - referenced.min() + 1 : 0;
+		long size;
+		if (range <= 2L * numIds)               //A slot per identifier in the range costs less than keeping the identifiers
+		{
+			layout = Layout.DENSE;
+			minId = (numIds > 0) ? referenced.min() : 0;
+			size = range;
+			referenced.optimize();              //Kept for lookups while nodes are parsed, so no more identifiers are expected
+		}
+		else
+		{
+			layout = Layout.SORTED;
+			ids = referenced.toSortedArray();
+			size = numIds;
+			referenced = null;
+		}
+
+		//Resort to a memory-mapped file if the locations would occupy more than half of the available heap
+		Runtime rt = Runtime.getRuntime();
+		long available = rt.maxMemory() - (rt.totalMemory() - rt.freeMemory());
+		try {
+			if (8 * size > available / 2)
+			{
+				locations = new MappedLongStore(tmpDir, size);
+				mapped = true;
+			}
+			else
+				locations = new HeapLongStore(size);
+		} catch (IOException e) {
+			ExceptionHandler.abort(e, "Cannot create a file for storing locations of OSM nodes.");
+		}
+
+		System.out.println("Locations of " + numIds + " referenced OSM nodes will be kept in a " + layout + (mapped ? " memory-mapped" : " in-memory") + " store.");
+	}
+
+
+	/**
+	 * Provides the position of a node in the store.
+	 * @param id  The OSM identifier of the node.
+	 * @return  The position of this node; -1 if this node cannot be stored.
+	 */
+	private long position(long id) {
+
+		if (layout == Layout.DENSE)
+		{
+			long i = id - minId;
+			return ((i >= 0) && (i < range)) ? i : -1;
+		}
+		int i = Arrays.binarySearch(ids, id);
+		return (i >= 0) ? i : -1;
+	}
+
+
+	/**
+	 * Stores the location of a node, only if it has been referenced.
+	 * @param id  The OSM identifier of the node.
+	 * @param lon  Longitude of the node.
+	 * @param lat  Latitude of the node.
+	 * @return  True, if the location has been stored; otherwise, False.
+	 */
+	public boolean put(long id, double lon, double lat) {
+
+		seal();
+		if (persistent)                                            //Locations are already available in the persistent index
+			return false;
+		if ((referenced != null) && (!referenced.contains(id)))    //Not referenced, although in the range of the DENSE layout
+			return false;
+		long i = position(id);
+		if (i < 0)
+			return false;
+		long packed = ((long) (int) Math.round(lon * SCALE) << 32) | ((int) Math.round(lat * SCALE) & 0xFFFFFFFFL);
+		if (locations.get(i) == 0L)
+			numLocations++;
+		locations.set(i, packed ^ EMPTY);
+		return true;
+	}
+
+
+	/**
+	 * Provides the location of a node.
+	 * @param id  The OSM identifier of the node.
+	 * @return  A coordinate with the longitude and latitude of the node; null if no location has been stored for this node.
+	 */
+	public Coordinate get(long id) {
+
+		if (layout == Layout.PENDING)
+			return null;
+		long i = position(id);
+		if (i < 0)
+			return null;
+		long v = locations.get(i);
+		if (v == 0L)
+			return null;
+		v ^= EMPTY;
+		return new Coordinate((int) (v >> 32) / SCALE, (int) v / SCALE);
+	}
+
+
+	/**
+	 * Copies the location of a node into a buffer of coordinates, without creating any objects.
+	 * @param id  The OSM identifier of the node.
+	 * @param buffer  Array of ordinates, where longitude and latitude are written at consecutive positions.
+	 * @param offset  Position in the buffer for the longitude; latitude is written next to it.
+	 * @return  True, if the location has been copied; False, if no location has been stored for this node.
+	 */
+	public boolean get(long id, double[] buffer, int offset) {
+
+		if (layout == Layout.PENDING)
+			return false;
+		long i = position(id);
+		if (i < 0)
+			return false;
+		long v = locations.get(i);
+		if (v == 0L)
+			return false;
+		v ^= EMPTY;
+		buffer[offset] = (int) (v >> 32) / SCALE;
+		buffer[offset + 1] = (int) v / SCALE;
+		return true;
+	}
+
+
+	/**
+	 * Provides the number of referenced nodes, or the number of nodes with a stored location once the store has been sealed.
+	 * @return  The count of nodes.
+	 */
+	public long size() {
+
+		if (layout == Layout.PENDING)
+			return referenced.size();
+		return numLocations;
+	}
+
+
+	/**
+	 * Provides the layout chosen for this store.
+	 * @return  The layout; PENDING if not sealed yet.
+	 */
+	public Layout getLayout() {
+		return layout;
+	}
+
+
+	/**
+	 * Saves the store into the directory of a persistent index, once all locations have been stored.
+	 * @param dir  The directory of the persistent index.
+	 * @param props  Properties of the index, where the layout of the store is recorded.
+	 * @throws IOException  Thrown if the files of the store cannot be written.
+	 */
+	public void save(File dir, Properties props) throws IOException {
+
+		seal();
+		props.setProperty("nodes.layout", layout.name());
+		props.setProperty("nodes.count", Long.toString(numIds));
+		props.setProperty("nodes.locations", Long.toString(numLocations));
+		props.setProperty("nodes.minId", Long.toString(minId));
+		props.setProperty("nodes.range", Long.toString(range));
+		if (layout == Layout.SORTED)
+			writeLongs(new File(dir, "nodes.ids"), i -> ids[(int) i], numIds);
+		File file = new File(dir, "nodes.loc");
+		if ((locations instanceof MappedLongStore) && (((MappedLongStore) locations).moveTo(file)))
+			return;                          //A memory-mapped file in the same directory is kept as is, instead of being copied
+		writeLongs(file, locations::get, (layout == Layout.DENSE) ? range : numIds);
+	}
+
+
+	/**
+	 * Opens a store saved into the directory of a persistent index. Identifiers (in the SORTED layout) are loaded in memory, whereas locations are memory-mapped read-only.
+	 * @param dir  The directory of the persistent index.
+	 * @param props  Properties of the index, where the layout of the store has been recorded.
+	 * @return  A store that provides locations of nodes, but cannot store any more.
+	 * @throws IOException  Thrown if the files of the store are missing or incomplete.
+	 */
+	public static OSMNodeStore open(File dir, Properties props) throws IOException {
+
+		OSMNodeStore store = new OSMNodeStore(null);
+		try {
+			store.layout = Layout.valueOf(props.getProperty("nodes.layout"));
+			store.numIds = Long.parseLong(props.getProperty("nodes.count"));
+			store.numLocations = Long.parseLong(props.getProperty("nodes.locations"));
+			store.minId = Long.parseLong(props.getProperty("nodes.minId"));
+			store.range = Long.parseLong(props.getProperty("nodes.range"));
+		} catch (RuntimeException e) {
+			throw new IOException("Missing or invalid properties of the stored OSM nodes.", e);
+		}
+		if (store.layout == Layout.PENDING)
+			throw new IOException("Stored OSM nodes have not been sealed.");
+		store.referenced = null;
+		if (store.layout == Layout.SORTED)
+			store.ids = readLongs(new File(dir, "nodes.ids"), store.numIds);
+		store.locations = new MappedLongStore(new File(dir, "nodes.loc"), (store.layout == Layout.DENSE) ? store.range : store.numIds);
+		store.mapped = true;
+		store.persistent = true;
+		System.out.println("Locations of " + store.numLocations + " OSM nodes are available in a " + store.layout + " store of a persistent index.");
+		return store;
+	}
+
+
+	/**
+	 * Erases all contents of the store, including any memory-mapped temporary file; files of a persistent index are kept.
+	 */
+	public void clear() {
+
+		if (locations != null)
+			locations.close();
+		locations = null;
+		referenced = null;
+		ids = null;
+		numIds = 0;
+		numLocations = 0;
+	}
+
+}
@@ -0,0 +1,404 @@
+/*
+ * @(#) OSMPbfReader.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.osm;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+
+import crosby.binary.Fileformat;
+import crosby.binary.Osmformat;
+import crosby.binary.osmosis.OsmosisBinaryParser;
+import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
+
+/**
+ * Reader of OSM PBF files that decodes their blocks concurrently; used instead of the single-threaded OsmosisReader.
+ * The file is split into its independent blocks (each one with a header and a blob) by the calling thread. Data blocks get decompressed and decoded into OSM entities by a pool of threads,
+ * whereas entities are delivered to the sink by the calling thread in the order of the file (e.g., nodes before ways before relations).
+ * The number of blocks pending in memory is bounded, so the entire file is never held in memory.
+ * Blocks may also be read in reverse order (i.e., relations before ways before nodes), so that a pass collecting references can be stopped once it reaches the nodes at the beginning of the file, provided that the file is sorted.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Modified: 16/10/2026; reading of blocks in reverse order, which can be stopped by the sink
+ * Modified: 16/10/2026; entities always delivered in the order of the file
+ * Modified: 16/10/2026; check whether the file declares its elements sorted by type and identifier
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OSMPbfReader implements Runnable {
+
+	private static final int MAX_HEADER_SIZE = 64 * 1024;               //Limits specified for the PBF format
+	private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+	private static final String SORTED_FEATURE = "Sort.Type_then_ID";                //Elements sorted by type (nodes, ways, relations) and then by identifier
+	private static final Set<String> SUPPORTED_FEATURES = new HashSet<String>(Arrays.asList("OsmSchema-V0.6", "DenseNodes", "HistoricalInformation", SORTED_FEATURE));
+
+	/**
+	 * Sink that collects the OSM entities decoded from a single block.
+	 */
+	private static class EntityCollector implements Sink {
+		List<EntityContainer> entities = new ArrayList<EntityContainer>();
+
+		public void initialize(Map<String, Object> metaData) {
+		}
+
+		public void process(EntityContainer entityContainer) {
+			entities.add(entityContainer);
+		}
+
+		public void complete() {
+		}
+
+		public void close() {
+		}
+	}
+
+	private File file;                  //The input OSM PBF file
+	private int numThreads;             //Number of threads decoding blocks
+	private Sink sink;                  //The sink that consumes the decoded entities
+	private boolean reverse = false;    //True, if blocks (and entities within each block) are delivered in reverse order
+	private volatile boolean stopped;   //True, once the sink has requested to stop reading
+	private long numBlocks;             //Number of data blocks decoded in the last run
+
+	private ExecutorService pool;                                       //State of the current run
+	private ArrayDeque<Future<List<EntityContainer>>> pending;
+	private int numPending;
+	private int maxPending;
+
+
+	/**
+	 * Constructor of a reader for an OSM PBF file.
+	 * @param file  The input OSM PBF file.
+	 * @param numThreads  Number of threads that will concurrently decompress and decode blocks of the file.
+	 */
+	public OSMPbfReader(File file, int numThreads) {
+		this.file = file;
+		this.numThreads = Math.max(1, numThreads);
+	}
+
+
+	/**
+	 * Specifies the sink that will consume the decoded entities.
+	 * @param sink  The sink.
+	 */
+	public void setSink(Sink sink) {
+		this.sink = sink;
+	}
+
+
+	/**
+	 * Specifies whether the file will be read in reverse order, i.e., from its last block to its first one; entities in each block are also delivered in reverse order.
+	 * Since OSM PBF files contain nodes, then ways, and then relations, these are delivered in the opposite order.
+	 * @param reverse  True, if the file will be read in reverse order.
+	 */
+	public void setReverse(boolean reverse) {
+		this.reverse = reverse;
+	}
+
+
+	/**
+	 * Stops reading the file; no more entities will be delivered to the sink. This should be called by the sink (e.g., once it has collected all required references).
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+
+	/**
+	 * Provides the number of data blocks decoded when the file was last read.
+	 * @return  The count of blocks.
+	 */
+	public long getNumBlocks() {
+		return numBlocks;
+	}
+
+
+	/**
+	 * Reads the entire file (unless stopped) and delivers all its entities to the sink.
+	 */
+	@Override
+	public void run() {
+
+		numBlocks = 0;
+		stopped = false;
+		maxPending = 4 * numThreads;                                        //At most that many blocks are read or decoded, but not yet delivered
+		pool = Executors.newFixedThreadPool(numThreads);
+		pending = new ArrayDeque<Future<List<EntityContainer>>>();
+		numPending = 0;
+
+		try {
+			sink.initialize(Collections.<String, Object>emptyMap());
+			if (reverse)
+				readReverse();
+			else
+				readForward();
+
+			//Deliver any remaining blocks
+			while ((numPending > 0) && (!stopped))
+				deliverNext();
+			sink.complete();
+		} catch (Exception e) {
+			ExceptionHandler.abort(e, "Cannot read blocks of the OSM PBF file.");
+		} finally {
+			pool.shutdownNow();
+			pool = null;
+			pending = null;
+			sink.close();
+		}
+	}
+
+
+	/**
+	 * Reads blocks sequentially from the beginning of the file.
+	 * @throws Exception
+	 */
+	private void readForward() throws Exception {
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+			byte[] header;
+			while (((header = readHeader(in)) != null) && (!stopped))
+			{
+				Fileformat.BlobHeader blobHeader = parseHeader(header);
+				byte[] blob = new byte[blobHeader.getDatasize()];
+				in.readFully(blob);
+				submit(blobHeader.getType(), blob);
+			}
+		}
+	}
+
+
+	/**
+	 * Reads blocks from the end of the file towards its beginning. The positions of blocks are found first by reading only their headers.
+	 * @throws Exception
+	 */
+	private void readReverse() throws Exception {
+
+		List<String> types = new ArrayList<String>();
+		List<long[]> positions = new ArrayList<long[]>();               //Offset and size of the blob of each block
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			while (raf.getFilePointer() < raf.length())
+			{
+				byte[] header = new byte[raf.readInt()];
+				if (header.length > MAX_HEADER_SIZE)
+					throw new IOException("Invalid size of a block header in the OSM PBF file.");
+				raf.readFully(header);
+				Fileformat.BlobHeader blobHeader = parseHeader(header);
+				types.add(blobHeader.getType());
+				positions.add(new long[] {raf.getFilePointer(), blobHeader.getDatasize()});
+				raf.seek(raf.getFilePointer() + blobHeader.getDatasize());            //Skip the blob
+			}
+
+			for (int i = types.size() - 1; (i >= 0) && (!stopped); i--)
+			{
+				byte[] blob = new byte[(int) positions.get(i)[1]];
+				raf.seek(positions.get(i)[0]);
+				raf.readFully(blob);
+				submit(types.get(i), blob);
+			}
+		}
+	}
+
+
+	/**
+	 * Submits a block for decoding, after delivering decoded blocks if too many are pending.
+	 * @param type  The type of the block.
+	 * @param blob  The (possibly compressed) blob of the block.
+	 * @throws Exception
+	 */
+	private void submit(String type, final byte[] blob) throws Exception {
+
+		if (type.equals("OSMHeader"))
+			checkHeader(inflate(blob));
+		else if (type.equals("OSMData"))
+		{
+			//Deliver decoded blocks before submitting more, so that the number of pending blocks remains bounded
+			if (numPending == maxPending)
+				deliverNext();
+			pending.add(pool.submit(() -> decode(blob)));
+			numPending++;
+			numBlocks++;
+		}
+		//Blocks of unknown type are skipped
+	}
+
+
+	/**
+	 * Parses and checks the header of a block.
+	 * @param header  The bytes of the header.
+	 * @return  The parsed header.
+	 * @throws IOException
+	 */
+	private static Fileformat.BlobHeader parseHeader(byte[] header) throws IOException {
+
+		Fileformat.BlobHeader blobHeader = Fileformat.BlobHeader.parseFrom(header);
+		if ((blobHeader.getDatasize() < 0) || (blobHeader.getDatasize() > MAX_BLOB_SIZE))
+			throw new IOException("Invalid size of a block in the OSM PBF file.");
+		return blobHeader;
+	}
+
+
+	/**
+	 * Reads the header of the next block.
+	 * @param in  The input stream.
+	 * @return  The bytes of the header; null at the end of the file.
+	 * @throws IOException
+	 */
+	private static byte[] readHeader(DataInputStream in) throws IOException {
+
+		int b = in.read();
+		if (b < 0)
+			return null;                               //End of file
+		int size = (b << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+		if ((size < 0) || (size > MAX_HEADER_SIZE))
+			throw new IOException("Invalid size of a block header in the OSM PBF file.");
+		byte[] header = new byte[size];
+		in.readFully(header);
+		return header;
+	}
+
+
+	/**
+	 * Waits for the next decoded block and delivers its entities to the sink, unless the sink requests to stop.
+	 * @throws Exception
+	 */
+	private void deliverNext() throws Exception {
+
+		List<EntityContainer> entities = pending.poll().get();
+		numPending--;
+		if (reverse)
+		{
+			for (int i = entities.size() - 1; (i >= 0) && (!stopped); i--)
+				sink.process(entities.get(i));
+		}
+		else
+		{
+			for (int i = 0; (i < entities.size()) && (!stopped); i++)
+				sink.process(entities.get(i));
+		}
+	}
+
+
+	/**
+	 * Checks whether an OSM PBF file declares (as a required or optional feature in its header) that its elements are sorted by type and then by identifier.
+	 * Only then are all nodes known to precede all ways, which in turn precede all relations, so that a pass can stop once it reaches elements of another type.
+	 * @param file  The input OSM PBF file.
+	 * @return  True, if the file is sorted; otherwise, False.
+	 * @throws IOException
+	 */
+	public static boolean isSorted(File file) throws IOException {
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+			byte[] header = readHeader(in);
+			if (header == null)
+				return false;                              //Empty file
+			Fileformat.BlobHeader blobHeader = parseHeader(header);
+			if (!blobHeader.getType().equals("OSMHeader"))
+				return false;                              //The header block should be the first one in the file
+			byte[] blob = new byte[blobHeader.getDatasize()];
+			in.readFully(blob);
+			Osmformat.HeaderBlock headerBlock = Osmformat.HeaderBlock.parseFrom(inflate(blob));
+			return (headerBlock.getRequiredFeaturesList().contains(SORTED_FEATURE)) || (headerBlock.getOptionalFeaturesList().contains(SORTED_FEATURE));
+		}
+	}
+
+
+	/**
+	 * Checks that all features required by the file are supported.
+	 * @param data  The decompressed header block of the file.
+	 * @throws IOException
+	 */
+	private void checkHeader(byte[] data) throws IOException {
+
+		Osmformat.HeaderBlock headerBlock = Osmformat.HeaderBlock.parseFrom(data);
+		for (String feature: headerBlock.getRequiredFeaturesList())
+		{
+			if (!SUPPORTED_FEATURES.contains(feature))
+				throw new IOException("OSM PBF file requires feature " + feature + ", which is not supported.");
+		}
+	}
+
+
+	/**
+	 * Decompresses and decodes a data block; this is executed by the threads of the pool.
+	 * @param blob  The (possibly compressed) blob of the block.
+	 * @return  The OSM entities in the block, in their original order.
+	 * @throws IOException
+	 */
+	private static List<EntityContainer> decode(byte[] blob) throws IOException {
+
+		EntityCollector collector = new EntityCollector();
+		OsmosisBinaryParser parser = new OsmosisBinaryParser();           //Not shared, since it keeps the string table of the block being parsed
+		parser.setSink(collector);
+		parser.parse(Osmformat.PrimitiveBlock.parseFrom(inflate(blob)));
+		return collector.entities;
+	}
+
+
+	/**
+	 * Extracts the contents of a blob, decompressing them if needed.
+	 * @param data  The serialized blob.
+	 * @return  The uncompressed contents of the blob.
+	 * @throws IOException
+	 */
+	private static byte[] inflate(byte[] data) throws IOException {
+
+		Fileformat.Blob blob = Fileformat.Blob.parseFrom(data);
+		if (blob.hasRaw())
+			return blob.getRaw().toByteArray();
+		if (!blob.hasZlibData())
+			throw new IOException("Unsupported compression of a block in the OSM PBF file.");
+
+		byte[] raw = new byte[blob.getRawSize()];
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(blob.getZlibData().toByteArray());
+			int n = inflater.inflate(raw);
+			if ((n != raw.length) || (!inflater.finished()))
+				throw new IOException("Corrupted compressed block in the OSM PBF file.");
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupted compressed block in the OSM PBF file.", e);
+		} finally {
+			inflater.end();
+		}
+		return raw;
+	}
+
+}
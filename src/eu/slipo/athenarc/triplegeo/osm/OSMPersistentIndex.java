@@ -0,0 +1,591 @@
+/*
+ * @(#) OSMPersistentIndex.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.osm;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.FileUtils;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
+
+/**
+ * Persistent index over an OSM PBF file, which can be reused by several transformations of the same file (e.g., with different mappings or classifications).
+ * The index is kept in a directory named after the signature of the input file (its size, its modification time, and a checksum over its first and last blocks), and it contains:
+ *  - locations of all OSM nodes referenced by any way or relation, saved from an OSMNodeStore and memory-mapped when opened;
+ *  - node lists of all OSM ways referenced by any relation, so that their geometries can be created on demand;
+ *  - identifiers of all OSM relations referenced by other relations.
+ * Since the index does not depend on any user-specified filters, a transformation using it can skip all preliminary passes and parse the file only once.
+ * The index is validated against the signature of the input file before use, which is cheap even for large files, since only their first and last blocks are read. The index is built (in two passes over the file) if missing or invalid.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OSMPersistentIndex {
+
+	private static final int VERSION = 2;                          //Format of the index; indices of other versions are rebuilt
+	private static final String PROPERTIES = "index.properties";
+	private static final int SAMPLE_SIZE = 1 << 20;                //Bytes at the beginning and at the end of the input file included in its signature
+
+	private File dir;
+	private OSMNodeStore nodeStore;
+	private long[] wayIds;                                         //Sorted identifiers of ways referenced by relations...
+	private long[] wayStarts;                                      //...the position of their first node in the file of node lists...
+	private long[] wayCounts;                                      //...and their number of nodes
+	private OSMNodeStore.MappedLongStore wayNodes;                 //Node lists of referenced ways, memory-mapped
+	private OSMIdSet referencedRelations;
+
+
+	/**
+	 * Computes the signature of a file, which identifies the directory of its persistent index. Only the beginning of the file (including its header) and its end are read, so this is cheap even for large files.
+	 * @param file  The input file.
+	 * @return  A string combining the size and the modification time of the file with the CRC-32 checksum of its first and last blocks.
+	 * @throws IOException  Thrown if the file cannot be read.
+	 */
+	public static String signature(File file) throws IOException {
+
+		CRC32 crc = new CRC32();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			FileChannel channel = raf.getChannel();
+			long size = channel.size();
+			update(crc, channel, 0, Math.min(size, SAMPLE_SIZE));
+			if (size > SAMPLE_SIZE)
+				update(crc, channel, Math.max(SAMPLE_SIZE, size - SAMPLE_SIZE), size);
+		}
+		return String.format("%x-%x-%08x", file.length(), file.lastModified(), crc.getValue());
+	}
+
+
+	/**
+	 * Updates a checksum with a range of bytes of a file.
+	 */
+	private static void update(CRC32 crc, FileChannel channel, long from, long to) throws IOException {
+
+		ByteBuffer buf = ByteBuffer.allocateDirect((int) Math.min(1 << 20, Math.max(1, to - from)));
+		long pos = from;
+		while (pos < to)
+		{
+			buf.limit((int) Math.min(buf.capacity(), to - pos));
+			int n = channel.read(buf, pos);
+			if (n < 0)
+				throw new IOException("Unexpected end of file.");
+			pos += n;
+			buf.flip();
+			crc.update(buf);
+			buf.clear();
+		}
+	}
+
+
+	/**
+	 * Provides the persistent index of an OSM PBF file; the index is built if it does not exist or does not match the file.
+	 * @param input  The OSM PBF file.
+	 * @param indexDir  The directory holding persistent indices, each one in a subdirectory named after the signature of its input file.
+	 * @param numDecoders  Number of threads decoding blocks of the file, in case that the index must be built.
+	 * @return  The opened index.
+	 */
+	public static OSMPersistentIndex obtain(File input, String indexDir, int numDecoders) {
+
+		OSMPersistentIndex index = null;
+		try {
+			long start = System.currentTimeMillis();
+			String signature = signature(input);
+			File dir = new File(indexDir, signature);
+			System.out.println("Signature of input file " + input.getName() + " is " + signature + " (computed in " + (System.currentTimeMillis() - start) + " ms).");
+			if (!isValid(dir, signature))
+				dir = build(input, signature, indexDir, numDecoders);
+			index = open(dir, signature);
+		} catch (IOException e) {
+			ExceptionHandler.abort(e, "Cannot use the persistent index of OSM file " + input + " in directory " + indexDir + ".");
+		}
+		return index;
+	}
+
+
+	/**
+	 * Checks whether a persistent index exists in the given directory, is complete, and matches the input file.
+	 * @param dir  The directory of the index.
+	 * @param signature  The signature of the input file.
+	 * @return  True, if the index can be used; otherwise, False.
+	 */
+	public static boolean isValid(File dir, String signature) {
+
+		Properties props = readProperties(dir);
+		if (props == null)
+			return false;
+		if (!Integer.toString(VERSION).equals(props.getProperty("version")))
+			System.out.println("Persistent index in " + dir + " has an incompatible version.");
+		else if (!signature.equals(props.getProperty("signature")))
+			System.out.println("Persistent index in " + dir + " does not match the input file.");
+		else if (!ByteOrder.nativeOrder().toString().equals(props.getProperty("byteOrder")))
+			System.out.println("Persistent index in " + dir + " was built on a platform with a different byte order.");
+		else
+			return true;
+		return false;
+	}
+
+
+	/**
+	 * Reads the properties of a persistent index.
+	 * @param dir  The directory of the index.
+	 * @return  The properties; null, if the index does not exist or is incomplete.
+	 */
+	private static Properties readProperties(File dir) {
+
+		File file = new File(dir, PROPERTIES);           //Written last, so it only exists for complete indices
+		if (!file.isFile())
+			return null;
+		Properties props = new Properties();
+		try (InputStream in = new FileInputStream(file)) {
+			props.load(in);
+		} catch (IOException e) {
+			return null;
+		}
+		return props;
+	}
+
+
+	/**
+	 * Builds the persistent index of an OSM PBF file in two passes: a pass in reverse order over relations and ways collects all references, and a forward pass over nodes stores their locations.
+	 * The index is first built in a temporary directory, which replaces any existing index once complete.
+	 * @param input  The OSM PBF file.
+	 * @param signature  The signature of the input file.
+	 * @param indexDir  The directory holding persistent indices.
+	 * @param numDecoders  Number of threads decoding blocks of the file.
+	 * @return  The directory of the index.
+	 * @throws IOException  Thrown if the files of the index cannot be written.
+	 */
+	public static File build(File input, String signature, String indexDir, int numDecoders) throws IOException {
+
+		File dir = new File(indexDir, signature);
+		File tmp = new File(indexDir, signature + ".tmp");
+		FileUtils.deleteDirectory(tmp);
+		if (!tmp.mkdirs())
+			throw new IOException("Cannot create directory " + tmp + ".");
+
+		System.out.println("Building persistent index of OSM file " + input + " in " + dir + "...");
+		long start = System.currentTimeMillis();
+		Builder builder = new Builder(input, tmp, numDecoders);
+		Properties props = builder.run();
+		props.setProperty("version", Integer.toString(VERSION));
+		props.setProperty("signature", signature);
+		props.setProperty("input", input.getName());
+		props.setProperty("byteOrder", ByteOrder.nativeOrder().toString());
+		try (OutputStream out = new FileOutputStream(new File(tmp, PROPERTIES))) {
+			props.store(out, "Persistent index of OSM file " + input.getName());
+		}
+
+		FileUtils.deleteDirectory(dir);
+		if (!tmp.renameTo(dir))
+			throw new IOException("Cannot rename directory " + tmp + " to " + dir + ".");
+		System.out.println("Persistent index built in " + (System.currentTimeMillis() - start) + " ms.");
+		return dir;
+	}
+
+
+	/**
+	 * Opens a persistent index.
+	 * @param dir  The directory of the index.
+	 * @param signature  The signature of the input file.
+	 * @return  The opened index.
+	 * @throws IOException  Thrown if the index does not match the input file or its files are missing or incomplete.
+	 */
+	public static OSMPersistentIndex open(File dir, String signature) throws IOException {
+
+		if (!isValid(dir, signature))
+			throw new IOException("No valid persistent index in " + dir + ".");
+		Properties props = readProperties(dir);
+		OSMPersistentIndex index = new OSMPersistentIndex();
+		index.dir = dir;
+		try {
+			long numWays = Long.parseLong(props.getProperty("ways.count"));
+			long numWayNodes = Long.parseLong(props.getProperty("ways.nodes"));
+			long numRelations = Long.parseLong(props.getProperty("relations.count"));
+			index.nodeStore = OSMNodeStore.open(dir, props);
+			index.wayIds = OSMNodeStore.readLongs(new File(dir, "ways.ids"), numWays);
+			index.wayStarts = OSMNodeStore.readLongs(new File(dir, "ways.pos"), numWays);
+			index.wayCounts = OSMNodeStore.readLongs(new File(dir, "ways.len"), numWays);
+			index.wayNodes = new OSMNodeStore.MappedLongStore(new File(dir, "ways.nodes"), numWayNodes);
+			index.referencedRelations = new OSMIdSet();
+			for (long id: OSMNodeStore.readLongs(new File(dir, "relations.ids"), numRelations))
+				index.referencedRelations.add(id);
+		} catch (NumberFormatException e) {
+			throw new IOException("Invalid properties of the persistent index in " + dir + ".", e);
+		}
+		System.out.println("Using persistent index in " + dir + " with node lists of " + index.wayIds.length + " OSM ways and " + index.referencedRelations.size() + " OSM relations referenced by relations.");
+		return index;
+	}
+
+
+	/**
+	 * Provides the locations of all OSM nodes referenced by ways or relations.
+	 * @return  A read-only store of node locations.
+	 */
+	public OSMNodeStore getNodeStore() {
+		return nodeStore;
+	}
+
+
+	/**
+	 * Provides the identifiers of all OSM relations referenced by other relations.
+	 * @return  A set of identifiers.
+	 */
+	public OSMIdSet getReferencedRelations() {
+		return referencedRelations;
+	}
+
+
+	/**
+	 * Provides an index over the geometries of all OSM ways referenced by relations. Geometries are created on demand from the stored node lists and node locations.
+	 * @param geometryFactory  The factory used for creating geometries.
+	 * @param closedRings2Polygons  True, if closed ways should become polygons; otherwise, linestrings.
+	 * @return  A read-only index over way geometries.
+	 */
+	public OSMIndex getWayIndex(GeometryFactory geometryFactory, boolean closedRings2Polygons) {
+
+		return new OSMIndex() {
+
+			private long position(String k) {
+				try {
+					return Arrays.binarySearch(wayIds, Long.parseLong(k));
+				} catch (NumberFormatException e) {
+					return -1;
+				}
+			}
+
+			public Geometry get(String k) {
+				int i = (int) position(k);
+				if (i < 0)
+					return null;
+				OSMWay way = new OSMWay();
+				way.reserveNodeLocations((int) wayCounts[i]);
+				for (long j = wayStarts[i]; j < wayStarts[i] + wayCounts[i]; j++)
+					way.addNodeLocation(nodeStore, wayNodes.get(j));
+				return way.buildGeometry(geometryFactory, closedRings2Polygons);
+			}
+
+			public boolean containsKey(String k) {
+				return position(k) >= 0;
+			}
+
+			public void put(String k, Geometry g) {            //Geometries of all ways are created from the index on demand, so none need to be kept
+			}
+
+			public void putAll(Map<String, Geometry> m) {
+			}
+
+			public int size() {
+				return wayIds.length;
+			}
+
+			public void clear() {
+			}
+
+			public void print() {
+				for (long id: wayIds)
+					System.out.println(id);
+			}
+		};
+	}
+
+
+	/**
+	 * Closes the index and releases its memory; its files are kept for subsequent transformations.
+	 */
+	public void close() {
+
+		if (nodeStore != null)
+			nodeStore.clear();
+		if (wayNodes != null)
+			wayNodes.close();
+		nodeStore = null;
+		wayNodes = null;
+		wayIds = null;
+		wayStarts = null;
+		wayCounts = null;
+		referencedRelations = null;
+		System.out.println("Closed persistent index in " + dir + ".");
+	}
+
+
+	/**
+	 * Sink that collects the contents of a persistent index from an OSM PBF file.
+	 */
+	private static class Builder implements Sink {
+
+		private File input;
+		private File dir;
+		private int numDecoders;
+		private OSMPbfReader reader;
+		private boolean collectNodes = false;                //False in the reverse pass (relations and ways); True in the forward pass (nodes)
+		private boolean sorted = true;                       //True, if the input file declares its elements sorted by type and identifier
+		private OSMWaySpill spill;                           //In an unsorted file, node lists of all ways, kept until all relations have been read
+
+		private OSMNodeStore nodeStore;
+		private OSMIdSet referencedWays = new OSMIdSet();
+		private OSMIdSet referencedRelations = new OSMIdSet();
+
+		private FileChannel wayNodesChannel;                 //Node lists of referenced ways, written in the order these are read
+		private ByteBuffer wayNodesBuffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.nativeOrder());
+		private long numWayNodes = 0;
+		private long[] wayIds = new long[1024];
+		private long[] wayStarts = new long[1024];
+		private long[] wayCounts = new long[1024];
+		private int numWays = 0;
+
+
+		Builder(File input, File dir, int numDecoders) {
+			this.input = input;
+			this.dir = dir;
+			this.numDecoders = numDecoders;
+			nodeStore = new OSMNodeStore(dir.getPath());     //Any memory-mapped file of the store is created in the index directory, so it can be kept as is
+		}
+
+
+		/**
+		 * Reads the input file and writes all files of the index, except for its properties.
+		 * @return  Properties of the index.
+		 */
+		Properties run() throws IOException {
+
+			Properties props = new Properties();
+			try (RandomAccessFile raf = new RandomAccessFile(new File(dir, "ways.nodes"), "rw")) {
+				wayNodesChannel = raf.getChannel();
+
+				sorted = OSMPbfReader.isSorted(input);
+				if (sorted)
+				{
+					//Reverse pass: relations, then ways; it stops once the nodes are reached
+					reader = new OSMPbfReader(input, numDecoders);
+					reader.setReverse(true);
+					reader.setSink(this);
+					reader.run();
+				}
+				else
+				{
+					//Nodes, ways, and relations may be interleaved, so node lists of ways are spilled to disk until all relations have been read
+					try (OSMWaySpill s = new OSMWaySpill(dir.getPath())) {
+						spill = s;
+						reader = new OSMPbfReader(input, numDecoders);
+						reader.setSink(this);
+						reader.run();
+						spill.replay(referencedWays::contains, (wayId, nodeIds, n) -> {
+							long start = numWayNodes;
+							for (int i = 0; i < n; i++)
+								writeWayNode(nodeIds[i]);
+							addWay(wayId, start);
+						});
+					}
+					spill = null;
+				}
+				flush();
+			}
+
+			//Forward pass: locations of referenced nodes; it stops once the ways are reached in a sorted file
+			nodeStore.seal();
+			collectNodes = true;
+			reader = new OSMPbfReader(input, numDecoders);
+			reader.setSink(this);
+			reader.run();
+
+			nodeStore.save(dir, props);
+			nodeStore.clear();
+			sortWays();
+			OSMNodeStore.writeLongs(new File(dir, "ways.ids"), i -> wayIds[(int) i], numWays);
+			OSMNodeStore.writeLongs(new File(dir, "ways.pos"), i -> wayStarts[(int) i], numWays);
+			OSMNodeStore.writeLongs(new File(dir, "ways.len"), i -> wayCounts[(int) i], numWays);
+			long[] relations = referencedRelations.toSortedArray();
+			OSMNodeStore.writeLongs(new File(dir, "relations.ids"), i -> relations[(int) i], relations.length);
+
+			props.setProperty("ways.count", Integer.toString(numWays));
+			props.setProperty("ways.nodes", Long.toString(numWayNodes));
+			props.setProperty("relations.count", Integer.toString(relations.length));
+			return props;
+		}
+
+
+		/**
+		 * Sorts the collected ways by identifier. Since ways are read in reverse order, they are usually sorted in descending order already.
+		 */
+		private void sortWays() {
+
+			boolean ascending = true, descending = true;
+			for (int i = 1; i < numWays; i++)
+			{
+				ascending &= (wayIds[i - 1] < wayIds[i]);
+				descending &= (wayIds[i - 1] > wayIds[i]);
+			}
+			if (ascending)
+				return;
+
+			Integer[] order = new Integer[numWays];
+			for (int i = 0; i < numWays; i++)
+				order[i] = descending ? numWays - 1 - i : i;
+			if (!descending)
+				Arrays.sort(order, (a, b) -> Long.compare(wayIds[a], wayIds[b]));
+			long[] ids = new long[numWays], starts = new long[numWays], counts = new long[numWays];
+			for (int i = 0; i < numWays; i++)
+			{
+				ids[i] = wayIds[order[i]];
+				starts[i] = wayStarts[order[i]];
+				counts[i] = wayCounts[order[i]];
+			}
+			wayIds = ids;
+			wayStarts = starts;
+			wayCounts = counts;
+		}
+
+
+		/**
+		 * Appends a node identifier to the node lists of referenced ways.
+		 */
+		private void writeWayNode(long id) throws IOException {
+
+			if (!wayNodesBuffer.hasRemaining())
+				flush();
+			wayNodesBuffer.putLong(id);
+			numWayNodes++;
+		}
+
+
+		/**
+		 * Records a referenced way, whose node list starts at the given position.
+		 */
+		private void addWay(long wayId, long start) {
+
+			if (numWays == wayIds.length)
+			{
+				wayIds = Arrays.copyOf(wayIds, 2 * numWays);
+				wayStarts = Arrays.copyOf(wayStarts, 2 * numWays);
+				wayCounts = Arrays.copyOf(wayCounts, 2 * numWays);
+			}
+			wayIds[numWays] = wayId;
+			wayStarts[numWays] = start;
+			wayCounts[numWays] = numWayNodes - start;
+			numWays++;
+		}
+
+
+		private void flush() throws IOException {
+
+			wayNodesBuffer.flip();
+			while (wayNodesBuffer.hasRemaining())
+				wayNodesChannel.write(wayNodesBuffer);
+			wayNodesBuffer.clear();
+		}
+
+
+		@Override
+		public void initialize(Map<String, Object> metaData) {
+		}
+
+
+		@Override
+		public void process(EntityContainer entityContainer) {
+
+			if (collectNodes)
+			{
+				if (entityContainer instanceof NodeContainer)
+				{
+					Node n = ((NodeContainer) entityContainer).getEntity();
+					nodeStore.put(n.getId(), n.getLongitude(), n.getLatitude());
+				}
+				else if (sorted)
+					reader.stop();                                     //All nodes precede the ways
+			}
+			else if (entityContainer instanceof RelationContainer)
+			{
+				for (RelationMember m: ((RelationContainer) entityContainer).getEntity().getMembers())
+				{
+					if (m.getMemberType().name().equalsIgnoreCase("node"))
+						nodeStore.reference(m.getMemberId());
+					else if (m.getMemberType().name().equalsIgnoreCase("way"))
+						referencedWays.add(m.getMemberId());
+					else if (m.getMemberType().name().equalsIgnoreCase("relation"))
+						referencedRelations.add(m.getMemberId());
+				}
+			}
+			else if (entityContainer instanceof WayContainer)
+			{
+				//In a sorted file, all relations have been read, so it is known whether this way is referenced by any of them; otherwise, its node list is spilled
+				Way w = ((WayContainer) entityContainer).getEntity();
+				boolean referenced = (sorted) && (referencedWays.contains(w.getId()));
+				long start = numWayNodes;
+				try {
+					if (!sorted)
+						spill.startWay(w.getId(), w.getWayNodes().size());
+					for (WayNode wn: w.getWayNodes())
+					{
+						nodeStore.reference(wn.getNodeId());           //Any way may be filtered in some transformation, so locations of all its nodes are kept
+						if (referenced)
+							writeWayNode(wn.getNodeId());
+						else if (!sorted)
+							spill.addNode(wn.getNodeId());
+					}
+				} catch (IOException e) {
+					ExceptionHandler.abort(e, "Cannot write node lists of OSM ways into the persistent index.");
+				}
+				if (referenced)
+					addWay(w.getId(), start);
+			}
+			else if ((entityContainer instanceof NodeContainer) && (sorted))
+				reader.stop();                                         //No more ways in the reverse pass
+		}
+
+
+		@Override
+		public void complete() {
+		}
+
+
+		@Override
+		public void close() {
+		}
+	}
+
+}
@@ -18,20 +18,19 @@
  */
 package eu.slipo.athenarc.triplegeo.osm;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
+import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryCollection;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.LineString;
-import com.vividsolutions.jts.geom.LinearRing;
-import com.vividsolutions.jts.geom.MultiPolygon;
 import com.vividsolutions.jts.geom.Polygon;
-import com.vividsolutions.jts.operation.linemerge.LineMerger;
 
 /**
  * Creates OSM record objects that contain all geospatial and thematic information from OSM elements (nodes, ways, relations).
@@ -43,23 +42,92 @@ import com.vividsolutions.jts.operation.linemerge.LineMerger;
  * Created by: Kostas Patroumpas, 19/4/2017
  * Modified: 7/9/2017; reorganized methods in order to be applicable to both XML and PBF input files from OpenStreetMap.
  * Modified: 24/10/2018; allowing transformation even in case that no filters (using OSM tags) have been specified over OSM features
- * Last modified by: Kostas Patroumpas, 24/10/2018
+ * Modified: 16/10/2026; locations of OSM nodes kept in a store keyed by their numeric identifiers
+ * Modified: 16/10/2026; references to OSM ways and relations tracked in compact sets of identifiers; indices only keep geometries of referenced elements
+ * Modified: 16/10/2026; multipolygons created by a dedicated assembler with a shared geometry factory
+ * Modified: 16/10/2026; categories assigned through a hash-based index compiled once from the OSM filters
+ * Modified: 16/10/2026; indices over referenced OSM ways and relations kept in memory up to a budget, spilling to disk beyond it
+ * Modified: 16/10/2026; records of OSM relations can be created concurrently
+ * Last modified by: Kostas Patroumpas, 16/10/2026
  */
 
 public class OSMRecordBuilder {
 
 	public static List<OSMFilter> filters;              //Parser for a file with filters for assigning categories to OSM features
+	private static OSMFilterIndex filterIndex;          //Filters compiled into a hash-based index over OSM tags
 
 	private GeometryFactory geometryFactory = new GeometryFactory();
+	private OSMMultipolygonAssembler multipolygonAssembler = new OSMMultipolygonAssembler(geometryFactory);
 	
 	//Using either in-memory or on-disk dictionaries for referenced OSM elements
-	public OSMIndex nodeIndex;        				//Global dictionary containing OSM IDs as keys and the corresponding geometries of OSMNode objects  
+	public OSMNodeStore nodeStore;    				//Global store of locations of OSMNode objects, keyed by their OSM IDs  
 	public OSMIndex wayIndex;         				//Global dictionary containing OSM IDs as keys and the corresponding geometries of OSMWay objects  
 	public OSMIndex relationIndex;    				//Global dictionary containing OSM IDs as keys and the corresponding geometries of OSMRelation objects
+	public OSMIdSet referencedWays = new OSMIdSet();         //Identifiers of OSM ways referenced by OSM relations
+	public OSMIdSet referencedRelations = new OSMIdSet();    //Identifiers of OSM relations referenced by other OSM relations
 	public List<OSMRelation> incompleteRelations;
 	
+	
 	public OSMRecordBuilder(List<OSMFilter> tagFilters) {
 		filters = tagFilters;
+		filterIndex = (filters != null) ? new OSMFilterIndex(filters) : null;
+	}
+	
+	/**
+	 * Creates the indices that will hold geometries of referenced OSM ways and relations, once all references have been collected.
+	 * Indices are kept in memory up to the given budget, which is shared in proportion to the number of referenced ways and relations; any geometries beyond it are spilled to disk.
+	 * @param tmpDir  Directory to hold spilled geometries, if needed.
+	 * @param budget  Memory (in MB) available for indexed geometries and their keys; if not positive, a fifth of the JVM heap.
+	 */
+	public void createIndices(String tmpDir, int budget) {
+		
+		long bytes = (budget > 0) ? ((long) budget << 20) : (long) (0.2 * Runtime.getRuntime().maxMemory());
+		double share = (double) (referencedWays.size() + 1) / (referencedWays.size() + referencedRelations.size() + 2);
+		share = Math.min(0.9, Math.max(0.1, share));         //Neither index is left without memory
+		wayIndex = new OSMAdaptiveIndex(tmpDir, "wayIndex", (long) (share * bytes), geometryFactory);
+		relationIndex = new OSMAdaptiveIndex(tmpDir, "relationIndex", (long) ((1 - share) * bytes), geometryFactory);
+		System.out.println("Building indices over " + referencedWays.size() + " referenced OSM ways and " + referencedRelations.size() + " referenced OSM relations with a memory budget of " + (bytes >> 20) + " MB...");
+	}
+	
+	/**
+	 * Provides statistics on the use of indices over referenced OSM ways and relations.
+	 * @return  A map with statistics per index; empty if no adaptive indices are used.
+	 */
+	public Map<String, Object> getIndexStatistics() {
+		
+		Map<String, Object> stats = new LinkedHashMap<String, Object>();
+		if (wayIndex instanceof OSMAdaptiveIndex)
+			stats.put("Way index", ((OSMAdaptiveIndex) wayIndex).getStatistics());
+		if (relationIndex instanceof OSMAdaptiveIndex)
+			stats.put("Relation index", ((OSMAdaptiveIndex) relationIndex).getStatistics());
+		return stats;
+	}
+	
+	/**
+	 * Erases all indices and sets of referenced OSM elements.
+	 */
+	public void clearIndices() {
+		
+		nodeStore.clear();                  //Discard locations of OSM nodes
+		if (wayIndex != null)
+			wayIndex.clear();               //Discard index over OSM ways
+		if (relationIndex != null)
+			relationIndex.clear();          //Discard index over OSM relations
+		referencedWays.clear();
+		referencedRelations.clear();
+	}
+	
+	/**
+	 * Provides the location of an OSM node referenced by a relation.
+	 * @param k  The OSM identifier of the node.
+	 * @return  The location of the node; null if not available.
+	 */
+	private Coordinate getNodeLocation(String k) {
+		try {
+			return nodeStore.get(Long.parseLong(k));
+		} catch (NumberFormatException e) {
+			return null;
+		}
 	}
 	
 	  /**
@@ -68,49 +136,7 @@ public class OSMRecordBuilder {
 	   * @return  A category according to the classification scheme based on OSM tags.
 	   */
 	  private static String getCategory(Map<String, String> tags) {
-		//Iterate over filters
-		String cat = null;
-		for (OSMFilter filter : filters) {
-			cat = getCategoryRecursive(filter, tags, null);
-			if (cat != null) {
-				return cat;
-			}
-		}
-		return null;
-	  }
-
-
-
-	  /**
-	   * Recursively search in the classification hierarchy to match the given tag (key).
-	   * @param filter  Correspondence of OSM tags into categories.
-	   * @param tags  Key-value pairs for OSM tags and their respective values for a given feature.
-	   * @param key  Tag at any level in the classification hierarchy.
-	   * @return  The name of the corresponding category.
-	   */
-	  private static String getCategoryRecursive(OSMFilter filter, Map<String, String> tags, String key) {
-			//Use key of parent rule or current
-			if (filter.hasKey()) {
-				key = filter.getKey();
-			}
-
-			//Check for key/value
-			if (tags.containsKey(key))
-				if (filter.hasValue() && !filter.getValue().equals(tags.get(key)))
-					return null;
-				else
-					;             //Important in order to search recursively across the hierarchy of categories (tags)
-			else
-				return null;
-
-			//If children have categories, those will be used
-			for (OSMFilter child : filter.childs)
-			{
-				String cat = getCategoryRecursive(child, tags, key);
-				if (cat != null) 
-					return cat;
-			}
-			return filter.getCategory();
+		return filterIndex.getCategory(tags);         //A couple of hash probes per tag, instead of a search over the hierarchy of filters
 	  }
 
 	
@@ -157,43 +183,23 @@ public class OSMRecordBuilder {
   
   
     /**
-     * Examines all OSM way objects and checks whether they can construct a new ring (closed polyline) or update an existing one.
-     * @param ways  Array of all the OSM ways identified in the feature.
-     * @param numWays Number of OSM ways identified.
-     * @param rings  Array of all linear rings identified in the feature.
-     * @param numRings  Number of linear rings identified.
-     * @return  The amount of rings (internal or external, depending on call) identified in the given feature.
+     * Constructs an OSMRecord object from a parsed OSM relation. 
+     * CAUTION! Sometimes, this process may yield topologically invalid geometries, because of irregularities (e.g., self-intersections) tolerated by OSM!
+     * @param r   A parsed OSM relation.
+     * @return  An OSMRecord object as a record with specific attributes extracted from the OSM relation.
      */
-    @SuppressWarnings({ "unchecked"})
-    private int rearrangeRings(LineString[] ways, int numWays, LinearRing[] rings, int numRings) {
-
-		  //First, concatenate any polylines with common endpoints
-		  LineMerger merger = new LineMerger();
-		    for (int i=0; i<numWays; i++)
-		    	if (ways[i] != null)
-		    		merger.add(ways[i]); 
-		    
-		  //Then, for each resulting polyline, create a ring if this is closed
-		  Collection<LineString> mergedWays = merger.getMergedLineStrings();  
-		
-		  for (LineString curWay: mergedWays)  
-			  if (curWay.isClosed())
-			  {
-				  rings[numRings] = geometryFactory.createLinearRing(curWay.getCoordinates());
-			      numRings += 1;
-			  }	
-		 	
-		  return numRings; 
+    public OSMRecord createOSMRecord(OSMRelation r) {
+    	return createOSMRecord(r, false);
     }
-
+  
   
     /**
-     * Constructs an OSMRecord object from a parsed OSM relation. 
-     * CAUTION! Sometimes, this process may yield topologically invalid geometries, because of irregularities (e.g., self-intersections) tolerated by OSM!
+     * Constructs an OSMRecord object from a parsed OSM relation, possibly accepting it even if some of its members are missing.
      * @param r   A parsed OSM relation.
+     * @param acceptIncomplete  True, if the record should consist of the available members only in case some are missing; False, if such a relation should be listed as incomplete and no record be returned, unless it has already been listed.
      * @return  An OSMRecord object as a record with specific attributes extracted from the OSM relation.
      */
-    public OSMRecord createOSMRecord(OSMRelation r) {
+    public OSMRecord createOSMRecord(OSMRelation r, boolean acceptIncomplete) {
 
 	    boolean incomplete = false;                             //Marks an OSM relation as incomplete in order to re-parse it at the end of the process
   		OSMRecord rec = new OSMRecord();
@@ -206,9 +212,6 @@ public class OSMRecordBuilder {
 	  	else
 	  		rec.setCategory("relation");                        //Assign this category in cae that no user-specified classification is available
     	
-    	//Reconstruct geometry from relating with its elementary nodes and ways
-    	GeometryFactory geometryFactory = new GeometryFactory();
-    	
     	//Examine the member geometries of each relation and create a specific type of geometry: MultiLineString, MultiPolygon, or GeometryCollection
     	try {
 			if (r.getTagKeyValue().get("type") != null)
@@ -244,145 +247,24 @@ public class OSMRecordBuilder {
 				}
 				else if ((r.getTagKeyValue().get("type").equalsIgnoreCase("multipolygon")) || (r.getTagKeyValue().get("type").equalsIgnoreCase("boundary")))
 				{   //Create a (Multi)Polygon for OSM relation features that are either a 'multipolygon' or a 'boundary'
-					LinearRing[] outerRings = new LinearRing[r.getMemberReferences().size()];
-					LinearRing[] innerRings = new LinearRing[r.getMemberReferences().size()];
-					LineString[] outerWays = new LineString[r.getMemberReferences().size()];
-					LineString[] innerWays = new LineString[r.getMemberReferences().size()];
-
-					int numInnerRings = 0;
-					int numOuterRings = 0;
-					int numInnerWays = 0;
-					int numOuterWays = 0;
+					List<Geometry> outers = new ArrayList<Geometry>();
+					List<Geometry> inners = new ArrayList<Geometry>();
 					
 					//Iterate through all members of this OSMRelation
 					for (Map.Entry<String, ImmutablePair<String, String>> member : r.getMemberReferences().entrySet())   //Handle ways       
     	    		{	
 						Geometry tmpWay = wayIndex.get(member.getKey());
-
     	    			if (tmpWay != null)
     	    			{
-    	    				if (tmpWay.getClass() == com.vividsolutions.jts.geom.Polygon.class)
-    	    				{
-    	    					if (member.getValue().getValue().equalsIgnoreCase("inner"))     
-    		    				{ 
-    	    						innerRings[numInnerRings] = (LinearRing) ((Polygon) tmpWay).getExteriorRing();        //This OSMWay geometry is a complete inner ring
-    	    						numInnerRings++;
-    	    						
-    		    				}
-    	    					else //if (member.getValue().getValue().equalsIgnoreCase("outer"))                                  //Outer may not always be specified for such OSM entity!
-    	    					{
-	    	    					outerRings[numOuterRings] = (LinearRing) ((Polygon) tmpWay).getExteriorRing();       //Reference to OSMWay geometry
-			    					numOuterRings++;	
-    	    					}
-    	    				}
-    	    				else if (tmpWay.getClass() == com.vividsolutions.jts.geom.LineString.class) 
-    	    				{     	    				
-    	    					if (((LineString) tmpWay).isClosed()) {
-    	    						if (member.getValue().getValue().equalsIgnoreCase("inner")) 
-    	    						{
-    	    							//Cast this OSMWay geometry into a complete inner ring
-    	    							innerRings[numInnerRings] = geometryFactory.createLinearRing(java.util.Arrays.copyOf(tmpWay.getCoordinates(), tmpWay.getCoordinates().length));       
-        	    						numInnerRings++;
-    	    						}
-    	    						else    //if (member.getValue().getValue().equalsIgnoreCase("outer"))     //Outer may not always be explicitly specified for such OSM entity!
-    	    						{
-/*
-    	    							if (tmpWay.getNumGeometries() < 4)    //Special handling of non-closed linestrings
-    	    							{
-    	    								Coordinate[] coords = java.util.Arrays.copyOf(tmpWay.getCoordinates(), tmpWay.getCoordinates().length+1);
-    	    								coords[coords.length-1] = coords[0];   //Append another vertex that coincides with the first one
-    	    								tmpWay = geometryFactory.createLinearRing(coords);
-    	    								System.out.println(tmpWay.toString());
-    	    							}
-*/
-    	    							//Cast this OSMWay geometry into a complete outer ring
-    	    							outerRings[numOuterRings] = geometryFactory.createLinearRing(java.util.Arrays.copyOf(tmpWay.getCoordinates(), tmpWay.getCoordinates().length));
-	    	    						numOuterRings++;
-    	    						}
-    	    					}
-    	    					else
-    	    					{
-    	    						if (member.getValue().getValue().equalsIgnoreCase("inner")) 
-    	    						{
-    	    							innerWays[numInnerWays] = (LineString) tmpWay;          //This OSMWay geometry is only a part of an inner ring
-        	    						numInnerWays++;
-    	    						}
-    	    						else //if (member.getValue().getValue().equalsIgnoreCase("outer"))     //Outer may not always be explicitly specified for such OSM entity!
-    	    						{
-	    	    						outerWays[numOuterWays] = (LineString) tmpWay;          //This OSMWay geometry is only a part of an outer ring
-	    	    						numOuterWays++;
-    	    						}						
-    	    					}
-		    				}
-    	    				else if (tmpWay.getClass() == com.vividsolutions.jts.geom.LinearRing.class)
-    	    				{
-    	    					if (member.getValue().getValue().equalsIgnoreCase("inner"))
-    		    				{ 
-    	    						innerRings[numInnerRings] = (LinearRing) tmpWay;        //This OSMWay geometry is an inner ring
-    	    						numInnerRings++;
-    	    						
-    		    				}
-    	    					else //if (member.getValue().getValue().equalsIgnoreCase("outer"))     //Outer may not always be explicitly specified for such OSM entity!
-    	    					{
-	    	    					outerRings[numOuterRings] = (LinearRing) tmpWay;        //Reference to OSMWay geometry
-			    					numOuterRings++;	
-    	    					}
-    	    				}
-//    	    				else
-//    	    					System.out.println(rec.getID() + ": Geometry is neither a LINESTRING nor a POLYGON! " + tmpWay.toString());
+    	    				if (member.getValue().getValue().equalsIgnoreCase("inner"))
+    	    					inners.add(tmpWay);                 //This OSMWay geometry is either a complete inner ring or only a part of it
+    	    				else                                    //Outer may not always be explicitly specified for such OSM entity!
+    	    					outers.add(tmpWay);                 //This OSMWay geometry is either a complete outer ring or only a part of it
     	    			}
     	    		}
 					
-					//Update INNER rings by merging their constituent linestrings
-					numInnerRings = rearrangeRings(innerWays, numInnerWays, innerRings, numInnerRings);
-					//Update OUTER rings by merging their constituent linestrings
-					numOuterRings = rearrangeRings(outerWays, numOuterWays, outerRings, numOuterRings);
-					
-					//A polygon, possibly with hole(s)
-					if (numOuterRings == 1)
-					{
-						LinearRing[] innerHoles = new LinearRing[numInnerRings];
-						if (numInnerRings > 0)
-							java.lang.System.arraycopy(innerRings, 0, innerHoles, 0, numInnerRings);
-						else
-							innerHoles = null;
-						Polygon geomPolygon = geometryFactory.createPolygon(outerRings[0], innerHoles);
-						rec.setGeometry(geomPolygon);
-					}
-					else              //A MultiPolygon consisting of multiple polygons (possibly with holes)
-					{
-						Polygon[] polygons = new Polygon[outerRings.length];
-						int numMembers = 0;
-				
-						//Iterate through all constituent outer rings in order to create a number of polygons for this composite geometry
-						for (int i=0; i<numOuterRings; i++)
-							if (outerRings[i] != null)
-							{
-								//Identify if an inner ring is within an outer one
-								LinearRing[] innerHoles = new LinearRing[numInnerRings];
-								int k = 0;
-								for (int j=0; j<numInnerRings; j++)
-									if ((geometryFactory.createPolygon(outerRings[i],null)).contains(geometryFactory.createPolygon(innerRings[j],null)))
-									{
-										innerHoles[k] = innerRings[j];	
-										k++;
-									}
-								
-								//If at least one hole if found, create the respective polygon accordingly
-								LinearRing[] finalHoles = new LinearRing[k];
-								if (k > 0)
-									java.lang.System.arraycopy(innerHoles, 0, finalHoles, 0, k);
-								else
-									finalHoles = null;
-							
-								polygons[numMembers] = geometryFactory.createPolygon(outerRings[i], finalHoles);
-								numMembers++;
-							}
-						Polygon[] finalPolygons = new Polygon[numMembers];
-						java.lang.System.arraycopy(polygons, 0, finalPolygons, 0, numMembers);
-						MultiPolygon geomMultiPolygon = geometryFactory.createMultiPolygon(finalPolygons);
-    					rec.setGeometry(geomMultiPolygon);
-					}				
+					//Join partial rings and assign inner rings to outer ones
+					rec.setGeometry(multipolygonAssembler.assemble(outers, inners));
 				}
 			}
 			
@@ -394,14 +276,15 @@ public class OSMRecordBuilder {
 				for (Map.Entry<String, ImmutablePair<String, String>> member : r.getMemberReferences().entrySet())    
 	    		{	
 					String k = member.getKey();
+					Coordinate loc;
 	    			if ((member.getValue().getKey().equals("way")) && (wayIndex.get(k) != null))              //Handle ways
 	    			{
 		    				memberGeometries[numMembers] = wayIndex.get(k);     //Reference to OSMWay geometry
 		    				numMembers++;
 	    			}
-	    			else if ((member.getValue().getKey().equals("node")) && (nodeIndex.get(k) != null))     	//Handle nodes
+	    			else if ((member.getValue().getKey().equals("node")) && ((loc = getNodeLocation(k)) != null))     	//Handle nodes
 	    			{	
-							memberGeometries[numMembers] = nodeIndex.get(k);    //Reference to OSMNode geometry
+							memberGeometries[numMembers] = geometryFactory.createPoint(loc);    //Point geometry of the OSMNode
 		    				numMembers++;
 	    			}
 	    			else if ((member.getValue().getKey().equals("relation")) && (relationIndex.get(k) != null))     	//Handle relations
@@ -409,13 +292,16 @@ public class OSMRecordBuilder {
 							memberGeometries[numMembers] = relationIndex.get(k);    //Reference to OSMRelation geometry
 		    				numMembers++;
 	    			}	    			
-	    			else                                           //Missing constituent geometries
+	    			else if (!acceptIncomplete)                    //Missing constituent geometries
 	    			{
 //	    				System.out.println("There is no OSM element indexed with id: " + k);
-	    				if (!incompleteRelations.contains(r))      //Add this relation when it is first encountered in the parsing
+	    				synchronized (incompleteRelations)         //Relations may be assembled concurrently
 	    				{
-	    					incompleteRelations.add(r);
-	    					incomplete = true;                      //At least one constituent geometry is missing
+	    					if (!incompleteRelations.contains(r))  //Add this relation when it is first encountered in the parsing
+	    					{
+	    						incompleteRelations.add(r);
+	    						incomplete = true;                  //At least one constituent geometry is missing
+	    					}
 	    				}
 	    			}
 	    		}
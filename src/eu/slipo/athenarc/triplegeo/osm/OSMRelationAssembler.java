@@ -0,0 +1,277 @@
+/*
+ * @(#) OSMRelationAssembler.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.osm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+
+import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
+
+/**
+ * Creates records (including their geometries) of OSM relations with a pool of concurrent threads, once the geometries of their member ways are available.
+ * Relations are collected in batches; within a batch, relations are assembled in rounds, so that any relation is assembled after all relations it contains in the same batch.
+ * Geometries of relations referenced by other relations are indexed as soon as they are assembled, so they are available to their parents in subsequent rounds or batches.
+ * Resulting records are handed over to the calling thread in the order that relations were added, so they can be passed on to a converter that is not thread-safe.
+ * Triples are not generated here: in STREAM mode with concurrent workers, the converter submits each record to its pipeline, where workers generate triples with their own generators and a single writer streamlines them.
+ * With a single thread, each relation is assembled and handed over as soon as it is added.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OSMRelationAssembler {
+
+	/**
+	 * Receives the record created for an OSM relation; called by the thread that adds the relations.
+	 */
+	public interface Handler {
+
+		/**
+		 * Handles the record of an OSM relation, e.g., by transforming it into RDF triples.
+		 * @param r  The OSM relation.
+		 * @param rec  The record created for this relation; null if the relation is incomplete.
+		 * @param transform  The flag specified when the relation was added, e.g., whether it matches any user-specified filter.
+		 */
+		public void handle(OSMRelation r, OSMRecord rec, boolean transform);
+	}
+
+	private OSMRecordBuilder recBuilder;
+	private Handler handler;
+	private int numThreads;
+	private int batchSize;
+	private ExecutorService executor = null;
+
+	private List<OSMRelation> relations;          //Batch of relations waiting to be assembled...
+	private List<Boolean> flags;                  //...with their flags, in the order they were added
+
+	private long numAssembled = 0;
+	private long numRounds = 0;
+
+
+	/**
+	 * Constructor of an assembler.
+	 * @param recBuilder  The builder that creates records of OSM relations from the indexed geometries of their members.
+	 * @param numThreads  Number of concurrent threads assembling relations.
+	 * @param batchSize  Number of relations assembled together.
+	 * @param handler  Receives the resulting records.
+	 */
+	public OSMRelationAssembler(OSMRecordBuilder recBuilder, int numThreads, int batchSize, Handler handler) {
+
+		this.recBuilder = recBuilder;
+		this.handler = handler;
+		this.numThreads = Math.max(1, numThreads);
+		this.batchSize = (this.numThreads > 1) ? Math.max(1, batchSize) : 1;
+		relations = new ArrayList<OSMRelation>(this.batchSize);
+		flags = new ArrayList<Boolean>(this.batchSize);
+		if (this.numThreads > 1)
+			executor = Executors.newFixedThreadPool(this.numThreads);
+	}
+
+
+	/**
+	 * Adds an OSM relation to be assembled; the current batch is assembled once full.
+	 * @param r  The OSM relation.
+	 * @param transform  A flag to be passed on to the handler along with the resulting record.
+	 */
+	public void add(OSMRelation r, boolean transform) {
+
+		if (executor == null)                     //No concurrency; assemble as soon as added
+		{
+			handler.handle(r, assemble(r, recBuilder.referencedRelations.contains(r.getID())), transform);
+			numAssembled++;
+			return;
+		}
+		relations.add(r);
+		flags.add(transform);
+		if (relations.size() >= batchSize)
+			flush();
+	}
+
+
+	/**
+	 * Creates the record of a relation and indexes its geometry, in case it is referenced by other relations.
+	 * @param r  The OSM relation.
+	 * @param referenced  True, if this relation is referenced by other relations; resolved by the calling thread, since the set of referenced relations is not thread-safe.
+	 */
+	private OSMRecord assemble(OSMRelation r, boolean referenced) {
+
+		OSMRecord rec = recBuilder.createOSMRecord(r);
+		if ((rec != null) && (referenced))
+			recBuilder.relationIndex.put(r.getID(), rec.getGeometry());    //Keep a dictionary of relation geometries, only for those referenced by other OSM relations
+		return rec;
+	}
+
+
+	/**
+	 * Assembles all relations of the current batch and hands over their records in the order they were added.
+	 */
+	public void flush() {
+
+		if (relations.isEmpty())
+			return;
+
+		OSMRecord[] records = new OSMRecord[relations.size()];
+		boolean[] referenced = new boolean[relations.size()];      //Looked up before assembly, as the set of referenced relations must not be accessed concurrently
+		for (int i = 0; i < referenced.length; i++)
+			referenced[i] = recBuilder.referencedRelations.contains(relations.get(i).getID());
+		for (List<Integer> round: rounds())
+		{
+			//Each round is split into tasks, so that threads with faster relations take over more tasks
+			int taskSize = Math.max(1, round.size() / (4 * numThreads));
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			for (int from = 0; from < round.size(); from += taskSize)
+			{
+				final List<Integer> task = round.subList(from, Math.min(from + taskSize, round.size()));
+				tasks.add(() -> {
+					for (int i: task)
+						records[i] = assemble(relations.get(i), referenced[i]);
+					return null;
+				});
+			}
+			try {
+				for (Future<Void> f: executor.invokeAll(tasks))
+					f.get();
+			} catch (InterruptedException | ExecutionException e) {
+				ExceptionHandler.abort(e, "Assembly of OSM relations interrupted.");
+			}
+			numRounds++;
+		}
+
+		for (int i = 0; i < records.length; i++)
+			handler.handle(relations.get(i), records[i], flags.get(i));
+		numAssembled += records.length;
+		relations.clear();
+		flags.clear();
+	}
+
+
+	/**
+	 * Arranges the relations of the current batch into rounds: a relation is placed in the round after the latest one of any relation it contains in this batch.
+	 * Relations in a cycle of memberships are placed as if the membership that closes the cycle did not exist.
+	 * @return  Positions of the relations in each round.
+	 */
+	private List<List<Integer>> rounds() {
+
+		Map<String, Integer> positions = new HashMap<String, Integer>(2 * relations.size());
+		for (int i = 0; i < relations.size(); i++)
+			positions.put(relations.get(i).getID(), i);
+
+		int[] level = new int[relations.size()];          //0: not yet computed; otherwise, the round (starting from 1)
+		List<List<Integer>> rounds = new ArrayList<List<Integer>>();
+		for (int i = 0; i < relations.size(); i++)
+		{
+			int l = level(i, positions, level);
+			while (rounds.size() < l)
+				rounds.add(new ArrayList<Integer>());
+			rounds.get(l - 1).add(i);
+		}
+		return rounds;
+	}
+
+
+	/**
+	 * Computes the round of a relation with an iterative depth-first search over its memberships in the current batch.
+	 */
+	private int level(int start, Map<String, Integer> positions, int[] level) {
+
+		if (level[start] > 0)
+			return level[start];
+
+		List<int[]> stack = new ArrayList<int[]>();          //Pairs of a relation and its round computed so far
+		stack.add(new int[] {start, 1});
+		level[start] = -1;                                  //Marks relations under examination
+		List<List<Integer>> children = new ArrayList<List<Integer>>();
+		children.add(contained(start, positions));
+		while (!stack.isEmpty())
+		{
+			int[] top = stack.get(stack.size() - 1);
+			List<Integer> c = children.get(children.size() - 1);
+			if (c.isEmpty())
+			{
+				level[top[0]] = top[1];
+				stack.remove(stack.size() - 1);
+				children.remove(children.size() - 1);
+				if (!stack.isEmpty())
+				{
+					int[] parent = stack.get(stack.size() - 1);
+					parent[1] = Math.max(parent[1], top[1] + 1);
+				}
+				continue;
+			}
+			int j = c.remove(c.size() - 1);
+			if (level[j] > 0)
+				top[1] = Math.max(top[1], level[j] + 1);
+			else if (level[j] == 0)
+			{
+				level[j] = -1;
+				stack.add(new int[] {j, 1});
+				children.add(contained(j, positions));
+			}
+			//Otherwise, this membership closes a cycle
+		}
+		return level[start];
+	}
+
+
+	/**
+	 * Provides the positions of all relations in the current batch that are members of the given relation.
+	 */
+	private List<Integer> contained(int i, Map<String, Integer> positions) {
+
+		List<Integer> members = new ArrayList<Integer>();
+		for (Map.Entry<String, ImmutablePair<String, String>> m: relations.get(i).getMemberReferences().entrySet())
+		{
+			if (m.getValue().getKey().equalsIgnoreCase("relation"))
+			{
+				Integer j = positions.get(m.getKey());
+				if ((j != null) && (j != i))
+					members.add(j);
+			}
+		}
+		return members;
+	}
+
+
+	/**
+	 * Assembles any remaining relations and terminates the threads.
+	 */
+	public void close() {
+
+		flush();
+		if (executor != null)
+		{
+			executor.shutdown();
+			System.out.println("Assembled " + numAssembled + " OSM relations using " + numThreads + " threads in " + numRounds + " rounds.");
+		}
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+ * @(#) OSMRelationGraph.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.osm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory graph of memberships in OSM relations, collected while scanning the relations of an OSM file.
+ * Once all relations have been collected, the graph is resolved by identifying all relations that are either wanted (e.g., their tags match the user-specified filters) or (directly or transitively) referenced by wanted relations.
+ * Hence, nested relations are resolved without scanning the OSM file once more. Each member is encoded as a single long value that combines its identifier with its type.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OSMRelationGraph {
+
+	public static final int NODE = 0;
+	public static final int WAY = 1;
+	public static final int RELATION = 2;
+
+	/**
+	 * Consumer of members of the relations identified when resolving the graph.
+	 */
+	public interface MemberVisitor {
+
+		/**
+		 * Visits a member of a wanted or referenced relation.
+		 * @param type  The type of the member: NODE, WAY, or RELATION.
+		 * @param id  The OSM identifier of the member.
+		 */
+		public void visit(int type, long id);
+	}
+
+	private Map<Long, long[]> members = new HashMap<Long, long[]>();      //Encoded members of each relation
+	private List<Long> wanted = new ArrayList<Long>();                     //Relations wanted regardless of any references
+	private boolean resolved = false;
+
+
+	/**
+	 * Encodes a member of a relation.
+	 * @param type  The type of the member: NODE, WAY, or RELATION.
+	 * @param id  The OSM identifier of the member.
+	 * @return  A long value combining the type and the identifier.
+	 */
+	public static long member(int type, long id) {
+		return (id << 2) | type;
+	}
+
+
+	/**
+	 * Adds a relation along with its members.
+	 * @param id  The OSM identifier of the relation.
+	 * @param isWanted  True, if this relation is wanted (e.g., its tags match the user-specified filters).
+	 * @param relMembers  Members of the relation, each one encoded with member().
+	 */
+	public void add(long id, boolean isWanted, long[] relMembers) {
+
+		if (resolved)
+			throw new IllegalStateException("No more OSM relations can be added once the graph has been resolved.");
+		members.put(id, relMembers);
+		if (isWanted)
+			wanted.add(id);
+	}
+
+
+	/**
+	 * Identifies all wanted relations and any relations referenced by them (at any level of nesting), and visits their members.
+	 * Each member is visited as many times as it is referenced by such relations. The graph is discarded afterwards.
+	 * @param visitor  The consumer of the members.
+	 * @return  The number of relations identified.
+	 */
+	public int resolve(MemberVisitor visitor) {
+
+		if (resolved)
+			return 0;
+		resolved = true;
+
+		Set<Long> visited = new HashSet<Long>(wanted);
+		ArrayDeque<Long> queue = new ArrayDeque<Long>(wanted);
+		while (!queue.isEmpty())
+		{
+			long[] relMembers = members.get(queue.poll());
+			if (relMembers == null)                                //Relation not present in the file
+				continue;
+			for (long m: relMembers)
+			{
+				int type = (int) (m & 3);
+				long id = m >> 2;
+				visitor.visit(type, id);
+				if ((type == RELATION) && (visited.add(id)))       //Also resolve nested relations, each one only once
+					queue.add(id);
+			}
+		}
+
+		members = null;
+		wanted = null;
+		return visited.size();
+	}
+
+
+	/**
+	 * Checks whether the graph has been resolved.
+	 * @return  True, if the graph has been resolved; otherwise, False.
+	 */
+	public boolean isResolved() {
+		return resolved;
+	}
+
+}
@@ -0,0 +1,173 @@
+/*
+ * @(#) OSMTagProjection.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.osm;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import eu.slipo.athenarc.triplegeo.utils.Assistant;
+import eu.slipo.athenarc.triplegeo.utils.Configuration;
+import eu.slipo.athenarc.triplegeo.utils.Mapping;
+
+/**
+ * Determines which tags of OSM elements need to be collected, i.e., only those referenced by the attribute mapping, the OSM filters used in classification, the thematic filter, or the SLIPO Registry.
+ * All tags are collected if the mapping cannot restrict them, i.e., if no mapping is specified (every tag is transformed with its original name), if the mapping only specifies the URIs of features, or if it contains the wildcard '_' for any other attribute.
+ * Collected tag keys, as well as values of tags used in classification (e.g., amenity=restaurant), are interned in dictionaries shared by all OSM elements, so that repeated strings are only kept once.
+ * Not thread-safe.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OSMTagProjection {
+
+	private static final int MAX_INTERNED = 100000;          //Distinct strings kept in each dictionary; any others are kept as given
+	private static final String DROPPED = new String("");    //Marks tag keys known to be discarded
+
+	private Set<String> keys;                       //Tag keys to be collected; null if all tags are collected
+	private Set<String> valueKeys;                  //Tag keys whose values are likely repeated in many elements, so these are interned as well
+	private Mapping mapping = null;                 //User-specified mapping; used to recognize multi-faceted attributes (e.g., name:en, name:fr)
+	private Map<String, String> keyDictionary = new HashMap<String, String>();      //Tag keys already examined, mapped to their canonical instance or marked as discarded
+	private Map<String, String> valueDictionary = new HashMap<String, String>();    //Interned values of tags
+
+	private long numKept = 0;
+	private long numDropped = 0;
+
+
+	/**
+	 * Constructor of a projection over the tags of OSM elements.
+	 * @param config  User-specified configuration for the transformation process.
+	 * @param filterTags  Tag keys used in the OSM filters for classification; null if no filters are specified.
+	 * @param assist  Assistant that holds the thematic filter (if any).
+	 */
+	public OSMTagProjection(Configuration config, Set<String> filterTags, Assistant assist) {
+
+		valueKeys = new HashSet<String>(Arrays.asList("type"));       //Values of type tags (e.g., multipolygon) are always repeated
+		if (filterTags != null)
+			valueKeys.addAll(filterTags);
+
+		if ((config.mappingSpec == null) || ((config.mode != null) && (config.mode.contains("RML"))))
+			return;                                    //Every tag will be transformed with its original name
+
+		mapping = new Mapping();
+		mapping.createFromFile(config.mappingSpec);
+		if ((mapping.countMappings() <= 1) || (mapping.find("_") != null))
+		{
+			mapping = null;                            //Flat mapping or wildcard specified, so every tag will be transformed
+			return;
+		}
+
+		keys = new HashSet<String>(Arrays.asList("name", "type"));   //Used in creating every OSM record
+		keys.addAll(valueKeys);
+		keys.addAll(assist.getThematicFilterAttributes());
+		for (String attr: new String[] {config.attrKey, config.attrName, config.attrCategory})
+			if (attr != null)
+				keys.addAll(Arrays.asList(attr.split("\\s*,\\s*")));    //Attributes for the SLIPO Registry
+
+		for (String key: mapping.getKeys())
+		{
+			keys.add(key);
+			Mapping.mapProperties props = mapping.find(key);
+			List<String> args = props.getFunctionArguments();
+			if (args != null)
+				keys.addAll(args);                     //Attributes passed to built-in functions (e.g., in concatenations)
+			String[] typeArgs = props.getResourceTypeFunction();
+			if (typeArgs != null)
+				keys.addAll(Arrays.asList(typeArgs));  //Attributes used in generating the type of resources
+		}
+	}
+
+
+	/**
+	 * Indicates whether any tags will be discarded.
+	 * @return  True, if only some tags are collected; False, if all tags are collected.
+	 */
+	public boolean isRestricted() {
+		return (keys != null);
+	}
+
+
+	/**
+	 * Examines whether a tag should be collected, and provides its interned key.
+	 * @param key  The key of the tag as read from the input.
+	 * @return  The canonical instance of this key; null, if this tag should be discarded.
+	 */
+	public String key(String key) {
+
+		String c = keyDictionary.get(key);
+		if (c == null)
+		{
+			c = ((keys == null) || (keys.contains(key)) || (mapping.findMultiFaceted(key) != null)) ? key : DROPPED;
+			if (keyDictionary.size() < MAX_INTERNED)
+				keyDictionary.put(key, c);
+		}
+		if (c == DROPPED)
+		{
+			numDropped++;
+			return null;
+		}
+		numKept++;
+		return c;
+	}
+
+
+	/**
+	 * Provides the value of a collected tag, interned if such values are likely repeated in many OSM elements.
+	 * @param key  The (interned) key of the tag.
+	 * @param value  The value of the tag.
+	 * @return  The canonical instance of this value, or the value as given.
+	 */
+	public String value(String key, String value) {
+
+		if ((value == null) || (!valueKeys.contains(key)))
+			return value;
+		String c = valueDictionary.get(value);
+		if (c != null)
+			return c;
+		if (valueDictionary.size() < MAX_INTERNED)
+			valueDictionary.put(value, value);
+		return value;
+	}
+
+
+	/**
+	 * Provides statistics on the tags collected or discarded so far.
+	 * @return  A map with the statistics.
+	 */
+	public Map<String, Object> getStatistics() {
+
+		Map<String, Object> stats = new LinkedHashMap<String, Object>();
+		stats.put("Tag keys collected", (keys == null) ? "ALL" : keys.size());
+		stats.put("Tags collected", numKept);
+		stats.put("Tags discarded", numDropped);
+		stats.put("Interned tag keys", keyDictionary.size());
+		stats.put("Interned tag values", valueDictionary.size());
+		return stats;
+	}
+
+}
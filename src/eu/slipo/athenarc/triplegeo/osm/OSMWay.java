@@ -19,10 +19,15 @@
 package eu.slipo.athenarc.triplegeo.osm;
 
 import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.impl.PackedCoordinateSequence;
+
 //import de.bwaldvogel.liblinear.FeatureNode;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +40,7 @@ import java.util.TreeMap;
  * 
  * @author Nikos Karagiannakis
  * Modified by: Kostas Patroumpas 24/2/2018; changed indexVector representation
+ * Modified by: Kostas Patroumpas 16/10/2026; node locations kept in a buffer of ordinates, from which the geometry is created with a packed coordinate sequence
  */
 
 public class OSMWay implements Serializable{
@@ -46,6 +52,8 @@ public class OSMWay implements Serializable{
     private final List<String> nodeReferences = new ArrayList<String>();     //node references  //made final
     private final List<Geometry> nodeGeometries = new ArrayList<Geometry>(); //nodeGeometries   //made final
     private Coordinate[] coordinateList;    
+    private double[] nodeLocations = null;                                   //longitude and latitude of each node, at consecutive positions
+    private int numLocations = 0;                                            //number of nodes with a location
     private final Map<String, String> tags = new HashMap<>();      
     private Geometry geometry;
     private TreeMap<Integer,Double> indexVector = new TreeMap<>(); 
@@ -76,6 +84,10 @@ public class OSMWay implements Serializable{
         return nodeReferences.size();
     }
     
+    public int getNumberOfLocations(){
+        return numLocations;
+    }
+    
     public Map<String, String> getTagKeyValue(){
         return tags;
     }
@@ -109,6 +121,54 @@ public class OSMWay implements Serializable{
         nodeGeometries.add(geometry);
     }
     
+    /**
+     * Allocates the buffer for node locations, so that no reallocation is needed for a way with the given number of nodes.
+     * @param numNodes  Number of nodes in this way.
+     */
+    public void reserveNodeLocations(int numNodes){
+        if ((nodeLocations == null) || (nodeLocations.length < 2 * numNodes))
+            nodeLocations = (nodeLocations == null) ? new double[2 * numNodes] : Arrays.copyOf(nodeLocations, 2 * numNodes);
+    }
+    
+    /**
+     * Appends the location of a node to this way, copied directly from the store of node locations.
+     * @param nodeStore  Store of locations of OSM nodes.
+     * @param nodeId  The OSM identifier of the node.
+     * @return  True, if the location of this node is available; otherwise, False.
+     */
+    public boolean addNodeLocation(OSMNodeStore nodeStore, long nodeId){
+        if ((nodeLocations == null) || (nodeLocations.length < 2 * numLocations + 2))
+            reserveNodeLocations(Math.max(4, 2 * numLocations));
+        if (!nodeStore.get(nodeId, nodeLocations, 2 * numLocations))
+            return false;
+        numLocations++;
+        return true;
+    }
+    
+    /**
+     * Creates the geometry of this way from the locations of its nodes, using a packed coordinate sequence (i.e., a single array of ordinates) instead of an object per node.
+     * A closed sequence of more than 3 nodes becomes a polygon (if specified), a sequence of more than one nodes becomes a linestring, and any other way becomes a point.
+     * @param geometryFactory  The factory used for creating the geometry.
+     * @param closedRings2Polygons  True, if closed sequences of nodes should become polygons; otherwise, linestrings.
+     * @return  The geometry of this way.
+     */
+    public Geometry buildGeometry(GeometryFactory geometryFactory, boolean closedRings2Polygons){
+        double[] ordinates = (nodeLocations == null) ? new double[0] : nodeLocations;
+        if (ordinates.length != 2 * numLocations)
+            ordinates = Arrays.copyOf(ordinates, 2 * numLocations);          //Only if some node locations are missing
+        CoordinateSequence seq = new PackedCoordinateSequence.Double(ordinates, 2);
+        nodeLocations = null;
+
+        //Check if the beginning and ending node are the same and the number of nodes are more than 3. 
+        //These nodes must be more than 3, because JTS does not allow construction of a linear ring with less than 3 points
+        if ((closedRings2Polygons) && (numLocations > 3) && (ordinates[0] == ordinates[2 * numLocations - 2]) && (ordinates[1] == ordinates[2 * numLocations - 1]))
+            return geometryFactory.createPolygon(geometryFactory.createLinearRing(seq), null);     //Always construct a polygon when a linear ring is detected
+        else if (numLocations > 1)
+            return geometryFactory.createLineString(seq);      //it is an open geometry with more than one nodes, make it linestring
+        else
+            return geometryFactory.createPoint(seq);           //we assume that any other geometries are points; some ways happen to have only one point
+    }
+    
     public void setGeometry(Geometry geometry){       
         this.geometry = geometry;
     }  
@@ -0,0 +1,191 @@
+/*
+ * @(#) OSMWaySpill.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.osm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Temporary file with the node lists of OSM ways, kept during a single forward pass over an OSM file until it is known whether these ways are referenced by relations,
+ * since relations follow the ways in the file (or may be interleaved with them, if the file is not sorted).
+ * Identifiers of ways and nodes are delta-encoded in a variable number of bytes (zigzag encoding), so the file is much smaller than the node lists themselves.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OSMWaySpill implements Closeable {
+
+	/**
+	 * Receives the node list of a spilled OSM way.
+	 */
+	public interface Visitor {
+
+		/**
+		 * Handles the node list of an OSM way.
+		 * @param wayId  Identifier of the way.
+		 * @param nodeIds  Identifiers of its nodes; the array is reused for subsequent ways.
+		 * @param numNodes  Number of nodes in the way.
+		 * @throws IOException
+		 */
+		public void visit(long wayId, long[] nodeIds, int numNodes) throws IOException;
+	}
+
+	private File file;
+	private DataOutputStream out;
+	private long lastWayId = 0;
+	private long lastNodeId = 0;
+	private long numWays = 0;                 //Number of OSM ways written to the file
+
+
+	/**
+	 * Constructor of a spill file in the given directory.
+	 * @param tmpDir  Directory for temporary files.
+	 * @throws IOException
+	 */
+	public OSMWaySpill(String tmpDir) throws IOException {
+
+		file = File.createTempFile("osm-ways", ".spill", new File(tmpDir));
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+	}
+
+
+	/**
+	 * Starts writing the node list of an OSM way; exactly as many nodes must be added next.
+	 * @param wayId  Identifier of the way.
+	 * @param numNodes  Number of nodes in the way.
+	 * @throws IOException
+	 */
+	public void startWay(long wayId, int numNodes) throws IOException {
+
+		writeVarLong(wayId - lastWayId);
+		lastWayId = wayId;
+		writeVarLong(numNodes);
+		lastNodeId = 0;
+		numWays++;
+	}
+
+
+	/**
+	 * Adds a node to the node list of the way currently being written.
+	 * @param nodeId  Identifier of the node.
+	 * @throws IOException
+	 */
+	public void addNode(long nodeId) throws IOException {
+
+		writeVarLong(nodeId - lastNodeId);
+		lastNodeId = nodeId;
+	}
+
+
+	/**
+	 * Provides the number of OSM ways written so far.
+	 * @return  The number of ways.
+	 */
+	public long size() {
+		return numWays;
+	}
+
+
+	/**
+	 * Reads back the node lists of the spilled OSM ways that qualify, in the order they were written. No more ways can be written afterwards.
+	 * @param filter  Checks whether a way qualifies (e.g., if it is referenced by relations), given its identifier.
+	 * @param visitor  Receives the node list of each qualifying way.
+	 * @throws IOException
+	 */
+	public void replay(LongPredicate filter, Visitor visitor) throws IOException {
+
+		out.close();
+		long[] nodeIds = new long[256];
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+			long wayId = 0;
+			for (long w = 0; w < numWays; w++) {          //Exactly as many records as written; a truncated file raises an EOFException
+				wayId += readVarLong(in);
+				int n = (int) readVarLong(in);
+				boolean qualifies = filter.test(wayId);
+				if ((qualifies) && (n > nodeIds.length))
+					nodeIds = Arrays.copyOf(nodeIds, Math.max(n, 2 * nodeIds.length));
+				long nodeId = 0;
+				for (int i = 0; i < n; i++) {
+					nodeId += readVarLong(in);
+					if (qualifies)
+						nodeIds[i] = nodeId;
+				}
+				if (qualifies)
+					visitor.visit(wayId, nodeIds, n);
+			}
+		}
+	}
+
+
+	/**
+	 * Removes the spill file.
+	 */
+	@Override
+	public void close() throws IOException {
+
+		out.close();
+		file.delete();
+	}
+
+
+	/**
+	 * Writes a signed value in a variable number of bytes (zigzag encoding).
+	 */
+	private void writeVarLong(long v) throws IOException {
+
+		long z = (v << 1) ^ (v >> 63);
+		while ((z & ~0x7FL) != 0) {
+			out.writeByte((int) ((z & 0x7F) | 0x80));
+			z >>>= 7;
+		}
+		out.writeByte((int) z);
+	}
+
+
+	/**
+	 * Reads a signed value written in a variable number of bytes (zigzag encoding).
+	 */
+	private static long readVarLong(DataInputStream in) throws IOException {
+
+		long z = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = in.readUnsignedByte();
+			z |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return (z >>> 1) ^ -(z & 1);
+	}
+
+}
@@ -0,0 +1,512 @@
+/*
+ * @(#) OSMXmlReader.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.osm;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+
+/**
+ * Streaming reader of OSM XML files based on a pull (StAX) parser; any StAX implementation available at runtime (e.g., Woodstox) is used.
+ * Compressed files (gzip or bzip2, detected from their first bytes) are decompressed on the fly by a separate thread, which reads ahead while elements are being parsed.
+ * OSM elements are handed over one at a time through the reader itself, with primitive identifiers and coordinates, and with tag keys and member roles interned, so that no objects are created per element.
+ * Parsing of any type of elements can be skipped (e.g., nodes in a preliminary pass), in which case their attributes and tags are not decoded at all.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OSMXmlReader {
+
+	public static final int NODE = OSMRelationGraph.NODE;
+	public static final int WAY = OSMRelationGraph.WAY;
+	public static final int RELATION = OSMRelationGraph.RELATION;
+
+	private static final int BUFFER_SIZE = 1 << 20;             //Size of each chunk of decompressed data
+	private static final int READ_AHEAD = 8;                     //Number of decompressed chunks read ahead
+	private static final int MAX_INTERNED = 100000;              //Distinct tag keys and roles interned; any others are kept as parsed
+
+	/**
+	 * Receives each OSM element parsed from the file.
+	 */
+	public interface Handler {
+
+		/**
+		 * Processes the current OSM element; its contents are available from the reader only until this method returns.
+		 * @param element  The reader, positioned at the end of an OSM node, way, or relation.
+		 */
+		public void process(OSMXmlReader element);
+	}
+
+	private File input;
+	private boolean[] skip = new boolean[3];
+	private volatile boolean stopped = false;
+	private Map<String, String> interned = new HashMap<String, String>();
+
+	//Contents of the current OSM element
+	private int type;
+	private long id;
+	private double lon, lat;
+	private int numTags;
+	private String[] tagKeys = new String[16];
+	private String[] tagValues = new String[16];
+	private int numNodes;
+	private long[] nodeIds = new long[256];
+	private int numMembers;
+	private long[] memberIds = new long[64];
+	private int[] memberTypes = new int[64];
+	private String[] memberRoles = new String[64];
+
+	private long numElements = 0;
+	private long numBytes = 0;
+
+
+	/**
+	 * Constructor of a reader.
+	 * @param input  The OSM XML file, possibly compressed with gzip or bzip2.
+	 */
+	public OSMXmlReader(File input) {
+		this.input = input;
+	}
+
+
+	/**
+	 * Specifies whether OSM elements of the given type will be skipped, i.e., not handed over to the handler.
+	 * @param elementType  The type of OSM elements: NODE, WAY, or RELATION.
+	 * @param skipped  True, if such elements will be skipped.
+	 */
+	public void setSkip(int elementType, boolean skipped) {
+		skip[elementType] = skipped;
+	}
+
+
+	/**
+	 * Stops parsing, e.g., once all required elements have been read; may be called by the handler.
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+
+	/**
+	 * Parses the entire file and hands over each OSM element (unless skipped) to the given handler, in the order of the file.
+	 * @param handler  The handler of OSM elements.
+	 * @throws IOException  Thrown if the file cannot be read or is not well-formed.
+	 */
+	public void run(Handler handler) throws IOException {
+
+		stopped = false;
+		numElements = 0;
+		try (CountingInputStream in = new CountingInputStream(open(input))) {
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+			factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+			XMLStreamReader xml = factory.createXMLStreamReader(in);
+			try {
+				parse(xml, handler);
+			} finally {
+				xml.close();
+				numBytes = in.count;
+			}
+		} catch (XMLStreamException e) {
+			throw new IOException("OSM XML file " + input + " is not well-formed.", e);
+		}
+	}
+
+
+	/**
+	 * Iterates over all events of the parser, collecting the contents of each OSM element.
+	 */
+	private void parse(XMLStreamReader xml, Handler handler) throws XMLStreamException {
+
+		boolean inElement = false;            //True, when inside an OSM element that is not skipped
+		while ((!stopped) && (xml.hasNext()))
+		{
+			int event = xml.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				String name = xml.getLocalName();
+				if (inElement)
+				{
+					if (name.equals("tag"))
+						addTag(xml);
+					else if (name.equals("nd"))
+						addNode(xml);
+					else if (name.equals("member"))
+						addMember(xml);
+				}
+				else
+				{
+					int t = name.equals("node") ? NODE : name.equals("way") ? WAY : name.equals("relation") ? RELATION : -1;
+					if ((t >= 0) && (!skip[t]))
+					{
+						start(xml, t);
+						inElement = true;
+					}
+				}
+			}
+			else if ((event == XMLStreamConstants.END_ELEMENT) && (inElement))
+			{
+				String name = xml.getLocalName();
+				if (((type == NODE) && (name.equals("node"))) || ((type == WAY) && (name.equals("way"))) || ((type == RELATION) && (name.equals("relation"))))
+				{
+					inElement = false;
+					numElements++;
+					handler.process(this);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Starts collecting the contents of a new OSM element.
+	 */
+	private void start(XMLStreamReader xml, int t) {
+
+		type = t;
+		numTags = 0;
+		numNodes = 0;
+		numMembers = 0;
+		id = 0;
+		for (int i = 0; i < xml.getAttributeCount(); i++)
+		{
+			String a = xml.getAttributeLocalName(i);
+			if (a.equals("id"))
+				id = Long.parseLong(xml.getAttributeValue(i));
+			else if ((t == NODE) && (a.equals("lon")))
+				lon = Double.parseDouble(xml.getAttributeValue(i));
+			else if ((t == NODE) && (a.equals("lat")))
+				lat = Double.parseDouble(xml.getAttributeValue(i));
+		}
+	}
+
+
+	private void addTag(XMLStreamReader xml) {
+
+		if (numTags == tagKeys.length)
+		{
+			tagKeys = Arrays.copyOf(tagKeys, 2 * numTags);
+			tagValues = Arrays.copyOf(tagValues, 2 * numTags);
+		}
+		tagKeys[numTags] = intern(xml.getAttributeValue(null, "k"));
+		tagValues[numTags] = xml.getAttributeValue(null, "v");
+		numTags++;
+	}
+
+
+	private void addNode(XMLStreamReader xml) {
+
+		if (numNodes == nodeIds.length)
+			nodeIds = Arrays.copyOf(nodeIds, 2 * numNodes);
+		nodeIds[numNodes++] = Long.parseLong(xml.getAttributeValue(null, "ref"));
+	}
+
+
+	private void addMember(XMLStreamReader xml) {
+
+		String t = xml.getAttributeValue(null, "type");
+		int memberType = t.equalsIgnoreCase("node") ? NODE : t.equalsIgnoreCase("way") ? WAY : t.equalsIgnoreCase("relation") ? RELATION : -1;
+		if (memberType < 0)
+			return;
+		if (numMembers == memberIds.length)
+		{
+			memberIds = Arrays.copyOf(memberIds, 2 * numMembers);
+			memberTypes = Arrays.copyOf(memberTypes, 2 * numMembers);
+			memberRoles = Arrays.copyOf(memberRoles, 2 * numMembers);
+		}
+		memberIds[numMembers] = Long.parseLong(xml.getAttributeValue(null, "ref"));
+		memberTypes[numMembers] = memberType;
+		String role = xml.getAttributeValue(null, "role");
+		memberRoles[numMembers] = (role == null) ? "" : intern(role);
+		numMembers++;
+	}
+
+
+	/**
+	 * Provides a canonical instance of a string that is repeated in many OSM elements (e.g., tag keys and roles).
+	 */
+	private String intern(String s) {
+
+		if (s == null)
+			return null;
+		String c = interned.get(s);
+		if (c != null)
+			return c;
+		if (interned.size() < MAX_INTERNED)
+			interned.put(s, s);
+		return s;
+	}
+
+
+	/**
+	 * Opens a file with OSM data, decompressing it on the fly if it is compressed with gzip or bzip2.
+	 * @param file  The input file.
+	 * @return  A stream with the (decompressed) contents of the file.
+	 * @throws IOException  Thrown if the file cannot be read.
+	 */
+	public static InputStream open(File file) throws IOException {
+
+		InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+		in.mark(3);
+		int b0 = in.read(), b1 = in.read(), b2 = in.read();
+		in.reset();
+		if ((b0 == 0x1f) && (b1 == 0x8b))
+			return new ReadAheadInputStream(new GZIPInputStream(in, BUFFER_SIZE));
+		if ((b0 == 'B') && (b1 == 'Z') && (b2 == 'h'))
+			return new ReadAheadInputStream(new BZip2CompressorInputStream(in, true));     //Files concatenated from several streams (e.g., by parallel compressors) are read entirely
+		return in;
+	}
+
+
+	/**
+	 * Provides the type of the current OSM element.
+	 * @return  NODE, WAY, or RELATION.
+	 */
+	public int getType() {
+		return type;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public double getLon() {
+		return lon;
+	}
+
+	public double getLat() {
+		return lat;
+	}
+
+	public int getNumTags() {
+		return numTags;
+	}
+
+	public String getTagKey(int i) {
+		return tagKeys[i];
+	}
+
+	public String getTagValue(int i) {
+		return tagValues[i];
+	}
+
+	/**
+	 * Provides the number of nodes of the current OSM way.
+	 */
+	public int getNumNodes() {
+		return numNodes;
+	}
+
+	public long getNodeId(int i) {
+		return nodeIds[i];
+	}
+
+	/**
+	 * Provides the number of members of the current OSM relation.
+	 */
+	public int getNumMembers() {
+		return numMembers;
+	}
+
+	public long getMemberId(int i) {
+		return memberIds[i];
+	}
+
+	/**
+	 * Provides the type of a member of the current OSM relation.
+	 * @param i  The position of the member.
+	 * @return  NODE, WAY, or RELATION.
+	 */
+	public int getMemberType(int i) {
+		return memberTypes[i];
+	}
+
+	public String getMemberRole(int i) {
+		return memberRoles[i];
+	}
+
+	/**
+	 * Provides the number of OSM elements handed over in the last run.
+	 */
+	public long getNumElements() {
+		return numElements;
+	}
+
+	/**
+	 * Provides the number of (decompressed) bytes parsed in the last run.
+	 */
+	public long getNumBytes() {
+		return numBytes;
+	}
+
+
+	/**
+	 * Stream that counts the bytes read through it.
+	 */
+	private static class CountingInputStream extends InputStream {
+
+		private InputStream in;
+		private long count = 0;
+
+		CountingInputStream(InputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = in.read();
+			if (b >= 0)
+				count++;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = in.read(b, off, len);
+			if (n > 0)
+				count += n;
+			return n;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+
+	/**
+	 * Stream that decompresses its input in a separate thread, which reads ahead a few chunks while the parser consumes the current one.
+	 */
+	private static class ReadAheadInputStream extends InputStream {
+
+		private static final byte[] EOF = new byte[0];
+
+		private BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<byte[]>(READ_AHEAD);
+		private Thread reader;
+		private volatile Throwable failure = null;         //Any failure of decompression (e.g., a RuntimeException on a corrupt block), to be reported to the parser before the end of the stream
+		private volatile boolean closed = false;
+		private byte[] chunk = null;
+		private int pos = 0;
+
+		ReadAheadInputStream(InputStream in) {
+
+			reader = new Thread(() -> {
+				try {
+					while (!closed)
+					{
+						byte[] buf = new byte[BUFFER_SIZE];
+						int len = 0, n;
+						while ((len < buf.length) && ((n = in.read(buf, len, buf.length - len)) >= 0))
+							len += n;
+						if (len > 0)
+							chunks.put((len < buf.length) ? Arrays.copyOf(buf, len) : buf);
+						if (len < buf.length)
+							break;
+					}
+				} catch (InterruptedException e) {
+					//Stream closed before its end
+				} catch (Throwable e) {
+					failure = e;
+				} finally {
+					try {
+						in.close();
+					} catch (IOException e) {
+					}
+					try {
+						if (!closed)
+							chunks.put(EOF);            //Waits until the parser has consumed a chunk
+					} catch (InterruptedException e) {
+						//Stream closed before its end
+					}
+				}
+			}, "osm-decompressor");
+			reader.setDaemon(true);
+			reader.start();
+		}
+
+		/**
+		 * Obtains the next chunk once the current one is exhausted.
+		 * @return  False, at the end of the stream.
+		 */
+		private boolean next() throws IOException {
+
+			if ((chunk != null) && (pos < chunk.length))
+				return true;
+			if (chunk == EOF)
+				return false;
+			try {
+				chunk = chunks.take();
+			} catch (InterruptedException e) {
+				throw new IOException("Decompression of OSM file interrupted.", e);
+			}
+			pos = 0;
+			if (failure instanceof IOException)
+				throw (IOException) failure;
+			else if (failure != null)
+				throw new IOException("Cannot decompress OSM file.", failure);
+			return chunk != EOF;
+		}
+
+		@Override
+		public int read() throws IOException {
+			return next() ? (chunk[pos++] & 0xFF) : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+			if (!next())
+				return -1;
+			int n = Math.min(len, chunk.length - pos);
+			System.arraycopy(chunk, pos, b, off, n);
+			pos += n;
+			return n;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+			reader.interrupt();
+		}
+	}
+
+}
@@ -28,7 +28,11 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -40,26 +44,38 @@ import eu.slipo.athenarc.triplegeo.utils.Assistant;
 
 /**
  * Splits a CSV text file into several parts in order to be concurrently transformed into RDF.
- * LIMITATIONS: Currently handling only .CSV files with a header.
+ * Partitions may be either copied into separate files, or specified as byte ranges over the original file (virtual partitions).
+ * LIMITATIONS: Currently handling only .CSV files with a header. Virtual partitions are not supported for UTF-16 or UTF-32 encodings.
  * @author Kostas Patroumpas
  * @version 2.0
  */
 
 /* DEVELOPMENT HISTORY
  * Created by: Kostas Patroumpas, 4/10/2018
- * Last modified: 28/2/2019
+ * Modified: 16/10/2026; virtual partitions as byte ranges aligned to record boundaries, without copying data into temporary files
+ * Last modified: 16/10/2026
  */
 
 public class CsvPartitioner implements Partitioner {
 
 	String fileExtension = ".csv";  //Default extension for .CSV text files
 	List<String> outputFiles;       //List to hold the paths to all partitions
+	char quote = '"';               //Quote character for string values; line breaks within quoted values do not terminate a record
 	
 	//Constructor of this class
 	public CsvPartitioner() { 
 		outputFiles = new ArrayList<String>();
 	}
 	
+	/**
+	 * Constructor of this class specifying the quote character for string values in the .CSV file
+	 * @param quote  Quote character; if not specified ('\0'), line breaks always terminate a record.
+	 */
+	public CsvPartitioner(char quote) { 
+		this();
+		this.quote = quote;
+	}
+	
 	/**
 	 * Splits an input file into a specified number of partitions.
 	 * @param filePath  Path to the input file
@@ -171,4 +187,102 @@ public class CsvPartitioner implements Partitioner {
 		return null;
 	}
 	
+	
+	/**
+	 * Computes virtual partitions over an input .CSV file as byte ranges of roughly equal size. 
+	 * Boundaries are aligned to the start of the next record with a single sequential scan of the file, taking into account line breaks within quoted values.
+	 * The header of the file is attached to each partition, so that every partition can be parsed as a .CSV file on its own.
+	 * @param filePath  Path to the input file
+	 * @param numParts  Number of partitions to be created
+	 * @param encoding  Encoding of the input file
+	 * @return  Array holding the byte range of each partition; null if virtual partitioning is not applicable to this file (e.g., due to its encoding).
+	 * @throws IOException
+	 */
+	public FileRange[] ranges(String filePath, int numParts, String encoding) throws IOException 
+	{
+		File inputFile = new File(filePath);
+		
+		//Byte-level detection of record boundaries is only safe for UTF-8 or single-byte encodings
+		int bomLength = 0;
+		BOMInputStream bomIn = new BOMInputStream(new FileInputStream(inputFile), ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE);
+		if (bomIn.hasBOM(ByteOrderMark.UTF_16LE) || bomIn.hasBOM(ByteOrderMark.UTF_16BE))
+			bomLength = -1;
+		else if (bomIn.hasBOM(ByteOrderMark.UTF_8)) 
+			bomLength = ByteOrderMark.UTF_8.length();
+		bomIn.close();
+		if ((bomLength < 0) || ((encoding != null) && (encoding.toUpperCase().startsWith("UTF-16") || encoding.toUpperCase().startsWith("UTF-32"))))
+			return null;
+		
+		//The quote character is detected as a single byte in the encoding of the file
+		int quoteByte = -1;                                  //Unsigned value of the quote byte; none if negative
+		if (quote != '\0')
+		{
+			Charset charset = (encoding != null) ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+			byte[] q = String.valueOf(quote).getBytes(charset);
+			if ((!charset.newEncoder().canEncode(quote)) || (q.length != 1))
+			{
+				System.out.println("Quote character " + quote + " does not fit in a single byte in " + encoding + " encoding. Virtual partitions are not applicable to " + filePath + ".");
+				return null;
+			}
+			quoteByte = q[0] & 0xFF;
+		}
+		
+		System.out.println("Splitting " + filePath + " into " + numParts + " virtual partitions...");
+		
+		long origSize = inputFile.length();                  //Size of the original file (in bytes)
+		List<FileRange> parts = new ArrayList<FileRange>();
+		long headerEnd = -1;                                 //Offset where the first record after the header starts
+		long partStart = -1;                                 //Offset where the current partition starts
+		long nextCut = origSize;                             //Offset after which the current partition may be closed
+		boolean inQuotes = false;
+		long n = 0;                                          //Number of records (including header)
+		
+		try (FileChannel channel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ))
+		{
+			ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+			byte[] buf = buffer.array();
+			long pos = bomLength;                            //Offset of the next byte to be read
+			int len;
+			while ((len = channel.read(buffer, pos)) > 0)
+			{
+				for (int i = 0; i < len; i++)
+				{
+					int b = buf[i] & 0xFF;
+					if (b == quoteByte)
+						inQuotes = !inQuotes;                //Escaped quotes (doubled) cancel each other out
+					else if ((b == '\n') && (!inQuotes))        //End of a record
+					{
+						long recEnd = pos + i + 1;
+						n++;
+						if (headerEnd < 0)                   //Header has just been consumed
+						{
+							headerEnd = recEnd;
+							partStart = recEnd;
+							nextCut = partStart + (origSize - partStart) / numParts;
+						}
+						else if ((recEnd >= nextCut) && (parts.size() < numParts - 1))
+						{
+							parts.add(new FileRange(filePath, parts.size(), partStart, recEnd, bomLength, (int) (headerEnd - bomLength)));
+							partStart = recEnd;
+							nextCut = partStart + (origSize - partStart) / (numParts - parts.size());    //Remaining bytes divided equally among the remaining partitions
+						}
+					}
+				}
+				pos += len;
+				buffer.clear();
+			}
+		}
+		
+		if (headerEnd < 0)           //No header found
+			return null;
+		
+		//Last partition extends to the end of file
+		if (partStart < origSize)
+			parts.add(new FileRange(filePath, parts.size(), partStart, origSize, bomLength, (int) (headerEnd - bomLength)));
+		
+		System.out.println("Partitioning concluded successfully. Input file contains " + n + " lines and was split into " + parts.size() + " virtual parts.");
+		
+		return parts.toArray(new FileRange[0]);
+	}
+	
 }
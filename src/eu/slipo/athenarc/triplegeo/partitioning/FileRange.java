@@ -0,0 +1,204 @@
+/*
+ * @(#) FileRange.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.partitioning;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.io.FilenameUtils;
+
+/**
+ * A virtual partition of an input file, i.e., a contiguous range [start, end) over the original file that can be transformed without copying its contents.
+ * Depending on the input format, the range may concern byte offsets (e.g., for .CSV files) or record numbers (e.g., for shapefiles).
+ * Optionally, a header (e.g., the first line of a .CSV file) may be logically attached in front of the range.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified: 16/10/2026
+ */
+
+public class FileRange {
+
+	private String path;           //Path to the original input file
+	private int part;              //Serial number of this partition (starting from 0)
+	private long start;            //Start of the range (inclusive)
+	private long end;              //End of the range (exclusive)
+	private long headerOffset;     //Byte offset of the header in the original file (if any)
+	private int headerLength;      //Length (in bytes) of the header; zero if no header is attached
+
+
+	/**
+	 * Constructor of a virtual partition without a header.
+	 * @param path  Path to the original input file.
+	 * @param part  Serial number of this partition (starting from 0).
+	 * @param start  Start of the range (inclusive).
+	 * @param end  End of the range (exclusive).
+	 */
+	public FileRange(String path, int part, long start, long end) {
+		this(path, part, start, end, 0, 0);
+	}
+
+	/**
+	 * Constructor of a virtual partition over byte offsets with a header attached to it.
+	 * @param path  Path to the original input file.
+	 * @param part  Serial number of this partition (starting from 0).
+	 * @param start  Byte offset where the range starts (inclusive).
+	 * @param end  Byte offset where the range ends (exclusive).
+	 * @param headerOffset  Byte offset of the header in the original file.
+	 * @param headerLength  Length (in bytes) of the header.
+	 */
+	public FileRange(String path, int part, long start, long end, long headerOffset, int headerLength) {
+		this.path = path;
+		this.part = part;
+		this.start = start;
+		this.end = end;
+		this.headerOffset = headerOffset;
+		this.headerLength = headerLength;
+	}
+
+	/**
+	 * Provides the path to the original input file.
+	 * @return  Path to the file.
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * Provides the serial number of this partition.
+	 * @return  Serial number (starting from 0).
+	 */
+	public int getPart() {
+		return part;
+	}
+
+	/**
+	 * Provides the start of the range.
+	 * @return  Byte offset or record number (inclusive).
+	 */
+	public long getStart() {
+		return start;
+	}
+
+	/**
+	 * Provides the end of the range.
+	 * @return  Byte offset or record number (exclusive).
+	 */
+	public long getEnd() {
+		return end;
+	}
+
+	/**
+	 * Provides the name of this partition, composed from the name of the original file and the serial number of the partition, e.g., points_part2.
+	 * This is used in naming the output file of each partition.
+	 * @return  Name of the partition (without extension).
+	 */
+	public String getName() {
+		return FilenameUtils.getBaseName(path) + "_part" + (part + 1);
+	}
+
+	/**
+	 * Opens a stream over the bytes of this range, preceded by those of the header (if any). Data is read directly from the original file through a FileChannel.
+	 * @return  An input stream over the contents of this partition.
+	 * @throws IOException
+	 */
+	public InputStream openStream() throws IOException {
+		return new RangeInputStream(FileChannel.open(Paths.get(path), StandardOpenOption.READ));
+	}
+
+	@Override
+	public String toString() {
+		return path + "[" + start + "," + end + ")";
+	}
+
+
+	/**
+	 * Stream over the header and the byte range of a partition using positional reads over a FileChannel.
+	 */
+	private class RangeInputStream extends InputStream {
+
+		private FileChannel channel;
+		private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);    //Buffer for chunks read from the file
+		private long pos;               //Current position in the file
+		private long limit;             //End of the segment currently being read
+		private boolean inHeader;       //Whether the header is currently being read
+
+		RangeInputStream(FileChannel channel) {
+			this.channel = channel;
+			inHeader = (headerLength > 0);
+			pos = inHeader ? headerOffset : start;
+			limit = inHeader ? headerOffset + headerLength : end;
+			buffer.flip();              //Initially empty
+		}
+
+		/**
+		 * Refills the buffer from the current segment, moving from the header to the range once the former is exhausted.
+		 * @return  False if no more bytes are available in this partition.
+		 * @throws IOException
+		 */
+		private boolean fill() throws IOException {
+			if ((pos >= limit) && inHeader) {
+				inHeader = false;
+				pos = start;
+				limit = end;
+			}
+			if (pos >= limit)
+				return false;
+			buffer.clear();
+			if (limit - pos < buffer.capacity())
+				buffer.limit((int) (limit - pos));
+			int n = channel.read(buffer, pos);
+			if (n <= 0)
+				return false;
+			pos += n;
+			buffer.flip();
+			return true;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!buffer.hasRemaining() && !fill())
+				return -1;
+			return buffer.get() & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+			if (!buffer.hasRemaining() && !fill())
+				return -1;
+			int n = Math.min(len, buffer.remaining());
+			buffer.get(b, off, n);
+			return n;
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
@@ -28,7 +28,8 @@ import java.io.IOException;
 
 /* DEVELOPMENT HISTORY
  * Created by: Kostas Patroumpas, 4/10/2018
- * Last modified: 28/2/2019
+ * Modified: 16/10/2026; added virtual partitions over the original input file
+ * Last modified: 16/10/2026
  */
 public interface Partitioner {
 
@@ -52,4 +53,14 @@ public interface Partitioner {
 	 */
 	public String[] split(String filePath, String tmpDir, int numParts, String encoding) throws IOException;
 	
+	/**
+	 * Computes a specified number of virtual partitions over an input file, i.e., ranges that can be read directly from the original file without copying its contents.
+	 * @param filePath  Path to the input file
+	 * @param numParts  Number of partitions to be created
+	 * @param encoding  Encoding of the input file
+	 * @return  Array holding the range of each partition; null if virtual partitioning is not applicable to this file.
+	 * @throws IOException
+	 */
+	public FileRange[] ranges(String filePath, int numParts, String encoding) throws IOException;
+	
 }
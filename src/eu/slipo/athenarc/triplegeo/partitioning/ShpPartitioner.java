@@ -21,6 +21,9 @@ package eu.slipo.athenarc.triplegeo.partitioning;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -45,13 +48,15 @@ import eu.slipo.athenarc.triplegeo.utils.Assistant;
 
 /**
  * Partitions a ESRI shapefile into several (equi-sized) parts in order to be concurrently transformed into RDF.
+ * Partitions may be either copied into separate shapefiles, or specified as ranges of records over the original shapefile (virtual partitions).
  * @author Kostas Patroumpas
  * @version 2.0
  */
 
 /* DEVELOPMENT HISTORY
  * Created by: Kostas Patroumpas, 4/10/2018
- * Last modified: 22/4/2019
+ * Modified: 16/10/2026; virtual partitions as ranges of records according to the .shx index, without copying features into temporary shapefiles
+ * Last modified: 16/10/2026
  */
 
 public class ShpPartitioner implements Partitioner {
@@ -214,5 +219,52 @@ public class ShpPartitioner implements Partitioner {
 	public String[] split(String filePath, String tmpDir, int numParts) throws IOException {
 		return null;
 	}
+
+	
+	/**
+	 * Computes virtual partitions over an input shapefile as ranges of records of (almost) equal size.
+	 * Only the headers of the .shx and .dbf files are read in order to determine the number of records; each range is read directly from the original shapefile.
+	 * @param filePath  Path to the input shapefile
+	 * @param numParts  Number of partitions to be created
+	 * @param encoding  Encoding of the input shapefile
+	 * @return  Array holding the range of records of each partition; null if the .shx or .dbf files are not available.
+	 * @throws IOException
+	 */
+	public FileRange[] ranges(String filePath, int numParts, String encoding) throws IOException 
+	{
+		String basePath = FilenameUtils.removeExtension(filePath);
+		File shxFile = new File(basePath + ".shx");
+		File dbfFile = new File(basePath + ".dbf");
+		if (!shxFile.exists() || !dbfFile.exists())
+			return null;
+		
+		System.out.println("Splitting " + filePath + " into " + numParts + " virtual partitions...");
+		
+		//In the .shx file, each record has a fixed-length (8 bytes) entry after a 100-byte header
+		long numFeatures = (shxFile.length() - 100) / 8;
+		
+		//Cross-check with the number of records in the .dbf header (4-byte little-endian integer at offset 4)
+		try (RandomAccessFile dbf = new RandomAccessFile(dbfFile, "r")) 
+		{
+			byte[] header = new byte[8];
+			dbf.readFully(header);
+			long numRecords = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN).getInt(4) & 0xFFFFFFFFL;
+			if (numRecords != numFeatures) {
+				System.out.println("WARNING: Number of geometries (" + numFeatures + ") does not match number of records (" + numRecords + ") in input shapefile. Virtual partitions cannot be used.");
+				return null;
+			}
+		}
+		
+		long numPartFeatures = (long) Math.ceil((double)numFeatures / numParts);     //Size of each partition (in records)
+		System.out.println("Total features: " + numFeatures + ". Number of features expected in each partition: " + numPartFeatures);
+		
+		List<FileRange> parts = new ArrayList<FileRange>();
+		for (long start = 0; start < numFeatures; start += numPartFeatures)
+			parts.add(new FileRange(filePath, parts.size(), start, Math.min(start + numPartFeatures, numFeatures)));
+		
+		System.out.println("Partitioning concluded successfully. Input file contains " + numFeatures + " features and was split into " + parts.size() + " virtual parts.");
+		
+		return parts.toArray(new FileRange[0]);
+	}
     
 }
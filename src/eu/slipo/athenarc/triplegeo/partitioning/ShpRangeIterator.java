@@ -0,0 +1,138 @@
+/*
+ * @(#) ShpRangeIterator.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.partitioning;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.NoSuchElementException;
+
+import org.geotools.data.shapefile.dbf.DbaseFileReader;
+import org.geotools.data.shapefile.files.ShpFiles;
+import org.geotools.data.shapefile.shp.IndexFile;
+import org.geotools.data.shapefile.shp.ShapefileReader;
+import org.geotools.feature.FeatureIterator;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
+
+/**
+ * Iterator over the features of a virtual partition of a shapefile, i.e., over a range of records [start, end) read directly from the original .shp and .dbf files.
+ * The position of the first record in the .shp file is obtained from the .shx index, whereas records in the .dbf file have a fixed size; hence, no records before the range are ever read.
+ * Records marked as deleted in the .dbf file are skipped, as with the shapefile data store.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified: 16/10/2026
+ */
+
+public class ShpRangeIterator implements FeatureIterator<SimpleFeature> {
+
+	private ShapefileReader shpReader;         //Reader of geometries from the .shp file
+	private DbaseFileReader dbfReader;         //Reader of attribute values from the .dbf file
+	private SimpleFeatureBuilder builder;      //Builder of features according to the schema of the shapefile
+	private String typeName;                   //Name of the shapefile; used in feature identifiers
+	private long recno;                        //Number of the next record to be read
+	private long end;                          //Number of the record where the range ends (exclusive)
+	private SimpleFeature nextFeature;         //Next feature not marked as deleted; null if not yet read
+
+
+	/**
+	 * Constructor of an iterator over a range of records in a shapefile.
+	 * @param shpFile  The .shp file of the shapefile.
+	 * @param schema  Attribute schema of the shapefile, including its geometry as the first attribute.
+	 * @param range  The range of records to be read.
+	 * @param encoding  Encoding of string values in the .dbf file.
+	 * @throws IOException
+	 */
+	public ShpRangeIterator(File shpFile, SimpleFeatureType schema, FileRange range, String encoding) throws IOException {
+
+		ShpFiles shpFiles = new ShpFiles(shpFile);
+		typeName = schema.getTypeName();
+		builder = new SimpleFeatureBuilder(schema);
+		recno = range.getStart();
+		end = range.getEnd();
+
+		shpReader = new ShapefileReader(shpFiles, false, true, new GeometryFactory());
+		dbfReader = new DbaseFileReader(shpFiles, true, Charset.forName(encoding));
+
+		//Move both readers to the first record of the range
+		if (recno < end) {
+			IndexFile shxIndex = new IndexFile(shpFiles, true);
+			try {
+				shpReader.goTo(shxIndex.getOffsetInBytes((int) recno));
+			}
+			finally {
+				shxIndex.close();
+			}
+			dbfReader.goTo((int) recno);
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+
+		try {
+			while ((nextFeature == null) && (recno < end) && shpReader.hasNext() && dbfReader.hasNext())
+			{
+				ShapefileReader.Record record = shpReader.nextRecord();
+				DbaseFileReader.Row row = dbfReader.readRow();
+				recno++;
+				if (row.isDeleted())               //Deleted records are skipped, but still counted in feature identifiers
+					continue;
+				//Geometry comes first, followed by attribute values in the order specified in the .dbf file
+				builder.add(record.shape());
+				for (int i = 0; i < dbfReader.getHeader().getNumFields(); i++)
+					builder.add(row.read(i));
+				nextFeature = builder.buildFeature(typeName + "." + recno);      //Same identifiers as those assigned by the shapefile data store
+			}
+		} catch (IOException e) {
+			ExceptionHandler.abort(e, "Cannot read record " + recno + " from the input shapefile.");
+		}
+		return (nextFeature != null);
+	}
+
+	@Override
+	public SimpleFeature next() {
+
+		if (!hasNext())
+			throw new NoSuchElementException();
+		SimpleFeature f = nextFeature;
+		nextFeature = null;
+		return f;
+	}
+
+	@Override
+	public void close() {
+		try {
+			shpReader.close();
+			dbfReader.close();
+		} catch (IOException e) {
+			ExceptionHandler.warn(e, "Input shapefile was not properly closed.");
+		}
+	}
+
+}
@@ -60,7 +60,8 @@ import org.apache.log4j.Logger;
 /* DEVELOPMENT HISTORY
  * Created by: Georgios Mandilaras, 20/12/2018
  * Modified: 7/10/2019 by Kostas Patroumpas; changed handling of .dbf files from shapefile collections
- * Last modified: 7/10/2019
+ * Modified: 16/10/2026 by Kostas Patroumpas; outputs of all partitions merged into a single output file
+ * Last modified: 16/10/2026
  */
 public class SparkPartitioner {
 
@@ -74,6 +75,7 @@ public class SparkPartitioner {
 
         String currentFormat = currentConfig.inputFormat.toUpperCase();           //Possible values: SHAPEFILE, DBMS, CSV, GPX, GEOJSON, JSON, OSM_XML, OSM_PBF, XML
         int num_partitions = currentConfig.partitions;
+        int job_partitions = 0;                                                    //Number of partitions actually processed by the Spark job, each one written into its own output file
         Assistant myAssistant = new Assistant();
 
         //set spark's logger level
@@ -134,6 +136,7 @@ public class SparkPartitioner {
                 if(num_partitions > 0 )
                     spatialRDD.rawSpatialRDD = spatialRDD.rawSpatialRDD
                             .repartition(num_partitions);
+                job_partitions = spatialRDD.rawSpatialRDD.getNumPartitions();
 
                 spatialRDD.rawSpatialRDD
                         .map((Function<Geometry, Map>) geometry -> {
@@ -169,6 +172,7 @@ public class SparkPartitioner {
                     df_rdd = df_rdd.repartition(num_partitions);
 //                  df_rdd.persist(StorageLevel.MEMORY_AND_DISK());
                 }
+                job_partitions = df_rdd.getNumPartitions();
 
                 df_rdd
                 .map((Function<Row, Map>) row -> {
@@ -210,6 +214,7 @@ public class SparkPartitioner {
                     df_rdd = df_rdd.repartition(num_partitions);
 //                  df_rdd.persist(StorageLevel.MEMORY_AND_DISK());
                 }
+                job_partitions = df_rdd.getNumPartitions();
 
                 df_rdd
                         .map((Function<Row, Map>) row -> {
@@ -283,6 +288,10 @@ public class SparkPartitioner {
             }
             //System.in.read();
             session.stop();
+
+            //Merge the outputs of all partitions into the specified output file, once the Spark job has concluded
+            if (currentConfig.mergeOutputs)
+                OutputMerger.merge(OutputMerger.listParts(outFile, job_partitions), outFile, true);
         } catch (Exception e) {
             ExceptionHandler.abort(e, Constants.INCORRECT_SETTING);      //Execution terminated abnormally
         }
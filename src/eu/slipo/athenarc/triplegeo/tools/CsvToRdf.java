@@ -32,17 +32,13 @@ import org.apache.commons.csv.CSVRecord;
 import org.apache.commons.io.ByteOrderMark;
 import org.apache.commons.io.input.BOMInputStream;
 
-import org.geotools.factory.Hints;
-import org.geotools.referencing.CRS;
-import org.geotools.referencing.ReferencingFactoryFinder;
-import org.opengis.referencing.crs.CRSAuthorityFactory;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
 
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.PrecisionModel;
 import com.vividsolutions.jts.io.WKTReader;
 
+import eu.slipo.athenarc.triplegeo.partitioning.FileRange;
 import eu.slipo.athenarc.triplegeo.utils.Assistant;
 import eu.slipo.athenarc.triplegeo.utils.Classification;
 import eu.slipo.athenarc.triplegeo.utils.Configuration;
@@ -51,6 +47,7 @@ import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
 import eu.slipo.athenarc.triplegeo.utils.GraphConverter;
 import eu.slipo.athenarc.triplegeo.utils.RMLConverter;
 import eu.slipo.athenarc.triplegeo.utils.StreamConverter;
+import eu.slipo.athenarc.triplegeo.utils.TransformRegistry;
 
 
 /**
@@ -73,7 +70,9 @@ import eu.slipo.athenarc.triplegeo.utils.StreamConverter;
  * Modified: 24/11/2017, added support for recognizing character encoding for strings
  * Modified: 12/12/2017, fixed issue with string encodings; verified that UTF characters read and written correctly
  * Modified: 9/10/2019, supporting export to the registry also for RML mode
- * Last modified by: Kostas Patroumpas, 15/10/2019
+ * Modified: 16/10/2026, reading a virtual partition (byte range) directly from the original input file
+ * Modified: 16/10/2026; CRS transformation obtained from a registry shared by all converters
+ * Last modified by: Kostas Patroumpas, 16/10/2026
  */
 public class CsvToRdf {
 
@@ -87,10 +86,7 @@ public class CsvToRdf {
 	  private String inputFile;               //Input CSV file
 	  private String outputFile;              //Output RDF file
 	  private String encoding;                //Encoding of the data records
-	  
-	  //Initialize a CRS factory for possible reprojections
-	  private static final CRSAuthorityFactory crsFactory = ReferencingFactoryFinder
-		       .getCRSAuthorityFactory("EPSG", new Hints(Hints.FORCE_LONGITUDE_FIRST_AXIS_ORDER, Boolean.TRUE));
+	  private FileRange range = null;         //Virtual partition of the input file (if applicable)
 	  
 	  private String[] csvHeader = null;    //CSV Header
 
@@ -119,10 +115,7 @@ public class CsvToRdf {
 	      if (currentConfig.targetCRS != null)
 	      {
 	  	    try {
-	  	        boolean lenient = true; // allow for some error due to different datums
-	  	        CoordinateReferenceSystem sourceCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.sourceCRS);
-	  	        CoordinateReferenceSystem targetCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.targetCRS);    
-	  	        reproject = CRS.findMathTransform(sourceCRS, targetCRS, lenient);
+	  	        reproject = TransformRegistry.getTransform(currentConfig.sourceCRS, currentConfig.targetCRS);
 	  	        
 	  	        //Needed for parsing original geometry in WKT representation
 	  	        GeometryFactory geomFactory = new GeometryFactory(new PrecisionModel(), sourceSRID);
@@ -146,6 +139,22 @@ public class CsvToRdf {
 	      }
 	  }
 
+
+	  /**
+	   * Constructor for the transformation process of a virtual partition of a CSV file to RDF.
+	   * @param config  Parameters to configure the transformation.
+	   * @param classific  Instantiation of the classification scheme that assigns categories to input features.
+	   * @param range  Byte range of the partition over the original input CSV file; the header of the file is attached to it.
+	   * @param outFile  Path to the output file that collects RDF triples.
+	   * @param sourceSRID  Spatial reference system (EPSG code) of the input geometries.
+	   * @param targetSRID  Spatial reference system (EPSG code) of geometries in the output RDF triples.
+	   */
+	  public CsvToRdf(Configuration config, Classification classific, FileRange range, String outFile, int sourceSRID, int targetSRID) {
+		  
+		  this(config, classific, range.getPath(), outFile, sourceSRID, targetSRID);
+		  this.range = range;
+	  }
+	  
 	  
 	/**
 	 * Loads the CSV file from the configuration path and returns an iterable feature collection.  
@@ -169,7 +178,8 @@ public class CsvToRdf {
 				encoding = StandardCharsets.UTF_16BE.name();
 		
 			//Read records and header from the file
-			Reader in = new InputStreamReader(new FileInputStream(file), encoding);
+			//In case of a virtual partition, only its byte range is read (preceded by the header)
+			Reader in = new InputStreamReader((range != null) ? range.openStream() : new FileInputStream(file), encoding);
 			CSVFormat format = CSVFormat.RFC4180.withDelimiter(currentConfig.delimiter).withQuote(currentConfig.quote).withFirstRecordAsHeader();	
 			CSVParser dataCSVParser = new CSVParser(in, format);
 			records = dataCSVParser.iterator();                                  //List of all records
@@ -18,13 +18,8 @@
  */
 package eu.slipo.athenarc.triplegeo.tools;
 
-import org.geotools.factory.Hints;
 import org.geotools.feature.FeatureIterator;
 import org.geotools.geojson.feature.FeatureJSON;
-import org.geotools.referencing.CRS;
-import org.geotools.referencing.ReferencingFactoryFinder;
-import org.opengis.referencing.crs.CRSAuthorityFactory;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
 
 import eu.slipo.athenarc.triplegeo.utils.Configuration;
@@ -36,6 +31,7 @@ import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
 import eu.slipo.athenarc.triplegeo.utils.GraphConverter;
 import eu.slipo.athenarc.triplegeo.utils.RMLConverter;
 import eu.slipo.athenarc.triplegeo.utils.StreamConverter;
+import eu.slipo.athenarc.triplegeo.utils.TransformRegistry;
 
 
 /**
@@ -53,7 +49,8 @@ import eu.slipo.athenarc.triplegeo.utils.StreamConverter;
  * Modified: 13/12/2017, utilizing a streaming iterator in order to avoid loading the entire feature collection into memory
  * Modified: 9/10/2019, supporting export to the registry also for RML mode
  * TODO: Upgrade to newer GeoTools library for GeoJSON.
- * Last modified by: Kostas Patroumpas, 9/10/2019
+ * Modified: 16/10/2026; CRS transformation obtained from a registry shared by all converters
+ * Last modified by: Kostas Patroumpas, 16/10/2026
  */
 public class GeoJsonToRdf {
 
@@ -67,10 +64,6 @@ public class GeoJsonToRdf {
 	  String inputFile;                      //Input GeoJSON file
 	  String outputFile;                     //Output RDF file
 	  
-	  //Initialize a CRS factory for possible reprojections
-	  private static final CRSAuthorityFactory crsFactory = ReferencingFactoryFinder
-		       .getCRSAuthorityFactory("EPSG", new Hints(Hints.FORCE_LONGITUDE_FIRST_AXIS_ORDER, Boolean.TRUE));
-	  
 	  /**
 	   * Constructor for the transformation process from GeoJSON file to RDF.
 	   * @param config  Parameters to configure the transformation.
@@ -96,10 +89,7 @@ public class GeoJsonToRdf {
 	      //Check if a coordinate transform is required for geometries
 	      if (currentConfig.targetCRS != null)
 	  	    try {
-	  	        boolean lenient = true; // allow for some error due to different datums
-	  	        CoordinateReferenceSystem sourceCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.sourceCRS);
-	  	        CoordinateReferenceSystem targetCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.targetCRS);    
-	  	        reproject = CRS.findMathTransform(sourceCRS, targetCRS, lenient);	  	        
+	  	        reproject = TransformRegistry.getTransform(currentConfig.sourceCRS, currentConfig.targetCRS);
 	  		} catch (Exception e) {
 	  			ExceptionHandler.abort(e, "Error in CRS transformation (reprojection) of geometries.");      //Execution terminated abnormally
 	  		}
@@ -27,11 +27,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import org.geotools.factory.Hints;
-import org.geotools.referencing.CRS;
-import org.geotools.referencing.ReferencingFactoryFinder;
-import org.opengis.referencing.crs.CRSAuthorityFactory;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -49,6 +44,7 @@ import eu.slipo.athenarc.triplegeo.utils.Converter;
 import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
 import eu.slipo.athenarc.triplegeo.utils.GraphConverter;
 import eu.slipo.athenarc.triplegeo.utils.StreamConverter;
+import eu.slipo.athenarc.triplegeo.utils.TransformRegistry;
 
 
 /**
@@ -62,7 +58,8 @@ import eu.slipo.athenarc.triplegeo.utils.StreamConverter;
  * Created by: Kostas Patroumpas, 19/7/2018
  * Modified: 20/7/2018, added support for exporting all available non-spatial attributes as properties
  * Modified: 25/10/2018; integrate handling of a user-specified classification scheme for features.
- * Last modified by: Kostas Patroumpas, 12/7/2019
+ * Modified: 16/10/2026; CRS transformation obtained from a registry shared by all converters
+ * Last modified by: Kostas Patroumpas, 16/10/2026
 */
 
 public class JsonToRdf {  
@@ -77,10 +74,6 @@ public class JsonToRdf {
 	private String inputFile;              //Input JSON file
 	private String outputFile;             //Output RDF file
 
-	//Initialize a CRS factory for possible reprojections
-	private static final CRSAuthorityFactory crsFactory = ReferencingFactoryFinder
-		       .getCRSAuthorityFactory("EPSG", new Hints(Hints.FORCE_LONGITUDE_FIRST_AXIS_ORDER, Boolean.TRUE));
-	  
 	/**
 	 * Constructor for the transformation process from JSON document to RDF.
 	 * @param config  Parameters to configure the transformation.
@@ -104,10 +97,7 @@ public class JsonToRdf {
 	      //Check if a coordinate transform is required for geometries
 	      if (currentConfig.targetCRS != null) {
 		  	    try {
-		  	        boolean lenient = true; // allow for some error due to different datums
-		  	        CoordinateReferenceSystem sourceCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.sourceCRS);
-		  	        CoordinateReferenceSystem targetCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.targetCRS);    
-		  	        reproject = CRS.findMathTransform(sourceCRS, targetCRS, lenient);  
+		  	        reproject = TransformRegistry.getTransform(currentConfig.sourceCRS, currentConfig.targetCRS);
 		  	        
 		  	        //Needed for parsing original geometry in WTK representation
 		  	        GeometryFactory geomFactory = new GeometryFactory(new PrecisionModel(), sourceSRID);
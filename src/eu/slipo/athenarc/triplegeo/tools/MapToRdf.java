@@ -21,11 +21,6 @@ package eu.slipo.athenarc.triplegeo.tools;
 import eu.slipo.athenarc.triplegeo.utils.*;
 
 import org.apache.commons.io.FilenameUtils;
-import org.geotools.factory.Hints;
-import org.geotools.referencing.CRS;
-import org.geotools.referencing.ReferencingFactoryFinder;
-import org.opengis.referencing.crs.CRSAuthorityFactory;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
 import java.util.Iterator;
 import java.util.Map;
@@ -38,7 +33,8 @@ import java.util.Map;
 
 /* DEVELOPMENT HISTORY
  * Created by: Georgios Mandilaras, 20/12/2018
- * Last modified: 12/7/2019
+ * Modified: 16/10/2026; CRS transformation obtained from a registry shared by all converters
+ * Last modified: 16/10/2026
 */
 public class MapToRdf {
 
@@ -54,10 +50,6 @@ public class MapToRdf {
     private Iterator<Map<String,String>> data;
     private int partition_index;
 
-    //Initialize a CRS factory for possible reprojections
-    private static final CRSAuthorityFactory crsFactory = ReferencingFactoryFinder
-            .getCRSAuthorityFactory("EPSG", new Hints(Hints.FORCE_LONGITUDE_FIRST_AXIS_ORDER, Boolean.TRUE));
-
     public MapToRdf(Configuration config, Classification classific, String outFile, int sourceSRID, int targetSRID, Iterator<Map<String,String>> input, int index) throws ClassNotFoundException {
 
         this.currentConfig = config;      
@@ -90,10 +82,7 @@ public class MapToRdf {
         //Check if a coordinate transform is required for geometries
         if (currentConfig.targetCRS != null) {
             try {
-                boolean lenient = true; // allow for some error due to different datums
-                CoordinateReferenceSystem sourceCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.sourceCRS);
-                CoordinateReferenceSystem targetCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.targetCRS);
-                reproject = CRS.findMathTransform(sourceCRS, targetCRS, lenient);
+                reproject = TransformRegistry.getTransform(currentConfig.sourceCRS, currentConfig.targetCRS);
             } catch (Exception e) {
                 ExceptionHandler.abort(e, "Error in CRS transformation (reprojection) of geometries.");      //Execution terminated abnormally
             }
@@ -0,0 +1,675 @@
+/*
+ * @(#) OsmChangeToRdf.java	version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.tools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.jena.riot.RDFDataMgr;
+import org.opengis.referencing.operation.MathTransform;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
+import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
+import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.PrecisionModel;
+import com.vividsolutions.jts.io.WKTReader;
+
+import eu.slipo.athenarc.triplegeo.osm.OSMChangeState;
+import eu.slipo.athenarc.triplegeo.osm.OSMClassification;
+import eu.slipo.athenarc.triplegeo.osm.OSMPbfReader;
+import eu.slipo.athenarc.triplegeo.osm.OSMRecord;
+import eu.slipo.athenarc.triplegeo.osm.OSMRecordBuilder;
+import eu.slipo.athenarc.triplegeo.osm.OSMRelation;
+import eu.slipo.athenarc.triplegeo.utils.Assistant;
+import eu.slipo.athenarc.triplegeo.utils.Classification;
+import eu.slipo.athenarc.triplegeo.utils.Configuration;
+import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
+import eu.slipo.athenarc.triplegeo.utils.TransformRegistry;
+import eu.slipo.athenarc.triplegeo.utils.TripleGenerator;
+import eu.slipo.athenarc.triplegeo.utils.ValueChecker;
+
+/**
+ * Entry point to apply OpenStreetMap (OSM) change files (osmChange XML, optionally gzipped) to RDF triples previously issued from OSM data, without transforming the entire dataset again.
+ * A persistent state (kept in the directory specified by 'osmStateDir') holds the locations of nodes, the members of ways and relations, and the triples issued per OSM element.
+ * For each change file, only the triples of changed elements are issued again, including ways and relations whose geometry changed because a node moved, as well as relations containing changed members.
+ * The output consists of the triples to be deleted and those to be inserted, either as a pair of N-Triples files (_delete.nt, _insert.nt) or as a single SPARQL Update file (.ru); deletions must be applied before insertions.
+ * The state is initialized from a full OSM extract (OSM XML, optionally gzipped, or OSM PBF) given as input when the state directory does not yet exist; then, all its triples are issued as insertions.
+ * LIMITATIONS: - Change files must be applied in the order of their sequence numbers, each one once; concurrent change files against the same state are applied one after the other.
+ *              - Only STREAM mode is supported; triples are always issued in N-Triples.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+public class OsmChangeToRdf extends DefaultHandler implements Sink {
+
+	  private static final Object LOCK = new Object();     //Changes against a state are applied by a single task at a time
+
+	  Assistant myAssistant;
+	  ValueChecker myChecker;
+	  private TripleGenerator myGenerator;
+	  private MathTransform reproject = null;
+	  int sourceSRID;                       //Source CRS according to EPSG
+	  int targetSRID;                       //Target CRS according to EPSG
+	  private Configuration currentConfig;  //User-specified configuration settings
+	  private String inputFile;             //Input OSM change file
+	  private String outputFile;            //Output RDF file; its name determines the names of the files with deleted and inserted triples
+
+	  private boolean closedRings2Polygons = false;	//Controls whether closed rings (i.e., first vertex coincides with the last) will be converted to polygons
+
+	  Classification classification = null; //Classification hierarchy for assigning categories to features
+	  private Set<String> tags;             //OSM tags used in the filters
+
+	  private GeometryFactory geometryFactory = new GeometryFactory();
+	  private OSMRecordBuilder recBuilder;
+	  private OSMChangeState state;
+
+	  private Writer deleted;               //Triples to be deleted
+	  private Writer inserted;              //Triples to be inserted
+
+	  //Element currently parsed from the XML file
+	  private String section = "create";    //Current section of the change file: create, modify, or delete
+	  private String elementType = null;    //node, way, or relation
+	  private long elementId;
+	  private double lon, lat;
+	  private Map<String, String> elementTags = new HashMap<String, String>();
+	  private long[] wayNodes = new long[64];
+	  private int numWayNodes;
+	  private OSMRelation relationTmp;
+
+	  long numCreated;
+	  long numModified;
+	  long numDeleted;
+	  int numTransformed;
+	  int numRejected;
+	  int numDeletedTriples;
+	  int numInsertedTriples;
+
+	  /**
+	   * Constructor for the application of an OpenStreetMap change file to RDF.
+	   * @param config  Parameters to configure the transformation.
+	   * @param inFile  Path to input OSM change file; a full OSM XML or PBF file, if the state has not been initialized.
+	   * @param outFile  Path to the output file, which determines the names of the files with the deleted and inserted triples.
+	   * @param sourceSRID  Spatial reference system (EPSG code) of the input OSM file.
+	   * @param targetSRID  Spatial reference system (EPSG code) of geometries in the output RDF triples.
+	   */
+	  public OsmChangeToRdf(Configuration config, String inFile, String outFile, int sourceSRID, int targetSRID) {
+
+		  currentConfig = config;
+		  inputFile = inFile;
+		  outputFile = outFile;
+	      this.sourceSRID = sourceSRID;                      //Assume that OSM input is georeferenced in WGS84
+	      this.targetSRID = targetSRID;
+	      myAssistant = new Assistant(config);
+	      myChecker = new ValueChecker();
+
+	      if (currentConfig.osmStateDir == null)
+	    	  ExceptionHandler.abort(new IllegalArgumentException("osmStateDir"), "Please specify the directory holding the state of OSM data in your configuration file.");
+
+	      //Get filter definitions over combinations of OSM tags in order to determine POI categories
+	      try {
+	    	  OSMClassification osmClassific = new OSMClassification(config.classificationSpec, currentConfig.outputDir);
+	    	  String classFile = osmClassific.apply();
+	    	  tags = osmClassific.getTags();
+
+		      //Instantiate a record builder to be used in handling each OSM record
+		      recBuilder = new OSMRecordBuilder(osmClassific.getFilters());
+
+		      //Create the internal representation of this classification scheme
+		      if (tags != null)
+		      {
+		    	  String outClassificationFile = currentConfig.outputDir + FilenameUtils.getBaseName(currentConfig.classificationSpec) + myAssistant.getOutputExtension(currentConfig.serialization);
+		    	  classification = new Classification(currentConfig, classFile, outClassificationFile);
+		      }
+	      }
+		  catch(Exception e) {
+				ExceptionHandler.abort(e, "Cannot initialize parser for OSM data. Missing or malformed YML file with classification of OSM tags into categories.");
+		  }
+
+	      //Check if a coordinate transform is required for geometries
+	      if (currentConfig.targetCRS != null)
+	      {
+	  	    try {
+	  	        reproject = TransformRegistry.getTransform(currentConfig.sourceCRS, currentConfig.targetCRS);
+
+	  	        //Needed for parsing original geometry in WTK representation
+	  	        GeometryFactory geomFactory = new GeometryFactory(new PrecisionModel(), sourceSRID);
+	  	        myAssistant.wktReader = new WKTReader(geomFactory);
+
+	  		} catch (Exception e) {
+	  			ExceptionHandler.abort(e, "Error in CRS transformation (reprojection) of geometries.");      //Execution terminated abnormally
+	  		}
+	      }
+	      else                                 //No transformation specified; determine the CRS of geometries...
+	    	  this.targetSRID = 4326;          //... as the original OSM features assumed in WGS84 lon/lat coordinates
+
+	      //Other parameters
+	      if (myAssistant.isNullOrEmpty(currentConfig.defaultLang)) {
+	    	  currentConfig.defaultLang = "en";
+	      }
+	      myGenerator = new TripleGenerator(config, myAssistant);
+	  }
+
+
+	  /**
+	   * Checks whether any tag of an OSM element is specified in the user-specified filters.
+	   * @param elementTags  Tags of the OSM element.
+	   * @return  True, if the element may be transformed; otherwise, False.
+	   */
+	  private boolean matches(Map<String, String> elementTags) {
+
+		  if ((elementTags == null) || (elementTags.isEmpty()))
+			  return false;
+		  if (tags == null)                          //In case of no tags specified for filtering, all elements with tags are transformed
+			  return true;
+		  for (String k: elementTags.keySet())
+			  if (tags.contains(k))
+				  return true;
+		  return false;
+	  }
+
+
+	  /**
+	   * Transforms a single OSM record into triples (including geometric and non-spatial attributes), as in STREAM mode.
+	   * @param rs  Representation of an OSM record with attributes extracted from an OSM element (node, way, or relation).
+	   * @return  The resulting triples in N-Triples, one per line; null, if the record was rejected by a filter.
+	   * @throws IOException  Thrown if the record cannot be transformed; its previously issued triples must not be deleted, so the change file cannot be applied.
+	   */
+	  private String transform(OSMRecord rs) throws IOException {
+
+		  try {
+			  //Handle geometric representation
+			  Geometry geometry = null;
+			  String wkt = null;
+			  if ((rs.getGeometry() != null) && (!rs.getGeometry().isEmpty()))
+			  {
+				  geometry = rs.getGeometry();
+
+				  //Apply spatial filtering (if specified by user)
+				  if (!myAssistant.filterContains(geometry))
+					  return null;
+
+				  //CRS transformation
+				  if (reproject != null)
+					  geometry = myAssistant.geomTransform(geometry, reproject);
+
+				  wkt = geometry.toText();       //Get WKT representation (once)
+			  }
+
+			  //Tags to be processed as attribute values
+			  Map <String, String> attrValues = new HashMap<String, String>(rs.getTagKeyValue());
+
+			  //Include standard attributes for OSM identifier, name, and type
+			  attrValues.put("osm_id", rs.getID());
+			  attrValues.put("name", rs.getName());
+			  attrValues.put("type", rs.getType());
+
+			  //Skip transformation of any features filtered out by the logical expression over thematic attributes
+			  if (myAssistant.filterThematic(attrValues))
+				  return null;
+
+			  //Include identified category in these tags as an extra attribute
+			  if (currentConfig.attrCategory != null)                //Attribute to be used in the Registry as well
+				  attrValues.put(currentConfig.attrCategory, rs.getCategory());
+			  else
+				  attrValues.put("OSM_Category", rs.getCategory());  //Ad-hoc name for this extra attribute
+
+			  myGenerator.transform(attrValues, geometry, wkt, targetSRID, classification);
+			  ByteArrayOutputStream out = new ByteArrayOutputStream();
+			  RDFDataMgr.writeTriples(out, myGenerator.getTriples().iterator());
+			  return out.toString(StandardCharsets.UTF_8.name());
+		  } catch (RuntimeException e) {
+			  throw new IOException("Problem at element with OSM id: " + rs.getID() + ".", e);
+		  }
+		  finally {
+			  myGenerator.clearTriples();
+		  }
+	  }
+
+
+	  /**
+	   * Issues again the triples of an OSM element according to its current state, and writes those that differ from its previously issued triples.
+	   * @param key  The type and identifier of the element (e.g., "way/123").
+	   */
+	  private void update(String key) throws IOException {
+
+		  String nt = null;
+		  if (matches(state.getTags(key)))
+		  {
+			  OSMRecord rec = state.createRecord(key, recBuilder, geometryFactory, closedRings2Polygons);
+			  if (rec != null)
+			  {
+				  nt = transform(rec);
+				  if (nt != null)
+					  numTransformed++;
+				  else
+					  numRejected++;
+			  }
+		  }
+
+		  //Only triples that differ are deleted or inserted
+		  Set<String> oldTriples = lines(state.getTriples(key));
+		  Set<String> newTriples = lines(nt);
+		  for (String t: oldTriples)
+			  if (!newTriples.contains(t))
+			  {
+				  deleted.write(t);
+				  deleted.write('\n');
+				  numDeletedTriples++;
+			  }
+		  for (String t: newTriples)
+			  if (!oldTriples.contains(t))
+			  {
+				  inserted.write(t);
+				  inserted.write('\n');
+				  numInsertedTriples++;
+			  }
+		  state.putTriples(key, nt);
+	  }
+
+
+	  private static Set<String> lines(String nt) {
+
+		  Set<String> result = new LinkedHashSet<String>();
+		  if (nt != null)
+			  for (String t: nt.split("\n"))
+				  if (!t.isEmpty())
+					  result.add(t);
+		  return result;
+	  }
+
+
+	  /**
+	   * Applies a change of an OSM node to the state.
+	   */
+	  private void applyNode(long id, double lon, double lat, Map<String, String> nodeTags) throws IOException {
+
+		  if (section.equals("delete"))
+			  state.deleteNode(id);
+		  else
+		  {
+			  boolean keep = matches(nodeTags);
+			  state.putNode(id, lon, lat, keep ? nodeTags : null);
+			  if ((keep) && (state.isInitializing()))            //Nodes are transformed as soon as read, since no other element affects their triples
+				  update("node/" + id);
+		  }
+		  count();
+	  }
+
+
+	  /**
+	   * Applies a change of an OSM way to the state.
+	   */
+	  private void applyWay(long id, long[] nodeIds, Map<String, String> wayTags) throws IOException {
+
+		  if (section.equals("delete"))
+			  state.deleteWay(id);
+		  else
+		  {
+			  boolean keep = matches(wayTags);
+			  state.putWay(id, nodeIds, keep ? wayTags : null);
+			  if ((keep) && (state.isInitializing()))            //All nodes precede the ways
+				  update("way/" + id);
+		  }
+		  count();
+	  }
+
+
+	  /**
+	   * Applies a change of an OSM relation to the state.
+	   */
+	  private void applyRelation(OSMRelation r) {
+
+		  if (section.equals("delete"))
+			  state.deleteRelation(Long.parseLong(r.getID()));
+		  else
+			  state.putRelation(r);                              //All relations are kept, since they may become members of transformed relations
+		  count();
+	  }
+
+
+	  private void count() {
+
+		  if (section.equals("delete"))
+			  numDeleted++;
+		  else if (section.equals("modify"))
+			  numModified++;
+		  else
+			  numCreated++;
+	  }
+
+
+	  /**
+	   * Opens the input file, decompressing it if gzipped.
+	   */
+	  private InputStream openInput() throws IOException {
+
+		  InputStream in = new BufferedInputStream(new FileInputStream(inputFile), 1 << 16);
+		  if (inputFile.toLowerCase().endsWith(".gz"))
+			  in = new GZIPInputStream(in, 1 << 16);
+		  return in;
+	  }
+
+
+	  /**
+	   * Calls a SAX parser on the input OSM change (or OSM XML) file, or Osmosis on an OSM PBF file.
+	   */
+	  public void parseDocument() throws Exception {
+
+		  if (inputFile.toLowerCase().endsWith(".pbf"))
+		  {
+			  if (!state.isInitializing())
+				  throw new IllegalArgumentException("An OSM PBF file can only be used in order to initialize the state of OSM data. Please specify an OSM change file.");
+			  OSMPbfReader reader = new OSMPbfReader(new File(inputFile), currentConfig.numDecoders);
+			  reader.setSink(this);
+			  reader.run();
+		  }
+		  else
+		  {
+			  SAXParser parser = SAXParserFactory.newInstance().newSAXParser();
+			  try (InputStream in = openInput()) {
+				  parser.parse(in, this);
+			  }
+		  }
+	  }
+
+
+	  @Override
+	  public void startElement(String s, String s1, String elementName, Attributes attributes) throws SAXException {
+
+		  switch (elementName) {
+		  case "create":
+		  case "modify":
+		  case "delete":
+			  section = elementName;
+			  break;
+		  case "node":
+			  elementType = elementName;
+			  elementId = Long.parseLong(attributes.getValue("id"));
+			  elementTags.clear();
+			  if (attributes.getValue("lon") != null)                   //Locations are not always given for deleted nodes
+			  {
+				  lon = Double.parseDouble(attributes.getValue("lon"));
+				  lat = Double.parseDouble(attributes.getValue("lat"));
+			  }
+			  break;
+		  case "way":
+			  elementType = elementName;
+			  elementId = Long.parseLong(attributes.getValue("id"));
+			  elementTags.clear();
+			  numWayNodes = 0;
+			  break;
+		  case "relation":
+			  elementType = elementName;
+			  relationTmp = new OSMRelation();
+			  relationTmp.setID(attributes.getValue("id"));
+			  break;
+		  case "nd":
+			  if (numWayNodes == wayNodes.length)
+				  wayNodes = Arrays.copyOf(wayNodes, 2 * numWayNodes);
+			  wayNodes[numWayNodes++] = Long.parseLong(attributes.getValue("ref"));
+			  break;
+		  case "member":
+			  relationTmp.addMemberReference(attributes.getValue("ref"), attributes.getValue("type"), attributes.getValue("role"));
+			  break;
+		  case "tag":
+			  if (relationTmp != null)
+				  relationTmp.setTagKeyValue(attributes.getValue("k"), myChecker.removeIllegalChars(attributes.getValue("v")));
+			  else if (elementType != null)
+				  elementTags.put(attributes.getValue("k"), myChecker.removeIllegalChars(attributes.getValue("v")));
+			  break;
+		  default:
+			  break;
+		  }
+	  }
+
+
+	  @Override
+	  public void endElement(String s, String s1, String element) throws SAXException {
+
+		  try {
+			  if (element.equals("node"))
+				  applyNode(elementId, lon, lat, elementTags);
+			  else if (element.equals("way"))
+				  applyWay(elementId, Arrays.copyOf(wayNodes, numWayNodes), elementTags);
+			  else if (element.equals("relation"))
+			  {
+				  applyRelation(relationTmp);
+				  relationTmp = null;
+			  }
+			  else
+				  return;
+		  } catch (IOException e) {
+			  throw new SAXException(e);
+		  }
+		  elementType = null;
+	  }
+
+
+	  /**
+	   * Initializes the Osmosis object.
+	   * @param metaData  Meta data applicable to this pipeline invocation.
+	   */
+	  @Override
+	  public void initialize(Map<String, Object> metaData) {
+	  }
+
+
+	  /**
+	   * Adds an OSM element (node, way, or relation) from an OSM PBF file to the state being initialized.
+	   * @param entityContainer  Container of an OSM node, way, or relation.
+	   */
+	  @Override
+	  public void process(EntityContainer entityContainer) {
+
+		  try {
+			  if (entityContainer instanceof NodeContainer) {
+				  Node myNode = ((NodeContainer) entityContainer).getEntity();
+				  applyNode(myNode.getId(), myNode.getLongitude(), myNode.getLatitude(), collectTags(myNode.getTags()));
+			  }
+			  else if (entityContainer instanceof WayContainer) {
+				  Way myWay = ((WayContainer) entityContainer).getEntity();
+				  long[] nodeIds = new long[myWay.getWayNodes().size()];
+				  int n = 0;
+				  for (WayNode entry: myWay.getWayNodes())
+					  nodeIds[n++] = entry.getNodeId();
+				  applyWay(myWay.getId(), nodeIds, collectTags(myWay.getTags()));
+			  }
+			  else if (entityContainer instanceof RelationContainer) {
+				  Relation myRelation = ((RelationContainer) entityContainer).getEntity();
+				  OSMRelation r = new OSMRelation();
+				  r.setID("" + myRelation.getId());
+				  for (Tag myTag : myRelation.getTags())
+					  r.setTagKeyValue(myTag.getKey(), myChecker.removeIllegalChars(myTag.getValue()));
+				  for (RelationMember m: myRelation.getMembers())
+					  r.addMemberReference("" + m.getMemberId(), m.getMemberType().name().toLowerCase(), m.getMemberRole());
+				  applyRelation(r);
+			  }
+		  } catch (IOException e) {
+			  state.close();         //Execution terminates, so the incomplete state is removed
+			  ExceptionHandler.abort(e, "Cannot write triples issued from the OSM file.");
+		  }
+	  }
+
+
+	  private Map<String, String> collectTags(java.util.Collection<Tag> osmTags) {
+
+		  elementTags.clear();
+		  for (Tag myTag : osmTags)
+			  elementTags.put(myTag.getKey(), myChecker.removeIllegalChars(myTag.getValue()));
+		  return elementTags;
+	  }
+
+
+	  @Override
+	  public void complete() {
+	  }
+
+
+	  @Override
+	  public void close() {
+	  }
+
+
+	  /**
+	   * Writes a SPARQL Update request that deletes and then inserts the given triples.
+	   */
+	  private static void writeUpdate(File deleteFile, File insertFile, File updateFile) throws IOException {
+
+		  try (BufferedWriter out = Files.newBufferedWriter(updateFile.toPath(), StandardCharsets.UTF_8)) {
+			  out.write("DELETE DATA {\n");
+			  copyLines(deleteFile, out);
+			  out.write("};\nINSERT DATA {\n");
+			  copyLines(insertFile, out);
+			  out.write("}\n");
+		  }
+	  }
+
+
+	  private static void copyLines(File file, Writer out) throws IOException {
+
+		  try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			  String line;
+			  while ((line = in.readLine()) != null)
+			  {
+				  out.write("  ");
+				  out.write(line);
+				  out.write('\n');
+			  }
+		  }
+	  }
+
+
+	  /**
+	   * Applies the change file according to the configuration settings.
+	   * Output files are written before the changes are committed to the state; if the process fails, applying the same change file again issues the same triples.
+	   */
+	  public void apply() {
+
+		  if (!currentConfig.mode.contains("STREAM"))
+		  {
+			  System.out.println("Mode " + currentConfig.mode + " is currently not supported against OSM change files. Triples are issued in STREAM mode.");
+		  }
+
+		  String base = currentConfig.outputDir + FilenameUtils.getBaseName(outputFile);
+		  boolean sparql = currentConfig.osmChangeOutput.equalsIgnoreCase("SPARQL");
+		  File deleteFile = new File(base + (sparql ? "_delete.tmp" : "_delete.nt"));
+		  File insertFile = new File(base + (sparql ? "_insert.tmp" : "_insert.nt"));
+		  String resultFile = sparql ? base + ".ru" : insertFile.getPath();
+
+		  synchronized (LOCK) {
+			  long start = System.currentTimeMillis();
+			  try {
+				  state = OSMChangeState.open(new File(currentConfig.osmStateDir));
+				  try (Writer d = Files.newBufferedWriter(deleteFile.toPath(), StandardCharsets.UTF_8);
+					   Writer i = Files.newBufferedWriter(insertFile.toPath(), StandardCharsets.UTF_8)) {
+					  deleted = d;
+					  inserted = i;
+
+					  parseDocument();
+
+					  //Triples of changed elements are issued again; once initialized, triples of all relations are issued, since their members may follow them in the input
+					  List<String> keys = state.isInitializing() ? state.getRelations() : state.getChangedElements();
+					  System.out.println(myAssistant.getGMTime() + " Applied " + (numCreated + numModified + numDeleted) + " changes; issuing triples of " + keys.size() + " affected OSM elements...");
+					  for (String key: keys)
+						  update(key);
+				  }
+
+				  if (sparql)
+				  {
+					  writeUpdate(deleteFile, insertFile, new File(resultFile));
+					  Files.delete(deleteFile.toPath());
+					  Files.delete(insertFile.toPath());
+				  }
+				  state.commit();
+
+				  Map<String, Object> stats = new LinkedHashMap<String, Object>();
+				  stats.put("Created OSM elements", numCreated);
+				  stats.put("Modified OSM elements", numModified);
+				  stats.put("Deleted OSM elements", numDeleted);
+				  stats.put("Deleted triples", numDeletedTriples);
+				  stats.put("Inserted triples", numInsertedTriples);
+				  stats.putAll(state.getStatistics());
+				  myAssistant.addStatistics("OSM Change Statistics", stats);
+			  } catch (Exception e) {
+				  //Execution terminates, so any changes not yet committed must be discarded here
+				  if (state != null)
+				  {
+					  state.rollback();
+					  state.close();
+				  }
+				  ExceptionHandler.abort(e, "Cannot apply OSM change file " + inputFile + ". Changes to the state of OSM data have been rolled back.");
+			  }
+			  finally {
+				  if (state != null)
+					  state.close();
+			  }
+
+			  List<String> files = new ArrayList<String>();
+			  if (sparql)
+				  files.add(resultFile);
+			  else
+			  {
+				  files.add(deleteFile.getPath());
+				  files.add(insertFile.getPath());
+			  }
+			  System.out.println(myAssistant.getGMTime() + " " + numDeletedTriples + " triples to be deleted and " + numInsertedTriples + " triples to be inserted written into " + files + ".");
+			  myAssistant.reportStatistics(System.currentTimeMillis() - start, numTransformed + numRejected, numRejected, numInsertedTriples, "N-TRIPLES", myGenerator.getStatistics(), myGenerator.getMBR(), currentConfig.mode, currentConfig.targetCRS, resultFile, 0);
+		  }
+	  }
+
+}
@@ -19,19 +19,13 @@
 package eu.slipo.athenarc.triplegeo.tools;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.io.FilenameUtils;
-import org.geotools.factory.Hints;
-import org.geotools.referencing.CRS;
-import org.geotools.referencing.ReferencingFactoryFinder;
-import org.opengis.referencing.crs.CRSAuthorityFactory;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
@@ -48,22 +42,22 @@ import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
-import com.vividsolutions.jts.geom.LineString;
-import com.vividsolutions.jts.geom.LinearRing;
-import com.vividsolutions.jts.geom.Point;
-import com.vividsolutions.jts.geom.Polygon;
 import com.vividsolutions.jts.geom.PrecisionModel;
 import com.vividsolutions.jts.io.WKTReader;
 
-import crosby.binary.osmosis.OsmosisReader;
 import eu.slipo.athenarc.triplegeo.osm.OSMClassification;
-import eu.slipo.athenarc.triplegeo.osm.OSMDiskIndex;
-import eu.slipo.athenarc.triplegeo.osm.OSMMemoryIndex;
 import eu.slipo.athenarc.triplegeo.osm.OSMNode;
+import eu.slipo.athenarc.triplegeo.osm.OSMNodeStore;
+import eu.slipo.athenarc.triplegeo.osm.OSMPbfReader;
+import eu.slipo.athenarc.triplegeo.osm.OSMPersistentIndex;
 import eu.slipo.athenarc.triplegeo.osm.OSMRecord;
 import eu.slipo.athenarc.triplegeo.osm.OSMRecordBuilder;
 import eu.slipo.athenarc.triplegeo.osm.OSMRelation;
+import eu.slipo.athenarc.triplegeo.osm.OSMRelationAssembler;
+import eu.slipo.athenarc.triplegeo.osm.OSMRelationGraph;
+import eu.slipo.athenarc.triplegeo.osm.OSMTagProjection;
 import eu.slipo.athenarc.triplegeo.osm.OSMWay;
+import eu.slipo.athenarc.triplegeo.osm.OSMWaySpill;
 import eu.slipo.athenarc.triplegeo.utils.Assistant;
 import eu.slipo.athenarc.triplegeo.utils.Classification;
 import eu.slipo.athenarc.triplegeo.utils.Configuration;
@@ -73,6 +67,7 @@ import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
 import eu.slipo.athenarc.triplegeo.utils.GraphConverter;
 import eu.slipo.athenarc.triplegeo.utils.StreamConverter;
 import eu.slipo.athenarc.triplegeo.utils.ValueChecker;
+import eu.slipo.athenarc.triplegeo.utils.TransformRegistry;
 
 /**
  * Entry point to convert OpenStreetMap (OSM) PBF (compressed) files into RDF triples using Osmosis.
@@ -89,7 +84,19 @@ import eu.slipo.athenarc.triplegeo.utils.ValueChecker;
  * Modified: 27/9/2018; excluded creation of linear ring geometries for roads and barriers; polygons are created instead
  * Modified; 24/10/2018; allowing transformation to proceed even in case that no filters (using OSM tags) have been specified; no classification scheme will be used in this case.
  * Modified; 5/12/2019; allowing extraction of unnamed entities; also enabling control whether to transform closed linear rings into polygons
- * Last modified by: Kostas Patroumpas, 5/12/2019
+ * Modified: 16/10/2026; CRS transformation obtained from a registry shared by all converters
+ * Modified: 16/10/2026; locations of referenced OSM nodes kept in a store keyed by their numeric identifiers
+ * Modified: 16/10/2026; blocks of the PBF file decompressed and decoded concurrently by a pool of threads
+ * Modified: 16/10/2026; at most two passes over the PBF file; references collected in a single preliminary pass in reverse order, with nested relations resolved from a membership graph
+ * Modified: 16/10/2026; references to OSM ways and relations tracked in compact sets of identifiers
+ * Modified: 16/10/2026; tags and geometries of OSM nodes only collected if any of their tags is specified in the OSM filters
+ * Modified: 16/10/2026; geometries of OSM ways created from node locations copied into packed coordinate sequences
+ * Modified: 16/10/2026; optional persistent index over the input file, which is reused across transformations in order to skip the preliminary pass
+ * Modified: 16/10/2026; indices over referenced OSM elements kept within a memory budget; their hit rates included in the metadata
+ * Modified: 16/10/2026; geometries of OSM relations assembled by concurrent threads, nested relations after those they contain
+ * Modified: 16/10/2026; preliminary pass stopped at the nodes only if the PBF file is declared sorted; otherwise, relations and ways are scanned in a single pass over the entire file, with nodes of ways spilled to disk
+ * Modified: 16/10/2026; only tags referenced in the mapping, the OSM filters, the thematic filter, or the SLIPO Registry are collected, with keys and frequent values interned
+ * Last modified by: Kostas Patroumpas, 16/10/2026
  */
 public class OsmPbfToRdf implements Sink {
 
@@ -106,14 +113,10 @@ public class OsmPbfToRdf implements Sink {
 	  private boolean keepUnnamed = true;   		//Controls whether unnamed entities will be transformed
 	  private boolean closedRings2Polygons = false;	//Controls whether closed rings (i.e., first vertex coincides with the last) will be converted to polygons
 	  
-	  OsmosisReader reader;                 //Osmosis reader for parsing the OSM PBF file
+	  OSMPbfReader reader;                  //Reader for parsing the OSM PBF file with concurrent decoding of its blocks
 	  
 	  Classification classification = null; //Classification hierarchy for assigning categories to features
 	  
-	  //Initialize a CRS factory for possible reprojections
-	  private static final CRSAuthorityFactory crsFactory = ReferencingFactoryFinder
-		       .getCRSAuthorityFactory("EPSG", new Hints(Hints.FORCE_LONGITUDE_FIRST_AXIS_ORDER, Boolean.TRUE));
-	  
 	  long numNodes;
 	  long numWays;
 	  long numRelations;
@@ -128,14 +131,18 @@ public class OsmPbfToRdf implements Sink {
 	  private OSMRelation relationTmp;                     //the current OSM relation object
 	    
 	  private Set<String> tags;                            //OSM tags used in the filters
+	  private OSMTagProjection projection;                 //Determines which tags of OSM elements are collected, and interns their keys and frequent values
 
 	  private boolean inWay = false;                       //when parser is in a way node becomes true in order to track the parser position 
 	  private boolean inNode = false;                      //becomes true when the parser is in a simple node        
 	  private boolean inRelation = false;                  //becomes true when the parser is in a relation node
 	  
-	  private boolean scanWays = true;                     //Activates preliminary scanning of OSM ways in order to create index structures required during parsing
-	  private boolean scanRelations = true;                //Activates preliminary scanning of OSM relations in order to create index structures required during parsing
-	  private boolean rescanRelations = false;             //Activates an auxiliary scan of OSM relations that may be referenced by other relations
+	  private boolean scan = false;                        //Activates the preliminary pass that collects references to OSM elements in order to create index structures required during parsing
+	  private OSMRelationGraph relationGraph;              //Memberships in OSM relations collected during the preliminary pass
+	  private boolean sorted = true;                       //True, if the PBF file declares its elements sorted by type and identifier, i.e., nodes before ways before relations
+	  private OSMWaySpill spill;                           //In an unsorted file, nodes of OSM ways not filtered, kept during the preliminary pass until it is known whether these ways are referenced by relations
+	  private OSMPersistentIndex persistentIndex = null;   //Index over the input file reused across transformations, if specified in the configuration
+	  private OSMRelationAssembler relationAssembler;      //Creates records of OSM relations concurrently, handing them over in the order of the file
 	  private boolean keepIndexed = false;                 //Determines whether to index references of a given OSM element based on its tags; discarded if none of its tags matches with the user-specified OSM filters 
 
 	  /**
@@ -161,6 +168,7 @@ public class OsmPbfToRdf implements Sink {
 	    	  OSMClassification osmClassific = new OSMClassification(config.classificationSpec, currentConfig.outputDir);
 	    	  String classFile = osmClassific.apply();
 	    	  tags = osmClassific.getTags();
+	    	  projection = new OSMTagProjection(currentConfig, tags, myAssistant);     //Only tags referenced in the mapping, the filters, or the SLIPO Registry will be collected
 
 		      //Instantiate a record builder to be used in handling each OSM record
 		      recBuilder = new OSMRecordBuilder(osmClassific.getFilters());
@@ -181,10 +189,7 @@ public class OsmPbfToRdf implements Sink {
 	      if (currentConfig.targetCRS != null)
 	      {
 	  	    try {
-	  	        boolean lenient = true; // allow for some error due to different datums
-	  	        CoordinateReferenceSystem sourceCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.sourceCRS);
-	  	        CoordinateReferenceSystem targetCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.targetCRS);    
-	  	        reproject = CRS.findMathTransform(sourceCRS, targetCRS, lenient);
+	  	        reproject = TransformRegistry.getTransform(currentConfig.sourceCRS, currentConfig.targetCRS);
 	  	        
 	  	        //Needed for parsing original geometry in WTK representation
 	  	        GeometryFactory geomFactory = new GeometryFactory(new PrecisionModel(), sourceSRID);
@@ -208,86 +213,90 @@ public class OsmPbfToRdf implements Sink {
 	   */
 	  public void parseDocument() {
 		  
-		    //Depending of input file size, determine if indices will be kept in-memory of will be disk-based
-	    	File inFile = new File(inputFile);
-	    	if (inFile.length() < 0.02 * Runtime.getRuntime().maxMemory() ) {          //CAUTION! Rule of thumb: Input PBF file size is less than 5% of the JVM heap size, so memory is expected to be sufficient for indexing OSM elements    
-	    		//OPTION #1: Memory-based native Java structures for indexing
-	    		recBuilder.nodeIndex = new OSMMemoryIndex(); 
-	    		recBuilder.wayIndex = new OSMMemoryIndex();
-	    		recBuilder.relationIndex = new OSMMemoryIndex();
-		        System.out.println("Building in-memory indices over OSM elements...");
-	    	}
-	    	else {                                               //For larger OSM files, resort to disk-based indexing of their referenced elements
-	    		//OPTION #2: Disk-based structures for indexing
-	    		recBuilder.nodeIndex = new OSMDiskIndex(currentConfig.tmpDir, "nodeIndex");
-	    		recBuilder.wayIndex = new OSMDiskIndex(currentConfig.tmpDir, "wayIndex");
-	    		recBuilder.relationIndex = new OSMDiskIndex(currentConfig.tmpDir, "relationIndex");
-		        System.out.println("Building disk-based indices over OSM elements...");
-	    	}
+		    //References to OSM elements are tracked in compact sets of identifiers; indices over geometries of referenced ways and relations are created once their number is known
+	    	recBuilder.nodeStore = new OSMNodeStore(currentConfig.tmpDir);     //Locations of nodes are kept in a compact store, either in memory or memory-mapped
 	    	
 	    	//This list will hold OSM relations that depend on other relations, so these must be checked once the entire OSM file is exhausted.
 	    	recBuilder.incompleteRelations = new ArrayList<>();
+	    	
+	    	//Relations are assembled by as many threads as the concurrent workers, and handed over in the order of the file to the converter, whose workers generate their triples concurrently
+	    	relationAssembler = new OSMRelationAssembler(recBuilder, currentConfig.numWorkers, Math.max(currentConfig.batch_size, Constants.PIPELINE_BATCH_SIZE), (r, rec, transform) -> {
+	    		if ((rec != null) && (transform))           //No records created for incomplete relations during the first pass
+	    			transformRelation(r, rec);
+	    	});
  
 	    	try { 
-	        	//Preliminary INDEXING phase: first scan of OSM relations to build the required index structures
-	        	scanRelations = true;
-	        	scanWays = false;
-	        	System.out.println("Scanning OSM relations to identify indexed OSM elements...");
-	        	parse();    //Call Osmosis parser to identify OSM elements
-	        	System.out.println("Indexed " + recBuilder.nodeIndex.size() + " nodes, " + recBuilder.wayIndex.size() + " ways, and " + recBuilder.relationIndex.size() + " relations.");
-	            
-	        	if (rescanRelations) {
-		            //Preliminary INDEXING phase: second scan of OSM relations to build the required index structures, since relations may refer to other relations
-		        	scanRelations = true;
-		        	scanWays = false;
-		        	System.out.println("Second scan of OSM relations to identify other referenced OSM relations...");
-		        	parse();    //Call Osmosis parser to identify OSM elements
-		        	System.out.println("Indexed " + recBuilder.nodeIndex.size() + " nodes, " + recBuilder.wayIndex.size() + " ways, and " + recBuilder.relationIndex.size() + " relations.");
-	        	}
-	        	
-	            //Preliminary INDEXING phase: only scan OSM ways to build the required index structures
-	        	scanWays = true;
-	        	scanRelations = false;
-	        	System.out.println("Scanning OSM ways to identify indexed OSM elements...");
-	        	parse();    //Call Osmosis parser to identify OSM elements
-	        	System.out.println("Indexed " + recBuilder.nodeIndex.size() + " nodes, " + recBuilder.wayIndex.size() + " ways, and " + recBuilder.relationIndex.size() + " relations.");
+	    		if (currentConfig.osmIndexDir != null) {
+	    			//A persistent index (built once per input file) provides node locations and node lists of referenced ways, so no preliminary pass is needed
+	    			persistentIndex = OSMPersistentIndex.obtain(new File(inputFile), currentConfig.osmIndexDir, currentConfig.numDecoders);
+	    			recBuilder.nodeStore = persistentIndex.getNodeStore();
+	    			recBuilder.referencedRelations = persistentIndex.getReferencedRelations();
+	    			recBuilder.createIndices(currentConfig.tmpDir, currentConfig.osmIndexBudget);
+	    			recBuilder.wayIndex = persistentIndex.getWayIndex(geometryFactory, closedRings2Polygons);     //Geometries of referenced ways created on demand
+	    			scan = false;
+	    			System.out.println("Pass 1 of 1: Starting parsing of all OSM elements...");
+	    			long start = System.currentTimeMillis();
+	    			parse(false);
+	    			System.out.println("Pass 1 of 1 completed in " + (System.currentTimeMillis() - start) + " ms.");
+	    		}
+	    		else {
+		        	//Preliminary INDEXING phase: a single pass in reverse order, i.e., relations, then ways; it stops once the nodes are reached
+		        	scan = true;
+		        	relationGraph = new OSMRelationGraph();
+		        	System.out.println("Pass 1 of 2: Scanning OSM relations and ways to identify indexed OSM elements...");
+		        	long start = System.currentTimeMillis();
+		        	sorted = OSMPbfReader.isSorted(new File(inputFile));
+		        	if (sorted)
+		        		parse(true);    //Call parser to identify OSM elements
+		        	else {
+		        		//Nodes, ways, and relations may be interleaved, so the entire file is scanned once; nodes of ways not filtered are spilled to disk until relations are resolved
+		        		System.out.println("PBF file is not declared sorted by type and identifier of its elements. Scanning OSM relations and ways over the entire file...");
+		        		try (OSMWaySpill s = new OSMWaySpill(currentConfig.tmpDir)) {
+		        			spill = s;
+		        			parse(false);
+		        			resolveRelations();
+		        			referenceSpilledWays();
+		        		}
+		        		spill = null;
+		        	}
+		        	resolveRelations();                 //In case that the file contains no ways
+		        	relationGraph = null;
+		        	System.out.println("Pass 1 of 2 completed in " + (System.currentTimeMillis() - start) + " ms. Indexed " + recBuilder.nodeStore.size() + " nodes, " + recBuilder.referencedWays.size() + " ways, and " + recBuilder.referencedRelations.size() + " relations.");
 	            
-	            //PARSING phase: Take advantage of precomputed indices when parsing
-	            scanRelations = false;
-	            scanWays = false;
-	            System.out.println("Starting parsing of all OSM elements...");	  
-	            parse();    //Call Osmosis parser to identify OSM elements
+		            //PARSING phase: Take advantage of precomputed indices when parsing; no more nodes will be referenced
+		            recBuilder.createIndices(currentConfig.tmpDir, currentConfig.osmIndexBudget);
+		            recBuilder.nodeStore.seal();
+		            scan = false;
+		            System.out.println("Pass 2 of 2: Starting parsing of all OSM elements...");	  
+		            start = System.currentTimeMillis();
+		            parse(false);    //Elements must be delivered in the order of the file, i.e., nodes before ways before relations
+		            System.out.println("Pass 2 of 2 completed in " + (System.currentTimeMillis() - start) + " ms.");
+	    		}
 		        
-	            //Second pass over incomplete OSM relations, once the entire XML file has been parsed
-	            for (Iterator<OSMRelation> iterator = recBuilder.incompleteRelations.iterator(); iterator.hasNext(); )
-	            {
-	            	OSMRelation r = iterator.next();
-//	            	System.out.print("Re-examining OSM relation " + r.getID() + "...");
-	            	OSMRecord rec = recBuilder.createOSMRecord(r);
+	            relationAssembler.close();
+	            
+	            //Second pass over incomplete OSM relations, once the entire file has been parsed; relations contained in others are assembled first
+	            relationAssembler = new OSMRelationAssembler(recBuilder, currentConfig.numWorkers, Math.max(currentConfig.batch_size, Constants.PIPELINE_BATCH_SIZE), (r, rec, transform) -> {
 	            	if (rec != null)                    //Incomplete relations are accepted in this second pass, consisting of their recognized parts   
 	            	{
-	            		if (keepUnnamed)
-	            			myConverter.parse(rec, classification, reproject, targetSRID);
-	            		else if (r.getTagKeyValue().containsKey("name")) {  //CAUTION: Only named entities will be transformed
-	            			myConverter.parse(rec, classification, reproject, targetSRID);
-	            			numNamedEntities++;
-	            		}
-	            		//Keep this relation geometry in the dictionary, just in case it might be referenced by other OSM relations
-	            		if (recBuilder.relationIndex.containsKey(r.getID().substring(1, r.getID().length()-1)))
-	            			recBuilder.relationIndex.put(r.getID().substring(1, r.getID().length()-1), rec.getGeometry());    
+	            		transformRelation(r, rec);
 	            		numRelations++;
-	            		iterator.remove();                                  //This OSM relation should not be examined again
-//	            		System.out.println("Done!");
 	            	} 
 	            	else
 	            		System.out.println(" Transformation failed!");
-	            }
+	            });
+	            for (OSMRelation r: recBuilder.incompleteRelations)
+	            	relationAssembler.add(r, true);
+	            relationAssembler.close();
+	            recBuilder.incompleteRelations.clear();                 //These OSM relations should not be examined again
 	            
 	            if (inRelation)
 	            	System.out.println("\nFinished parsing OSM relations.");
-	            recBuilder.nodeIndex.clear();											//Discard index over OSM nodes			
-	            recBuilder.wayIndex.clear();                                      		//Discard index over OSM ways
-	            recBuilder.relationIndex.clear();                                       //Discard index over OSM relations	
+	            myAssistant.addStatistics("OSM Index Statistics", recBuilder.getIndexStatistics());    //Hit rates of indices over referenced OSM ways and relations
+	            myAssistant.addStatistics("OSM Tag Statistics", projection.getStatistics());           //Tags collected or discarded according to the mapping
+	            recBuilder.clearIndices();											//Discard locations of OSM nodes, indices and references over OSM ways and relations
+	            if (persistentIndex != null)
+	            	persistentIndex.close();                                        //Files of the persistent index are kept for subsequent transformations
 	    	} 
 	    	catch (Exception e) {
 	    		ExceptionHandler.abort(e, "Cannot parse input file.");
@@ -295,22 +304,51 @@ public class OsmPbfToRdf implements Sink {
 	  }
 	
 	  /**
-	   * Instantiates and calls an Osmosis parser to identify OSM elements.
+	   * Instantiates and calls a parser to identify OSM elements; blocks of the PBF file are decoded concurrently, but OSM elements are processed in the order of the file.
+	   * @param reverse  True, if the file will be read in reverse order, i.e., relations before ways before nodes.
 	   */
-	  private void parse() {
-		    //Initialize Osmosis parser for the input OSM PBF file
-	        try {			 
-	    	    InputStream inputStream = new FileInputStream(inputFile);   
-	    	    reader = new OsmosisReader(inputStream);
-			    reader.setSink(this);
-	        } catch (Exception e) {
-	    	    ExceptionHandler.abort(e, "Cannot intitialize Osmosis parser for the OSM PBF file.");
-	        }
-      	
-	        reader.run();     //Call Osmosis parser to identify OSM elements
+	  private void parse(boolean reverse) {
+		    //Initialize parser for the input OSM PBF file
+		    reader = new OSMPbfReader(new File(inputFile), currentConfig.numDecoders);
+		    reader.setReverse(reverse);
+		    reader.setSink(this);
+
+	        reader.run();     //Call parser to identify OSM elements
+	        System.out.println("Decoded " + reader.getNumBlocks() + " blocks of the PBF file using " + currentConfig.numDecoders + " threads.");
 	  }
 	  
 	  
+	  /**
+	   * Marks the nodes of all spilled OSM ways that are referenced by relations.
+	   */
+	  private void referenceSpilledWays() throws IOException {
+
+		  spill.replay(recBuilder.referencedWays::contains, (wayId, nodeIds, n) -> {
+			  for (int i = 0; i < n; i++)
+				  recBuilder.nodeStore.reference(nodeIds[i]);
+		  });
+	  }
+
+
+	  /**
+	   * Resolves the memberships in OSM relations collected so far in the preliminary pass, so that all members of filtered relations (and of any relations nested in them) will be indexed.
+	   */
+	  private void resolveRelations() {
+
+		  if (relationGraph.isResolved())
+			  return;
+		  int n = relationGraph.resolve((type, id) -> {
+			  if (type == OSMRelationGraph.NODE)
+				  recBuilder.nodeStore.reference(id);                     //This node is referenced by a relation; keep it in the store, and its location will be filled in when parsing the nodes
+			  else if (type == OSMRelationGraph.WAY)
+				  recBuilder.referencedWays.add(id);                      //This way is referenced by a relation; its geometry will be indexed when parsing the ways
+			  else
+				  recBuilder.referencedRelations.add(id);                 //This relation is referenced by another relation; its geometry will be indexed when parsing the relations
+		  });
+		  System.out.println("Identified " + n + " OSM relations to be indexed.");
+	  }
+
+
 	  /**
 	   * Initializes the Osmosis object. 
 	   * @param metaData  Meta data applicable to this pipeline invocation.
@@ -330,7 +368,13 @@ public class OsmPbfToRdf implements Sink {
 	    	
 	    	keepIndexed = false;                  //Will become true only if a tag related to user-specified filters is found for the current OSM element
 	    	
-	        if ((!scanWays) && (!scanRelations) && (entityContainer instanceof NodeContainer)) {          			//Create a new OSM node object and populate it with the appropriate values
+	    	if ((scan) && (entityContainer instanceof NodeContainer)) {             //The preliminary pass reads a sorted file in reverse order, so it is complete once the nodes are reached
+	    		if (sorted)
+	    			reader.stop();
+	    		return;
+	    	}
+	    	
+	        if (entityContainer instanceof NodeContainer) {          			//Create a new OSM node object and populate it with the appropriate values
 
                 //Mark position of the parser
 	        	inNode = true; 
@@ -340,24 +384,30 @@ public class OsmPbfToRdf implements Sink {
 
 	        	Node myNode = ((NodeContainer) entityContainer).getEntity();
 	        	
-	            nodeTmp = new OSMNode();
-	            nodeTmp.setID("" + myNode.getId());
-
-	            //Collect tags associated with this OSM element
-	            for (Tag myTag : myNode.getTags()) {
-	            	nodeTmp.setTagKeyValue( myTag.getKey(), myChecker.removeIllegalChars(myTag.getValue()));
+	        	for (Tag myTag : myNode.getTags()) {
 	        		if ((tags == null) || (tags.contains(myTag.getKey())))  {     		//CAUTION! Filter out any OSM elements not related to tags specified by the user
 	        			keepIndexed = true;                                             //In case of no tags specified for filtering, index all nodes
+	        			break;
 	        		}
-	            }
-	            
-	            //Create geometry object with original WGS84 coordinates
-	            Geometry geom = geometryFactory.createPoint(new Coordinate(myNode.getLongitude(), myNode.getLatitude()));
-	            nodeTmp.setGeometry(geom);
+	        	}
 
-	            //Convert entity
+	            //Convert entity; tags and geometry are only collected for nodes not filtered out
 	            if (keepIndexed)
 	            {
+	            	nodeTmp = new OSMNode();
+	            	nodeTmp.setID("" + myNode.getId());
+
+	            	//Collect tags associated with this OSM element
+	            	for (Tag myTag : myNode.getTags()) {
+	            		String key = projection.key(myTag.getKey());
+	            		if (key != null)
+	            			nodeTmp.setTagKeyValue(key, projection.value(key, myChecker.removeIllegalChars(myTag.getValue())));
+	            	}
+
+	            	//Create geometry object with original WGS84 coordinates
+	            	Geometry geom = geometryFactory.createPoint(new Coordinate(myNode.getLongitude(), myNode.getLatitude()));
+	            	nodeTmp.setGeometry(geom);
+
 	            	if (keepUnnamed)
 	            		myConverter.parse(recBuilder.createOSMRecord(nodeTmp), classification, reproject, targetSRID);
 	            	else if (nodeTmp.getTagKeyValue().containsKey("name"))  {  //CUATION! Only named entities will be transformed
@@ -366,12 +416,11 @@ public class OsmPbfToRdf implements Sink {
 	            	}
 	            }
 	            
-	            if (recBuilder.nodeIndex.containsKey(nodeTmp.getID()))
-	            	recBuilder.nodeIndex.put(nodeTmp.getID(), nodeTmp.getGeometry());         //Keep a dictionary of node geometries, only if referenced by OSM ways
+	            recBuilder.nodeStore.put(myNode.getId(), myNode.getLongitude(), myNode.getLatitude());         //Keep node locations, only if referenced by OSM ways or relations
 
 	            nodeTmp = null;
 	            
-	        } else if ((!scanRelations) && (entityContainer instanceof WayContainer)) {       //Create a new OSM way object and populate it with the appropriate values
+	        } else if (entityContainer instanceof WayContainer) {       //Create a new OSM way object and populate it with the appropriate values
 
 	        	Way myWay = ((WayContainer) entityContainer).getEntity();    
 	              		 
@@ -382,13 +431,24 @@ public class OsmPbfToRdf implements Sink {
 	        		}
 	        	}
        		 
-	        	if (scanWays)  {	
+	        	if (scan)  {	
+	        		if (sorted)
+	        			resolveRelations();             //All relations have been scanned before the ways
 	        		//Either this OSM way is filtered or referenced by a relation, so its nodes should be kept in the index
-	        		if ((keepIndexed) || (recBuilder.wayIndex.containsKey("" + myWay.getId()))) {                                 
+	        		if ((keepIndexed) || ((sorted) && (recBuilder.referencedWays.contains(myWay.getId())))) {                                 
 		        		for (WayNode entry: myWay.getWayNodes()) {
-		        			recBuilder.nodeIndex.put("" + entry.getNodeId(), null);          //...initially with NULL geometry, to be replaced once nodes will be parsed
+		        			recBuilder.nodeStore.reference(entry.getNodeId());          //...initially without location, to be filled in once nodes will be parsed
 		        		}
 	        		}
+	        		else if (!sorted) {             //Relations may follow, so it is not yet known whether this way is referenced
+	        			try {
+	        				spill.startWay(myWay.getId(), myWay.getWayNodes().size());
+	        				for (WayNode entry: myWay.getWayNodes())
+	        					spill.addNode(entry.getNodeId());
+	        			} catch (IOException e) {
+	        				ExceptionHandler.abort(e, "Cannot keep nodes of OSM way " + myWay.getId() + " in a temporary file.");
+	        			}
+	        		}
 	        	}
 	        	else {                      //Parsing of this OSM way
 	
@@ -402,7 +462,7 @@ public class OsmPbfToRdf implements Sink {
 		            numWays++;
 		        	
 	        		//Skip parsing if this way is filtered out or not referenced by other relations
-	        		if ((!keepIndexed) && (!recBuilder.wayIndex.containsKey("" + myWay.getId())))
+	        		if ((!keepIndexed) && (!recBuilder.referencedWays.contains(myWay.getId())))
 	        			 return;
 
 		            wayTmp = new OSMWay();
@@ -410,55 +470,20 @@ public class OsmPbfToRdf implements Sink {
 	
 		            //Collect tags associated with this OSM element
 		            for (Tag myTag : myWay.getTags()) {
-		            	wayTmp.setTagKeyValue( myTag.getKey(), myChecker.removeIllegalChars(myTag.getValue()));
+		            	String key = projection.key(myTag.getKey());
+		            	if (key != null)
+		            		wayTmp.setTagKeyValue(key, projection.value(key, myChecker.removeIllegalChars(myTag.getValue())));
 		            }
 		            
+		            //Copy node locations directly into a buffer of coordinates of this way
+		            wayTmp.reserveNodeLocations(myWay.getWayNodes().size());
 		            for (WayNode entry: myWay.getWayNodes()) {
-		            	if (recBuilder.nodeIndex.containsKey("" + entry.getNodeId()))
-		            	{
-		            		Geometry geometry = recBuilder.nodeIndex.get("" + entry.getNodeId());     //get the geometry of the node with ID=entry
-		            		wayTmp.addNodeGeometry(geometry);                                         //add the node geometry in this way  
-		            	}
-		            	else
+		            	if (!wayTmp.addNodeLocation(recBuilder.nodeStore, entry.getNodeId()))          //get the location of the node with ID=entry
 		            		System.out.println("Missing node " + entry.getNodeId() + " in referencing way " + wayTmp.getID());
 		            }
-		            Geometry geom = geometryFactory.buildGeometry(wayTmp.getNodeGeometries());
 		            
-		            //Check if the beginning and ending node are the same and the number of nodes are more than 3. 
-		            //These nodes must be more than 3, because JTS does not allow construction of a linear ring with less than 3 points
-		            if ((closedRings2Polygons) && (wayTmp.getNodeGeometries().size() > 3) && wayTmp.getNodeGeometries().get(0).equals(wayTmp.getNodeGeometries().get(wayTmp.getNodeGeometries().size()-1)))
-		            {
-		               //Always construct a polygon when a linear ring is detected
-		               LinearRing linear = geometryFactory.createLinearRing(geom.getCoordinates());
-		               Polygon poly = new Polygon(linear, null, geometryFactory);
-		               wayTmp.setGeometry(poly);  
-		            	
-		               /*************************************************
-		               //OPTION NOT USED: Construct a linear ring geometry when this feature is either a barrier or a road
-		               if (!((wayTmp.getTagKeyValue().containsKey("barrier")) || wayTmp.getTagKeyValue().containsKey("highway"))){
-		            	   //this is not a barrier nor a road, so construct a polygon geometry
-		               
-		            	   LinearRing linear = geometryFactory.createLinearRing(geom.getCoordinates());
-		            	   Polygon poly = new Polygon(linear, null, geometryFactory);
-		            	   wayTmp.setGeometry(poly);               
-		               }
-		               else {    //it is either a barrier or a road, so construct a linear ring geometry 
-		                  LinearRing linear = geometryFactory.createLinearRing(geom.getCoordinates());
-		                  wayTmp.setGeometry(linear);  
-		               }
-		               **************************************************/
-		            }
-		            else if (wayTmp.getNodeGeometries().size() > 1) {
-		            //it is an open geometry with more than one nodes, make it linestring 
-		                
-		                LineString lineString =  geometryFactory.createLineString(geom.getCoordinates());
-		                wayTmp.setGeometry(lineString);               
-		            }
-		            else {      //we assume that any other geometries are points
-		                        //some ways happen to have only one point. Construct a Point.
-		                Point point = geometryFactory.createPoint(geom.getCoordinate());
-		                wayTmp.setGeometry(point);
-		            }
+		            //Create a polygon, linestring, or point with a packed coordinate sequence
+		            wayTmp.setGeometry(wayTmp.buildGeometry(geometryFactory, closedRings2Polygons));
 		            
 		            //Convert this entity
 		            if (keepIndexed)  
@@ -471,12 +496,12 @@ public class OsmPbfToRdf implements Sink {
 		            	}
 		            }
 		            
-		            if (recBuilder.wayIndex.containsKey(wayTmp.getID()))
+		            if (recBuilder.referencedWays.contains(myWay.getId()))
 		            	recBuilder.wayIndex.put(wayTmp.getID(), wayTmp.getGeometry());          //Keep a dictionary of way geometries, only for those referenced by OSM relations
 
 		            wayTmp = null;
 	        	}
-	        } else if ((!scanWays) && (entityContainer instanceof RelationContainer)) {               //Create a new OSM relation object and populate it with the appropriate values
+	        } else if (entityContainer instanceof RelationContainer) {               //Create a new OSM relation object and populate it with the appropriate values
 	        	
 	        	 Relation myRelation = ((RelationContainer) entityContainer).getEntity();    
 	        	 
@@ -487,20 +512,19 @@ public class OsmPbfToRdf implements Sink {
         			 }
         		 }
         		 
-	        	 if (scanRelations) {	        		 
-	        		 //Either only filtered relations will be indexed or those referenced by other relations
-	        		 if ((keepIndexed) || (recBuilder.relationIndex.containsKey("" + myRelation.getId()))) {    
-		        		 for (RelationMember m: myRelation.getMembers()) {
-		        			 if (m.getMemberType().name().equalsIgnoreCase("node"))
-		        				 recBuilder.nodeIndex.put("" + m.getMemberId(), null);          //This node is referenced by a relation; keep it in the index, and its geometry will be filled in when parsing the nodes
-		        			 else if (m.getMemberType().name().equalsIgnoreCase("way"))
-		        				 recBuilder.wayIndex.put("" + m.getMemberId(), null);                    //This way is referenced by a relation; keep it in the index, and its geometry will be filled in when parsing the ways	
-		        			 else if (m.getMemberType().name().equalsIgnoreCase("relation")) {
-		        				 recBuilder.relationIndex.put("" + m.getMemberId(), null);               //This relation is referenced by another relation; keep it in the index, and its geometry will be filled in when parsing the relations
-		        				 rescanRelations = true;                                                 //Relations need to be scanned once more, as they reference other relations
-		        			 }
-		        		 }
+	        	 if (scan) {	        		 
+	        		 //Keep the members of every relation in the graph, since it may be referenced by a filtered relation; only filtered relations and those referenced by them will be indexed
+	        		 long[] members = new long[myRelation.getMembers().size()];
+	        		 int n = 0;
+	        		 for (RelationMember m: myRelation.getMembers()) {
+	        			 if (m.getMemberType().name().equalsIgnoreCase("node"))
+	        				 members[n++] = OSMRelationGraph.member(OSMRelationGraph.NODE, m.getMemberId());
+	        			 else if (m.getMemberType().name().equalsIgnoreCase("way"))
+	        				 members[n++] = OSMRelationGraph.member(OSMRelationGraph.WAY, m.getMemberId());
+	        			 else if (m.getMemberType().name().equalsIgnoreCase("relation"))
+	        				 members[n++] = OSMRelationGraph.member(OSMRelationGraph.RELATION, m.getMemberId());
 	        		 }
+	        		 relationGraph.add(myRelation.getId(), keepIndexed, (n < members.length) ? Arrays.copyOf(members, n) : members);
 	        	 }
 	        	 else {    //Parsing of this OSM relation
  
@@ -514,7 +538,7 @@ public class OsmPbfToRdf implements Sink {
 	        		 numRelations++;
 	 	        	
 	        		 //Skip parsing if this relation is filtered out or not referenced by others
-	        		 if ((!keepIndexed) && (!recBuilder.relationIndex.containsKey("" + myRelation.getId())))
+	        		 if ((!keepIndexed) && (!recBuilder.referencedRelations.contains(myRelation.getId())))
 	        			 return;
 	        		 
 		        	 relationTmp = new OSMRelation();
@@ -522,7 +546,9 @@ public class OsmPbfToRdf implements Sink {
 			          
 		             //Collect tags associated with this OSM element
 		             for (Tag myTag : myRelation.getTags()) {
-		            	 relationTmp.setTagKeyValue(myTag.getKey(), myChecker.removeIllegalChars(myTag.getValue()));
+		            	 String key = projection.key(myTag.getKey());
+		            	 if (key != null)
+		            		 relationTmp.setTagKeyValue(key, projection.value(key, myChecker.removeIllegalChars(myTag.getValue())));
 		             }
 			         
 		             //Collect all members of this relation
@@ -530,23 +556,8 @@ public class OsmPbfToRdf implements Sink {
 			         for (RelationMember m: myRelation.getMembers())
 			        	 relationTmp.addMemberReference("" + m.getMemberId(), m.getMemberType().name(), m.getMemberRole());
 			         
-		 	         OSMRecord rec = recBuilder.createOSMRecord(relationTmp);
-	 	        	 if (rec!= null)                  //No records created for incomplete relations during the first pass
-		          	 {
-	 	        		 //Convert entity
-		         		 if (keepIndexed)
-		        		 {
-		         			 if (keepUnnamed)
-		         				myConverter.parse(rec, classification, reproject, targetSRID);
-		         			 else if (relationTmp.getTagKeyValue().containsKey("name")) {   //CAUTION! Only named entities will be transformed
-		         				 myConverter.parse(rec, classification, reproject, targetSRID);
-		         				 numNamedEntities++;
-		         			 }
-		        		 }
-		        		
-		         		 if (recBuilder.relationIndex.containsKey(relationTmp.getID()))
-		         			recBuilder.relationIndex.put(relationTmp.getID(), rec.getGeometry());    //Keep a dictionary of relation geometries, only for those referenced by other OSM relations
-		        	 }
+		             //Geometry assembled (possibly by another thread) and indexed if referenced by other relations; converted only if filtered
+		             relationAssembler.add(relationTmp, keepIndexed);
 	
 			         relationTmp = null;  	
 	        	 }
@@ -554,6 +565,21 @@ public class OsmPbfToRdf implements Sink {
 	        
 	    }
 	 
+	    /**
+	     * Converts the record of an OSM relation, once its geometry has been assembled.
+	     * @param r  The OSM relation.
+	     * @param rec  The record created for this relation.
+	     */
+	    private void transformRelation(OSMRelation r, OSMRecord rec) {
+	    	
+	    	if (keepUnnamed)
+	    		myConverter.parse(rec, classification, reproject, targetSRID);
+	    	else if (r.getTagKeyValue().containsKey("name")) {   //CAUTION! Only named entities will be transformed
+	    		myConverter.parse(rec, classification, reproject, targetSRID);
+	    		numNamedEntities++;
+	    	}
+	    }
+	    
 	    /**
 	     * Completes the parsing process.
 	     */
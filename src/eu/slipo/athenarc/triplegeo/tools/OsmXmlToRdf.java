@@ -21,45 +21,28 @@ package eu.slipo.athenarc.triplegeo.tools;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-
 import org.apache.commons.io.FilenameUtils;
-import org.geotools.factory.Hints;
-import org.geotools.referencing.CRS;
-import org.geotools.referencing.ReferencingFactoryFinder;
-import org.opengis.referencing.crs.CRSAuthorityFactory;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
-import org.xml.sax.Attributes;
-import org.xml.sax.SAXException;
-import org.xml.sax.helpers.DefaultHandler;
 
 import com.vividsolutions.jts.geom.Coordinate;
-import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
-import com.vividsolutions.jts.geom.LineString;
-import com.vividsolutions.jts.geom.LinearRing;
-import com.vividsolutions.jts.geom.Point;
-import com.vividsolutions.jts.geom.Polygon;
 import com.vividsolutions.jts.geom.PrecisionModel;
 import com.vividsolutions.jts.io.WKTReader;
 
 import eu.slipo.athenarc.triplegeo.osm.OSMClassification;
-import eu.slipo.athenarc.triplegeo.osm.OSMDiskIndex;
-import eu.slipo.athenarc.triplegeo.osm.OSMMemoryIndex;
 import eu.slipo.athenarc.triplegeo.osm.OSMNode;
+import eu.slipo.athenarc.triplegeo.osm.OSMNodeStore;
 import eu.slipo.athenarc.triplegeo.osm.OSMRecord;
 import eu.slipo.athenarc.triplegeo.osm.OSMRecordBuilder;
 import eu.slipo.athenarc.triplegeo.osm.OSMRelation;
+import eu.slipo.athenarc.triplegeo.osm.OSMRelationAssembler;
+import eu.slipo.athenarc.triplegeo.osm.OSMRelationGraph;
+import eu.slipo.athenarc.triplegeo.osm.OSMTagProjection;
 import eu.slipo.athenarc.triplegeo.osm.OSMWay;
+import eu.slipo.athenarc.triplegeo.osm.OSMWaySpill;
+import eu.slipo.athenarc.triplegeo.osm.OSMXmlReader;
 
 import eu.slipo.athenarc.triplegeo.utils.Assistant;
 import eu.slipo.athenarc.triplegeo.utils.Classification;
@@ -70,10 +53,11 @@ import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
 import eu.slipo.athenarc.triplegeo.utils.GraphConverter;
 import eu.slipo.athenarc.triplegeo.utils.StreamConverter;
 import eu.slipo.athenarc.triplegeo.utils.ValueChecker;
+import eu.slipo.athenarc.triplegeo.utils.TransformRegistry;
 
 
 /**
- * Entry point to convert OpenStreetMap (OSM) XML files into RDF triples using Saxon XSLT.
+ * Entry point to convert OpenStreetMap (OSM) XML files (possibly compressed with gzip or bzip2) into RDF triples using a streaming pull parser.
  * LIMITATIONS: - Depending on system and JVM resources, transformation can handle only a moderate amount of OSM features.
  *              - RML transformation mode not currently supported. 
  * @author Kostas Patroumpas
@@ -96,9 +80,20 @@ import eu.slipo.athenarc.triplegeo.utils.ValueChecker;
  * Modified: 27/9/2018; excluded creation of linear ring geometries for roads and barriers; polygons are created instead
  * Modified; 24/10/2018; allowing transformation to proceed even in case that no filters (using OSM tags) have been specified; no classification scheme will be used in this case.
  * Modified; 5/12/2019; allowing extraction of unnamed entities; also enabling control whether to transform closed linear rings into polygons
- * Last modified by: Kostas Patroumpas, 5/12/2019
+ * Modified: 16/10/2026; CRS transformation obtained from a registry shared by all converters
+ * Modified: 16/10/2026; locations of referenced OSM nodes kept in a store keyed by their numeric identifiers
+ * Modified: 16/10/2026; references to OSM ways and relations tracked in compact sets of identifiers
+ * Modified: 16/10/2026; geometries of OSM ways created from node locations copied into packed coordinate sequences
+ * Modified: 16/10/2026; indices over referenced OSM elements kept within a memory budget; their hit rates included in the metadata
+ * Modified: 16/10/2026; geometries of OSM relations assembled by concurrent threads, nested relations after those they contain
+ * Modified: 16/10/2026; parsing with a StAX pull parser over compressed or uncompressed files, in two passes as for PBF files
+ * Modified: 16/10/2026; only tags referenced in the mapping, the OSM filters, the thematic filter, or the SLIPO Registry are collected, with keys and frequent values interned
+ * Modified: 16/10/2026; optionally transforming only OSM elements that match the OSM filters, as for PBF files
+ * Last modified by: Kostas Patroumpas, 16/10/2026
  */
-public class OsmXmlToRdf extends DefaultHandler {
+public class OsmXmlToRdf {
+
+	  private static final String[] MEMBER_TYPES = {"node", "way", "relation"};     //Types of relation members, as given in the XML file
 
 	  Converter myConverter;
 	  Assistant myAssistant;
@@ -115,10 +110,6 @@ public class OsmXmlToRdf extends DefaultHandler {
 		
 	  Classification classification = null;         //Classification hierarchy for assigning categories to features
 	  
-	  //Initialize a CRS factory for possible reprojections
-	  private static final CRSAuthorityFactory crsFactory = ReferencingFactoryFinder
-		       .getCRSAuthorityFactory("EPSG", new Hints(Hints.FORCE_LONGITUDE_FIRST_AXIS_ORDER, Boolean.TRUE));
-	  
 	  long numNodes;
 	  long numWays;
 	  long numRelations;
@@ -128,24 +119,22 @@ public class OsmXmlToRdf extends DefaultHandler {
 	    
 	  private OSMRecordBuilder recBuilder;				   //Creates OSM records with all spatial and thematic information extracted from OSM elements
 	 
-	  private Map<String, Geometry> tmpNodeIndex;     	   //Temporary dictionary for OSM node elements
-	  private Map<String, Geometry> tmpWayIndex;      	   //Temporary dictionary for OSM way elements
-	  private Map<String, Geometry> tmpRelationIndex; 	   //Temporary dictionary for OSM relation elements
+	  private OSMXmlReader reader;                         //Streaming reader of the (possibly compressed) OSM XML file
 	    
 	  private OSMNode nodeTmp;                             //the current OSM node object
 	  private OSMWay wayTmp;                               //the current OSM way object
 	  private OSMRelation relationTmp;                     //the current OSM relation object
+	  private OSMRelationAssembler relationAssembler;      //Creates records of OSM relations concurrently, handing them over in the order of the file
 	    
 	  private Set<String> tags;                            //OSM tags used in the filters
+	  private OSMTagProjection projection;                 //Determines which tags of OSM elements are collected, and interns their keys and frequent values
 	  
 	  private boolean inWay = false;                       //when parser is in a way node becomes true in order to track the parser position 
 	  private boolean inNode = false;                      //becomes true when the parser is in a simple node        
 	  private boolean inRelation = false;                  //becomes true when the parser is in a relation node
 	
-	  private boolean scanWays = true;                     //Activates preliminary scanning of OSM ways in order to create index structures required during parsing
-	  private boolean scanRelations = true;                //Activates preliminary scanning of OSM relations in order to create index structures required during parsing
-	  private boolean rescanRelations = false;             //Activates an auxiliary scan of OSM relations that may be referenced by other relations
-	  private boolean keepIndexed = false;                 //Determines whether to index references of a given OSM element based on its tags; discarded if none of its tags matches with the user-specified OSM filters 
+	  private OSMRelationGraph relationGraph;              //Memberships in OSM relations collected during the preliminary pass
+	  private OSMWaySpill spill;                           //Nodes of OSM ways not filtered, kept during the preliminary pass until it is known whether these ways are referenced by relations
 
 	  /**
 	   * Constructor for the transformation process from OpenStreetMap XML file to RDF.
@@ -170,6 +159,7 @@ public class OsmXmlToRdf extends DefaultHandler {
 	    	  OSMClassification osmClassific = new OSMClassification(config.classificationSpec, currentConfig.outputDir);
 	    	  String classFile = osmClassific.apply();
 	    	  tags = osmClassific.getTags();
+	    	  projection = new OSMTagProjection(currentConfig, tags, myAssistant);     //Only tags referenced in the mapping, the filters, or the SLIPO Registry will be collected
 	    	  
 		      //Instantiate a record builder to be used in handling each OSM record
 		      recBuilder = new OSMRecordBuilder(osmClassific.getFilters());
@@ -190,10 +180,7 @@ public class OsmXmlToRdf extends DefaultHandler {
 	      if (currentConfig.targetCRS != null)
 	      {
 	  	    try {
-	  	        boolean lenient = true; // allow for some error due to different datums
-	  	        CoordinateReferenceSystem sourceCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.sourceCRS);
-	  	        CoordinateReferenceSystem targetCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.targetCRS);    
-	  	        reproject = CRS.findMathTransform(sourceCRS, targetCRS, lenient);
+	  	        reproject = TransformRegistry.getTransform(currentConfig.sourceCRS, currentConfig.targetCRS);
 	  	        
 	  	        //Needed for parsing original geometry in WTK representation
 	  	        GeometryFactory geomFactory = new GeometryFactory(new PrecisionModel(), sourceSRID);
@@ -212,374 +199,319 @@ public class OsmXmlToRdf extends DefaultHandler {
 	      }
 	  }
 
-		
 
 	  /**
-	   * Calls Saxon transformation to parse the input XML file.
+	   * Checks whether any tag of the current OSM element is specified in the user-specified filters.
+	   * @param element  The reader positioned at an OSM element.
+	   * @return  True, if references of this element should be indexed and the element transformed.
+	   */
+	  private boolean isFiltered(OSMXmlReader element) {
+
+		  for (int i = 0; i < element.getNumTags(); i++)
+			  if ((tags == null) || (tags.contains(element.getTagKey(i))))    //CAUTION! Filter out any OSM elements not related to tags specified by the user
+				  return true;                                                  //In case of no tags specified for filtering, index all OSM elements
+		  return false;
+	  }
+
+
+	  /**
+	   * Checks whether the current OSM element should be transformed, and hence its references indexed: either all OSM elements are transformed (default), or only those matching the user-specified filters.
+	   * @param element  The reader positioned at an OSM element.
+	   * @return  True, if this element should be transformed.
+	   */
+	  private boolean isTransformed(OSMXmlReader element) {
+
+		  return (!currentConfig.osmFilteredOnly) || (isFiltered(element));
+	  }
+
+
+	  /**
+	   * Parses the input OSM XML file (possibly compressed) in two passes, as the PBF file: a preliminary pass collects references to OSM elements, and a second pass transforms them.
 	   */
 	  public void parseDocument() {
-		    //Depending of input file size, determine if indices will be kept in-memory of will be disk-based
-	    	File inFile = new File(inputFile);
-	    	if (inFile.length() < 0.5 * Runtime.getRuntime().maxMemory() ) {          //CAUTION! Rule of thumb: Input XML file size is less than half of the JVM heap size, so memory is expected to be sufficient for indexing OSM elements    
-		    	//OPTION #1: Memory-based native Java structures for indexing
-	    		recBuilder.nodeIndex = new OSMMemoryIndex(); 
-	    		recBuilder.wayIndex = new OSMMemoryIndex();
-	    		recBuilder.relationIndex = new OSMMemoryIndex();
-		        System.out.println("Building in-memory indices over OSM elements...");
-	    	}
-	    	else {                                               //For larger OSM files, resort to disk-based indexing of their referenced elements
-		    	//OPTION #2: Disk-based structures for indexing
-	    		recBuilder.nodeIndex = new OSMDiskIndex(currentConfig.tmpDir, "nodeIndex");
-	    		recBuilder.wayIndex = new OSMDiskIndex(currentConfig.tmpDir, "wayIndex");
-	    		recBuilder.relationIndex = new OSMDiskIndex(currentConfig.tmpDir, "relationIndex");
-		        System.out.println("Building disk-based indices over OSM elements...");
-	    	}
-	    	
+
+		    //References to OSM elements are tracked in compact sets of identifiers; indices over geometries of referenced ways and relations are created once their number is known
+	    	recBuilder.nodeStore = new OSMNodeStore(currentConfig.tmpDir);     //Locations of nodes are kept in a compact store, either in memory or memory-mapped
+
 	    	//This list will hold OSM relations that depend on other relations, so these must be checked once the entire OSM file is exhausted.
 	    	recBuilder.incompleteRelations = new ArrayList<>();
-	        
-	        //Invoke XSL transformation against input OSM XML file
-	        System.out.println("Calling parser for OSM XML file...");
-	        SAXParserFactory factory = SAXParserFactory.newInstance();
-	        try {
-	        	//Preliminary INDEXING phase: first scan of OSM relations to build the required index structures
-	        	scanRelations = true;
-	        	scanWays = false;
-	        	keepIndexed = false;
-		    	tmpNodeIndex = new HashMap<>();          //These temporary containers are used to hold references for each OSM element examined; they MUST be purged before the next element is examined
-		        tmpWayIndex = new HashMap<>();
-		        tmpRelationIndex = new HashMap<>();
-	        	System.out.println("Scanning OSM relations to identify indexed OSM elements...");
-	            SAXParser parser = factory.newSAXParser();
-	            parser.parse(inputFile, this);
-	            parser.reset();
-	            System.out.println("Indexed " + recBuilder.nodeIndex.size() + " nodes, " + recBuilder.wayIndex.size() + " ways, and " + recBuilder.relationIndex.size() + " relations.");
-	            
-	            if (rescanRelations) {
-		            //Preliminary INDEXING phase: second scan of OSM relations to build the required index structures, since relations may refer to other relations
-		        	scanRelations = true;
-		        	scanWays = false;
-		        	keepIndexed = false;
-			    	tmpNodeIndex = new HashMap<>();          //These temporary containers are used to hold references for each OSM element examined; they MUST be purged before the next element is examined
-			        tmpWayIndex = new HashMap<>();
-			        tmpRelationIndex = new HashMap<>();
-		        	System.out.println("Second scan of OSM relations to identify other referenced OSM relations...");
-		            parser = factory.newSAXParser();
-		            parser.parse(inputFile, this);
-		            parser.reset();
-		            System.out.println("Indexed " + recBuilder.nodeIndex.size() + " nodes, " + recBuilder.wayIndex.size() + " ways, and " + recBuilder.relationIndex.size() + " relations.");
-	            }
-	            
-	            //Preliminary INDEXING phase: only scan OSM ways to build the required index structures
-	        	scanWays = true;
-	        	scanRelations = false;
-	        	keepIndexed = false;
-		    	tmpNodeIndex = new HashMap<>();          //These temporary containers are used to hold references for each OSM element examined; they MUST be purged before the next element is examined
-		        tmpWayIndex = new HashMap<>();
-		        tmpRelationIndex = new HashMap<>();
-	        	System.out.println("Scanning OSM ways to identify indexed OSM elements...");
-	            parser = factory.newSAXParser();
-	            parser.parse(inputFile, this);
-	            parser.reset();
-	            System.out.println("Indexed " + recBuilder.nodeIndex.size() + " nodes, " + recBuilder.wayIndex.size() + " ways, and " + recBuilder.relationIndex.size() + " relations.");
-            
-//	            System.out.println("NODES:");
-//	            nodeIndex.print();
-//	            System.out.println("WAYS:");
-//	            wayIndex.print();
-//	            System.out.println("RELATIONS:");
-//	            relationIndex.print();
-	            
-	            //PARSING phase: Take advantage of precomputed indices when parsing
-	            scanRelations = false;
-	            scanWays = false;
-	            System.out.println("Starting parsing of all OSM elements...");
-	            parser = factory.newSAXParser();
-	            parser.parse(inputFile, this);
-	            parser.reset();
-	            
-	            //Second pass over incomplete OSM relations, once the entire XML file has been parsed
-	            for (Iterator<OSMRelation> iterator = recBuilder.incompleteRelations.iterator(); iterator.hasNext(); )
-	            {
-	            	OSMRelation r = iterator.next();
-//	            	System.out.print("Re-examining OSM relation " + r.getID() + "...");
-	            	OSMRecord rec = recBuilder.createOSMRecord(r);
-	            	if (rec != null)                    //Incomplete relations are accepted in this second pass, consisting of their recognized parts   
-	            	{	//Convert entity
-	            		if (keepUnnamed)
-	            			myConverter.parse(rec, classification, reproject, targetSRID);
-	            		else if (r.getTagKeyValue().containsKey("name"))  {  //CAUTION! Only named entities will be transformed
-	            			myConverter.parse(rec, classification, reproject, targetSRID);
-	            			numNamedEntities++;
-	            		}
-	            		//Keep this relation geometry in the dictionary, just in case it might be referenced by other OSM relations
-	            		if (recBuilder.relationIndex.containsKey(r.getID().substring(1, r.getID().length()-1)))
-	            			recBuilder.relationIndex.put(r.getID().substring(1, r.getID().length()-1), rec.getGeometry()); 
-	            		numRelations++;
-	            		iterator.remove();                                              //This OSM relation should not be examined again
-//	            		System.out.println("Done!");
-	            	} 
-	            	else
-	            		System.out.println(" Transformation failed!");
-	            }
-	            
-	            System.out.println("\nFinished parsing OSM relations.");
-	            recBuilder.nodeIndex.clear();											//Discard index over OSM nodes			
-	            recBuilder.wayIndex.clear();                                      		//Discard index over OSM ways
-	            recBuilder.relationIndex.clear();                                       //Discard index over OSM relations
-	            
-	        } catch (ParserConfigurationException e) {
-	        	ExceptionHandler.abort(e, "Parser Configuration error.");
-	        } catch (SAXException e) {
-	        	ExceptionHandler.abort(e, "SAXException : OSM xml not well formed." );
-	        } catch (IOException e) {
-	        	ExceptionHandler.abort(e, "Cannot access input file.");
-	        }
-	        
-	    }
-
-	    /**
-	     * Starts parsing of a new OSM element (node, way, or relation). Overrides method in parent Saxon class to initialize variables at the start of parsing of each OSM element.
-	     * @param s  The Namespace URI, or the empty string if the element has no Namespace URI or if Namespace processing is not being performed.
-	     * @param s1  The local name (without prefix), or the empty string if Namespace processing is not being performed.
-	     * @param elementName  The qualified name (with prefix), or the empty string if qualified names are not available.
-	     * @param attributes   The attributes attached to the element. If there are no attributes, it shall be an empty Attributes object.
-	     */
-	    @Override
-	    public void startElement(String s, String s1, String elementName, Attributes attributes) throws SAXException {
-	    
+
+	    	//Relations are assembled by as many threads as the concurrent workers, and handed over in the order of the file to the converter, whose workers generate their triples concurrently
+	    	relationAssembler = new OSMRelationAssembler(recBuilder, currentConfig.numWorkers, Math.max(currentConfig.batch_size, Constants.PIPELINE_BATCH_SIZE), (r, rec, transform) -> {
+	    		if ((rec != null) && (transform))           //No records created for incomplete relations during the first pass
+	    			transformRelation(r, rec);
+	    	});
+
+	    	reader = new OSMXmlReader(new File(inputFile));
 	    	try {
-		        //Depending on the name of the current OSM element,... 
-		        if ((!scanWays) && (!scanRelations) && (elementName.equalsIgnoreCase("node"))) {           //Create a new OSM node object and populate it with the appropriate values
-		            nodeTmp = new OSMNode();
-		            nodeTmp.setID(attributes.getValue("id"));
-	
-		            //Parse geometry
-		            double longitude = Double.parseDouble(attributes.getValue("lon"));
-		            double latitude = Double.parseDouble(attributes.getValue("lat"));
-		           
-		            //Create geometry object with original WGS84 coordinates
-		            Geometry geom = geometryFactory.createPoint(new Coordinate(longitude, latitude));
-		            nodeTmp.setGeometry(geom);
-		            inNode = true;
-		            inWay = false;
-		            inRelation = false;
-		        } 
-		        else if ((!scanRelations) && (elementName.equalsIgnoreCase("way"))) {       //Create a new OSM way object and populate it with the appropriate values
-		            wayTmp = new OSMWay();
-		            wayTmp.setID(attributes.getValue("id"));
-		            
-        			if ((scanWays) && (recBuilder.wayIndex.containsKey(wayTmp.getID())))    //This OSM way is referenced by a relation, so its nodes should be kept in the index
-        				keepIndexed = true;	        			
-        			
-		            if ((!scanWays) && (!scanRelations)) {
-			            if (inNode)
-			            	System.out.println("\nFinished parsing OSM nodes.");
-			            
-			            inWay = true;
-			            inNode = false;
-			            inRelation = false;
-		            }
-		        } 
-		        else if ((!scanWays) && (elementName.equalsIgnoreCase("relation"))) {   //Create a new OSM relation and populate it with the appropriate values
-		            relationTmp = new OSMRelation();
-		            relationTmp.setID(attributes.getValue("id"));
-		            
-        			if (recBuilder.relationIndex.containsKey(relationTmp.getID()))
-	        			keepIndexed = true;
-        			
-        			if ((!scanWays) && (!scanRelations)) {
-			            if (inWay)
-			            	System.out.println("\nFinished parsing OSM ways.");
-			            
-			            inRelation = true;
-			            inWay = false;
-			            inNode = false;
-        			}
-		        } 
-		        else if (elementName.equalsIgnoreCase("nd")) {
-		        	if ((scanWays) || (scanRelations)) {
-		        		tmpNodeIndex.put(attributes.getValue("ref"), null);                 //This node is referenced by a way; keep it in the index, and its geometry will be filled in when parsing the nodes 
-		        	} else
-		        		wayTmp.addNodeReference(attributes.getValue("ref"));
-		        } 
-		        else if (elementName.equalsIgnoreCase("tag")) {
-		        	if ((scanWays) || (scanRelations))	{                     	//In preliminary phase, if no tag of this OSM element is included in the OSM filters, no references need be indexed
-	        			if ((tags == null) || (tags.contains(attributes.getValue("k"))))       		//CAUTION! Filter out any OSM elements not related to tags specified by the user
-	        				keepIndexed = true;                                                     //In case of no tags specified for filtering, index all OSM elements
-		        	}
-		        	else {                                                                  //In the parsing phase, keep all tags for that OSM element
-			            if (inNode) {
-			                //If the path is in an OSM node, then set tagKey and value to the corresponding node     
-			                nodeTmp.setTagKeyValue(attributes.getValue("k"), myChecker.removeIllegalChars(attributes.getValue("v")));
-			            } 
-			            else if (inWay) {
-			                //Otherwise, if the path is in an OSM way, then set tagKey and value to the corresponding way
-			                wayTmp.setTagKeyValue(attributes.getValue("k"), myChecker.removeIllegalChars(attributes.getValue("v")));
-			            } 
-			            else if(inRelation){
-			                //Set the key-value pairs of OSM relation tags
-			                relationTmp.setTagKeyValue(attributes.getValue("k"), myChecker.removeIllegalChars(attributes.getValue("v")));
-			            }
-		        	}
-		        } 
-		        else if (elementName.equalsIgnoreCase("member")) {
-		        	if ((scanRelations) || (scanWays)) {
-		        		if (attributes.getValue("type").equalsIgnoreCase("node"))
-		        			tmpNodeIndex.put(attributes.getValue("ref"), null);                //This node is referenced by a relation; keep it in the index, and its geometry will be filled in when parsing the nodes
-		        		else if (attributes.getValue("type").equalsIgnoreCase("way"))
-		        			tmpWayIndex.put(attributes.getValue("ref"), null);                 //This way is referenced by a relation; keep it in the index, and its geometry will be filled in when parsing the ways
-		        		else if (attributes.getValue("type").equalsIgnoreCase("relation"))
-		        			tmpRelationIndex.put(attributes.getValue("ref"), null);            //This relation is referenced by another relation; keep it in the index, and its geometry will be filled in when parsing the relations
-		        	}
-		        	else
-		        		relationTmp.addMemberReference(attributes.getValue("ref"), attributes.getValue("type"), attributes.getValue("role"));
-		        }  
-	    	}
-	    	catch (Exception e) {
-//	    		System.out.println(attributes.toString());
-	        	ExceptionHandler.warn(e, "(START) Cannot process OSM element.");	        	
-	        }    	
-	    }
-
-	    /**
-	     * Concludes processing of an OSM element (node, way, or relation) once it has been parsed completely. Overrides method in the parent Saxon class to finalize variables and indices at the end of parsing of each OSM element.
-	     * @param s  The Namespace URI, or the empty string if the element has no Namespace URI or if Namespace processing is not being performed.
-	     * @param sl  The local name (without prefix), or the empty string if Namespace processing is not being performed.
-	     * @param element   The qualified name (with prefix), or the empty string if qualified names are not available.
-	     */
-	    @Override
-	    public void endElement(String s, String s1, String element) {
-	    	
-	    	try
-	    	{
-		        //If end of node element, add to appropriate list
-		        if ((!scanWays) && (!scanRelations) && (element.equalsIgnoreCase("node"))) {    //OSM node need not be parsed during the INDEXING phase
-		            //Transform entity
-		        	if (keepUnnamed)
-		            	myConverter.parse(recBuilder.createOSMRecord(nodeTmp), classification, reproject, targetSRID);
-		            else if (nodeTmp.getTagKeyValue().containsKey("name")) {   //CAUTION! Only named entities will be transformed
-		            	myConverter.parse(recBuilder.createOSMRecord(nodeTmp), classification, reproject, targetSRID);
-		            	numNamedEntities++;
-		            }
-		            if (recBuilder.nodeIndex.containsKey(nodeTmp.getID()))
-		            	recBuilder.nodeIndex.put(nodeTmp.getID(), nodeTmp.getGeometry());         //Keep a dictionary of node geometries, only if referenced by OSM ways
-		            numNodes++;
-		            nodeTmp = null;
-		        } 
-		        else if ((!scanRelations) && (element.equalsIgnoreCase("way"))) {                  //OSM way      
-		        	if (scanWays) {
-		        		if ((keepIndexed) || (recBuilder.wayIndex.containsKey(wayTmp.getID())))    //Keep those nodes in the global index 
-		        			recBuilder.nodeIndex.putAll(tmpNodeIndex);
-		        		tmpNodeIndex.clear();                       //Clear temporary buffer and ...
-		        		keepIndexed = false;                        //... reset flag for the next element
-		        	}
-		        	else {
-			            //construct the Way geometry from each node of the node references
-			            List<String> references = wayTmp.getNodeReferences();
-		
-			            for (String entry: references) {
-			            	if (recBuilder.nodeIndex.containsKey(entry))
-			            	{
-			            		Geometry geometry = recBuilder.nodeIndex.get(entry);     //get the geometry of the node with ID=entry
-			            		wayTmp.addNodeGeometry(geometry);             //add the node geometry in this way  
-			            	}
-			            	else
-			            		System.out.println("Missing node " + entry + " in referencing way " + wayTmp.getID());
-			            }
-			            Geometry geom = geometryFactory.buildGeometry(wayTmp.getNodeGeometries());
-
-			            //Check if the beginning and ending node are the same and the number of nodes are more than 3. 
-			            //These nodes must be more than 3, because JTS does not allow construction of a linear ring with less than 3 points
-			            if ((closedRings2Polygons) && (wayTmp.getNodeGeometries().size() > 3) && wayTmp.getNodeGeometries().get(0).equals(wayTmp.getNodeGeometries().get(wayTmp.getNodeGeometries().size()-1)))
-			            { 
-				               //Always construct a polygon when a linear ring is detected
-				               LinearRing linear = geometryFactory.createLinearRing(geom.getCoordinates());
-				               Polygon poly = new Polygon(linear, null, geometryFactory);
-				               wayTmp.setGeometry(poly);  
-				            	
-				               /*************************************************
-				               //OPTION NOT USED: Construct a linear ring geometry when this feature is either a barrier or a road
-				               if (!((wayTmp.getTagKeyValue().containsKey("barrier")) || wayTmp.getTagKeyValue().containsKey("highway"))){
-				            	   //this is not a barrier nor a road, so construct a polygon geometry
-				               
-				            	   LinearRing linear = geometryFactory.createLinearRing(geom.getCoordinates());
-				            	   Polygon poly = new Polygon(linear, null, geometryFactory);
-				            	   wayTmp.setGeometry(poly);               
-				               }
-				               else {    //it is either a barrier or a road, so construct a linear ring geometry 
-				                  LinearRing linear = geometryFactory.createLinearRing(geom.getCoordinates());
-				                  wayTmp.setGeometry(linear);  
-				               }
-				               **************************************************/
-			            }
-			            else if (wayTmp.getNodeGeometries().size() > 1) {
-			            //it is an open geometry with more than one nodes, make it linestring 
-			                
-			                LineString lineString =  geometryFactory.createLineString(geom.getCoordinates());
-			                wayTmp.setGeometry(lineString);               
-			            }
-			            else {     //we assume that any other geometries are points
-			                       //some ways happen to have only one point. Construct a Point.
-			                Point point = geometryFactory.createPoint(geom.getCoordinate());
-			                wayTmp.setGeometry(point);
-			            }
-			            
-			            //Convert entity
-			            if (keepUnnamed)
-			            	myConverter.parse(recBuilder.createOSMRecord(wayTmp), classification, reproject, targetSRID);
-			            else if (wayTmp.getTagKeyValue().containsKey("name"))  {  //CAUTION! Only named entities will be transformed
-			            	myConverter.parse(recBuilder.createOSMRecord(wayTmp), classification, reproject, targetSRID);
-			            	numNamedEntities++;
-			            }
-			            
-			            if (recBuilder.wayIndex.containsKey(wayTmp.getID()))
-			            	recBuilder.wayIndex.put(wayTmp.getID(), wayTmp.getGeometry());          //Keep a dictionary of way geometries, only for those referenced by OSM relations
-			            numWays++;
-			            wayTmp = null;
-			        }
-		        } 	   
-		        else if ((!scanWays) && (element.equalsIgnoreCase("relation"))) {                 //OSM relation
-		        	if (scanRelations) {
-		        		if (keepIndexed) {
-		        			recBuilder.nodeIndex.putAll(tmpNodeIndex);             //Keep those nodes in the respective global index    
-		        			recBuilder.wayIndex.putAll(tmpWayIndex);               //Keep those ways in the respective global index    
-		        			recBuilder.relationIndex.putAll(tmpRelationIndex);     //Keep those relations in the respective global index 
-		        			if (!tmpRelationIndex.isEmpty())
-		        				rescanRelations = true;                            //Relations need to be scanned once more, as they may reference other relations
-		        		}
-		        		tmpNodeIndex.clear();                    //Clear all temporary buffers ...
-		        		tmpWayIndex.clear();	        		              
-		        		tmpRelationIndex.clear();
-		        		keepIndexed = false;                     //... and reset flag for the next element
-		        	} 
-		        	else {
-			        	OSMRecord rec = recBuilder.createOSMRecord(relationTmp);
-			        	if (rec!= null)                  //No records created for incomplete relations during the first pass
-			        	{	//Convert entity
-			        		if (keepUnnamed)
-			        			myConverter.parse(rec, classification, reproject, targetSRID);
-			        		if (relationTmp.getTagKeyValue().containsKey("name")) {  //Only named entities will be transformed
-			        			myConverter.parse(rec, classification, reproject, targetSRID);
-			        			numNamedEntities++;
-			        		}
-			        		
-			        		if (recBuilder.relationIndex.containsKey(relationTmp.getID()))
-			        			recBuilder.relationIndex.put(relationTmp.getID(), rec.getGeometry());    //Keep a dictionary of relation geometries, only for those referenced by other OSM relations
-
-			        		numRelations++;
-			        	}
-			        }
-		        	relationTmp = null;
-		        }
+	    		//Preliminary INDEXING phase: a single pass over ways and relations; nodes are skipped
+	    		relationGraph = new OSMRelationGraph();
+	    		System.out.println("Pass 1 of 2: Scanning OSM ways and relations to identify indexed OSM elements...");
+	    		long start = System.currentTimeMillis();
+	    		try (OSMWaySpill s = new OSMWaySpill(currentConfig.tmpDir)) {
+	    			spill = s;
+	    			reader.setSkip(OSMXmlReader.NODE, true);
+	    			reader.run(this::scan);
+	    			resolveRelations();
+	    			relationGraph = null;
+	    			referenceSpilledWays();
+	    		}
+	    		spill = null;
+	    		System.out.println("Pass 1 of 2 completed in " + (System.currentTimeMillis() - start) + " ms (" + reader.getNumBytes() + " bytes parsed). Indexed " + recBuilder.nodeStore.size() + " nodes, " + recBuilder.referencedWays.size() + " ways, and " + recBuilder.referencedRelations.size() + " relations.");
+
+	    		//PARSING phase: Take advantage of precomputed indices when parsing; no more nodes will be referenced
+	    		recBuilder.createIndices(currentConfig.tmpDir, currentConfig.osmIndexBudget);
+	    		recBuilder.nodeStore.seal();
+	    		System.out.println("Pass 2 of 2: Starting parsing of all OSM elements...");
+	    		start = System.currentTimeMillis();
+	    		reader.setSkip(OSMXmlReader.NODE, false);
+	    		reader.run(this::process);
+	    		System.out.println("Pass 2 of 2 completed in " + (System.currentTimeMillis() - start) + " ms.");
+
+	    		relationAssembler.close();
+
+	    		//Second pass over incomplete OSM relations, once the entire XML file has been parsed; relations contained in others are assembled first
+	    		relationAssembler = new OSMRelationAssembler(recBuilder, currentConfig.numWorkers, Math.max(currentConfig.batch_size, Constants.PIPELINE_BATCH_SIZE), (r, rec, transform) -> {
+	    			if (rec != null)                    //Incomplete relations are accepted in this second pass, consisting of their recognized parts
+	    			{
+	    				transformRelation(r, rec);
+	    				numRelations++;
+	    			}
+	    			else
+	    				System.out.println(" Transformation failed!");
+	    		});
+	    		for (OSMRelation r: recBuilder.incompleteRelations)
+	    			relationAssembler.add(r, true);
+	    		relationAssembler.close();
+	    		recBuilder.incompleteRelations.clear();                             //These OSM relations should not be examined again
+
+	    		if (inRelation)
+	    			System.out.println("\nFinished parsing OSM relations.");
+	    		myAssistant.addStatistics("OSM Index Statistics", recBuilder.getIndexStatistics());    //Hit rates of indices over referenced OSM ways and relations
+	    		myAssistant.addStatistics("OSM Tag Statistics", projection.getStatistics());           //Tags collected or discarded according to the mapping
+	    		recBuilder.clearIndices();											//Discard locations of OSM nodes, indices and references over OSM ways and relations
+
+	    	} catch (IOException e) {
+	    		ExceptionHandler.abort(e, "Cannot parse input file.");
 	    	}
-	    	catch (Exception e) {
-//	    		System.out.println("Element: " + element);
-	        	ExceptionHandler.warn(e, "(END) Cannot process OSM element.");
-	        }
-	    }
+	  }
+
+
+	  /**
+	   * Resolves the memberships in OSM relations collected in the preliminary pass, so that all members of filtered relations (and of any relations nested in them) will be indexed.
+	   */
+	  private void resolveRelations() {
+
+		  int n = relationGraph.resolve((type, id) -> {
+			  if (type == OSMRelationGraph.NODE)
+				  recBuilder.nodeStore.reference(id);                     //This node is referenced by a relation; keep it in the store, and its location will be filled in when parsing the nodes
+			  else if (type == OSMRelationGraph.WAY)
+				  recBuilder.referencedWays.add(id);                      //This way is referenced by a relation; its geometry will be indexed when parsing the ways
+			  else
+				  recBuilder.referencedRelations.add(id);                 //This relation is referenced by another relation; its geometry will be indexed when parsing the relations
+		  });
+		  System.out.println("Identified " + n + " OSM relations to be indexed.");
+	  }
+
+
+	  /**
+	   * Handles an OSM way or relation in the preliminary pass.
+	   * Since ways precede relations in the file, it is not yet known whether a way not filtered is referenced by a relation; its nodes are spilled to a file, to be examined once relations are resolved.
+	   * @param element  The reader positioned at an OSM way or relation.
+	   */
+	  private void scan(OSMXmlReader element) {
+
+		  try {
+			  boolean filtered = isTransformed(element);
+			  if (element.getType() == OSMXmlReader.WAY) {
+				  if (filtered) {
+					  for (int i = 0; i < element.getNumNodes(); i++)
+						  recBuilder.nodeStore.reference(element.getNodeId(i));     //...initially without location, to be filled in once nodes will be parsed
+				  }
+				  else {
+					  spill.startWay(element.getId(), element.getNumNodes());
+					  for (int i = 0; i < element.getNumNodes(); i++)
+						  spill.addNode(element.getNodeId(i));
+				  }
+			  }
+			  else if (element.getType() == OSMXmlReader.RELATION) {
+				  //Keep the members of every relation in the graph, since it may be referenced by a filtered relation; only filtered relations and those referenced by them will be indexed
+				  long[] members = new long[element.getNumMembers()];
+				  for (int i = 0; i < members.length; i++)
+					  members[i] = OSMRelationGraph.member(element.getMemberType(i), element.getMemberId(i));
+				  relationGraph.add(element.getId(), filtered, members);
+			  }
+		  } catch (IOException e) {
+			  ExceptionHandler.abort(e, "Cannot write node references of OSM ways into the temporary directory.");
+		  }
+	  }
+
+
+	  /**
+	   * Marks the nodes of all spilled OSM ways that are referenced by relations.
+	   */
+	  private void referenceSpilledWays() throws IOException {
+
+		  spill.replay(recBuilder.referencedWays::contains, (wayId, nodeIds, n) -> {
+			  for (int i = 0; i < n; i++)
+				  recBuilder.nodeStore.reference(nodeIds[i]);
+		  });
+	  }
+
+
+	  /**
+	   * Processes an OSM element (node, way, or relation) in the parsing pass.
+	   * @param element  The reader positioned at an OSM node, way, or relation.
+	   */
+	  private void process(OSMXmlReader element) {
+
+		  try {
+			  boolean keepIndexed = isTransformed(element);   //Either all elements, or only those with a tag related to user-specified filters are transformed
+
+			  if (element.getType() == OSMXmlReader.NODE) {
+
+				  //Mark position of the parser
+				  inNode = true;
+				  inWay = false;
+				  inRelation = false;
+				  numNodes++;
+
+				  //Convert entity; tags and geometry are only collected for nodes not filtered out
+				  if (keepIndexed) {
+					  nodeTmp = new OSMNode();
+					  nodeTmp.setID(Long.toString(element.getId()));
+
+					  //Collect tags associated with this OSM element
+					  for (int i = 0; i < element.getNumTags(); i++)
+					  {
+						  String key = projection.key(element.getTagKey(i));
+						  if (key != null)
+							  nodeTmp.setTagKeyValue(key, projection.value(key, myChecker.removeIllegalChars(element.getTagValue(i))));
+					  }
+
+					  //Create geometry object with original WGS84 coordinates
+					  nodeTmp.setGeometry(geometryFactory.createPoint(new Coordinate(element.getLon(), element.getLat())));
+
+					  if (keepUnnamed)
+						  myConverter.parse(recBuilder.createOSMRecord(nodeTmp), classification, reproject, targetSRID);
+					  else if (nodeTmp.getTagKeyValue().containsKey("name")) {   //CAUTION! Only named entities will be transformed
+						  myConverter.parse(recBuilder.createOSMRecord(nodeTmp), classification, reproject, targetSRID);
+						  numNamedEntities++;
+					  }
+					  nodeTmp = null;
+				  }
+
+				  recBuilder.nodeStore.put(element.getId(), element.getLon(), element.getLat());         //Keep node locations, only if referenced by OSM ways or relations
+			  }
+			  else if (element.getType() == OSMXmlReader.WAY) {
+
+				  if (inNode)
+					  System.out.println("\nFinished parsing OSM nodes.");
+
+				  //Mark position of the parser
+				  inNode = false;
+				  inWay = true;
+				  inRelation = false;
+				  numWays++;
+
+				  //Skip parsing if this way is filtered out or not referenced by relations
+				  if ((!keepIndexed) && (!recBuilder.referencedWays.contains(element.getId())))
+					  return;
+
+				  wayTmp = new OSMWay();
+				  wayTmp.setID(Long.toString(element.getId()));
+
+				  //Collect tags associated with this OSM element
+				  for (int i = 0; i < element.getNumTags(); i++)
+				  {
+					  String key = projection.key(element.getTagKey(i));
+					  if (key != null)
+						  wayTmp.setTagKeyValue(key, projection.value(key, myChecker.removeIllegalChars(element.getTagValue(i))));
+				  }
+
+				  //Copy node locations directly into a buffer of coordinates of this way
+				  wayTmp.reserveNodeLocations(element.getNumNodes());
+				  for (int i = 0; i < element.getNumNodes(); i++) {
+					  if (!wayTmp.addNodeLocation(recBuilder.nodeStore, element.getNodeId(i)))          //get the location of the node with ID=entry
+						  System.out.println("Missing node " + element.getNodeId(i) + " in referencing way " + wayTmp.getID());
+				  }
+
+				  //Create a polygon, linestring, or point with a packed coordinate sequence
+				  wayTmp.setGeometry(wayTmp.buildGeometry(geometryFactory, closedRings2Polygons));
+
+				  //Convert this entity
+				  if (keepIndexed) {
+					  if (keepUnnamed)
+						  myConverter.parse(recBuilder.createOSMRecord(wayTmp), classification, reproject, targetSRID);
+					  else if (wayTmp.getTagKeyValue().containsKey("name")) {  //CAUTION! Only named entities will be transformed
+						  myConverter.parse(recBuilder.createOSMRecord(wayTmp), classification, reproject, targetSRID);
+						  numNamedEntities++;
+					  }
+				  }
+
+				  if (recBuilder.referencedWays.contains(element.getId()))
+					  recBuilder.wayIndex.put(wayTmp.getID(), wayTmp.getGeometry());          //Keep a dictionary of way geometries, only for those referenced by OSM relations
+
+				  wayTmp = null;
+			  }
+			  else if (element.getType() == OSMXmlReader.RELATION) {
+
+				  if (inWay)
+					  System.out.println("\nFinished parsing OSM ways.");
+
+				  //Mark position of the parser
+				  inNode = false;
+				  inWay = false;
+				  inRelation = true;
+				  numRelations++;
+
+				  //Skip parsing if this relation is filtered out or not referenced by others
+				  if ((!keepIndexed) && (!recBuilder.referencedRelations.contains(element.getId())))
+					  return;
+
+				  relationTmp = new OSMRelation();
+				  relationTmp.setID(Long.toString(element.getId()));
+
+				  //Collect tags associated with this OSM element
+				  for (int i = 0; i < element.getNumTags(); i++)
+				  {
+					  String key = projection.key(element.getTagKey(i));
+					  if (key != null)
+						  relationTmp.setTagKeyValue(key, projection.value(key, myChecker.removeIllegalChars(element.getTagValue(i))));
+				  }
+
+				  //Collect all members of this relation
+				  for (int i = 0; i < element.getNumMembers(); i++)
+					  relationTmp.addMemberReference(Long.toString(element.getMemberId(i)), MEMBER_TYPES[element.getMemberType(i)], element.getMemberRole(i));
+
+				  //Geometry assembled (possibly by another thread) and indexed if referenced by other relations; converted only if filtered
+				  relationAssembler.add(relationTmp, keepIndexed);
+
+				  relationTmp = null;
+			  }
+		  }
+		  catch (Exception e) {
+			  ExceptionHandler.warn(e, "Cannot process OSM element " + element.getId() + ".");
+		  }
+	  }
+
+
+	  /**
+	   * Converts the record of an OSM relation, once its geometry has been assembled.
+	   * @param r  The OSM relation.
+	   * @param rec  The record created for this relation.
+	   */
+	  private void transformRelation(OSMRelation r, OSMRecord rec) {
+
+		  if (keepUnnamed)
+			  myConverter.parse(rec, classification, reproject, targetSRID);
+		  else if (r.getTagKeyValue().containsKey("name")) {   //CAUTION! Only named entities will be transformed
+			  myConverter.parse(rec, classification, reproject, targetSRID);
+			  numNamedEntities++;
+		  }
+	  }
+
 
-  
 	/**
 	 * Applies transformation according to the configuration settings.
 	 */
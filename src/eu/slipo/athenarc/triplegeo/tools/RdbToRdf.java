@@ -20,11 +20,6 @@ package eu.slipo.athenarc.triplegeo.tools;
 
 import java.sql.ResultSet;
 
-import org.geotools.factory.Hints;
-import org.geotools.referencing.CRS;
-import org.geotools.referencing.ReferencingFactoryFinder;
-import org.opengis.referencing.crs.CRSAuthorityFactory;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
 
 import eu.slipo.athenarc.triplegeo.db.DB2DbConnector;
@@ -45,6 +40,7 @@ import eu.slipo.athenarc.triplegeo.utils.GraphConverter;
 import eu.slipo.athenarc.triplegeo.utils.RMLConverter;
 import eu.slipo.athenarc.triplegeo.utils.StreamConverter;
 import eu.slipo.athenarc.triplegeo.utils.Constants;
+import eu.slipo.athenarc.triplegeo.utils.TransformRegistry;
 
 /**
  * Entry point of the utility for extracting RDF triples from spatially-enabled DBMSs.
@@ -72,7 +68,8 @@ import eu.slipo.athenarc.triplegeo.utils.Constants;
  * Modified: 11/12/2017, added support on UTF-8 encoding in the result of RML conversion.
  * Modified: 14/12/2017, added support for ESRI personal geodatabases (Microsoft Access .mdb format).
  * Modified: 9/10/2019, supporting export to the registry also for RML mode
- * Last modified by: Kostas Patroumpas, 31/10/2019
+ * Modified: 16/10/2026; CRS transformation obtained from a registry shared by all converters
+ * Last modified by: Kostas Patroumpas, 16/10/2026
  */
 public class RdbToRdf {
 
@@ -86,10 +83,6 @@ public class RdbToRdf {
   static Classification classification;   //Classification hierarchy for assigning categories to features
   static String outputFile;               //Output RDF file
   
-  //Initialize a CRS factory for possible reprojections
-  private static final CRSAuthorityFactory crsFactory = ReferencingFactoryFinder
-	       .getCRSAuthorityFactory("EPSG", new Hints(Hints.FORCE_LONGITUDE_FIRST_AXIS_ORDER, Boolean.TRUE));
- 
   
   /**
    * Constructor for the transformation process from a spatially-enabled DBMS to RDF.
@@ -151,10 +144,7 @@ public class RdbToRdf {
       //Check if a coordinate transform is required for geometries
       if (currentConfig.targetCRS != null)
   	    try {
-  	        boolean lenient = true; // allow for some error due to different datums
-  	        CoordinateReferenceSystem sourceCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.sourceCRS);
-  	        CoordinateReferenceSystem targetCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.targetCRS);    
-  	        reproject = CRS.findMathTransform(sourceCRS, targetCRS, lenient);
+  	        reproject = TransformRegistry.getTransform(currentConfig.sourceCRS, currentConfig.targetCRS);
   	        
   		} catch (Exception e) {
   			ExceptionHandler.abort(e, "Error in CRS transformation (reprojection) of geometries.");      //Execution terminated abnormally
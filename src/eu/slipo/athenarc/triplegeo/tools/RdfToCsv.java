@@ -26,11 +26,6 @@ import java.util.List;
 
 import org.apache.jena.query.QuerySolution;
 import org.apache.jena.rdf.model.Literal;
-import org.geotools.factory.Hints;
-import org.geotools.referencing.CRS;
-import org.geotools.referencing.ReferencingFactoryFinder;
-import org.opengis.referencing.crs.CRSAuthorityFactory;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
 
 import com.vividsolutions.jts.geom.Geometry;
@@ -43,6 +38,7 @@ import eu.slipo.athenarc.triplegeo.utils.ReverseConfiguration;
 import eu.slipo.athenarc.triplegeo.utils.Constants;
 import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
 import eu.slipo.athenarc.triplegeo.utils.ReverseConverter;
+import eu.slipo.athenarc.triplegeo.utils.TransformRegistry;
 
 
 /**
@@ -59,7 +55,8 @@ import eu.slipo.athenarc.triplegeo.utils.ReverseConverter;
  * Created by: Kostas Patroumpas, 6/12/2017
  * Modified: 8/12/2017, added support for reprojection in another georeference system
  * Modified: 12/12/2017, fixed issue with string encodings; verified that UTF characters read and written correctly
- * Last modified: 12/7/2019
+ * Modified: 16/10/2026; CRS transformation obtained from a registry shared by all converters
+ * Last modified: 16/10/2026
  */
 public class RdfToCsv implements ReverseConverter {
 
@@ -77,10 +74,6 @@ public class RdfToCsv implements ReverseConverter {
 	  String attrGeom ;                             //Name of the geometry attribute in the resulting file
 	  Integer numRecs;
 	  
-	  //Initialize a CRS factory for possible reprojections
-	  private static final CRSAuthorityFactory crsFactory = ReferencingFactoryFinder
-		       .getCRSAuthorityFactory("EPSG", new Hints(Hints.FORCE_LONGITUDE_FIRST_AXIS_ORDER, Boolean.TRUE));
-		
 	  /**
 	   * Constructor for the reverse transformation process from RDF to CSV file.
 	   * @param config  Parameters for Reverse Transformation.
@@ -127,10 +120,7 @@ public class RdfToCsv implements ReverseConverter {
 	      //Check if a coordinate transform is required for geometries
 	      if (currentConfig.targetCRS != null)
 	  	    try {
-	  	        boolean lenient = true; // allow for some error due to different datums
-	  	        CoordinateReferenceSystem sourceCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.sourceCRS);
-	  	        CoordinateReferenceSystem targetCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.targetCRS);    
-	  	        reproject = CRS.findMathTransform(sourceCRS, targetCRS, lenient);
+	  	        reproject = TransformRegistry.getTransform(currentConfig.sourceCRS, currentConfig.targetCRS);
 	  	        
 	  	        //Needed for parsing original geometry in WTK representation
 	  	        GeometryFactory geomFactory = new GeometryFactory(new PrecisionModel(), sourceSRID);
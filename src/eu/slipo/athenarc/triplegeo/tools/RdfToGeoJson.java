@@ -27,14 +27,10 @@ import java.util.List;
 import org.apache.jena.query.QuerySolution;
 import org.apache.jena.rdf.model.Literal;
 import org.geotools.data.DataUtilities;
-import org.geotools.factory.Hints;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.geotools.geojson.feature.FeatureJSON;
-import org.geotools.referencing.CRS;
-import org.geotools.referencing.ReferencingFactoryFinder;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
-import org.opengis.referencing.crs.CRSAuthorityFactory;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
 
@@ -48,6 +44,7 @@ import eu.slipo.athenarc.triplegeo.utils.Constants;
 import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
 import eu.slipo.athenarc.triplegeo.utils.ReverseConfiguration;
 import eu.slipo.athenarc.triplegeo.utils.ReverseConverter;
+import eu.slipo.athenarc.triplegeo.utils.TransformRegistry;
 
 /**
  * Main entry point of the utility for reconverting triples from a RDF graph into a GeoJson file.
@@ -60,7 +57,8 @@ import eu.slipo.athenarc.triplegeo.utils.ReverseConverter;
 
 /* DEVELOPMENT HISTORY
  * Created by: Kostas Patroumpas, 12/7/2019
- * Last modified: 12/7/2019
+ * Modified: 16/10/2026; CRS transformation obtained from a registry shared by all converters
+ * Last modified: 16/10/2026
  */
 public class RdfToGeoJson implements ReverseConverter {
 
@@ -81,10 +79,6 @@ public class RdfToGeoJson implements ReverseConverter {
 	  String attrGeom;                                 //Name of the geometry attribute in the resulting file
 	  int numRecs;
 	  
-	  //Initialize a CRS factory for possible reprojections
-	  private static final CRSAuthorityFactory crsFactory = ReferencingFactoryFinder
-		       .getCRSAuthorityFactory("EPSG", new Hints(Hints.FORCE_LONGITUDE_FIRST_AXIS_ORDER, Boolean.TRUE));
-		
 
 	  /**
 	   * Constructor for the reverse transformation process from RDF to GeoJson.
@@ -123,10 +117,8 @@ public class RdfToGeoJson implements ReverseConverter {
 	      //CAUTION! Reprojection to any valid CRS is supported, although the GeoJson standard assumes WGS84 georeference for features.
 	      if (currentConfig.targetCRS != null)
 	  	    try {
-	  	        boolean lenient = true; // allow for some error due to different datums
-	  	        CoordinateReferenceSystem sourceCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.sourceCRS);
-	  	        CoordinateReferenceSystem targetCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.targetCRS);    
-	  	        reproject = CRS.findMathTransform(sourceCRS, targetCRS, lenient);
+	  	        reproject = TransformRegistry.getTransform(currentConfig.sourceCRS, currentConfig.targetCRS);
+	  	        CoordinateReferenceSystem targetCRS = TransformRegistry.getCRS(currentConfig.targetCRS);
 	  	        
 		        //If specified, write the CRS to the header of the output file
 	  	        writer.write("\"crs\": ");
@@ -36,15 +36,11 @@ import org.geotools.data.shapefile.ShapefileDataStoreFactory;
 import org.geotools.data.simple.SimpleFeatureCollection;
 import org.geotools.data.simple.SimpleFeatureSource;
 import org.geotools.data.simple.SimpleFeatureStore;
-import org.geotools.factory.Hints;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.geotools.referencing.CRS;
-import org.geotools.referencing.ReferencingFactoryFinder;
 import org.geotools.referencing.crs.DefaultGeographicCRS;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
-import org.opengis.referencing.crs.CRSAuthorityFactory;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
 
 import com.vividsolutions.jts.geom.Geometry;
@@ -57,6 +53,7 @@ import eu.slipo.athenarc.triplegeo.utils.ReverseConfiguration;
 import eu.slipo.athenarc.triplegeo.utils.Constants;
 import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
 import eu.slipo.athenarc.triplegeo.utils.ReverseConverter;
+import eu.slipo.athenarc.triplegeo.utils.TransformRegistry;
 
 
 /**
@@ -76,7 +73,8 @@ import eu.slipo.athenarc.triplegeo.utils.ReverseConverter;
  * Modified: 12/12/2017, fixed issue with string encodings; verified that UTF characters read and written correctly
  * Modified: 8/11/2018, included support for also exporting URI resources in attribute values
  * Modified: 1/3/2019, changed method for writing to the shapefile by removing deprecated dependencies
- * Last modified: 12/7/2019
+ * Modified: 16/10/2026; CRS transformation obtained from a registry shared by all converters
+ * Last modified: 16/10/2026
  */
 public class RdfToShp implements ReverseConverter {
 
@@ -99,10 +97,6 @@ public class RdfToShp implements ReverseConverter {
 	  Transaction transaction;
 	  int numRecs;
 	  
-	  //Initialize a CRS factory for possible reprojections
-	  private static final CRSAuthorityFactory crsFactory = ReferencingFactoryFinder
-		       .getCRSAuthorityFactory("EPSG", new Hints(Hints.FORCE_LONGITUDE_FIRST_AXIS_ORDER, Boolean.TRUE));
-		
 
 	  /**
 	   * Constructor for the reverse transformation process from RDF to ESRI shapefile.
@@ -139,10 +133,7 @@ public class RdfToShp implements ReverseConverter {
 	      //Check if a coordinate transform is required for geometries
 	      if (currentConfig.targetCRS != null)
 	  	    try {
-	  	        boolean lenient = true; // allow for some error due to different datums
-	  	        CoordinateReferenceSystem sourceCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.sourceCRS);
-	  	        CoordinateReferenceSystem targetCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.targetCRS);    
-	  	        reproject = CRS.findMathTransform(sourceCRS, targetCRS, lenient);
+	  	        reproject = TransformRegistry.getTransform(currentConfig.sourceCRS, currentConfig.targetCRS);
 	  	        
 	  	        //Needed for parsing original geometry in WTK representation
 	  	        GeometryFactory geomFactory = new GeometryFactory(new PrecisionModel(), sourceSRID);
@@ -27,14 +27,13 @@ import java.util.Map;
 import org.geotools.data.DataStore;
 import org.geotools.data.DataStoreFinder;
 import org.geotools.data.FeatureSource;
-import org.geotools.factory.Hints;
 import org.geotools.feature.FeatureIterator;
 import org.geotools.referencing.CRS;
-import org.geotools.referencing.ReferencingFactoryFinder;
-import org.opengis.referencing.crs.CRSAuthorityFactory;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.referencing.operation.MathTransform;
 
+import eu.slipo.athenarc.triplegeo.partitioning.FileRange;
+import eu.slipo.athenarc.triplegeo.partitioning.ShpRangeIterator;
 import eu.slipo.athenarc.triplegeo.utils.Configuration;
 import eu.slipo.athenarc.triplegeo.utils.Assistant;
 import eu.slipo.athenarc.triplegeo.utils.Classification;
@@ -43,6 +42,7 @@ import eu.slipo.athenarc.triplegeo.utils.ExceptionHandler;
 import eu.slipo.athenarc.triplegeo.utils.GraphConverter;
 import eu.slipo.athenarc.triplegeo.utils.RMLConverter;
 import eu.slipo.athenarc.triplegeo.utils.StreamConverter;
+import eu.slipo.athenarc.triplegeo.utils.TransformRegistry;
 
 
 /**
@@ -61,7 +61,9 @@ import eu.slipo.athenarc.triplegeo.utils.StreamConverter;
  * Modified: 12/7/2018, checking availability of basic shapefile components before starting any processing
  * Modified: 19/4/2019, included support for spatial filtering over the input shapefile
  * Modified: 9/10/2019, supporting export to the registry also for RML mode
- * Last modified by: Kostas Patroumpas, 9/10/2019
+ * Modified: 16/10/2026, reading a virtual partition (range of records) directly from the original shapefile
+ * Modified: 16/10/2026; CRS transformation obtained from a registry shared by all converters
+ * Last modified by: Kostas Patroumpas, 16/10/2026
  */
 public class ShpToRdf {
 	
@@ -75,11 +77,8 @@ public class ShpToRdf {
 	  String inputFile;                          //Input shapefile
 	  String outputFile;                         //Output RDF file
 	  DataStore dataStore = null;                //Data store used for accessing the shapefile
+	  FileRange range = null;                    //Virtual partition (range of records) of the input shapefile (if applicable)
 	  
-	  //Initialize a CRS factory for possible reprojections
-	  private static final CRSAuthorityFactory crsFactory = ReferencingFactoryFinder
-		       .getCRSAuthorityFactory("EPSG", new Hints(Hints.FORCE_LONGITUDE_FIRST_AXIS_ORDER, Boolean.TRUE));
-  
 	  /**
 	   * Constructor for the transformation process from ESRI shapefile to RDF.
 	   * @param config  Parameters to configure the transformation.
@@ -104,10 +103,7 @@ public class ShpToRdf {
 	      if (currentConfig.targetCRS != null) 
 	      {
 	  	    try {
-	  	        boolean lenient = true; // allow for some error due to different datums
-	  	        CoordinateReferenceSystem sourceCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.sourceCRS);
-	  	        CoordinateReferenceSystem targetCRS = crsFactory.createCoordinateReferenceSystem(currentConfig.targetCRS);    
-	  	        reproject = CRS.findMathTransform(sourceCRS, targetCRS, lenient);  	        
+	  	        reproject = TransformRegistry.getTransform(currentConfig.sourceCRS, currentConfig.targetCRS);
 	  		} catch (Exception e) {
 	  			ExceptionHandler.abort(e, "Error in CRS transformation (reprojection) of geometries.");      //Execution terminated abnormally
 	  		}
@@ -125,6 +121,23 @@ public class ShpToRdf {
 		      currentConfig.defaultLang = "en";
 		  }	  
 	 }
+	  
+	  
+	  /**
+	   * Constructor for the transformation process of a virtual partition of an ESRI shapefile to RDF.
+	   * @param config  Parameters to configure the transformation.
+	   * @param classific  Instantiation of the classification scheme that assigns categories to input features.
+	   * @param range   Range of records of the partition over the original input shapefile.
+	   * @param outFile  Path to the output file that collects RDF triples.
+	   * @param sourceSRID  Spatial reference system (EPSG code) of the input shapefile.
+	   * @param targetSRID Spatial reference system (EPSG code) of geometries in the output RDF triples.
+	   * @throws ClassNotFoundException
+	   */
+	  public ShpToRdf(Configuration config, Classification classific, FileRange range, String outFile, int sourceSRID, int targetSRID) throws ClassNotFoundException {
+		  
+		  this(config, classific, range.getPath(), outFile, sourceSRID, targetSRID);
+		  this.range = range;
+	  }
 	
 	  
    /**
@@ -210,6 +223,10 @@ public class ShpToRdf {
 		    		}
 		    	} 
 	    	
+		    	//In case of a virtual partition, iterate only over its range of records
+		    	if (range != null)
+		    		return new ShpRangeIterator(file, (SimpleFeatureType) featureSource.getSchema(), range, currentConfig.encoding);
+		    	
 		    	return featureSource.getFeatures().features();    //Actually returning an iterator over the feature collection
 		    }
 	    } catch (Exception e) {
@@ -21,20 +21,21 @@ package eu.slipo.athenarc.triplegeo.utils;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.sql.Blob;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
@@ -61,10 +62,8 @@ import javax.xml.transform.stream.StreamSource;
 import org.apache.commons.io.FilenameUtils;
 import org.geotools.geometry.jts.JTS;
 import org.geotools.geometry.jts.JTSFactoryFinder;
-import org.geotools.referencing.CRS;
 import org.opengis.geometry.MismatchedDimensionException;
 import org.opengis.referencing.FactoryException;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.TransformException;
 
@@ -108,7 +107,15 @@ import eu.slipo.athenarc.triplegeo.expression.ExprResolver;
  * Modified: 18/4/2019; added support for topological filtering of geometries; currently based on spatial containment in a user-specified geometry
  * Modified: 14/6/2019; support for GeoHash strings encoding (centroids of) geometries
  * Modified: 4/7/2019; added built-in function to support date format conversions
- * Last modified by: Kostas Patroumpas, 18/10/2019
+ * Modified: 16/10/2026; serial numbers can be shared among assistants of concurrent workers
+ * Modified: 16/10/2026; geometric built-in functions and spatial filter also applicable directly over geometries (without WKT parsing)
+ * Modified: 16/10/2026; spatial filter over prepared geometries of one or more regions; points given by coordinates are checked without creating geometries
+ * Modified: 16/10/2026; transformations to WGS84 and to local metric projections obtained from a shared registry instead of being recreated per geometry
+ * Modified: 16/10/2026; name-based UUIDs generated with reusable per-thread digests; optionally with a faster non-cryptographic hash
+ * Modified: 16/10/2026; metadata may include extra sections of statistics reported by specific tools
+ * Modified: 16/10/2026; attributes referenced in the thematic filter can be obtained
+ * Modified: 16/10/2026; files merged according to their RDF serialization, without copying through a small buffer
+ * Last modified by: Kostas Patroumpas, 16/10/2026
  */
 
 public class Assistant {
@@ -117,7 +124,7 @@ public class Assistant {
 	public WKTReader wktReader = null;             //Parses a geometry in Well-Known Text format to a Geometry representation.
 	
 	private static Envelope mbr;                   	//Minimum Bounding Rectangle (in WGS84) of all geometries handled during a given transformation process
-	private static Geometry extent = null;         	//User-specified polygon to filter out input geometries outside of its extent
+	private static SpatialFilter extent = null;     	//User-specified region(s) to filter out input geometries outside of their extent
 	private static Expr logicalFilter = null;		//User-specified conditions (logical expressions) over thematic attributes
 	private static Configuration currentConfig;
 
@@ -125,6 +132,8 @@ public class Assistant {
 	
 	private AtomicLong numberGenerator = new AtomicLong(1L);    //Used to generate serial numbers, i.e., consecutive positive integers starting from 1
 	
+	private UUIDGenerator uuidGenerator = new UUIDGenerator(UUIDGenerator.MD5);    //Used to generate name-based UUIDs for URIs
+	
 	private SimpleDateFormat standardDateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");    //standard formatting for date values in triples
 	
 	private SimpleDateFormat gmtDateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");         //Used in time notifications
@@ -133,6 +142,8 @@ public class Assistant {
 	
 	private Transliterator latinTransliterator;
 	
+	private Map<String, Object> extraStatistics = new HashMap<String, Object>();    //Statistics reported by specific tools, e.g., on the use of indices
+	
 	/**
 	 * Constructor of the class without explicit declaration of configuration settings.
 	 */
@@ -150,6 +161,9 @@ public class Assistant {
 		
 		currentConfig = config;
 		
+		//Hash function used in name-based UUIDs
+		uuidGenerator = new UUIDGenerator(currentConfig.uuidHash);
+		
 		//Specify time zone in time notifications
 		gmtDateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
 
@@ -163,17 +177,9 @@ public class Assistant {
         String NORMALIZE = "NFD; [:Nonspacing Mark:] Remove; NFC";  //Used to remove accents from original strings before transliteration     		
         latinTransliterator = Transliterator.getInstance(LANG + ";" + NORMALIZE);
         
-		//Specify a spatial filter
-		if (currentConfig.spatialExtent != null)
-		{
-			GeometryFactory geometryFactory = JTSFactoryFinder.getGeometryFactory( null );
-			WKTReader reader = new WKTReader( geometryFactory );
-			try {
-				extent = reader.read(currentConfig.spatialExtent);       //E.g. a bounding box for Austria: "POLYGON((9.530749 46.3724535, 17.1607975 46.3724535, 17.1607975 49.0205255, 9.530749 49.0205255, 9.530749 46.3724535))");
-			} catch (ParseException e) {
-				ExceptionHandler.abort(e, "Spatial extent of filter specification is not a valid WKT geometry. Please check your configuration settings.");
-			}
-		}
+		//Specify a spatial filter; this is prepared only once and shared by all assistants
+		if ((currentConfig.spatialExtent != null) && (extent == null))
+			extent = createSpatialFilter(currentConfig.spatialExtent);
 		
 		//Specify a thematic filter for most geographical file formats (case for SHAPEFILE or GEOJSON is handled using native GeoTools filters)
 		if ((currentConfig.filterSQLCondition != null) && (!currentConfig.inputFormat.trim().contains("DBMS")) && (!currentConfig.inputFormat.trim().contains("SHAPEFILE")) && (!currentConfig.inputFormat.trim().contains("GEOJSON")))
@@ -183,6 +189,42 @@ public class Assistant {
 		}
 	}
 	
+	/**
+	 * Prepares a spatial filter from the user-specified region(s).
+	 * @param spec  Either a WKT geometry, or several WKT geometries separated by ';', or the path to a text file with one WKT geometry per line.
+	 * @return  A spatial filter over the specified regions.
+	 */
+	private SpatialFilter createSpatialFilter(String spec) {
+
+		GeometryFactory geometryFactory = JTSFactoryFinder.getGeometryFactory( null );
+		WKTReader reader = new WKTReader( geometryFactory );
+		List<Geometry> regions = new ArrayList<Geometry>();
+		try {
+			List<String> wkts;
+			if (new File(spec).isFile())                                   //E.g., boundaries of administrative areas exported into a file
+				wkts = Files.readAllLines(Paths.get(spec), StandardCharsets.UTF_8);
+			else
+				wkts = Arrays.asList(spec.split(";"));
+			for (String wkt: wkts)
+			{
+				if (wkt.trim().isEmpty())
+					continue;
+				Geometry g = reader.read(wkt.trim());       //E.g. a bounding box for Austria: "POLYGON((9.530749 46.3724535, 17.1607975 46.3724535, 17.1607975 49.0205255, 9.530749 49.0205255, 9.530749 46.3724535))");
+				if (!g.isEmpty())
+					regions.add(g);
+			}
+		} catch (ParseException e) {
+			ExceptionHandler.abort(e, "Spatial extent of filter specification is not a valid WKT geometry. Please check your configuration settings.");
+		} catch (IOException e) {
+			ExceptionHandler.abort(e, "Cannot read regions of spatial filter from file " + spec + ".");
+		}
+
+		if (regions.isEmpty())
+			ExceptionHandler.abort(new IllegalArgumentException(), "No region specified for the spatial filter. Please check your configuration settings.");
+
+		return new SpatialFilter(regions);
+	}
+
 	/**
 	 * Determines the serialization mode in the output RDF triples. Applicable in the RML transformation mode.
 	 * @param serialization  A string with the user-specified serialization.
@@ -377,6 +419,17 @@ public class Assistant {
 	}
 	
 	
+	/**
+	 * Adds a section of statistics to be included in the metadata reported upon termination of the transformation process.
+	 * @param section  The title of the section.
+	 * @param stats  Statistics collected during transformation.
+	 */
+	public void addStatistics(String section, Map<String, Object> stats) {
+		
+		if ((stats != null) && (!stats.isEmpty()))
+			extraStatistics.put(section, stats);
+	}
+	
 	/**
 	 * Report statistics upon termination of the transformation process.
 	 * @param dt  The clock time (in milliseconds) elapsed since the start of transformation process.
@@ -436,6 +489,7 @@ public class Assistant {
 		 allStats.put("Execution Metadata", execStatistics);
 		 allStats.put("MBR of transformed geometries (WGS84)", mapMBR);
 		 allStats.put("Attribute Statistics", new TreeMap<String, Integer>(attrStatistics));     //Sort collection by attribute name
+		 allStats.putAll(extraStatistics);
 		 
 	    //Convert metadata to JSON and write to a file
 	    try {
@@ -499,6 +553,7 @@ public class Assistant {
 		 allStats.put("Execution Metadata", execStatistics);
 		 allStats.put("MBR of transformed geometries (WGS84)", mapMBR);
 		 allStats.put("Attribute Statistics", new TreeMap<String, Integer>(attrStatistics));     //Sort collection by attribute name
+		 allStats.putAll(extraStatistics);
 		 
 	    //Convert metadata to JSON and write to a file
 	    try {
@@ -695,16 +750,24 @@ public class Assistant {
 	 */
 	public Geometry geomTransformWGS84(String wkt, int srid) {
 		
-	    WKTReader wktReader = new WKTReader();
-	    Geometry g = null;
+		return geomTransformWGS84(WKT2Geometry(wkt), srid);
+	}
+	
+	/**
+	 * Reprojects a given geometry into the WGS84 (lon/lat) coordinate reference system
+	 * @param g  The input geometry
+	 * @param srid  EPSG code of the coordinate reference system (CRS) of the geometry
+	 * @return  Geometry reprojected into WG84 system
+	 */
+	public Geometry geomTransformWGS84(Geometry g, int srid) {
+		
+		if (g == null)
+			return null;
         try {
-        	g = wktReader.read(wkt);
         	if (srid != 4326)                   //In case that geometry is NOT georeferenced in WGS84, ...
         	{                                   //... it should be transformed in order to calculate its lon/lat coordinates
-        		CoordinateReferenceSystem origCRS = CRS.decode("EPSG:" + srid);    //The CRS system of the original geometry
-        		CoordinateReferenceSystem finalCRS = CRS.decode("EPSG:4326");      //CRS for WGS84
-        		//Define a MathTransform object and apply it
-        		MathTransform transform = CRS.findMathTransform(origCRS, finalCRS);
+        		//Obtain the (cached) MathTransform from the CRS of the original geometry to WGS84 and apply it
+        		MathTransform transform = TransformRegistry.getTransform(srid, 4326);
         		g = JTS.transform(g, transform);
         	}
         }
@@ -723,15 +786,14 @@ public class Assistant {
 	 */
 	public Geometry geomFlatTransform(Geometry g, int srid) {
 		
+		if ((g == null) || (g.isEmpty()))
+			return null;
+		
 		Point centroid = g.getCentroid();
 	    try {	    	
 	      //Convert geometry to a flat Cartesian plane using GeoTools auto projection (assuming the shape is small enough to minimize error)
-	      String code = "AUTO2:42001," + centroid.getX() + "," + centroid.getY();
-	      CoordinateReferenceSystem auto = CRS.decode(code, true);
-//	      System.out.println("Coordinate system units: " + auto.getCoordinateSystem().getAxis(0).getUnit().toString());
-	  	
-	      CoordinateReferenceSystem targetCRS = CRS.decode("EPSG:" + srid);  
-	      MathTransform transform = CRS.findMathTransform(targetCRS, auto);
+	      //The (cached) projection is specific to the UTM zone of the centroid
+	      MathTransform transform = TransformRegistry.getLocalMetricTransform(srid, centroid.getX(), centroid.getY());
 	      Geometry gProjected = JTS.transform(g, transform);      
       
 	      return gProjected;		                    //Projected geometry
@@ -941,7 +1003,17 @@ public class Assistant {
 	 */
 	public double getArea(String polygonWKT, int srid) {
 			
-		Geometry g = WKT2Geometry(polygonWKT);
+		return getArea(WKT2Geometry(polygonWKT), srid);
+	}
+	
+	/** 
+	 * Built-in function that returns the area of a polygon geometry.
+	 * @param g  The polygon geometry
+	 * @param srid  EPSG code of the coordinate reference system (CRS) of the geometry
+	 * @return  calculated area in square meters (NOT in the units of the CRS of the geometry)
+	 */
+	public double getArea(Geometry g, int srid) {
+			
 		Geometry gProjected = geomFlatTransform(g, srid);     //Geometry projected to a flat Cartesian plane
 		if (gProjected != null)
 			return gProjected.getArea();		              //Calculate the area of the projected (multi)polygon in SQUARE METERS
@@ -968,7 +1040,17 @@ public class Assistant {
 	 */	
 	public double getLength(String wkt, int srid) {
 		
-		Geometry g = WKT2Geometry(wkt);
+		return getLength(WKT2Geometry(wkt), srid);
+	}
+	
+	/** 
+	 * Built-in function that returns the length of a linestring or the perimeter of a polygon geometry.
+	 * @param g  The linestring or polygon geometry
+	 * @param srid  EPSG code of the coordinate reference system (CRS) of the geometry
+	 * @return  calculated length/perimeter in meters (NOT in the units of the CRS of the geometry)
+	 */	
+	public double getLength(Geometry g, int srid) {
+		
 		Geometry gProjected = geomFlatTransform(g, srid);  	//Geometry projected to a flat Cartesian plane
 		if (gProjected != null)
 			return gProjected.getLength();					//Calculate the length of the given (multi)linestring or the perimeter of the given (multi)polygon in METERS
@@ -984,7 +1066,18 @@ public class Assistant {
 	 */
 	public double[] getLonLatCoords(String wkt, int srid) {
 
-	    Geometry g = geomTransformWGS84(wkt, srid);
+		return getLonLatCoords(WKT2Geometry(wkt), srid);
+	}
+	
+	/** 
+	 * Built-in function that returns a pair of lon/lat coordinates (in WGS84) of a geometry.
+	 * @param geom   The input geometry
+	 * @param srid   the EPSG code of the CRS of this geometry 
+	 * @return  An array with the pair of lon/lat coordinates
+	 */
+	public double[] getLonLatCoords(Geometry geom, int srid) {
+
+	    Geometry g = geomTransformWGS84(geom, srid);
 	    if (g != null)
 	    {	
         	//Update the MBR of all geometries processed so far
@@ -1058,18 +1151,60 @@ public class Assistant {
 	public boolean filterContains(String wkt) {
 
 		//Apply topological filter and skip transformation of non-qualifying objects			
-		if ((extent != null) && (!extent.contains(this.WKT2Geometry(wkt))))    //Polygonal extent must have been specified as a valid WKT in user configuration
+		if ((extent != null) && (!extent.contains(this.WKT2Geometry(wkt))))    //Polygonal extent(s) must have been specified as valid WKT in user configuration
+		    return false;
+
+		return true;	
+	}
+	
+	/**
+	 * Specify a topological filter (CONTAINS) against input geometries in order to exclude transformation of those outside a user-specified spatial extent.
+	 * @param g  Input geometry
+	 * @return True if geometry qualifies; False if geometry should be excluded from transformation.
+	 */
+	public boolean filterContains(Geometry g) {
+
+		//Apply topological filter and skip transformation of non-qualifying objects			
+		if ((extent != null) && (!extent.contains(g)))    //Polygonal extent(s) must have been specified as valid WKT in user configuration
 		    return false;
 
 		return true;	
 	}
 	
+	/**
+	 * Specify a topological filter (CONTAINS) against a point given by its coordinates, without creating a geometry for it.
+	 * @param x  X-ordinate (or longitude) of the point
+	 * @param y  Y-ordinate (or latitude) of the point
+	 * @return True if point qualifies; False if point should be excluded from transformation.
+	 */
+	public boolean filterContains(double x, double y) {
+		
+		return ((extent == null) || (extent.contains(x, y)));
+	}
+	
+	/**
+	 * Specify a topological filter (CONTAINS) against a point given by the string values of its coordinates (e.g., in a CSV record), without creating a geometry for it.
+	 * @param x  X-ordinate (or longitude) of the point
+	 * @param y  Y-ordinate (or latitude) of the point
+	 * @return True if point qualifies; False if point should be excluded from transformation, including the case that its coordinates are not numeric.
+	 */
+	public boolean filterContains(String x, String y) {
+		
+		if (extent == null)
+			return true;
+		try {
+			return extent.contains(Double.parseDouble(x), Double.parseDouble(y));
+		} catch (NumberFormatException e) {
+			return false;             //Like invalid WKT geometries, such points cannot be found within the spatial extent
+		}
+	}
+	
 	/**
 	 * Returns the geometry that represents the spatial filter that is being applied to select features from the input dataset.
 	 * @return Geometry representing the spatial filter.
 	 */
 	public Geometry getFilterExtent() {
-		return extent;
+		return (extent != null) ? extent.getGeometry() : null;
 	}
 
 	/**
@@ -1083,27 +1218,26 @@ public class Assistant {
 		return false;                  //No filter specified, so this record should not be excluded from transformation
 	}
 	
+	/**
+	 * Provides the names of thematic attributes referenced in the user-specified logical expression (if any).
+	 * @return  A (possibly empty) set of attribute names.
+	 */
+	public Set<String> getThematicFilterAttributes() {
+		Set<String> attrs = new HashSet<String>();
+		if (logicalFilter != null)
+			logicalFilter.collectAttributes(attrs);
+		return attrs;
+	}
+	
 	/** 
-	 * Merges several input files into a single output file.
+	 * Merges several input files into a single output file. Input files are kept intact.
 	 * @param inputFiles  List of the paths to the input files
-	 * $param outputFile Path to merged output file
+	 * @param outputFile Path to merged output file; its extension specifies the RDF serialization of all files.
 	 */	
 	public void mergeFiles(List<String> inputFiles, String outputFile) {
 		
-		OutputStream out;
-		InputStream in;
 		try {
-			out = new FileOutputStream(outputFile);
-			byte[] buf = new byte[1000];
-		    for (String file : inputFiles) {
-		        in = new FileInputStream(file);
-		        int b = 0;
-		        while ( (b = in.read(buf)) >= 0) {
-		            out.write(buf, 0, b);
-		            out.flush();
-		        }
-		    }
-		    out.close();
+			OutputMerger.merge(inputFiles, outputFile, false);
 		} catch (Exception e) {
 			ExceptionHandler.abort(e, "Output files were not merged.");
 		}
@@ -1168,6 +1302,14 @@ public class Assistant {
     public long getNextSerial() {
         return numberGenerator.getAndIncrement();
     }
+
+	/**
+	 * Shares the generator of serial numbers with another assistant, so that intermediate identifiers remain unique when several workers transform the same input.
+	 * @param other  The assistant whose serial numbers will be shared.
+	 */
+    public void shareSerialGenerator(Assistant other) {
+        numberGenerator = other.numberGenerator;
+    }
     
 	/**
 	 * Built-in function that provides a UUID (Universally Unique Identifier) that represents a 128-bit long value to be used in the URI of a transformed feature.
@@ -1177,23 +1319,14 @@ public class Assistant {
 	 * @return The auto-generated UUID based on the concatenation of the feature source and the identifier.
 	 */
 	public String getUUID(String featureSource, String id) {
-			
-		UUID uuid = null;
 
 		//Auto-generate a serial number in case that no unique identifier is available for the original feature
 		//CAUTION! This serial number is neither retained not emitted in the resulting triples
 		if (id == null)
 			id = Long.toString(getNextSerial());
 
-		//UUIDs generated by hashing over the concatenation of feature source name and the identifier
-		try {
-		    byte[] bytes = (featureSource + id).getBytes("UTF-8");
-			uuid = UUID.nameUUIDFromBytes(bytes);
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-
-		return uuid.toString();	
+		//UUIDs generated by hashing over the concatenation of feature source name and the identifier; the feature source is encoded once as a common prefix
+		return uuidGenerator.nameUUID(String.valueOf(featureSource), id);
 	}
 		
 	/**
@@ -1203,17 +1336,8 @@ public class Assistant {
 	 * @return The auto-generated UUID.
 	 */
 	public String getUUID(String id) {
-			
-		UUID uuid = null;
 
-		try {
-		    byte[] bytes = id.getBytes("UTF-8");     //UUIDs generated by hashing over the original identifier
-			uuid = UUID.nameUUIDFromBytes(bytes);
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-		 
-		return uuid.toString();	
+		return uuidGenerator.nameUUID(id);     //UUIDs generated by hashing over the original identifier
 	}
 
 	/**
@@ -37,7 +37,18 @@ import java.util.logging.Level;
  * Initially implemented for geometry2rdf utility (source: https://github.com/boricles/geometry2rdf/tree/master/Geometry2RDF)
  * Modified by: Kostas Patroumpas, 8/2/2013; adjusted to TripleGeo functionality
  * Modified by: Georgios Mandilaras, 28/12/2018; added parameterization for executions over Spark
- * Last modified: 26/6/2019
+ * Modified: 16/10/2026; added parameters for concurrent workers over a single input file in STREAM mode
+ * Modified: 16/10/2026; added parameter for extensions with user-supplied built-in functions
+ * Modified: 16/10/2026; added parameter for the size of the cache of RDF nodes with repeated values
+ * Modified: 16/10/2026; added parameter for the hash function used in name-based UUIDs
+ * Modified: 16/10/2026; added parameter for the number of threads decoding OSM PBF files
+ * Modified: 16/10/2026; added parameter for the directory of persistent indices over OSM PBF files
+ * Modified: 16/10/2026; added parameter for the memory budget of indices over referenced OSM ways and relations
+ * Modified: 16/10/2026; added parameters for the state of OSM data and the output of OSM change files
+ * Modified: 16/10/2026; added parameters bounding the number of concurrent transformation tasks
+ * Modified: 16/10/2026; added parameter for merging the outputs of partitions into a single file
+ * Modified: 16/10/2026; added parameter for transforming only OSM elements that match the OSM filters in OSM XML files
+ * Last modified: 16/10/2026
  */
 public final class Configuration {
 
@@ -54,7 +65,7 @@ public final class Configuration {
   public String mode;
 
   /**
-   * Format of input data. Supported formats: SHAPEFILE, DBMS, CSV, GPX, GEOJSON, XML, OSM.
+   * Format of input data. Supported formats: SHAPEFILE, DBMS, CSV, GPX, GEOJSON, XML, OSM, OSM_CHANGE.
    */
   public String inputFormat;
 
@@ -172,7 +183,7 @@ public final class Configuration {
   public String filterSQLCondition = null;
   
   /**
-   * Spatial filter to be applied on the input dataset.
+   * Spatial filter to be applied on the input dataset. Either a WKT geometry, or several WKT geometries separated by ';', or the path to a text file with one WKT geometry per line.
    */
   public String spatialExtent = null;
   
@@ -280,11 +291,87 @@ public final class Configuration {
    */
   public int partitions;
 
+  /**
+   * Specifies whether the number of partitions is derived automatically, as it is not given in the configuration (applicable to .CSV and .SHP inputs when running over JVM).
+   */
+  public boolean autoPartitions = false;
+
   /**
     * Spark parameter specifying the logging level. Values INFO, WARN, and ERROR are allowed.
     */
   public String spark_logger_level;
 
+  /**
+   * Number of worker threads that concurrently transform records of a single input file (applicable to STREAM mode).
+   * Default value is 1, i.e., records are read, transformed and written by a single thread. 
+   */
+  public int numWorkers = 1;
+
+  /**
+   * Specifies whether triples are written in the order of their respective input records when multiple workers are employed in STREAM mode (default: true).
+   */
+  public boolean preserveOrder = true;
+
+  /**
+   * Maximum number of input files (or partitions) transformed concurrently when running over JVM. By default (0), this is determined from the available processors and the memory available per task.
+   */
+  public int maxTasks = 0;
+
+  /**
+   * Memory (in MB) assumed to be needed by each concurrent transformation task; along with the maximum JVM heap, this bounds the number of concurrent tasks (default: 512).
+   */
+  public int taskMemory = 512;
+
+  /**
+   * Specifies whether the output files of partitions are merged into a single output file per input file (default: true).
+   */
+  public boolean mergeOutputs = true;
+
+  /**
+   * Number of threads that concurrently decompress and decode blocks of an OSM PBF file. By default, as many as the available processors.
+   */
+  public int numDecoders = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Directory holding persistent indices over OSM PBF files, reused across transformations of the same file. If not specified, indices are built from scratch in every transformation.
+   */
+  public String osmIndexDir = null;
+
+  /**
+   * Memory (in MB) available for geometries of OSM ways and relations referenced by relations; beyond this budget, the least recently used geometries are spilled to disk. By default, a fifth of the maximum JVM heap.
+   */
+  public int osmIndexBudget = 0;
+
+  /**
+   * Specifies whether only OSM elements with a tag specified in the OSM filters are transformed from OSM XML files, as for OSM PBF files (default: false, i.e., all OSM elements are transformed).
+   */
+  public boolean osmFilteredOnly = false;
+
+  /**
+   * Directory holding the state of OSM data (node locations, members of ways and relations, and triples issued per OSM element), against which OSM change files are applied. Mandatory for OSM_CHANGE input; the state is initialized from a full OSM file if the directory does not exist.
+   */
+  public String osmStateDir = null;
+
+  /**
+   * Output of OSM change files: DELTA for a pair of N-Triples files with the triples to be deleted and inserted; SPARQL for a single SPARQL Update file.
+   */
+  public String osmChangeOutput = "DELTA";
+
+  /**
+   * Comma-separated names of classes (implementing FunctionRegistry.Extension) that register user-supplied built-in functions to be used in YML mappings.
+   */
+  public String functionExtensions = null;
+
+  /**
+   * Maximum number of object URIs and literals with values repeated in many features (e.g., categories, name of the data source) cached by each triple generator. A zero value disables such caching.
+   */
+  public int nodeCacheSize = 10000;
+
+  /**
+   * Hash function used to generate UUIDs in URIs of features and categories: MD5 (default; same UUIDs as in previous transformations) or MURMUR3 (faster, but resulting in different UUIDs).
+   */
+  public String uuidHash = UUIDGenerator.MD5;
+
  
   /**
    * Constructor of a Configuration object.
@@ -519,7 +606,10 @@ public final class Configuration {
         partitions = Integer.parseInt(properties.getProperty("partitions"));
     }
     else 
-    	partitions = 1;         //Default: A single input file (i.e., no partitioning)
+    {
+    	partitions = 1;         //Default: A single input file (i.e., no partitioning), ...
+    	autoPartitions = true;  //... unless derived from the size of the input when running over JVM
+    }
 
     //Level of Spark logging for performance; only used when executing transformations over Spark
     if (!myAssistant.isNullOrEmpty(properties.getProperty("spark_logger_level"))) {  
@@ -527,6 +617,113 @@ public final class Configuration {
     }
     else     
     	spark_logger_level = "WARN";
+
+    //Number of concurrent workers transforming records of a single input file; only used in STREAM mode
+    if (!myAssistant.isNullOrEmpty(properties.getProperty("numWorkers"))) {
+    	try {
+    		numWorkers = Integer.parseInt(properties.getProperty("numWorkers").trim());
+    		if (numWorkers < 1)
+    			numWorkers = 1;         //Apply the default value in case of invalid settings
+    	}
+    	catch(Exception e) {
+    		ExceptionHandler.abort(e, "Incorrect value set for the number of workers. Please specify a positive integer value in your configuration file.");
+    	}
+    }
+
+    //Whether the output of concurrent workers will retain the order of input records
+    if (!myAssistant.isNullOrEmpty(properties.getProperty("preserveOrder"))) {
+    	preserveOrder = Boolean.parseBoolean(properties.getProperty("preserveOrder").trim());
+    }
+
+    //Maximum number of concurrent transformation tasks over JVM
+    if (!myAssistant.isNullOrEmpty(properties.getProperty("maxTasks"))) {
+    	try {
+    		maxTasks = Integer.parseInt(properties.getProperty("maxTasks").trim());
+    		if (maxTasks < 0)
+    			maxTasks = 0;           //Apply the default value in case of invalid settings
+    	}
+    	catch(Exception e) {
+    		ExceptionHandler.abort(e, "Incorrect value set for the maximum number of concurrent tasks. Please specify a positive integer value in your configuration file.");
+    	}
+    }
+
+    //Merge the outputs of partitions into a single output file
+    if (!myAssistant.isNullOrEmpty(properties.getProperty("mergeOutputs"))) {
+    	mergeOutputs = Boolean.parseBoolean(properties.getProperty("mergeOutputs").trim());
+    }
+
+    //Memory assumed to be needed by each concurrent transformation task
+    if (!myAssistant.isNullOrEmpty(properties.getProperty("taskMemory"))) {
+    	try {
+    		taskMemory = Integer.parseInt(properties.getProperty("taskMemory").trim());
+    		if (taskMemory < 1)
+    			taskMemory = 512;       //Apply the default value in case of invalid settings
+    	}
+    	catch(Exception e) {
+    		ExceptionHandler.abort(e, "Incorrect value set for the memory of each concurrent task. Please specify a positive integer value (in MB) in your configuration file.");
+    	}
+    }
+
+    //Number of threads decoding blocks of OSM PBF files
+    if (!myAssistant.isNullOrEmpty(properties.getProperty("numDecoders"))) {
+    	try {
+    		numDecoders = Integer.parseInt(properties.getProperty("numDecoders").trim());
+    		if (numDecoders < 1)
+    			numDecoders = Runtime.getRuntime().availableProcessors();         //Apply the default value in case of invalid settings
+    	}
+    	catch(Exception e) {
+    		ExceptionHandler.abort(e, "Incorrect value set for the number of threads decoding OSM PBF files. Please specify a positive integer value in your configuration file.");
+    	}
+    }
+
+    //Directory of persistent indices over OSM PBF files
+    if (!myAssistant.isNullOrEmpty(properties.getProperty("osmIndexDir"))) {
+    	osmIndexDir = properties.getProperty("osmIndexDir").trim();
+    }
+
+    //Memory budget for indices over referenced OSM ways and relations
+    if (!myAssistant.isNullOrEmpty(properties.getProperty("osmIndexBudget"))) {
+    	try {
+    		osmIndexBudget = Integer.parseInt(properties.getProperty("osmIndexBudget").trim());
+    		if (osmIndexBudget < 0)
+    			osmIndexBudget = 0;                   //Apply the default value in case of invalid settings
+    	}
+    	catch(Exception e) {
+    		ExceptionHandler.abort(e, "Incorrect value set for the memory budget of OSM indices. Please specify a positive integer value (in MB) in your configuration file.");
+    	}
+    }
+
+    //Transform only OSM elements matching the OSM filters in OSM XML files
+    if (!myAssistant.isNullOrEmpty(properties.getProperty("osmFilteredOnly"))) {
+    	osmFilteredOnly = Boolean.parseBoolean(properties.getProperty("osmFilteredOnly").trim());
+    }
+
+    //Directory with the state of OSM data, against which OSM change files are applied
+    if (!myAssistant.isNullOrEmpty(properties.getProperty("osmStateDir"))) {
+    	osmStateDir = properties.getProperty("osmStateDir").trim();
+    }
+
+    //Output of OSM change files
+    if (!myAssistant.isNullOrEmpty(properties.getProperty("osmChangeOutput"))) {
+    	osmChangeOutput = properties.getProperty("osmChangeOutput").trim().toUpperCase();
+    	if ((!osmChangeOutput.equals("DELTA")) && (!osmChangeOutput.equals("SPARQL")))
+    		ExceptionHandler.abort(new IllegalArgumentException(osmChangeOutput), "Incorrect value set for the output of OSM change files. Please specify either DELTA or SPARQL in your configuration file.");
+    }
+
+    //Extensions with user-supplied built-in functions
+    if (!myAssistant.isNullOrEmpty(properties.getProperty("functionExtensions"))) {
+    	functionExtensions = properties.getProperty("functionExtensions").trim();
+    }
+
+    //Size of the cache of RDF nodes with repeated values
+    if (!myAssistant.isNullOrEmpty(properties.getProperty("nodeCacheSize"))) {
+    	nodeCacheSize = Integer.parseInt(properties.getProperty("nodeCacheSize").trim());
+    }
+
+    //Hash function used in name-based UUIDs
+    if (!myAssistant.isNullOrEmpty(properties.getProperty("uuidHash"))) {
+    	uuidHash = properties.getProperty("uuidHash").trim().toUpperCase();
+    }
   }
 
 }
\ No newline at end of file
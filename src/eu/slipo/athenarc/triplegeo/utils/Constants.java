@@ -28,7 +28,8 @@ package eu.slipo.athenarc.triplegeo.utils;
 /* DEVELOPMENT HISTORY
  * initially implemented for geometry2rdf utility (source: https://github.com/boricles/geometry2rdf/tree/master/Geometry2RDF)
  * Modified by: Kostas Patroumpas, 8/2/2013; adjusted to TripleGeo functionality
- * Last modified: 23/10/2019
+ * Modified: 16/10/2026; added default batch size for concurrent workers in STREAM mode
+ * Last modified: 16/10/2026
  */
 public class Constants {
 
@@ -58,6 +59,11 @@ public class Constants {
    */
   public static final String REGISTRY_CSV_HEADER = "URI" + "|" + "SOURCE_PROVIDER" + "|" + "SOURCE_POI_ID" + "|" + "POI_NAME" + "|" + "POI_CATEGORY" + "|" + "LONGITUDE" + "|" + "LATITUDE";          
 
+  /**
+   * Minimum number of records handed over to each worker at once, when transformation in STREAM mode employs multiple workers
+   */
+  public static final int PIPELINE_BATCH_SIZE = 500;
+
   //INDEX with available connectors to several DBMS
   /**
    * Index key of MSAccess database connector
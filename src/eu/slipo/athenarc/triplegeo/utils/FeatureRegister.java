@@ -22,6 +22,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import com.vividsolutions.jts.geom.Geometry;
+
 /**
  * Creates a record of attribute values concerning a feature that should be registered in the SLIPO Registry.
  * @author Kostas Patroumpas
@@ -33,7 +35,9 @@ import java.util.Map;
  * Modified: 24/1/2018, added export of basic attributes for SLIPO Registry
  * Modified: 12/2/2018, added on-the-fly calculation of lon/lat coordinates for SLIPO Registry
  * Modified: 3/7/2018; replaced any appearance of the delimiter character in string values
- * Last modified: 27/7/2018
+ * Modified: 16/10/2026; replication of registers for concurrent workers in STREAM mode
+ * Modified: 16/10/2026; lon/lat coordinates calculated directly over geometries (without WKT parsing)
+ * Last modified: 16/10/2026
  */
 
 public class FeatureRegister {
@@ -64,6 +68,17 @@ public class FeatureRegister {
 	    
 	 }
 
+	/**
+	 * Creates another FeatureRegister with the same attributes to register; used by concurrent workers, each collecting its own tuples.
+	 * @return  A new FeatureRegister with no tuples collected.
+	 */
+	public FeatureRegister replicate() {
+		
+		FeatureRegister r = new FeatureRegister(currentConfig);
+		r.attrKeys.addAll(attrKeys);
+		return r;
+	}
+
 	/**
 	 * Adds a column name in the collection of non-spatial (thematic) attributes to be used in creating the records for registration
 	 * @param key  The name of an attribute as specified in the input dataset
@@ -101,6 +116,19 @@ public class FeatureRegister {
 	   * @param targetSRID  The EPSG identifier of the Coordinate Reference System of the geometry
 	   */
 	  public void createTuple(String uri, Map<String,String> row, String wkt, int targetSRID) {
+		  
+		  createTuple(uri, row, (wkt != null) ? myAssistant.WKT2Geometry(wkt) : null, targetSRID);
+	  }
+	  
+	  
+	  /**
+	   * Creates a record of attributes (as a .CSV record) for a feature to be registered in the SLIPO Registry.
+	   * @param uri  The URI assigned to the feature
+	   * @param row  Attribute values for each thematic (non-spatial) attribute
+	   * @param geom  The geometry of the feature; null if not available  
+	   * @param targetSRID  The EPSG identifier of the Coordinate Reference System of the geometry
+	   */
+	  public void createTuple(String uri, Map<String,String> row, Geometry geom, int targetSRID) {
 
 		try {
 			rTuple = null;
@@ -114,9 +142,9 @@ public class FeatureRegister {
   	        }
 
   	        //Include lon/lat coordinates at WGS84 even if a geometry WKT is georeferenced in another SRID
-  	        if (wkt != null) 
+  	        if (geom != null) 
   	        { 
-  	        	coords = myAssistant.getLonLatCoords(wkt, targetSRID);
+  	        	coords = myAssistant.getLonLatCoords(geom, targetSRID);
 	  	        if (coords != null)
 	  	        	rTuple += Constants.REGISTRY_CSV_DELIMITER + coords[0] + Constants.REGISTRY_CSV_DELIMITER + coords[1];
 	  	        else
@@ -0,0 +1,309 @@
+/*
+ * @(#) FunctionRegistry.java  version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of built-in functions that may be invoked according to the user-specified mappings (e.g., generateWith specifications in the YML file).
+ * Each function is identified by its name and its number of arguments, and it is resolved into typed handles once; no reflection is involved when it gets applied on each feature.
+ * All public methods of the Assistant class are registered automatically. User-supplied functions can be plugged in through extensions specified in the configuration settings.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified: 16/10/2026
+ */
+
+public class FunctionRegistry {
+
+	/**
+	 * A built-in function applicable on the values of a feature.
+	 */
+	public interface BuiltInFunction {
+
+		/**
+		 * Applies the function.
+		 * @param assist  The Assistant of the calling generator of triples (e.g., for serial numbers or the configuration settings).
+		 * @param args  Argument values of the function; usually, values of attributes or string literals.
+		 * @return  The resulting value.
+		 * @throws Throwable
+		 */
+		public Object apply(Assistant assist, Object[] args) throws Throwable;
+	}
+
+	/**
+	 * Extension that registers user-supplied built-in functions. Implementations must provide a public constructor without arguments.
+	 */
+	public interface Extension {
+
+		/**
+		 * Registers functions by calling FunctionRegistry.register() for each one of them.
+		 */
+		public void register();
+	}
+
+	private static final Map<String, BuiltInFunction> functions = new ConcurrentHashMap<String, BuiltInFunction>();
+	private static final Set<String> extensions = new HashSet<String>();     //Class names of extensions already loaded
+
+	static {
+		registerAssistantMethods();
+	}
+
+	private FunctionRegistry() {
+	}
+
+
+	/**
+	 * A public method of the Assistant class, adapted to the generic type (Assistant, Object[]) -> Object.
+	 */
+	private static class Overload {
+
+		final Class<?>[] params;        //Declared parameter types
+		final Class<?>[] types;         //Declared parameter types, with primitive types replaced by their wrappers
+		final String signature;         //Declared parameter types, e.g., (String,int)
+		final MethodHandle handle;
+
+		Overload(Method m, MethodHandle handle) {
+
+			this.params = m.getParameterTypes();
+			this.types = new Class<?>[params.length];
+			for (int i = 0; i < params.length; i++)
+				this.types[i] = MethodType.methodType(params[i]).wrap().returnType();
+			this.signature = Arrays.stream(params).map(Class::getSimpleName).collect(Collectors.joining(",", "(", ")"));
+			this.handle = handle;
+		}
+
+		/**
+		 * Checks whether the given argument values are instances of the declared parameter types; null values are accepted for non-primitive types.
+		 */
+		boolean accepts(Object[] args) {
+
+			for (int i = 0; i < types.length; i++)
+			{
+				if ((args[i] == null) ? params[i].isPrimitive() : !types[i].isInstance(args[i]))
+					return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Converts string values given for numeric parameters into numbers.
+		 * @return  The converted argument values; null if some value cannot be converted.
+		 */
+		Object[] convert(Object[] args) {
+
+			Object[] res = Arrays.copyOf(args, args.length, Object[].class);     //Arguments may be given in an array of strings
+			for (int i = 0; i < types.length; i++)
+			{
+				if ((args[i] instanceof String) && (Number.class.isAssignableFrom(types[i])))
+				{
+					try {
+						BigDecimal num = new BigDecimal(((String) args[i]).trim());
+						if (types[i] == Integer.class)
+							res[i] = num.intValueExact();
+						else if (types[i] == Long.class)
+							res[i] = num.longValueExact();
+						else if (types[i] == Short.class)
+							res[i] = num.shortValueExact();
+						else if (types[i] == Byte.class)
+							res[i] = num.byteValueExact();
+						else if (types[i] == Double.class)
+							res[i] = num.doubleValue();
+						else if (types[i] == Float.class)
+							res[i] = num.floatValue();
+					} catch (NumberFormatException | ArithmeticException e) {
+						return null;
+					}
+				}
+			}
+			return accepts(res) ? res : null;
+		}
+	}
+
+
+	/**
+	 * Registers all public methods of the Assistant class as built-in functions, e.g., getUUID(DATA_SOURCE, osm_id) as "getUUID" with 2 arguments.
+	 * Methods sharing the same name and number of parameters (e.g., getArea(String,int) and getArea(Geometry,int)) are all kept under this function;
+	 * the one to invoke is chosen according to the types of the actual argument values on each call.
+	 */
+	private static void registerAssistantMethods() {
+
+		Map<String, List<Overload>> overloads = new HashMap<String, List<Overload>>();
+		MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		for (Method m: Assistant.class.getDeclaredMethods())
+		{
+			if ((!Modifier.isPublic(m.getModifiers())) || (m.isVarArgs()))
+				continue;
+			try {
+				MethodHandle h = lookup.unreflect(m);
+				if (Modifier.isStatic(m.getModifiers()))
+					h = MethodHandles.dropArguments(h, 0, Assistant.class);
+				if (m.getReturnType() == void.class)
+					h = MethodHandles.filterReturnValue(h, MethodHandles.constant(Object.class, null));
+				//Adapt to the generic type (Assistant, Object[]) -> Object; arguments are cast (or unboxed) to the declared parameter types
+				MethodHandle handle = h.asType(MethodType.genericMethodType(m.getParameterCount() + 1).changeParameterType(0, Assistant.class))
+									   .asSpreader(Object[].class, m.getParameterCount());
+				overloads.computeIfAbsent(key(m.getName(), m.getParameterCount()), k -> new ArrayList<Overload>()).add(new Overload(m, handle));
+			} catch (IllegalAccessException e) {
+				ExceptionHandler.warn(e, "Built-in function " + m.getName() + " cannot be registered.");
+			}
+		}
+
+		for (Map.Entry<String, List<Overload>> entry: overloads.entrySet())
+		{
+			//Methods with string parameters only come first, since values of attributes are given as strings; the rest follow in the order of their declared signatures
+			List<Overload> list = entry.getValue();
+			list.sort(Comparator.comparing((Overload o) -> !Arrays.stream(o.types).allMatch(t -> t == String.class)).thenComparing(o -> o.signature));
+			final Overload[] candidates = list.toArray(new Overload[list.size()]);
+			functions.put(entry.getKey(), (assist, args) -> dispatch(candidates, assist, args));
+		}
+	}
+
+
+	/**
+	 * Invokes the first method whose parameter types match the types of the given argument values.
+	 * If none matches, string values given for numeric parameters are converted into numbers, e.g., "4326" for the srid in getArea(String,int).
+	 * @param candidates  Methods with the same name and number of parameters, in order of preference.
+	 * @param assist  The Assistant of the calling generator of triples.
+	 * @param args  Argument values of the function.
+	 * @return  The resulting value.
+	 * @throws Throwable
+	 */
+	private static Object dispatch(Overload[] candidates, Assistant assist, Object[] args) throws Throwable {
+
+		for (Overload o: candidates)
+		{
+			if (o.accepts(args))
+				return (Object) o.handle.invokeExact(assist, args);
+		}
+		for (Overload o: candidates)
+		{
+			Object[] converted = o.convert(args);
+			if (converted != null)
+				return (Object) o.handle.invokeExact(assist, converted);
+		}
+		throw new NoSuchMethodException("None of " + Arrays.stream(candidates).map(o -> o.signature).collect(Collectors.joining(", ")) + " accepts the given values.");
+	}
+
+
+	/**
+	 * Registers a built-in function, possibly replacing an existing one with the same name and number of arguments.
+	 * @param name  Name of the function, as used in the mapping specifications.
+	 * @param arity  Number of arguments of the function.
+	 * @param f  The function.
+	 */
+	public static void register(String name, int arity, BuiltInFunction f) {
+		functions.put(key(name, arity), f);
+	}
+
+
+	/**
+	 * Loads extensions with user-supplied built-in functions; each extension is loaded only once.
+	 * @param classNames  Comma-separated names of classes implementing the Extension interface.
+	 */
+	public static synchronized void loadExtensions(String classNames) {
+
+		if (classNames == null)
+			return;
+		for (String className: classNames.split("\\s*,\\s*"))
+		{
+			if ((className.isEmpty()) || (!extensions.add(className)))
+				continue;
+			try {
+				((Extension) Class.forName(className).getDeclaredConstructor().newInstance()).register();
+			} catch (Exception e) {
+				ExceptionHandler.abort(e, "Cannot load extension " + className + " with built-in functions. Please check your configuration settings.");
+			}
+		}
+	}
+
+
+	/**
+	 * Resolves a built-in function by its name and number of arguments. This should be called once (e.g., when the mapping specifications are compiled).
+	 * @param name  Name of the function.
+	 * @param arity  Number of arguments given to the function.
+	 * @return  The function; execution terminates if no such function exists.
+	 */
+	public static BuiltInFunction resolve(String name, int arity) {
+
+		BuiltInFunction f = functions.get(key(name, arity));
+		if (f == null)
+			ExceptionHandler.abort(new NoSuchMethodException(name), "Built-in function " + name + " with " + arity + " argument(s) is not available. Please check your mapping specifications.");
+		return f;
+	}
+
+
+	/**
+	 * Looks up a built-in function by its name and number of arguments.
+	 * @param name  Name of the function.
+	 * @param arity  Number of arguments given to the function.
+	 * @return  The function; null if no such function exists.
+	 */
+	public static BuiltInFunction find(String name, int arity) {
+		return (name != null) ? functions.get(key(name, arity)) : null;
+	}
+
+
+	/**
+	 * Applies a built-in function. Any errors are reported, but do not terminate the transformation.
+	 * @param f  The function.
+	 * @param assist  The Assistant of the calling generator of triples.
+	 * @param args  Argument values of the function.
+	 * @return  The resulting value as a string; null in case of errors.
+	 */
+	public static String apply(BuiltInFunction f, Assistant assist, Object[] args) {
+
+		try {
+			Object res = f.apply(assist, args);
+			return (res != null) ? res.toString() : null;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			ExceptionHandler.warn((e instanceof Exception) ? (Exception) e : new Exception(e), "Built-in function failed to apply on values " + Arrays.toString(args) + ".");
+		}
+		return null;
+	}
+
+
+	/**
+	 * Identifies a function by its name and number of arguments.
+	 */
+	private static String key(String name, int arity) {
+		return name + "/" + arity;
+	}
+
+}
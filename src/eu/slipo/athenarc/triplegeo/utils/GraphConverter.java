@@ -73,7 +73,9 @@ import eu.slipo.athenarc.triplegeo.osm.OSMRecord;
  * Modified: 30/5/2019; correct handling of NULL geometries in CSV input files
  * Modified: 26/6/2019; added support for thematic filtering in geographical files
  * Modified: 9/10/2019; issuing assigned category to the registry
- * Last modified: 15/1/2020
+ * Modified: 16/10/2026; geometries handled natively throughout transformation; WKT representations parsed or serialized at most once per feature
+ * Modified: 16/10/2026; spatial filter applied directly on X/Y coordinates of CSV records
+ * Last modified: 16/10/2026
  */
 public class GraphConverter implements Converter {
 
@@ -173,7 +175,6 @@ public class GraphConverter implements Converter {
 	{
 	    SimpleFeatureImpl feature;
 	    Geometry geometry;
-		String wkt = "";                 //Will hold geometry value
 		List<String> columns = null;     //Non-spatial attribute names
 		Filter filter = null;            //Thematic filter
 	    			    
@@ -193,7 +194,7 @@ public class GraphConverter implements Converter {
 		        geometry = (Geometry) feature.getDefaultGeometry();
 	
 		        //Apply spatial or thematic filtering (if specified by user)
-				if ((!myAssistant.filterContains(geometry.toText())) || ((filter != null) && (!filter.evaluate(feature))))
+				if ((!myAssistant.filterContains(geometry)) || ((filter != null) && (!filter.evaluate(feature))))
 				{
 					rejectedRec++;
 					continue;
@@ -224,15 +225,12 @@ public class GraphConverter implements Converter {
 		      	if (reproject != null)
 		      		geometry = myAssistant.geomTransform(geometry, reproject);     
 		        
-		        //Get WKT representation of the transformed geometry
-		      	wkt = myAssistant.geometry2WKT(geometry, currentConfig.targetGeoOntology.trim());
-		        
-		      	//Pass this tuple for conversion to RDF triples  
-		      	String uri = myGenerator.transform(row, wkt, targetSRID, classific);
+		        //Pass this tuple for conversion to RDF triples; its WKT representation will be serialized when issuing the geometry literal
+		      	String uri = myGenerator.transform(row, geometry, targetSRID, classific);
 	
 		        //Get a record with basic attribute that will be used for the SLIPO Registry
 				if (myRegister != null)
-					myRegister.createTuple(uri, row, wkt, targetSRID);
+					myRegister.createTuple(uri, row, geometry, targetSRID);
 				
 		      	//Collect RDF triples resulting from this tuple into the graph
 		      	collectTriples();
@@ -358,29 +356,45 @@ public class GraphConverter implements Converter {
 				
 		      	//Handle geometry attribute, if specified
 				String wkt = null;
+				boolean filtered = false;          //Whether the spatial filter has already been applied on the coordinates of a point
 				if ((currentConfig.attrGeometry == null) && (currentConfig.attrX != null) && (currentConfig.attrY != null))       
 				{    //In case no single geometry attribute with WKT values is specified, compose WKT from a pair of coordinates
 				    String x = rs.get(currentConfig.attrX);    //X-ordinate or longitude
 				    String y = rs.get(currentConfig.attrY);    //Y-ordinate or latitude
 				    if ((x != null) && (y != null))
+				    {
+				    	//Apply spatial filtering (if specified by user) directly on the coordinates
+				    	if (!myAssistant.filterContains(x, y))
+				    	{
+				    		rejectedRec++;
+				    		continue;
+				    	}
+				    	filtered = true;
 				    	wkt = "POINT (" + x + " " + y + ")";
+				    }
 				}
 				else if (currentConfig.attrGeometry != null)
 					wkt = rs.get(currentConfig.attrGeometry);  //ASSUMPTION: Geometry values are given as WKT
 				
+		      	Geometry geom = null;
 		      	if (wkt != null)
 		      	{	
+		      		//Parse the WKT representation once, only if the geometry is needed for filtering or reprojection
+		      		if (((myAssistant.hasSpatialExtent()) && (!filtered)) || (reproject != null))
+		      			geom = myAssistant.WKT2Geometry(wkt);
+		      		
 		      		//Apply spatial filtering (if specified by user)
-					if (!myAssistant.filterContains(wkt))
+					if ((!filtered) && (!myAssistant.filterContains(geom)))     //An invalid WKT (i.e., a null geometry) never qualifies
 					{
 						rejectedRec++;
 						continue;
 					}
 					//CRS transformation
 			      	if (reproject != null)
-			      		wkt = myAssistant.wktTransform(wkt, reproject);     //Get transformed WKT representation
-//					else	
-//					    myAssistant.WKT2Geometry(wkt);                      //This is done only for updating the MBR of all geometries
+			      	{
+			      		geom = myAssistant.geomTransform(geom, reproject);
+			      		wkt = geom.toText();                        //Get transformed WKT representation
+			      	}
 		      	}
 			    else 
 			    {
@@ -389,11 +403,16 @@ public class GraphConverter implements Converter {
 			    }
 
 		      	//Pass this tuple for conversion to RDF triples 
-		      	String uri = myGenerator.transform(rs, wkt, targetSRID, classific);
+		      	String uri = myGenerator.transform(rs, geom, wkt, targetSRID, classific);
 		      
 		        //Get a record with basic attribute that will be used for the SLIPO Registry
 				if (myRegister != null)
-					myRegister.createTuple(uri, rs, wkt, targetSRID);
+				{
+					if (geom != null)
+						myRegister.createTuple(uri, rs, geom, targetSRID);
+					else
+						myRegister.createTuple(uri, rs, wkt, targetSRID);
+				}
 				
 		      	//Collect RDF triples resulting from this tuple into the graph
 		      	collectTriples();
@@ -424,29 +443,29 @@ public class GraphConverter implements Converter {
 			//CAUTION! On-the-fly generation of a UUID for this feature, giving as seed the data source and the identifier of that feature
 			//String uuid = myAssistant.getUUID(currentConfig.featureSource + rs.getID()).toString();
 			
-  	        //Parse geometric representation
+  	        //Handle geometric representation
+			Geometry geom = null;
 			String wkt = null;
 			if ((rs.getGeometry() != null) && (!rs.getGeometry().isEmpty()))
 			{
-				wkt = rs.getGeometry().toText();       //Get WKT representation	
-				if (wkt != null)
-				{		
-					//Apply spatial filtering (if specified by user)
-					if (!myAssistant.filterContains(wkt))
-					{
-						rejectedRec++;
-						return;
-					}
-					//CRS transformation
-			      	if (reproject != null)
-			      		wkt = myAssistant.wktTransform(wkt, reproject);     //Get transformed WKT representation
-//					else	
-//					    myAssistant.WKT2Geometry(wkt);                      //This is done only for updating the MBR of all geometries
+				geom = rs.getGeometry();
+				
+				//Apply spatial filtering (if specified by user)
+				if (!myAssistant.filterContains(geom))
+				{
+					rejectedRec++;
+					return;
 				}
+				//CRS transformation
+		      	if (reproject != null)
+		      		geom = myAssistant.geomTransform(geom, reproject);
+		      	
+		      	wkt = geom.toText();       //Get WKT representation (once)
 			}
 			
 			//Tags to be processed as attribute values
-			Map <String, String> attrValues = new HashMap<String, String>(rs.getTagKeyValue());
+			Map <String, String> attrValues = new HashMap<String, String>(2 * (rs.getTagKeyValue().size() + 8));     //Sized for the extra attributes added below, so no rehashing is needed
+			attrValues.putAll(rs.getTagKeyValue());
             
 	      	//Include attributes for OSM identifier, name, and type
 	      	attrValues.put("osm_id", rs.getID());
@@ -473,11 +492,11 @@ public class GraphConverter implements Converter {
 	      	
 	      	//Process all available non-spatial attributes as specified in the collected (tag,value) pairs	
 	        //... including a classification hierarchy from the OSM tags used in filtering
-			String uri = myGenerator.transform(attrValues, wkt, targetSRID, classific);
+			String uri = myGenerator.transform(attrValues, geom, wkt, targetSRID, classific);
 
 			//Get a record with basic attribute that will be used for the SLIPO Registry
 			if (myRegister != null)
-				myRegister.createTuple(uri, attrValues, wkt, targetSRID);
+				myRegister.createTuple(uri, attrValues, geom, targetSRID);
 			
 	      	//Collect RDF triples resulting from this tuple into the graph
 	      	collectTriples();
@@ -506,9 +525,14 @@ public class GraphConverter implements Converter {
 		try {	
 			++numRec;
 			
+			//Parse the WKT representation once, only if the geometry is needed for filtering
+			Geometry geom = null;
+			if ((wkt != null) && (myAssistant.hasSpatialExtent()))
+				geom = myAssistant.WKT2Geometry(wkt);
+			
 			//Apply spatial filtering (if specified by user) 
 			//Also skip transformation of any features filtered out by the logical expression over thematic attributes
-			if ((!myAssistant.filterContains(wkt)) || (myAssistant.filterThematic(attrValues)))
+			if ((((geom != null) || (wkt != null)) && (!myAssistant.filterContains(geom))) || (myAssistant.filterThematic(attrValues)))
 			{
 				rejectedRec++;
 				return;
@@ -518,13 +542,18 @@ public class GraphConverter implements Converter {
 			
 			//Pass this tuple for conversion to RDF triples 
 			if (currentConfig.attrCategory == null)
-				uri = myGenerator.transform(attrValues, wkt, targetSRID, null);         //There no category specified for this feature,...
+				uri = myGenerator.transform(attrValues, geom, wkt, targetSRID, null);         //There no category specified for this feature,...
 			else
-				uri = myGenerator.transform(attrValues, wkt, targetSRID, classific);	//..., otherwise utilize the user-specified classification hierarchy		
+				uri = myGenerator.transform(attrValues, geom, wkt, targetSRID, classific);	//..., otherwise utilize the user-specified classification hierarchy		
  
 			//Get a record with basic attribute that will be used for the SLIPO Registry
 			if (myRegister != null)
-				myRegister.createTuple(uri, attrValues, wkt, targetSRID);
+			{
+				if (geom != null)
+					myRegister.createTuple(uri, attrValues, geom, targetSRID);
+				else
+					myRegister.createTuple(uri, attrValues, wkt, targetSRID);
+			}
 			
 			//Collect RDF triples resulting from this tuple into the graph
 	      	collectTriples();
@@ -0,0 +1,352 @@
+/*
+ * @(#) MappingPlan.java  version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.graph.Node;
+
+import eu.slipo.athenarc.triplegeo.utils.FunctionRegistry.BuiltInFunction;
+import eu.slipo.athenarc.triplegeo.utils.Mapping.MappingProfile;
+import eu.slipo.athenarc.triplegeo.utils.Mapping.mapProperties;
+
+/**
+ * Compiled form of the user-specified attribute mappings, used in generating triples for thematic attributes of each feature.
+ * Each attribute name found in the input is resolved against the mapping only once (exact match, multi-faceted or wildcard '_' specification),
+ * and all strings and RDF nodes required for its triples (predicates, classes, URI suffixes, language tags, resource types) are precomputed.
+ * Hence, transformation of each record only needs a lookup per attribute. Unmapped attributes are also resolved once and then skipped.
+ * Calls of built-in functions specified in the mapping are also compiled, i.e., resolved in the FunctionRegistry and validated once.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Modified: 16/10/2026; calls of built-in functions resolved once in the function registry
+ * Modified: 16/10/2026; predicates and classes kept as RDF nodes obtained from the node cache of the triple generator
+ * Last modified: 16/10/2026
+ */
+
+public class MappingPlan {
+
+	/**
+	 * Compiled handling of a single attribute of the input records.
+	 */
+	public static class Column {
+		String key;                        //Attribute name as found in the input
+		mapProperties mapping;             //Mapping applicable to this attribute; null if no triples should be issued for it
+		MappingProfile profile;            //Mapping profile that controls how to create triples for this attribute
+		boolean generic = false;           //True, if attribute is not specifically mapped, but handled as a (key, value) pair due to the wildcard '_' specification
+		String lang;                       //Language tag of literals
+		boolean validLang;                 //True, if the language tag is a valid ISO 639-1 code
+		String entitySuffix;               //Suffix of the URI for the entity in triples, i.e., "/" + entity type
+		String partSuffix;                 //Suffix of the URI for the composite entity this attribute is part of
+		Node predicate;                    //Predicate according to the ontology
+		Node valuePredicate;               //Predicate for values of instances of a class
+		Node typePredicate;                //Predicate for types of instances of a class
+		Node classURI;                     //Class in the ontology that this attribute instantiates
+		Node partPredicate;                //Predicate linking a feature to the composite entity this attribute is part of
+		Node partClassURI;                 //Class of the composite entity this attribute is part of
+		String resPart;                    //Name of the composite entity this attribute is part of
+		String resType;                    //Constant resource type; null if this is generated by a built-in function
+		Call typeCall;                     //Built-in function that generates the resource type from attribute values
+		RDFDatatype dataType;              //Data type for literals
+		boolean repeated = false;          //True, if values of this attribute are likely to be repeated in many features (e.g., category URIs), so their nodes should be cached
+
+		/**
+		 * Indicates whether triples will be issued for this attribute.
+		 * @return  True, if this attribute has been mapped (possibly through a wildcard); otherwise, False.
+		 */
+		public boolean isMapped() {
+			return (mapping != null);
+		}
+	}
+
+	/**
+	 * Compiled call of a built-in function, as specified in the mapping (e.g., getUUID(DATA_SOURCE, osm_id)).
+	 */
+	public static class Call {
+		String name;                       //Name of the built-in function
+		BuiltInFunction function;          //Resolved handle of the built-in function
+		String[] args;                     //Arguments as specified in the mapping; either attribute names or quoted string literals
+		String[] literals;                 //Arguments without quotes; used if they do not refer to attributes
+	}
+
+	/**
+	 * Compiled generation of an extra thematic attribute with a built-in function.
+	 */
+	public static class ExtraAttribute {
+		String key;                        //Name of the extra attribute
+		Call call;                         //Built-in function that generates its values; null if these are assigned elsewhere (e.g., embedded categories assigned by the Classification)
+	}
+
+
+	private Mapping attrMappings;                     //User-specified mapping of thematic attributes
+	private NodeCache nodes;                          //Cache of RDF nodes of the triple generator using this plan
+	private Assistant myAssistant;                    //Used for resolving language tags of multi-lingual attributes
+	private String ontologyNS;                        //Namespace of the ontology
+	private String attrGeometry;                      //Attribute holding geometries; no triples are issued for it here
+	private mapProperties genericMapping;             //Mapping for any attribute not specifically mapped (wildcard '_'); null if not specified
+
+	private Map<String, Column> columns;              //Compiled handling per attribute name, resolved once on first occurrence
+	private Set<String> repeatedAttrs;                //Attributes with values likely to be repeated in many features
+	private List<ExtraAttribute> extraAttrs;          //Extra thematic attributes generated by built-in functions
+	private Map<String, List<String>> geometricAttrs; //Extra geometric attributes per built-in function that generates their values
+	private int geoHashPrecision = 8;                 //Precision of GeoHash strings; default value is 8
+
+
+	/**
+	 * Constructor of a compiled mapping plan.
+	 * @param attrMappings  User-specified mapping of thematic attributes (as read from a YML file).
+	 * @param config  User-specified configuration for the transformation process.
+	 * @param assist  Assistant used for resolving language tags of multi-lingual attributes.
+	 * @param nodes  Cache of RDF nodes of the triple generator.
+	 */
+	public MappingPlan(Mapping attrMappings, Configuration config, Assistant assist, NodeCache nodes) {
+
+		this.attrMappings = attrMappings;
+		this.myAssistant = assist;
+		this.nodes = nodes;
+		ontologyNS = config.ontologyNS;
+		attrGeometry = config.attrGeometry;
+		genericMapping = attrMappings.find("_");
+		columns = new HashMap<String, Column>();
+		repeatedAttrs = new HashSet<String>();
+
+		//Any user-supplied built-in functions must be available before resolving calls
+		FunctionRegistry.loadExtensions(config.functionExtensions);
+
+		//Extra thematic attributes, in the order specified in the mapping
+		extraAttrs = new ArrayList<ExtraAttribute>();
+		for (String extraAttr: attrMappings.getExtraThematicAttributes())
+		{
+			mapProperties mapping = attrMappings.find(extraAttr);
+			ExtraAttribute e = new ExtraAttribute();
+			e.key = extraAttr;
+			if ((!mapping.getFunctionArguments().isEmpty()) || (!mapping.getGeneratorFunction().equals("getEmbeddedCategory")))     //Assignment of embedded categories is carried out by the Classification class
+				e.call = compileCall(mapping.getGeneratorFunction(), mapping.getFunctionArguments());
+			extraAttrs.add(e);
+		}
+
+		//Extra geometric attributes grouped by their built-in function
+		geometricAttrs = new HashMap<String, List<String>>();
+		for (String geomAttr: attrMappings.getExtraGeometricAttributes())
+		{
+			String f = attrMappings.find(geomAttr).getGeneratorFunction();
+			if (!geometricAttrs.containsKey(f))
+				geometricAttrs.put(f, attrMappings.findExtraGeometricAttr(f));
+		}
+
+		//User-specified precision of GeoHash strings; only numeric values accepted in the parameter value
+		if (geometricAttrs.containsKey("getGeoHash"))
+		{
+			List<String> args = attrMappings.find(geometricAttrs.get("getGeoHash").get(0)).getFunctionArguments();
+			if ((args != null) && (args.size()==1) && (args.get(0).matches("[0-9]+")))
+				geoHashPrecision = Integer.parseInt(args.get(0));
+		}
+	}
+
+
+	/**
+	 * Compiles the call of a built-in function specified in a mapping. The function is resolved once, and its number of arguments is validated.
+	 * @param mapping  The mapping specifying a built-in function and its arguments (e.g., the URI of features).
+	 * @return  The compiled call; null if no built-in function is specified in this mapping.
+	 */
+	public Call compileCall(mapProperties mapping) {
+
+		if ((mapping == null) || (mapping.getGeneratorFunction() == null))
+			return null;
+		return compileCall(mapping.getGeneratorFunction(), mapping.getFunctionArguments());
+	}
+
+
+	/**
+	 * Compiles the call of a built-in function with the given arguments.
+	 * @param name  Name of the built-in function.
+	 * @param args  Arguments of the function; either attribute names or quoted string literals.
+	 * @return  The compiled call.
+	 */
+	private Call compileCall(String name, List<String> args) {
+
+		//An empty pair of parentheses, e.g., getRandomUUID(), denotes no arguments
+		if ((args.size() == 1) && (args.get(0).trim().isEmpty()))
+			args = Collections.<String>emptyList();
+
+		Call call = new Call();
+		call.name = name;
+		call.function = FunctionRegistry.resolve(name, args.size());
+		call.args = args.toArray(new String[args.size()]);
+		call.literals = new String[args.size()];
+		for (int i = 0; i < args.size(); i++)
+			call.literals[i] = args.get(i).replaceAll("\"", "");     //String literals are kept intact without the quotes
+		return call;
+	}
+
+
+	/**
+	 * Provides the compiled handling of an attribute; this is resolved against the mapping on its first occurrence only.
+	 * @param key  The attribute name.
+	 * @return  The compiled handling of this attribute.
+	 */
+	public Column getColumn(String key) {
+
+		Column c = columns.get(key);
+		if (c == null)
+		{
+			c = compile(key);
+			columns.put(key, c);
+		}
+		return c;
+	}
+
+
+	/**
+	 * Specifies attributes whose values are likely to be repeated in many features (e.g., category URIs), so that their RDF nodes get cached.
+	 * This must be called before any attribute gets compiled.
+	 * @param keys  The attribute names.
+	 */
+	public void setRepeatedAttributes(String... keys) {
+		repeatedAttrs.addAll(Arrays.asList(keys));
+	}
+
+
+	/**
+	 * Provides the extra thematic attributes whose values are generated by built-in functions.
+	 * @return  List of extra thematic attributes.
+	 */
+	public List<ExtraAttribute> getExtraAttributes() {
+		return extraAttrs;
+	}
+
+
+	/**
+	 * Provides the user-specified precision of GeoHash strings.
+	 * @return  The number of characters in GeoHash strings.
+	 */
+	public int getGeoHashPrecision() {
+		return geoHashPrecision;
+	}
+
+
+	/**
+	 * Provides the extra geometric attributes whose values are generated by a given built-in function (e.g., getArea).
+	 * @param f  The name of the built-in function.
+	 * @return  A (possibly empty) list with the names of such attributes.
+	 */
+	public List<String> getGeometricAttributes(String f) {
+
+		List<String> attrs = geometricAttrs.get(f);
+		return (attrs != null) ? attrs : Collections.<String>emptyList();
+	}
+
+
+	/**
+	 * Resolves an attribute against the mapping and precomputes the strings and nodes needed in its triples.
+	 * @param key  The attribute name.
+	 * @return  The compiled handling of this attribute.
+	 */
+	private Column compile(String key) {
+
+		Column c = new Column();
+		c.key = key;
+		c.repeated = repeatedAttrs.contains(key);
+		if (key.equals(attrGeometry))                   //All thematic (non-spatial) attributes will be considered
+			return c;
+
+		mapProperties mapping = attrMappings.find(key);
+		String entityType;
+		if (mapping == null)                            //Cannot find a mapping that exactly matches this attribute
+		{
+			//Check whether this is a multi-faceted attribute (e.g., a name in various languages)
+			//IMPORTANT! Wild char '%' should be used in YML mappings in order to specify such attributes
+			String attrBase = attrMappings.findMultiFaceted(key);
+			if (attrBase != null)                       //Multi-faceted attribute is specified in the YML mappings
+				mapping = attrMappings.find(attrBase);
+
+			if (mapping == null)                        //If still no mapping is found for this attribute, then ...
+			{
+				//IMPORTANT! Wild-card character '_' is used to denote any other attribute not specifically defined in the YML mapping
+				if (genericMapping != null)
+				{
+					c.mapping = genericMapping;
+					c.generic = true;
+					c.predicate = nodes.predicate(genericMapping.getPredicate());
+					c.entitySuffix = "/" + key;
+				}
+				return c;
+			}
+			else if (attrBase.contains("*"))            //IMPORTANT! Wildcard character * inside the mapping signifies a multi-valued property for the same entity
+				entityType = key;                       //The original key (attribute name) is used in the URI specification for the generated triple
+			else                                        //IMPORTANT! Handling multi-lingual attribute values, e.g., specified with attributes like name_en, name_fr, name_de, etc.
+			{
+				//Language tag is inferred from the last part of the attribute name with a built-in function
+				BuiltInFunction f = FunctionRegistry.find(mapping.getLanguage(), 2);
+				if (f != null)
+					c.lang = FunctionRegistry.apply(f, myAssistant, new Object[]{key, attrBase.length()});
+				if (c.lang == null)
+					return c;                           //No triples for this attribute
+				entityType = mapping.getEntityType() + "_" + c.lang;      //URIs will also include a language suffix in order to be distinguishable
+			}
+		}
+		else
+		{
+			//Determine language and entity type
+			c.lang = mapping.getLanguage();
+			entityType = mapping.getEntityType();
+		}
+
+		c.mapping = mapping;
+		c.profile = mapping.getMappingProfile();
+		c.validLang = myAssistant.isValidISOLanguage(c.lang);
+		c.entitySuffix = "/" + entityType;
+		c.predicate = nodes.predicate(mapping.getPredicate());
+		c.dataType = mapping.getDataType();
+
+		//Resources that instantiate a class in the ontology (e.g., email instantiates a contact)
+		String resClass = mapping.getInstance();
+		c.valuePredicate = nodes.predicate(ontologyNS + resClass + "Value");
+		c.typePredicate = nodes.predicate(ontologyNS + resClass + "Type");
+		c.classURI = nodes.term(ontologyNS + resClass);
+
+		//Resources that are part of another entity (e.g., streetname is part of address)
+		c.resPart = mapping.getPart();
+		c.partSuffix = "/" + c.resPart;
+		c.partPredicate = nodes.predicate(ontologyNS + entityType);
+		c.partClassURI = nodes.term(ontologyNS + c.resPart);
+
+		//Resource type can be specified either with a string literal (constant) or based on an attribute in the input data
+		String[] t = mapping.getResourceTypeFunction();
+		if (t != null)                                  //Built-in function to be called (LAST item in the array), along with its arguments, e.g., "generateWith.getResourceType(TEL_TYPE)"
+			c.typeCall = compileCall(t[t.length-1], Arrays.asList(ArrayUtils.subarray(t, 0, t.length-1)));
+		else if ((c.profile == MappingProfile.IS_INSTANCE) || (c.profile == MappingProfile.IS_INSTANCE_TAG_LANGUAGE))
+			c.resType = mapping.getResourceType();
+
+		return c;
+	}
+
+}
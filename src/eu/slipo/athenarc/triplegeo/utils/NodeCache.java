@@ -0,0 +1,197 @@
+/*
+ * @(#) NodeCache.java  version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.utils;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+
+/**
+ * Cache of RDF nodes used by a triple generator, so that nodes for the vocabulary (predicates, classes) and data types are created only once.
+ * Objects with values that often repeat across features (e.g., URIs of categories, name of the data source) are kept in a bounded cache with least-recently-used eviction.
+ * Not thread-safe; each triple generator (and thus each worker) keeps its own instance.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified: 16/10/2026
+ */
+
+public class NodeCache {
+
+	/**
+	 * Map with a bounded number of entries that evicts the least recently used one.
+	 */
+	private static class BoundedMap<K, V> extends LinkedHashMap<K, V> {
+
+		private static final long serialVersionUID = 1L;
+		private final int maxSize;
+
+		BoundedMap(int maxSize) {
+			super(16, 0.75f, true);          //Access order, so that the eldest entry is the least recently used
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+			return size() > maxSize;
+		}
+	}
+
+	private Map<String, String> prefixes;             //Prefixes for namespaces employed in predicates
+	private Map<String, Node> predicates;             //Predicates, keyed by their (possibly prefixed) name as specified
+	private Map<String, Node> terms;                  //Other vocabulary terms (e.g., classes), keyed by their URI
+	private Map<String, RDFDatatype> datatypes;       //Data types, keyed by their URI
+	private Map<String, Node> resources = null;       //Object URIs with repeated values; null if no such caching is allowed
+	private Map<String, Node> literals = null;        //Plain literals with repeated values; null if no such caching is allowed
+
+
+	/**
+	 * Constructor of a node cache.
+	 * @param prefixes  Prefixes for namespaces employed during transformation of RDF triples.
+	 * @param maxSize  Maximum number of object URIs (and also literals) with repeated values to be cached; a non-positive value disables such caching.
+	 */
+	public NodeCache(Map<String, String> prefixes, int maxSize) {
+
+		this.prefixes = prefixes;
+		predicates = new HashMap<String, Node>();
+		terms = new HashMap<String, Node>();
+		datatypes = new HashMap<String, RDFDatatype>();
+		if (maxSize > 0)
+		{
+			resources = new BoundedMap<String, Node>(maxSize);
+			literals = new BoundedMap<String, Node>(maxSize);
+		}
+	}
+
+
+	/**
+	 * Provides the node of a predicate. Any prefix is expanded into its full namespace.
+	 * @param p  The predicate, either a URI or a prefixed name (e.g., slipo:name).
+	 * @return  The node of the predicate; null if no predicate is specified.
+	 */
+	public Node predicate(String p) {
+
+		if (p == null)
+			return null;
+		Node n = predicates.get(p);
+		if (n == null)
+		{
+			n = NodeFactory.createURI(expandNamespace(p));
+			predicates.put(p, n);
+		}
+		return n;
+	}
+
+
+	/**
+	 * Provides the node of a vocabulary term (e.g., an RDF class) given by its URI.
+	 * @param uri  URI of the term.
+	 * @return  The node of the term.
+	 */
+	public Node term(String uri) {
+
+		Node n = terms.get(uri);
+		if (n == null)
+		{
+			n = NodeFactory.createURI(uri);
+			terms.put(uri, n);
+		}
+		return n;
+	}
+
+
+	/**
+	 * Provides a data type given by its URI.
+	 * @param uri  URI of the data type (e.g., http://www.w3.org/2001/XMLSchema#float).
+	 * @return  The data type.
+	 */
+	public RDFDatatype datatype(String uri) {
+
+		RDFDatatype d = datatypes.get(uri);
+		if (d == null)
+		{
+			d = TypeMapper.getInstance().getSafeTypeByName(uri);
+			datatypes.put(uri, d);
+		}
+		return d;
+	}
+
+
+	/**
+	 * Provides the node of an object URI whose value is likely to be repeated in other features (e.g., the URI of a category).
+	 * @param uri  The object URI.
+	 * @return  The node of this URI; a new node, if caching is disabled.
+	 */
+	public Node resource(String uri) {
+
+		if (resources == null)
+			return NodeFactory.createURI(uri);
+		Node n = resources.get(uri);
+		if (n == null)
+		{
+			n = NodeFactory.createURI(uri);
+			resources.put(uri, n);
+		}
+		return n;
+	}
+
+
+	/**
+	 * Provides the node of a plain literal whose value is likely to be repeated in other features (e.g., the name of the data source).
+	 * @param val  The literal value.
+	 * @return  The node of this literal; a new node, if caching is disabled.
+	 */
+	public Node literal(String val) {
+
+		if (literals == null)
+			return NodeFactory.createLiteral(val);
+		Node n = literals.get(val);
+		if (n == null)
+		{
+			n = NodeFactory.createLiteral(val);
+			literals.put(val, n);
+		}
+		return n;
+	}
+
+
+	/**
+	 * Expands the prefix into the full namespace of a given RDF node (usually, a predicate)
+	 * @param s  A prefixed name with a prefix label and a local part, separated by a colon ":"
+	 * @return  A URI by concatenating the expanded namespace associated with the prefix and the local part
+	 */
+	private String expandNamespace(String s) {
+
+		String prefix = s.substring(0, s.indexOf(':'));  //Get the prefix
+		String namespace = prefixes.get(prefix);         //Identify its respective full namespace
+		if (namespace != null)
+			return s.replace(prefix + ":", namespace);   //... and replace it
+
+		return s;	 //No replacement took place
+	}
+
+}
@@ -0,0 +1,567 @@
+/*
+ * @(#) OutputMerger.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+import org.apache.jena.riot.system.StreamRDFWriter;
+
+/**
+ * Merges the output files of several partitions (or transformation tasks) into a single output file.
+ * Partial outputs are appended by a separate thread as soon as each one is available, i.e., while other partitions are still being transformed. Hence, triples are written in the order that partitions conclude.
+ * N-Triples (and N-Quads) outputs are concatenated without copying their contents into memory (FileChannel.transferTo); gzip-compressed outputs are concatenated as successive gzip members without recompression.
+ * Turtle and TriG outputs are parsed and written again, so that prefixes are declared only once; RDF/XML outputs are merged as streams of XML events under a single root element.
+ * CAUTION! Byte concatenation assumes that blank nodes are not shared across partial outputs; TripleGeo issues URIs for all resources.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OutputMerger {
+
+	private static final String RDF_NS = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+
+	private enum Method { BYTES, TURTLE, TRIG, XML }
+
+	private String outputFile;                  //Path to the merged output file
+	private boolean compressed;                 //Indicates whether the merged output is gzip-compressed
+	private Method method;                      //How partial outputs are combined, according to the RDF serialization
+	private boolean deleteParts;                //Indicates whether partial outputs are removed once merged successfully
+
+	private ExecutorService executor = Executors.newSingleThreadExecutor();
+	private List<Future<Void>> appends = new ArrayList<Future<Void>>();
+	private List<String> parts = new ArrayList<String>();
+	private volatile boolean failed = false;
+
+	//State of the merged output; only accessed by the merging thread
+	private FileChannel channel = null;
+	private OutputStream out = null;
+	private StreamRDF rdfWriter = null;
+	private StreamRDF rdfSink = null;
+	private XMLEventWriter xmlWriter = null;
+	private XMLEventFactory xmlEvents = null;
+	private StartElement root = null;
+	private Map<String, String> rootNamespaces = new HashMap<String, String>();
+	private long numMerged = 0;
+	private long elapsed = 0;
+
+
+	/**
+	 * Constructor of a merger into the given output file. The output file is created once the first partial output is appended.
+	 * @param outputFile  Path to the merged output file; its extension (.nt, .nq, .ttl, .trig, .rdf, optionally followed by .gz) specifies how partial outputs are combined.
+	 * @param deleteParts  True, if partial outputs should be removed once all of them have been merged successfully.
+	 */
+	public OutputMerger(String outputFile, boolean deleteParts) {
+
+		this.outputFile = outputFile;
+		this.deleteParts = deleteParts;
+		compressed = outputFile.toLowerCase().endsWith(".gz");
+		String ext = FilenameUtils.getExtension(compressed ? FilenameUtils.removeExtension(outputFile) : outputFile).toLowerCase();
+		switch(ext) {
+			case "nt":
+			case "nq":
+				method = Method.BYTES;
+				break;
+			case "ttl":
+				method = Method.TURTLE;
+				break;
+			case "trig":
+				method = Method.TRIG;
+				break;
+			default:
+				method = Method.XML;
+		}
+	}
+
+
+	/**
+	 * Appends a partial output to the merged output file. Merging takes place in the background, so this method returns immediately.
+	 * @param part  Path to the partial output file; it must not be modified any more.
+	 */
+	public synchronized void add(final String part) {
+
+		parts.add(part);
+		appends.add(executor.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				if (failed)
+					return null;             //Merged output is already incomplete
+				try {
+					long start = System.currentTimeMillis();
+					append(part);
+					elapsed += System.currentTimeMillis() - start;
+					numMerged++;
+				} catch (Exception e) {
+					failed = true;
+					throw e;
+				}
+				return null;
+			}
+		}));
+	}
+
+
+	/**
+	 * Waits until all partial outputs have been appended and completes the merged output file.
+	 * @throws IOException  Thrown if any partial output could not be merged.
+	 */
+	public synchronized void close() throws IOException {
+
+		appends.add(executor.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				finish();
+				return null;
+			}
+		}));
+		executor.shutdown();
+
+		Exception error = null;
+		for (Future<Void> f: appends)
+		{
+			try {
+				f.get();
+			} catch (ExecutionException e) {
+				if (error == null)
+					error = (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				error = e;
+				break;
+			}
+		}
+		if (error != null)
+			throw (error instanceof IOException) ? (IOException) error : new IOException("Failed to merge partial outputs into " + outputFile, error);
+
+		if (deleteParts)
+			for (String part: parts)
+				new File(part).delete();
+		System.out.println(String.format("Merged %d partial outputs into %s in %d ms.", numMerged, outputFile, elapsed));
+	}
+
+
+	/**
+	 * Abandons merging, e.g., if the transformation of some partition has failed. Any pending appends are skipped, and the incomplete merged output file is removed; all partial outputs are kept.
+	 */
+	public synchronized void discard() {
+
+		failed = true;
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		release();
+		new File(outputFile).delete();
+	}
+
+
+	/**
+	 * Closes the merged output file (if open) without completing it. Once the merging thread has terminated, this is safe to call from any thread.
+	 */
+	private void release() {
+
+		try {
+			if (xmlWriter != null)
+				xmlWriter.close();
+		} catch (Exception e) {
+			//The merged output will be removed anyway
+		}
+		try {
+			if (out != null)
+				out.close();
+		} catch (IOException e) {
+			//The merged output will be removed anyway
+		}
+		try {
+			if (channel != null)
+				channel.close();
+		} catch (IOException e) {
+			//The merged output will be removed anyway
+		}
+		xmlWriter = null;
+		rdfWriter = null;
+		out = null;
+		channel = null;
+	}
+
+
+	/**
+	 * Provides the partial outputs given to this merger.
+	 * @return  A list with the paths to the partial output files.
+	 */
+	public synchronized List<String> getParts() {
+		return new ArrayList<String>(parts);
+	}
+
+
+	/**
+	 * Merges the given partial outputs into a single output file.
+	 * @param parts  List of paths to the partial output files.
+	 * @param outputFile  Path to the merged output file.
+	 * @param deleteParts  True, if partial outputs should be removed once merged successfully.
+	 * @throws IOException  Thrown if any partial output could not be merged.
+	 */
+	public static void merge(List<String> parts, String outputFile, boolean deleteParts) throws IOException {
+
+		OutputMerger merger = new OutputMerger(outputFile, deleteParts);
+		for (String part: parts)
+			merger.add(part);
+		merger.close();
+	}
+
+
+	/**
+	 * Lists the partial outputs of a transformation over Spark, which are named after the output file and the serial number of each partition, e.g., points_0.nt, points_1.nt, ...
+	 * Only the partitions of the given job are listed, so any partial outputs left in the same directory by an earlier job with more partitions are not merged.
+	 * @param outputFile  Path to the output file specified for the transformation.
+	 * @param numPartitions  Number of partitions processed by the job.
+	 * @return  A list with the paths to the existing partial output files in increasing order of their partition.
+	 */
+	public static List<String> listParts(String outputFile, int numPartitions) {
+
+		int dot = outputFile.lastIndexOf('.');
+		List<String> parts = new ArrayList<String>();
+		for (int i = 0; i < numPartitions; i++)
+		{
+			String part = outputFile.substring(0, dot) + "_" + i + outputFile.substring(dot);
+			if (new File(part).exists())
+				parts.add(part);
+			else
+				System.out.println("No output found for partition " + i + " in " + part + ".");
+		}
+		return parts;
+	}
+
+
+	/**
+	 * Appends a partial output to the merged output file, according to its RDF serialization.
+	 * @param part  Path to the partial output file.
+	 * @throws Exception  Thrown if the partial output cannot be read or the merged output cannot be written.
+	 */
+	private void append(String part) throws Exception {
+
+		if (new File(part).length() == 0)
+			return;                          //Nothing to merge, e.g., a partition without any qualifying features
+
+		switch(method) {
+			case BYTES:
+				appendBytes(part);
+				break;
+			case TURTLE:
+				appendRDF(part, Lang.TURTLE);
+				break;
+			case TRIG:
+				appendRDF(part, Lang.TRIG);
+				break;
+			default:
+				appendXML(part);
+		}
+	}
+
+
+	/**
+	 * Appends the contents of a partial N-Triples (or N-Quads) output as they are.
+	 * Contents are transferred directly between files; a gzip-compressed output is appended as a separate gzip member if compressed, or is compressed into one otherwise.
+	 * @param part  Path to the partial output file.
+	 * @throws IOException  Thrown if the partial output cannot be read or the merged output cannot be written.
+	 */
+	private void appendBytes(String part) throws IOException {
+
+		if (channel == null)
+			channel = FileChannel.open(Paths.get(outputFile), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+		boolean partCompressed = part.toLowerCase().endsWith(".gz");
+		if (partCompressed == compressed)
+		{
+			try (FileChannel in = FileChannel.open(Paths.get(part), StandardOpenOption.READ)) {
+				long size = in.size();
+				long pos = 0;
+				while (pos < size)
+					pos += in.transferTo(pos, size - pos, channel);
+				//Every triple must be terminated by a new line, otherwise the first triple of the next part would be appended to it
+				if (!compressed)
+				{
+					ByteBuffer last = ByteBuffer.allocate(1);
+					in.read(last, size - 1);
+					if (last.get(0) != '\n')
+						channel.write(ByteBuffer.wrap(new byte[] {'\n'}));
+				}
+			}
+		}
+		else        //Either compress or decompress the partial output
+		{
+			OutputStream target = Channels.newOutputStream(channel);
+			GZIPOutputStream gz = compressed ? new GZIPOutputStream(target, 1 << 16) : null;
+			try (InputStream in = open(part)) {
+				copy(in, compressed ? gz : target);
+			}
+			if (gz != null)
+				gz.finish();                 //Completes this gzip member without closing the merged output
+		}
+	}
+
+
+	/**
+	 * Appends the triples (or quads) of a partial Turtle (or TriG) output. Each prefix is declared once in the merged output, unless it is redefined in a subsequent part.
+	 * @param part  Path to the partial output file.
+	 * @param lang  RDF serialization of the partial output.
+	 * @throws IOException  Thrown if the partial output cannot be read or the merged output cannot be written.
+	 */
+	private void appendRDF(String part, Lang lang) throws IOException {
+
+		if (rdfWriter == null)
+		{
+			out = openOutput();
+			rdfWriter = StreamRDFWriter.getWriterStream(out, (lang == Lang.TRIG) ? RDFFormat.TRIG_BLOCKS : RDFFormat.TURTLE_BLOCKS);
+			rdfWriter.start();
+			final Map<String, String> prefixes = new HashMap<String, String>();
+			rdfSink = new StreamRDFWrapper(rdfWriter) {
+				@Override
+				public void start() { }           //Output is started only once
+				@Override
+				public void finish() { }          //Output is completed once all parts have been merged
+				@Override
+				public void base(String base) { }
+				@Override
+				public void prefix(String prefix, String iri) {
+					if (!iri.equals(prefixes.put(prefix, iri)))
+						super.prefix(prefix, iri);
+				}
+			};
+		}
+
+		//Blank nodes are distinct in each part, since a new parser is used each time
+		try (InputStream in = open(part)) {
+			RDFDataMgr.parse(rdfSink, in, lang);
+		}
+	}
+
+
+	/**
+	 * Appends the elements of a partial RDF/XML output under the root element of the merged output, which is taken from the first part.
+	 * Namespaces declared in the root of a subsequent part, but missing from (or bound differently in) the merged root, are declared on each of its top-level elements.
+	 * @param part  Path to the partial output file.
+	 * @throws Exception  Thrown if the partial output cannot be read or the merged output cannot be written.
+	 */
+	@SuppressWarnings("unchecked")
+	private void appendXML(String part) throws Exception {
+
+		if (xmlWriter == null)
+		{
+			out = openOutput();
+			xmlWriter = XMLOutputFactory.newInstance().createXMLEventWriter(out, "UTF-8");
+			xmlEvents = XMLEventFactory.newInstance();
+		}
+
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		try (InputStream in = open(part)) {
+			XMLEventReader reader = factory.createXMLEventReader(in);
+			List<Namespace> extra = new ArrayList<Namespace>();
+			int depth = 0;
+			while (reader.hasNext())
+			{
+				XMLEvent e = reader.nextEvent();
+				if (e.isStartElement())
+				{
+					depth++;
+					if (depth == 1)
+					{
+						StartElement partRoot = e.asStartElement();
+						if (root == null)        //The first part specifies the root of the merged output
+						{
+							root = partRoot;
+							xmlWriter.add(xmlEvents.createStartDocument("UTF-8", "1.0"));
+							xmlWriter.add(xmlEvents.createCharacters("\n"));
+							xmlWriter.add(root);
+							Iterator<Namespace> it = root.getNamespaces();
+							while (it.hasNext())
+							{
+								Namespace ns = it.next();
+								rootNamespaces.put(ns.getPrefix(), ns.getNamespaceURI());
+							}
+						}
+						else
+						{
+							Iterator<Namespace> it = partRoot.getNamespaces();
+							while (it.hasNext())
+							{
+								Namespace ns = it.next();
+								if (!ns.getNamespaceURI().equals(rootNamespaces.get(ns.getPrefix())))
+									extra.add(ns);
+							}
+						}
+						continue;
+					}
+					if ((depth == 2) && (!extra.isEmpty()))
+					{
+						StartElement s = e.asStartElement();
+						List<Namespace> namespaces = new ArrayList<Namespace>(extra);
+						Iterator<Namespace> it = s.getNamespaces();
+						while (it.hasNext())
+							namespaces.add(it.next());
+						e = xmlEvents.createStartElement(s.getName().getPrefix(), s.getName().getNamespaceURI(), s.getName().getLocalPart(), s.getAttributes(), namespaces.iterator());
+					}
+					xmlWriter.add(e);
+				}
+				else if (e.isEndElement())
+				{
+					if (--depth > 0)
+						xmlWriter.add(e);
+				}
+				else if ((depth > 0) && (!e.isStartDocument()) && (!e.isEndDocument()) && (e.getEventType() != XMLEvent.DTD))
+					xmlWriter.add(e);
+			}
+			reader.close();
+		}
+	}
+
+
+	/**
+	 * Completes the merged output file.
+	 * @throws Exception  Thrown if the merged output cannot be written.
+	 */
+	private void finish() throws Exception {
+
+		if ((channel == null) && (out == null))
+		{
+			if (failed)
+				return;
+			//No contents merged at all, so create the merged output anyway
+			switch(method) {
+				case BYTES:
+					channel = FileChannel.open(Paths.get(outputFile), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+					break;
+				case XML:
+					out = openOutput();
+					xmlWriter = XMLOutputFactory.newInstance().createXMLEventWriter(out, "UTF-8");
+					xmlEvents = XMLEventFactory.newInstance();
+					xmlWriter.add(xmlEvents.createStartDocument("UTF-8", "1.0"));
+					root = xmlEvents.createStartElement("rdf", RDF_NS, "RDF", Collections.emptyIterator(), Arrays.asList(xmlEvents.createNamespace("rdf", RDF_NS)).iterator());
+					xmlWriter.add(root);
+					break;
+				default:
+					out = openOutput();
+			}
+		}
+
+		if (rdfWriter != null)
+			rdfWriter.finish();
+		if (xmlWriter != null)
+		{
+			if (root != null)
+				xmlWriter.add(xmlEvents.createEndElement(root.getName(), null));
+			xmlWriter.add(xmlEvents.createEndDocument());
+			xmlWriter.close();
+		}
+		if (out != null)
+			out.close();
+		if (channel != null)
+			channel.close();
+	}
+
+
+	/**
+	 * Opens the merged output file for writing as a stream, compressed if required.
+	 * @return  An output stream over the merged output file.
+	 * @throws IOException  Thrown if the merged output cannot be created.
+	 */
+	private OutputStream openOutput() throws IOException {
+
+		OutputStream os = new BufferedOutputStream(Channels.newOutputStream(FileChannel.open(Paths.get(outputFile), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)), 1 << 16);
+		return compressed ? new GZIPOutputStream(os, 1 << 16) : os;
+	}
+
+
+	/**
+	 * Opens a partial output file for reading, decompressing it if required.
+	 * @param part  Path to the partial output file.
+	 * @return  An input stream over the (decompressed) contents of the partial output.
+	 * @throws IOException  Thrown if the partial output cannot be read.
+	 */
+	private InputStream open(String part) throws IOException {
+
+		InputStream in = new BufferedInputStream(new FileInputStream(part), 1 << 16);
+		return part.toLowerCase().endsWith(".gz") ? new GZIPInputStream(in, 1 << 16) : in;
+	}
+
+
+	/**
+	 * Copies all contents of an input stream into an output stream.
+	 * @param in  The input stream.
+	 * @param os  The output stream; it remains open.
+	 * @throws IOException  Thrown if copying fails.
+	 */
+	private static void copy(InputStream in, OutputStream os) throws IOException {
+
+		byte[] buf = new byte[1 << 16];
+		int n;
+		while ((n = in.read(buf)) >= 0)
+			os.write(buf, 0, n);
+		os.flush();
+	}
+
+}
@@ -80,7 +80,8 @@ import org.apache.commons.lang.StringEscapeUtils;
  * Modified: 18/2/2018; included attribute statistics calculated during transformation
  * Modified: 22/4/2019; included support for spatial filtering over input datasets
  * Modified: 9/10/2019; included support for thematic filtering; also exporting basic attributes for the SLIPO Registry.
- * Last modified by: Kostas Patroumpas, 10/10/2019
+ * Modified: 16/10/2026; geometries handled natively; WKT representations parsed or serialized at most once per feature
+ * Last modified by: Kostas Patroumpas, 16/10/2026
  */
 public class RMLConverter implements Converter {
 
@@ -306,7 +307,7 @@ public class RMLConverter implements Converter {
 				geometry = (Geometry) feature.getDefaultGeometry();
 
 				//Apply spatial or thematic filtering (if specified by user)
-				if ((!myAssistant.filterContains(geometry.toText())) || ((filter != null) && (!filter.evaluate(feature))))
+				if ((!myAssistant.filterContains(geometry)) || ((filter != null) && (!filter.evaluate(feature))))
 				{
 					rejectedRec++;
 					continue;
@@ -320,7 +321,7 @@ public class RMLConverter implements Converter {
 		      	wkt = myAssistant.geometry2WKT(geometry, currentConfig.targetGeoOntology.trim());
 
 		  	  	//Insert extra attributes concerning lon/lat coordinates for the centroid 
-		  	  	Geometry geomProjected = myAssistant.geomTransformWGS84(wkt, targetSRID);
+		  	  	Geometry geomProjected = myAssistant.geomTransformWGS84(geometry, targetSRID);
 		  	  	updateMBR(geomProjected);                 //Keep the MBR of transformed geometries up-to-date
 		  	  	
 		      	//Pass all NOT NULL attribute values into a hash map in order to apply RML mapping(s) directly
@@ -354,7 +355,7 @@ public class RMLConverter implements Converter {
 			  
 				//Get a record with basic attribute that will be used for the SLIPO Registry
 				if (myRegister != null)
-					myRegister.createTuple(templateFeatureURI.replace("{UUID}", uri), row, wkt, targetSRID);
+					myRegister.createTuple(templateFeatureURI.replace("{UUID}", uri), row, geometry, targetSRID);
 				
 			    //Periodically, dump results into output file
 				if (numRec % currentConfig.batch_size == 0) 
@@ -460,10 +461,13 @@ public class RMLConverter implements Converter {
 			        }	
 		      	}
 		      	
+				Geometry geometry = null;
 				if (wkt != null)
 				{
+					geometry = myAssistant.WKT2Geometry(wkt);      //Parse the WKT representation once
+					
 			  	  	//Insert extra attributes concerning lon/lat coordinates for the centroid 
-			  	  	Geometry geomProjected = myAssistant.geomTransformWGS84(wkt, targetSRID);
+			  	  	Geometry geomProjected = myAssistant.geomTransformWGS84(geometry, targetSRID);
 			  	  	updateMBR(geomProjected);                 //Keep the MBR of transformed geometries up-to-date
 					row.put("WKT", "<http://www.opengis.net/def/crs/EPSG/0/" + targetSRID + "> " + wkt);   //Update attribute for the geometry as WKT along with the CRS
 				}
@@ -477,7 +481,7 @@ public class RMLConverter implements Converter {
 			  
 				//Get a record with basic attribute that will be used for the SLIPO Registry
 				if (myRegister != null)
-					myRegister.createTuple(templateFeatureURI.replace("{UUID}", uri), row, wkt, targetSRID);
+					myRegister.createTuple(templateFeatureURI.replace("{UUID}", uri), row, geometry, targetSRID);
 				
 		        ++numRec;
 			  
@@ -568,22 +572,27 @@ public class RMLConverter implements Converter {
 				else if (currentConfig.attrGeometry != null)
 					wkt = rs.get(currentConfig.attrGeometry);  //ASSUMPTION: Geometry values are given as WKT
 				
+		      	Geometry geometry = null;
 		      	if (wkt != null)
 		      	{		
+		      		//Parse the WKT representation once; the geometry is used in filtering, reprojection and calculation of its centroid
+		      		geometry = myAssistant.WKT2Geometry(wkt);
+		      		
 		      		//Apply spatial filtering (if specified by user)
-					if (!myAssistant.filterContains(wkt))
+					if (!myAssistant.filterContains(geometry))
 					{
 						rejectedRec++;
 						continue;
 					}
 					//CRS transformation
 			      	if (reproject != null)
-			      		wkt = myAssistant.wktTransform(wkt, reproject);     //Get transformed WKT representation
-//					else	
-//					    myAssistant.WKT2Geometry(wkt);                      //This is done only for updating the MBR of all geometries
+			      	{
+			      		geometry = myAssistant.geomTransform(geometry, reproject);
+			      		wkt = geometry.toText();                        //Get transformed WKT representation
+			      	}
 		
 			  	  	//Insert extra attributes concerning lon/lat coordinates for the centroid 
-			  	  	Geometry geomProjected = myAssistant.geomTransformWGS84(wkt, targetSRID);
+			  	  	Geometry geomProjected = myAssistant.geomTransformWGS84(geometry, targetSRID);
 			  	  	updateMBR(geomProjected);                 //Keep the MBR of transformed geometries up-to-date
 			  	  	
 		      		row.put("WKT", "<http://www.opengis.net/def/crs/EPSG/0/" + targetSRID + "> " + wkt);   //Extra attribute for the geometry as WKT
@@ -607,7 +616,7 @@ public class RMLConverter implements Converter {
 			  
 				//Get a record with basic attribute that will be used for the SLIPO Registry
 				if (myRegister != null)
-					myRegister.createTuple(templateFeatureURI.replace("{UUID}", uri), row, wkt, targetSRID);			
+					myRegister.createTuple(templateFeatureURI.replace("{UUID}", uri), row, geometry, targetSRID);			
 				
 			    //Periodically, dump results into output file
 				if (numRec % currentConfig.batch_size == 0) 
@@ -656,7 +665,7 @@ public class RMLConverter implements Converter {
 	public void parse(String wkt, Map<String, String> attrValues, Classification classific, int targetSRID, String geomType) {
 		
 	}
-
+	
 	/**
 	 * Parses a Map structure of (key, value) pairs and streamlines the resulting triples (including geometric and non-spatial attributes).
 	 * Input provided as an individual record. This method may be used when running over Spark/GeoSpark.
@@ -0,0 +1,205 @@
+/*
+ * @(#) SpatialFilter.java  version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.vividsolutions.jts.algorithm.locate.IndexedPointInAreaLocator;
+import com.vividsolutions.jts.algorithm.locate.PointOnGeometryLocator;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Location;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygonal;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
+/**
+ * Topological filter (CONTAINS) of input geometries against one or more user-specified regions.
+ * Each region is prepared once (with indexed segments for point-in-polygon tests), whereas multiple regions are indexed by their envelopes in an STR-tree.
+ * A geometry qualifies if it is contained in at least one region; the envelope of all regions is checked first, so that most non-qualifying geometries are rejected without any topological test.
+ * Once constructed, the filter is read-only and can be shared among concurrent workers.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified: 16/10/2026
+ */
+
+public class SpatialFilter {
+
+	/**
+	 * A prepared filter region along with its envelope and (for polygonal regions) an indexed point locator.
+	 */
+	private static class Region {
+		Geometry geom;                       //Original geometry of the region
+		Envelope env;                        //Envelope of the region
+		PreparedGeometry prepared;           //Prepared geometry used in containment tests
+		PointOnGeometryLocator locator;      //Used in containment tests of points given by their coordinates; null for non-polygonal regions
+
+		Region(Geometry geom) {
+			this.geom = geom;
+			env = geom.getEnvelopeInternal();
+			prepared = PreparedGeometryFactory.prepare(geom);
+			if (geom instanceof Polygonal)
+				locator = new IndexedPointInAreaLocator(geom);
+		}
+	}
+
+	private List<Region> regions;            //All regions of the filter
+	private STRtree index = null;            //Index over the envelopes of the regions; used only if multiple regions have been specified
+	private Envelope envelope;               //Envelope of all regions
+	private GeometryFactory geometryFactory;
+
+
+	/**
+	 * Constructor of a spatial filter over the given regions.
+	 * @param geoms  List of geometries (polygons or multipolygons) representing the filter regions.
+	 */
+	public SpatialFilter(List<Geometry> geoms) {
+
+		geometryFactory = geoms.get(0).getFactory();
+		regions = new ArrayList<Region>(geoms.size());
+		envelope = new Envelope();
+		for (Geometry g: geoms)
+		{
+			Region r = new Region(g);
+			regions.add(r);
+			envelope.expandToInclude(r.env);
+		}
+
+		if (regions.size() > 1)
+		{
+			index = new STRtree();
+			for (Region r: regions)
+				index.insert(r.env, r);
+			index.build();         //Build the tree now, so that concurrent workers only query it
+		}
+
+		//CAUTION! Indices of prepared geometries are built lazily; warm them up, so that concurrent workers only read them
+		for (Region r: regions)
+		{
+			Point p = r.geom.getInteriorPoint();
+			r.prepared.contains(p);
+			if (r.locator != null)
+				r.locator.locate(p.getCoordinate());
+		}
+	}
+
+
+	/**
+	 * Provides the candidate regions whose envelopes intersect the given envelope.
+	 * @param env  An envelope to be checked.
+	 * @return  A list of candidate regions.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<Region> candidates(Envelope env) {
+		return (index == null) ? regions : (List<Region>) index.query(env);
+	}
+
+
+	/**
+	 * Checks whether a geometry is contained in any of the filter regions.
+	 * @param g  Input geometry.
+	 * @return  True if the geometry is contained in a region; False otherwise.
+	 */
+	public boolean contains(Geometry g) {
+
+		if ((g == null) || (g.isEmpty()))
+			return false;
+
+		//Points are checked directly against their coordinates
+		if (g instanceof Point)
+			return contains(((Point) g).getX(), ((Point) g).getY());
+
+		//Envelope pre-check: a geometry not within the envelope of a region cannot be contained in that region
+		Envelope env = g.getEnvelopeInternal();
+		if (!envelope.contains(env))
+			return false;
+
+		for (Region r: candidates(env))
+		{
+			if ((r.env.contains(env)) && (r.prepared.contains(g)))
+				return true;
+		}
+
+		return false;
+	}
+
+
+	/**
+	 * Checks whether a point given by its coordinates is contained in any of the filter regions. No geometry is created for polygonal regions.
+	 * @param x  X-ordinate (or longitude) of the point.
+	 * @param y  Y-ordinate (or latitude) of the point.
+	 * @return  True if the point is contained in (i.e., lies in the interior of) a region; False otherwise.
+	 */
+	public boolean contains(double x, double y) {
+
+		if (!envelope.contains(x, y))
+			return false;
+
+		Coordinate c = new Coordinate(x, y);
+		for (Region r: candidates(new Envelope(c)))
+		{
+			if (!r.env.contains(c))
+				continue;
+			if (r.locator != null)
+			{
+				if (r.locator.locate(c) == Location.INTERIOR)       //Points on the boundary are not contained in a polygon
+					return true;
+			}
+			else if (r.prepared.contains(geometryFactory.createPoint(c)))
+				return true;
+		}
+
+		return false;
+	}
+
+
+	/**
+	 * Provides the number of regions in this filter.
+	 * @return  The number of regions.
+	 */
+	public int getNumRegions() {
+		return regions.size();
+	}
+
+
+	/**
+	 * Provides a geometry representing all regions of this filter.
+	 * @return  The single region, or a collection of all regions if multiple ones have been specified.
+	 */
+	public Geometry getGeometry() {
+
+		if (regions.size() == 1)
+			return regions.get(0).geom;
+
+		List<Geometry> geoms = new ArrayList<Geometry>(regions.size());
+		for (Region r: regions)
+			geoms.add(r.geom);
+		return geometryFactory.buildGeometry(geoms);
+	}
+
+}
@@ -74,7 +74,10 @@ import eu.slipo.athenarc.triplegeo.osm.OSMRecord;
  * Modified: 30/5/2019; correct handling of NULL geometries in CSV input files
  * Modified: 26/6/2019; added support for thematic filtering in geographical files
  * Modified: 9/10/2019; issuing assigned category to the registry
- * Last modified: 5/12/2019
+ * Modified: 16/10/2026; optional pipeline of concurrent workers over records of a single input file
+ * Modified: 16/10/2026; geometries handled natively throughout transformation; WKT representations parsed or serialized at most once per feature
+ * Modified: 16/10/2026; spatial filter applied directly on X/Y coordinates of CSV records
+ * Last modified: 16/10/2026
  */
 
 public class StreamConverter implements Converter {
@@ -97,6 +100,7 @@ public class StreamConverter implements Converter {
 	private BufferedWriter registryWriter = null;
 	private OutputStream outFile = null;
 	private StreamRDF stream;
+	private StreamPipeline pipeline = null;    //Concurrent workers for transformation of records (if specified in the configuration)
 	  
 	/**
 	 * Constructs a StreamConverter object that will conduct transformation at STREAM mode.	  	  
@@ -178,9 +182,6 @@ public class StreamConverter implements Converter {
 	 */
 	public void parse(FeatureIterator<?> iterator, Classification classific, MathTransform reproject, int targetSRID, String outputFile)	  
 	{
-		SimpleFeatureImpl feature;
-		Geometry geometry;
-		String wkt = "";                 //Will hold geometry value
 		List<String> columns = null;     //Non-spatial attribute names
 		Filter filter = null;            //Thematic filter (handled using GeoTools)
 		
@@ -191,28 +192,14 @@ public class StreamConverter implements Converter {
 			{
 				filter = CQL.toFilter(currentConfig.filterSQLCondition);
 			}
+			final Filter thematicFilter = filter;
 			
 			//Iterate through all features	  
 			while(iterator.hasNext()) 
 			{
 				++numRec;
 			
-		        feature = (SimpleFeatureImpl) iterator.next();
-		        geometry = (Geometry) feature.getDefaultGeometry();
-
-				//Apply spatial or thematic filtering (if specified by user)
-				if ((!myAssistant.filterContains(geometry.toText())) || ((filter != null) && (!filter.evaluate(feature))))
-				{
-					rejectedRec++;
-					continue;
-				}
-				
-				//CRS transformation
-		      	if (reproject != null)
-		      		geometry = myAssistant.geomTransform(geometry, reproject);     
-		        
-		        //Get WKT representation of the transformed geometry
-		      	wkt = myAssistant.geometry2WKT(geometry, currentConfig.targetGeoOntology.trim());
+		        final SimpleFeatureImpl feature = (SimpleFeatureImpl) iterator.next();
 		      					
 				//Determine attribute names for each feature
 				//CAUTION! This is only called for the first feature, as the structure of the rest is considered identical
@@ -224,20 +211,10 @@ public class StreamConverter implements Converter {
 			    		if ( ! p.getName().equals(feature.getDefaultGeometryProperty().getName()))       //Exclude geometry attribute
 			    			columns.add(p.getName().toString());
 			    }
+			    final List<String> attrNames = columns;
 		    
-		        //Convert feature into a temporary tuple for conversion of all non-spatial attributes
-		        Map<String,String> row = new HashMap<String, String>(columns.size());
-		        for (String col : columns) {
-		        	if (feature.getAttribute(col) != null)         //Exclude NULL values
-		        		row.put(col, feature.getAttribute(col).toString());
-		        }
-							
-		      	//Pass this tuple for conversion to RDF triples 
-		      	String uri = myGenerator.transform(row, wkt, targetSRID, classific);
-				
-				//Get a record with basic attribute that will be used for the SLIPO Registry
-				if (myRegister != null)
-					myRegister.createTuple(uri, row, wkt, targetSRID);
+		      	//Pass this feature for conversion to RDF triples 
+			    process((generator, assist, register) -> transformFeature(feature, attrNames, thematicFilter, classific, reproject, targetSRID, generator, assist, register));
 			  
 			    //Periodically, collect RDF triples resulting from this batch and dump results into output file
 				if (numRec % currentConfig.batch_size == 0) 
@@ -260,6 +237,49 @@ public class StreamConverter implements Converter {
 
 	}
 	
+	
+	/**
+	 * Transforms a single feature collected from a FeatureIterator into triples (including geometric and non-spatial attributes).
+	 * @param feature  The input feature.
+	 * @param columns  Names of its non-spatial attributes.
+	 * @param filter  Thematic filter (handled using GeoTools); null if not specified.
+	 * @param classific  Instantiation of the classification scheme that assigns categories to input features.
+	 * @param reproject  CRS transformation parameters to be used in reprojecting a geometry to a target SRID (EPSG code).
+	 * @param targetSRID  Spatial reference system (EPSG code) of geometries in the output RDF triples.
+	 * @param generator  Generator of triples to be used for this feature.
+	 * @param assist  Assistant to perform auxiliary operations (filtering, geometry transformations, etc.)
+	 * @param register  Collector of tuples for the SLIPO Registry; null if not applicable.
+	 * @return  True if the feature has been transformed; False if it was rejected by a filter.
+	 */
+	private boolean transformFeature(SimpleFeatureImpl feature, List<String> columns, Filter filter, Classification classific, MathTransform reproject, int targetSRID, TripleGenerator generator, Assistant assist, FeatureRegister register)
+	{
+        Geometry geometry = (Geometry) feature.getDefaultGeometry();
+
+		//Apply spatial or thematic filtering (if specified by user)
+		if ((!assist.filterContains(geometry)) || ((filter != null) && (!filter.evaluate(feature))))
+			return false;
+		
+		//CRS transformation
+      	if (reproject != null)
+      		geometry = assist.geomTransform(geometry, reproject);     
+    
+        //Convert feature into a temporary tuple for conversion of all non-spatial attributes
+        Map<String,String> row = new HashMap<String, String>(columns.size());
+        for (String col : columns) {
+        	if (feature.getAttribute(col) != null)         //Exclude NULL values
+        		row.put(col, feature.getAttribute(col).toString());
+        }
+					
+      	//Pass this tuple for conversion to RDF triples; its WKT representation will be serialized when issuing the geometry literal
+      	String uri = generator.transform(row, geometry, targetSRID, classific);
+		
+		//Get a record with basic attribute that will be used for the SLIPO Registry
+		if (register != null)
+			register.createTuple(uri, row, geometry, targetSRID);
+		
+		return true;
+	}
+	
 
 	/**
 	 * Parses each record from a ResultSet and streamlines the resulting triples (including geometric and non-spatial attributes).
@@ -283,10 +303,11 @@ public class StreamConverter implements Converter {
 					  columns.add(rs.getMetaData().getColumnName(i));
 			  
 			  //Iterate through all records
+			  //CAUTION! Values are always fetched by the calling thread, as a ResultSet cannot be shared among threads
 			  while (rs.next()) 
 			  {
 		        //Convert resultset into a temporary tuple for conversion of all non-spatial attributes
-		        Map<String,String> row = new HashMap<String, String>();
+		        final Map<String,String> row = new HashMap<String, String>();
 		        for (String col : columns) {
 		        	row.put(col, rs.getString(col));
 		        }
@@ -310,13 +331,16 @@ public class StreamConverter implements Converter {
 	//			        myAssistant.WKT2Geometry(wkt);                  //This is done only for updating the MBR of all geometries
 			        }
 				}
+				final String geomWKT = wkt;
 	
 		        //Pass this tuple for conversion to RDF triples 
-		      	String uri = myGenerator.transform(row, wkt, targetSRID, classific);
-		      		
-				//Get a record with basic attribute that will be used for the SLIPO Registry
-				if (myRegister != null)
-					myRegister.createTuple(uri, row, wkt, targetSRID);
+				process((generator, assist, register) -> {
+					String uri = generator.transform(row, geomWKT, targetSRID, classific);
+					//Get a record with basic attribute that will be used for the SLIPO Registry
+					if (register != null)
+						register.createTuple(uri, row, geomWKT, targetSRID);
+					return true;
+				});
 				
 				++numRec;
 				  
@@ -357,55 +381,11 @@ public class StreamConverter implements Converter {
 			//Iterate through all records
 			for (Iterator<CSVRecord> iterator = records; iterator.hasNext();) {
 				
-	            Map<String, String> rs = iterator.next().toMap();    //Convert CSV record to map for better manipulation
+	            final Map<String, String> rs = iterator.next().toMap();    //Convert CSV record to map for better manipulation
 	            ++numRec;
 
-	            //Skip transformation of any features filtered out by the logical expression over thematic attributes
-	            if (myAssistant.filterThematic(rs))
-	            {
-			    	rejectedRec++;         
-					continue;
-			    }
-	            
-		      	//Handle geometry attribute, if specified
-				String wkt = null;
-				if ((currentConfig.attrGeometry == null) && (currentConfig.attrX != null) && (currentConfig.attrY != null))       
-				{    //In case no single geometry attribute with WKT values is specified, compose WKT from a pair of coordinates
-				    String x = rs.get(currentConfig.attrX);    //X-ordinate or longitude
-				    String y = rs.get(currentConfig.attrY);    //Y-ordinate or latitude
-				    if ((x != null) && (y != null) && (!x.isEmpty()) && (!y.isEmpty()))
-				    	wkt = "POINT (" + x + " " + y + ")";
-				}
-				else if (currentConfig.attrGeometry != null)
-					wkt = rs.get(currentConfig.attrGeometry);  //ASSUMPTION: Geometry values are given as WKT
-				
-		      	if (wkt != null)
-		      	{		
-					//Apply spatial filtering (if specified by user)
-					if (!myAssistant.filterContains(wkt))
-					{
-						rejectedRec++;
-						continue;
-					}
-					
-					//CRS transformation
-			      	if (reproject != null)
-			      		wkt = myAssistant.wktTransform(wkt, reproject);     //Get transformed WKT representation
-//				    else	
-//				        myAssistant.WKT2Geometry(wkt);                      //This is done only for updating the MBR of all geometries
-		      	}
-			    else 
-			    {
-			    	rejectedRec++;          //Skip transformation of any features with NULL geometries
-					continue;
-			    }
-		      	
 		      	//Pass this tuple for conversion to RDF triples 
-		      	String uri = myGenerator.transform(rs, wkt, targetSRID, classific);
-			
-				//Get a record with basic attribute that will be used for the SLIPO Registry
-				if (myRegister != null)
-					myRegister.createTuple(uri, rs, wkt, targetSRID);
+	            process((generator, assist, register) -> transformRecord(rs, classific, reproject, targetSRID, generator, assist, register));
 							  
 			    //Periodically, collect RDF triples resulting from this batch and dump results into output file
 				if (numRec % currentConfig.batch_size == 0) 
@@ -427,6 +407,79 @@ public class StreamConverter implements Converter {
 	}
 
 	
+	/**
+	 * Transforms a single CSV record into triples (including geometric and non-spatial attributes).
+	 * @param rs  Attribute values of the record, including its geometry (either as WKT or as a pair of coordinates).
+	 * @param classific  Instantiation of the classification scheme that assigns categories to input features.
+	 * @param reproject  CRS transformation parameters to be used in reprojecting a geometry to a target SRID (EPSG code).
+	 * @param targetSRID  Spatial reference system (EPSG code) of geometries in the output RDF triples.
+	 * @param generator  Generator of triples to be used for this record.
+	 * @param assist  Assistant to perform auxiliary operations (filtering, geometry transformations, etc.)
+	 * @param register  Collector of tuples for the SLIPO Registry; null if not applicable.
+	 * @return  True if the record has been transformed; False if it was rejected by a filter or has no geometry.
+	 */
+	private boolean transformRecord(Map<String, String> rs, Classification classific, MathTransform reproject, int targetSRID, TripleGenerator generator, Assistant assist, FeatureRegister register)
+	{
+        //Skip transformation of any features filtered out by the logical expression over thematic attributes
+        if (assist.filterThematic(rs))
+        	return false;
+        
+      	//Handle geometry attribute, if specified
+		String wkt = null;
+		boolean filtered = false;          //Whether the spatial filter has already been applied on the coordinates of a point
+		if ((currentConfig.attrGeometry == null) && (currentConfig.attrX != null) && (currentConfig.attrY != null))       
+		{    //In case no single geometry attribute with WKT values is specified, compose WKT from a pair of coordinates
+		    String x = rs.get(currentConfig.attrX);    //X-ordinate or longitude
+		    String y = rs.get(currentConfig.attrY);    //Y-ordinate or latitude
+		    if ((x != null) && (y != null) && (!x.isEmpty()) && (!y.isEmpty()))
+		    {
+		    	//Apply spatial filtering (if specified by user) directly on the coordinates
+		    	if (!assist.filterContains(x, y))
+		    		return false;
+		    	filtered = true;
+		    	wkt = "POINT (" + x + " " + y + ")";
+		    }
+		}
+		else if (currentConfig.attrGeometry != null)
+			wkt = rs.get(currentConfig.attrGeometry);  //ASSUMPTION: Geometry values are given as WKT
+		
+      	Geometry geometry = null;
+      	if (wkt != null)
+      	{		
+      		//Parse the WKT representation once, only if the geometry is needed for filtering or reprojection
+      		if (((assist.hasSpatialExtent()) && (!filtered)) || (reproject != null))
+      			geometry = assist.WKT2Geometry(wkt);
+      		
+			//Apply spatial filtering (if specified by user)
+			if ((!filtered) && (!assist.filterContains(geometry)))     //An invalid WKT (i.e., a null geometry) never qualifies
+				return false;
+			
+			//CRS transformation
+	      	if (reproject != null)
+	      	{
+	      		geometry = assist.geomTransform(geometry, reproject);
+	      		wkt = geometry.toText();                        //Get transformed WKT representation
+	      	}
+      	}
+	    else 
+	    	return false;          //Skip transformation of any features with NULL geometries
+      	
+      	//Pass this tuple for conversion to RDF triples 
+      	String uri = generator.transform(rs, geometry, wkt, targetSRID, classific);
+	
+		//Get a record with basic attribute that will be used for the SLIPO Registry
+		if (register != null)
+		{
+			if (geometry != null)
+				register.createTuple(uri, rs, geometry, targetSRID);
+			else
+				register.createTuple(uri, rs, wkt, targetSRID);
+		}
+		
+		return true;
+	}
+	
+	
 	/**
 	 * Parses a single OSM record and streamlines the resulting triples (including geometric and non-spatial attributes).
 	 * Applicable in STREAM transformation mode.
@@ -439,31 +492,68 @@ public class StreamConverter implements Converter {
 	 */	
 	public void parse(OSMRecord rs, Classification classific, MathTransform reproject, int targetSRID) 
 	{	
+	  	//CAUTION! Do not proceed to transform unless this feature complies with the filtering tags specified by the user
+		if (rs.getCategory() == null)
+			return;
+		
+		try {
+			++numRec;
+			
+			//Process all available non-spatial attributes as specified in the collected (tag,value) pairs	
+	        //... including a classification hierarchy from the OSM tags used in filtering
+			process((generator, assist, register) -> transformOSMRecord(rs, classific, reproject, targetSRID, generator, assist, register));
+				  
+		    //Periodically, collect RDF triples resulting from this batch and dump results into output file
+			if (numRec % currentConfig.batch_size == 0) 
+			{
+				collectTriples();
+				myAssistant.notifyProgress(numRec);
+			}		
+				
+		} catch (Exception e) {
+			ExceptionHandler.warn(e, "Problem at element with OSM id: " + rs.getID() + ". Excluded from transformation.");
+		}	
+		finally {
+			collectTriples();     //Dump any pending results into output file
+		}
+	}
+
+	
+	/**
+	 * Transforms a single OSM record into triples (including geometric and non-spatial attributes).
+	 * @param rs  Representation of an OSM record with attributes extracted from an OSM element (node, way, or relation).
+	 * @param classific  Instantiation of the classification scheme that assigns categories to input features.
+	 * @param reproject  CRS transformation parameters to be used in reprojecting a geometry to a target SRID (EPSG code).
+	 * @param targetSRID  Spatial reference system (EPSG code) of geometries in the output RDF triples.
+	 * @param generator  Generator of triples to be used for this record.
+	 * @param assist  Assistant to perform auxiliary operations (filtering, geometry transformations, etc.)
+	 * @param register  Collector of tuples for the SLIPO Registry; null if not applicable.
+	 * @return  True if the record has been transformed; False if it was rejected by a filter or its transformation failed.
+	 */
+	private boolean transformOSMRecord(OSMRecord rs, Classification classific, MathTransform reproject, int targetSRID, TripleGenerator generator, Assistant assist, FeatureRegister register) 
+	{
 		try {            
-  	        //Parse geometric representation
+  	        //Handle geometric representation
+			Geometry geometry = null;
 			String wkt = null;
 			if ((rs.getGeometry() != null) && (!rs.getGeometry().isEmpty()))
 			{
-				wkt = rs.getGeometry().toText();       //Get WKT representation	
-				if (wkt != null)
-				{				
-					//Apply spatial filtering (if specified by user)
-					if (!myAssistant.filterContains(wkt))
-					{
-						rejectedRec++;
-						return;
-					}
+				geometry = rs.getGeometry();
 				
-					//CRS transformation
-			      	if (reproject != null)
-			      		wkt = myAssistant.wktTransform(wkt, reproject);     //Get transformed WKT representation
-//				    else	
-//				      	myAssistant.WKT2Geometry(wkt);                      //This is done only for updating the MBR of all geometries
-				}
+				//Apply spatial filtering (if specified by user)
+				if (!assist.filterContains(geometry))
+					return false;
+			
+				//CRS transformation
+		      	if (reproject != null)
+		      		geometry = assist.geomTransform(geometry, reproject);
+		      	
+		      	wkt = geometry.toText();       //Get WKT representation (once)
 			}
 
 			//Tags to be processed as attribute values
-			Map <String, String> attrValues = new HashMap<String, String>(rs.getTagKeyValue());
+			Map <String, String> attrValues = new HashMap<String, String>(2 * (rs.getTagKeyValue().size() + 8));     //Sized for the extra attributes added below, so no rehashing is needed
+			attrValues.putAll(rs.getTagKeyValue());
            
 	      	//Include standard attributes for OSM identifier, name, and type
 	      	attrValues.put("osm_id", rs.getID());
@@ -471,47 +561,31 @@ public class StreamConverter implements Converter {
 	      	attrValues.put("type", rs.getType());
 	
             //Skip transformation of any features filtered out by the logical expression over thematic attributes
-            if (myAssistant.filterThematic(attrValues))
-            {
-		    	rejectedRec++;         
-				return;
-		    }
+            if (assist.filterThematic(attrValues))
+            	return false;
            
 		  	//Include identified category in these tags as an extra attribute
-	      	if (rs.getCategory() != null)
-	      	{
-	      		if (currentConfig.attrCategory != null)                //Attribute to be used in the Registry as well
-	      			attrValues.put(currentConfig.attrCategory, rs.getCategory());      
-	      		else
-	      			attrValues.put("OSM_Category", rs.getCategory());  //Ad-hoc name for this extra attribute
-	      	}
-	      	else
-	      		return;          //CAUTION! Do not proceed to transform unless this feature complies with the filtering tags specified by the user
+      		if (currentConfig.attrCategory != null)                //Attribute to be used in the Registry as well
+      			attrValues.put(currentConfig.attrCategory, rs.getCategory());      
+      		else
+      			attrValues.put("OSM_Category", rs.getCategory());  //Ad-hoc name for this extra attribute
 	      	
 	      	//Process all available non-spatial attributes as specified in the collected (tag,value) pairs	
 	        //... including a classification hierarchy from the OSM tags used in filtering
-			String uri = myGenerator.transform(attrValues, wkt, targetSRID, classific);
+			String uri = generator.transform(attrValues, geometry, wkt, targetSRID, classific);
 
 			//Get a record with basic attribute that will be used for the SLIPO Registry
-			if (myRegister != null)
-				myRegister.createTuple(uri, attrValues, wkt, targetSRID);
-				  
-		    //Periodically, collect RDF triples resulting from this batch and dump results into output file
-			++numRec;
-			if (numRec % currentConfig.batch_size == 0) 
-			{
-				collectTriples();
-				myAssistant.notifyProgress(numRec);
-			}		
+			if (register != null)
+				register.createTuple(uri, attrValues, geometry, targetSRID);
 				
 		} catch (Exception e) {
-			System.out.println("Problem at element with OSM id: " + rs.getID() + ". Excluded from transformation.");
+			ExceptionHandler.warn(e, "Problem at element with OSM id: " + rs.getID() + ". Excluded from transformation.");
+			return false;
 		}	
-		finally {
-			collectTriples();     //Dump any pending results into output file
-		}
+		return true;
 	}
 	
+	
 	/**
 	 * Parses a single GPX waypoint/track or a single JSON node and streamlines the resulting triples (including geometric and non-spatial attributes).
 	 * Applicable in STREAM transformation mode.
@@ -528,25 +602,36 @@ public class StreamConverter implements Converter {
 		try {	
 			++numRec;
 			
-			//Apply spatial filtering (if specified by user) 
-			//Also skip transformation of any features filtered out by the logical expression over thematic attributes
-			if ((!myAssistant.filterContains(wkt)) || (myAssistant.filterThematic(attrValues)))
-			{
-				rejectedRec++;
-				return;
-			}
-            
-			String uri;
-	
-			//Pass this tuple for conversion to RDF triples 
-			if (currentConfig.attrCategory == null)
-				uri = myGenerator.transform(attrValues, wkt, targetSRID, null);         //There no category specified for this feature,...
-			else
-				uri = myGenerator.transform(attrValues, wkt, targetSRID, classific);	//..., otherwise utilize the user-specified classification hierarchy
-			
-			//Get a record with basic attribute that will be used for the SLIPO Registry
-			if (myRegister != null)
-				myRegister.createTuple(uri, attrValues, wkt, targetSRID);
+			process((generator, assist, register) -> {
+				//Parse the WKT representation once, only if the geometry is needed for filtering
+				Geometry geometry = null;
+				if ((wkt != null) && (assist.hasSpatialExtent()))
+					geometry = assist.WKT2Geometry(wkt);
+				
+				//Apply spatial filtering (if specified by user) 
+				//Also skip transformation of any features filtered out by the logical expression over thematic attributes
+				if ((((geometry != null) || (wkt != null)) && (!assist.filterContains(geometry))) || (assist.filterThematic(attrValues)))
+					return false;
+	            
+				String uri;
+		
+				//Pass this tuple for conversion to RDF triples 
+				if (currentConfig.attrCategory == null)
+					uri = generator.transform(attrValues, geometry, wkt, targetSRID, null);         //There no category specified for this feature,...
+				else
+					uri = generator.transform(attrValues, geometry, wkt, targetSRID, classific);	//..., otherwise utilize the user-specified classification hierarchy
+				
+				//Get a record with basic attribute that will be used for the SLIPO Registry
+				if (register != null)
+				{
+					if (geometry != null)
+						register.createTuple(uri, attrValues, geometry, targetSRID);
+					else
+						register.createTuple(uri, attrValues, wkt, targetSRID);
+				}
+				
+				return true;
+			});
 	
 		    //Periodically, collect RDF triples resulting from this batch and dump results into output file
 			if (numRec % currentConfig.batch_size == 0) 
@@ -584,51 +669,65 @@ public class StreamConverter implements Converter {
 		try {
 			++numRec;
 
-            //Skip transformation of any features filtered out by the logical expression over thematic attributes
-            if (myAssistant.filterThematic(attrValues))
-            {
-		    	rejectedRec++;         
-				return;
-		    }
-            
-			if (wkt == null) {
-				if ((currentConfig.attrGeometry == null) && (currentConfig.attrX != null) && (currentConfig.attrY != null)) {    //In case no single geometry attribute with WKT values is specified, compose WKT from a pair of coordinates
-					String x = attrValues.get(currentConfig.attrX);    //X-ordinate or longitude
-					String y = attrValues.get(currentConfig.attrY);    //Y-ordinate or latitude
-					if ((x != null) && (y != null))
-						wkt = "POINT (" + x + " " + y + ")";
-				} else if (currentConfig.attrGeometry != null)
-					wkt = attrValues.get(currentConfig.attrGeometry);  //ASSUMPTION: Geometry values are given as WKT
-			}
+			process((generator, assist, register) -> {
+	            //Skip transformation of any features filtered out by the logical expression over thematic attributes
+	            if (assist.filterThematic(attrValues))
+	            	return false;
+	            
+	            String geomWKT = wkt;
+	            boolean filtered = false;          //Whether the spatial filter has already been applied on the coordinates of a point
+				if (geomWKT == null) {
+					if ((currentConfig.attrGeometry == null) && (currentConfig.attrX != null) && (currentConfig.attrY != null)) {    //In case no single geometry attribute with WKT values is specified, compose WKT from a pair of coordinates
+						String x = attrValues.get(currentConfig.attrX);    //X-ordinate or longitude
+						String y = attrValues.get(currentConfig.attrY);    //Y-ordinate or latitude
+						if ((x != null) && (y != null)) {
+							//Apply spatial filtering (if specified by user) directly on the coordinates
+							if (!assist.filterContains(x, y))
+								return false;
+							filtered = true;
+							geomWKT = "POINT (" + x + " " + y + ")";
+						}
+					} else if (currentConfig.attrGeometry != null)
+						geomWKT = attrValues.get(currentConfig.attrGeometry);  //ASSUMPTION: Geometry values are given as WKT
+				}
+	
+				Geometry geometry = null;
+				if (geomWKT != null)
+				{
+		      		//Parse the WKT representation once, only if the geometry is needed for filtering or reprojection
+		      		if (((assist.hasSpatialExtent()) && (!filtered)) || (reproject != null))
+		      			geometry = assist.WKT2Geometry(geomWKT);
+		      		
+					//Apply spatial filtering (if specified by user)
+					if ((!filtered) && (!assist.filterContains(geometry)))     //An invalid WKT (i.e., a null geometry) never qualifies
+						return false;
 
-			if (wkt != null)
-			{
-				//Apply spatial filtering (if specified by user)
-				if (!myAssistant.filterContains(wkt))
+					//CRS transformation
+					if (reproject != null)
+					{
+						geometry = assist.geomTransform(geometry, reproject);
+						geomWKT = geometry.toText();                        //Get transformed WKT representation
+					}
+				}
+	
+				String uri;
+				//Pass this tuple for conversion to RDF triples
+				if (currentConfig.attrCategory == null)
+					uri = generator.transform(attrValues, geometry, geomWKT, targetSRID, null);         //There no category specified for this feature,...
+				else
+					uri = generator.transform(attrValues, geometry, geomWKT, targetSRID, classific);	//..., otherwise utilize the user-specified classification hierarchy
+	
+				//Get a record with basic attribute that will be used for the SLIPO Registry
+				if (register != null)
 				{
-					rejectedRec++;
-					return;
+					if (geometry != null)
+						register.createTuple(uri, attrValues, geometry, targetSRID);
+					else
+						register.createTuple(uri, attrValues, geomWKT, targetSRID);
 				}
-				//CRS transformation
-				if (reproject != null)
-					wkt = myAssistant.wktTransform(wkt, reproject);     //Get transformed WKT representation
-//				else
-//				    myAssistant.WKT2Geometry(wkt);                      //This is done only for updating the MBR of all geometries
-			}
-
-			String uri;
-			//Pass this tuple for conversion to RDF triples
-			if (currentConfig.attrCategory == null)
-				uri = myGenerator.transform(attrValues, wkt, targetSRID, null);         //There no category specified for this feature,...
-			else
-				uri = myGenerator.transform(attrValues, wkt, targetSRID, classific);	//..., otherwise utilize the user-specified classification hierarchy
-
-
-			//Get a record with basic attribute that will be used for the SLIPO Registry
-			if (myRegister != null)
-				myRegister.createTuple(uri, attrValues, wkt, targetSRID);
-
-			++numRec;
+				
+				return true;
+			});
 
 			//Periodically, collect RDF triples resulting from this batch and dump results into output file
 			if (numRec % currentConfig.batch_size == 0)
@@ -645,11 +744,49 @@ public class StreamConverter implements Converter {
 		}
 	}
 
+	
+	/**
+	 * Applies the transformation of an input record, either directly by the calling thread or by handing it over to the pipeline of concurrent workers (if specified in the configuration).
+	 * @param job  Transformation to be applied on the record.
+	 * @throws Exception
+	 */
+	private void process(StreamPipeline.RecordJob job) throws Exception
+	{
+		//Concurrent workers are only activated once the first record arrives
+		if ((pipeline == null) && (currentConfig.numWorkers > 1))
+			pipeline = new StreamPipeline(currentConfig, myAssistant, myRegister, stream, registryWriter);
+		
+		if (pipeline != null)
+			pipeline.submit(job);
+		else if (!job.apply(myGenerator, myAssistant, myRegister))
+			rejectedRec++;
+	}
+	
+	
+	/**
+	 * Waits until all records handed over to concurrent workers have been transformed and written, and collects their statistics.
+	 */
+	private void closePipeline()
+	{
+		if (pipeline != null)
+		{
+			pipeline.close(myGenerator);
+			numTriples += pipeline.getNumTriples();
+			rejectedRec += pipeline.getRejectedRecords();
+			pipeline = null;
+		}
+	}
+	
+	
 	/**
 	 * Collects RDF triples generated from a batch of features (their thematic attributes and their geometries) and streamlines them to output file.
 	 */
 	private void collectTriples() 
 	{
+		//CAUTION! When concurrent workers are employed, triples are streamlined by the writer of the pipeline
+		if (pipeline != null)
+			return;
+		
 		try {	        		
 			//Append each triple to the output stream 
 			for (int i = 0; i <= myGenerator.getTriples().size()-1; i++) {
@@ -688,6 +825,7 @@ public class StreamConverter implements Converter {
 	 */	
 	public void store(String outputFile) 
 	{
+		closePipeline();               //Wait for any records still handled by concurrent workers
 		stream.finish();               //Finished issuing triples
 		
 		//******************************************************************
@@ -713,6 +851,7 @@ public class StreamConverter implements Converter {
 	 */
 	public void store(String outputFile, int partition_index)
 	{
+		closePipeline();               //Wait for any records still handled by concurrent workers
 		stream.finish();               //Finished issuing triples
 
 		//******************************************************************
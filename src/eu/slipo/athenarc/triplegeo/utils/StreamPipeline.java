@@ -0,0 +1,384 @@
+/*
+ * @(#) StreamPipeline.java  version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.utils;
+
+import java.io.BufferedWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.io.WKTReader;
+
+/**
+ * Parallel pipeline for STREAM transformation of records from a single input file: one reader (the calling thread) submits records in bounded batches,
+ * a pool of workers (each with its own TripleGenerator and Assistant) converts them into triples, and a single writer thread streamlines the triples into the output file.
+ * Optionally, triples are written in the same order as their respective input records.
+ * If a worker or the writer fails irrecoverably (e.g., out of memory), any remaining records are discarded and the failure is raised once the pipeline is closed.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified: 16/10/2026
+ */
+
+public class StreamPipeline {
+
+	/**
+	 * Transformation of a single input record; applied by any worker using its own generator of triples.
+	 */
+	public interface RecordJob {
+
+		/**
+		 * Converts an input record into RDF triples.
+		 * @param generator  Generator of triples owned by the worker.
+		 * @param assist  Assistant owned by the worker (geometry transformations, filters, etc.).
+		 * @param register  Collector of tuples for the SLIPO Registry owned by the worker; null if no registration is required.
+		 * @return  True if the record has been transformed; False if it was rejected (e.g., by a spatial or thematic filter).
+		 * @throws Exception
+		 */
+		public boolean apply(TripleGenerator generator, Assistant assist, FeatureRegister register) throws Exception;
+	}
+
+
+	/**
+	 * A batch of input records (or of their resulting triples) identified by its sequence number in the input.
+	 */
+	private static class Batch {
+		long seq;                         //Sequence number of this batch
+		List<RecordJob> jobs;             //Input records to be transformed
+		List<Triple> triples;             //Resulting triples
+		List<String> tuples;              //Resulting tuples for the SLIPO Registry
+
+		Batch(long seq, List<RecordJob> jobs) {
+			this.seq = seq;
+			this.jobs = jobs;
+		}
+	}
+
+	private static final Batch POISON = new Batch(-1, null);     //Signals termination to workers and writer
+
+	private static Configuration currentConfig;
+
+	private int batchSize;                      //Number of records handed over to a worker at once
+	private boolean preserveOrder;              //Whether triples will be written in the order of the input records
+
+	private List<RecordJob> current;            //Batch currently being filled by the reader
+	private long nextSeq = 0;                   //Sequence number of the next batch to be submitted
+
+	private BlockingQueue<Batch> inbound;       //Batches of records waiting to be transformed
+	private BlockingQueue<Batch> outbound;      //Batches of triples waiting to be written
+	private Semaphore inFlight;                 //Bounds the number of batches held in memory at any time
+
+	private List<Thread> workers;
+	private List<TripleGenerator> generators;   //One generator of triples per worker
+	private Thread writer;
+
+	private StreamRDF stream;                   //Output stream of triples (accessed by the writer thread only)
+	private BufferedWriter registryWriter;      //Output file for the SLIPO Registry (accessed by the writer thread only)
+
+	private volatile int numTriples = 0;        //Number of triples written so far
+	private int rejectedRec = 0;                //Number of records rejected by the workers
+	private volatile Throwable failure = null;  //First irrecoverable error raised by any worker or the writer
+
+
+	/**
+	 * Constructs a pipeline and starts its worker and writer threads.
+	 * @param config  User-specified configuration for the transformation process.
+	 * @param assist  Assistant of the calling converter; its settings (e.g., parser of WKT geometries) are replicated to the workers.
+	 * @param register  Collector of tuples for the SLIPO Registry of the calling converter; null if no registration is required.
+	 * @param stream  Output stream of triples.
+	 * @param registryWriter  Output file for the SLIPO Registry; null if no registration is required.
+	 */
+	public StreamPipeline(Configuration config, Assistant assist, FeatureRegister register, StreamRDF stream, BufferedWriter registryWriter) {
+
+		currentConfig = config;
+		this.stream = stream;
+		this.registryWriter = registryWriter;
+
+		int numWorkers = currentConfig.numWorkers;
+		preserveOrder = currentConfig.preserveOrder;
+		batchSize = Math.max(currentConfig.batch_size, Constants.PIPELINE_BATCH_SIZE);    //Batches must be large enough to amortize synchronization among threads
+		current = new ArrayList<RecordJob>(batchSize);
+
+		inbound = new ArrayBlockingQueue<Batch>(2 * numWorkers);
+		outbound = new LinkedBlockingQueue<Batch>();
+		inFlight = new Semaphore(4 * numWorkers);        //CAUTION! When order is preserved, a slow batch may hold back others; this bounds memory consumption
+
+		workers = new ArrayList<Thread>(numWorkers);
+		generators = new ArrayList<TripleGenerator>(numWorkers);
+		for (int i = 0; i < numWorkers; i++)
+		{
+			//Each worker has its own generator of triples, and thus its own assistant, statistics and MBR
+			final TripleGenerator generator = new TripleGenerator(config, assist);
+			generator.myAssistant.shareSerialGenerator(assist);      //Serial numbers for missing identifiers must be unique across workers
+			if (assist.wktReader != null)
+				generator.myAssistant.wktReader = new WKTReader();    //WKT parsers are not thread-safe
+			final FeatureRegister myRegister = (register != null) ? register.replicate() : null;
+			generators.add(generator);
+
+			Thread t = new Thread(() -> work(generator, myRegister), Thread.currentThread().getName() + "-worker-" + i);
+			t.setDaemon(true);
+			workers.add(t);
+			t.start();
+		}
+
+		writer = new Thread(() -> write(), Thread.currentThread().getName() + "-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+
+	/**
+	 * Submits an input record for transformation. Records are handed over to the workers in batches; the calling thread blocks if all workers are busy.
+	 * @param job  Transformation to be applied on the record.
+	 * @throws InterruptedException
+	 */
+	public void submit(RecordJob job) throws InterruptedException {
+
+		current.add(job);
+		if (current.size() >= batchSize)
+			dispatch();
+	}
+
+
+	/**
+	 * Hands over the batch currently being filled to the workers.
+	 * @throws InterruptedException
+	 */
+	private void dispatch() throws InterruptedException {
+
+		if (current.isEmpty())
+			return;
+		if (failure != null)                    //Records are discarded once the pipeline has failed
+		{
+			current.clear();
+			return;
+		}
+		inFlight.acquire();
+		inbound.put(new Batch(nextSeq++, current));
+		current = new ArrayList<RecordJob>(batchSize);
+	}
+
+
+	/**
+	 * Main loop of a worker: transforms batches of records until the pipeline is closed.
+	 * @param generator  Generator of triples owned by this worker.
+	 * @param register  Collector of tuples for the SLIPO Registry owned by this worker.
+	 */
+	private void work(TripleGenerator generator, FeatureRegister register) {
+
+		int rejected = 0;
+		try {
+			Batch b;
+			while ((b = inbound.take()) != POISON)
+			{
+				try {
+					for (RecordJob job: b.jobs)
+					{
+						if (failure != null)            //Remaining records are discarded once the pipeline has failed
+							break;
+						try {
+							if (!job.apply(generator, generator.myAssistant, register))
+								rejected++;
+						}
+						catch(Exception e) {
+							ExceptionHandler.warn(e, "An error occurred during transformation of an input record.");
+						}
+					}
+				}
+				catch(Throwable t) {                    //E.g., out of memory, or stack overflow over a pathological geometry
+					fail(t);
+				}
+
+				//Hand over the resulting triples and tuples to the writer, and prepare for the next batch
+				//CAUTION! Every batch must reach the writer, even without triples after a failure; otherwise, the writer waits for it and its permit is never released
+				b.jobs = null;
+				b.triples = Collections.emptyList();
+				try {
+					if (failure == null) {
+						b.triples = new ArrayList<Triple>(generator.getTriples());
+						if (register != null)
+							b.tuples = new ArrayList<String>(register.getTuples4Registry());
+					}
+				}
+				catch(Throwable t) {
+					fail(t);
+					b.triples = Collections.emptyList();
+					b.tuples = null;
+				}
+				generator.clearTriples();
+				if (register != null)
+					register.clearTuples4Registry();
+				outbound.put(b);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			synchronized (this) {
+				rejectedRec += rejected;
+			}
+		}
+	}
+
+
+	/**
+	 * Main loop of the writer: streamlines resulting triples into the output file, optionally in the order of their input records.
+	 */
+	private void write() {
+
+		Map<Long, Batch> pending = new HashMap<Long, Batch>();     //Batches completed ahead of their turn
+		long expected = 0;                                         //Sequence number of the next batch to be written
+		try {
+			Batch b;
+			while ((b = outbound.take()) != POISON)
+			{
+				if (!preserveOrder)
+					emit(b);
+				else
+				{
+					pending.put(b.seq, b);
+					while ((b = pending.remove(expected)) != null) {
+						emit(b);
+						expected++;
+					}
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+	/**
+	 * Writes the triples and registry tuples of a batch.
+	 * @param b  A batch of transformed records.
+	 */
+	private void emit(Batch b) {
+
+		try {
+			if (failure != null)                    //Nothing more is written once the pipeline has failed
+				return;
+			for (Triple t: b.triples)
+				stream.triple(t);
+			numTriples += b.triples.size();
+
+			if ((registryWriter != null) && (b.tuples != null))
+			{
+				for (String aTuple: b.tuples)
+				{
+					registryWriter.write(aTuple);
+					registryWriter.newLine();
+				}
+			}
+		}
+		catch(Exception e) {
+			ExceptionHandler.warn(e, "An error occurred during transformation of an input record.");
+		}
+		catch(Throwable t) {
+			fail(t);
+		}
+		finally {
+			inFlight.release();
+		}
+	}
+
+
+	/**
+	 * Records an irrecoverable error raised by a worker or the writer; only the first one is kept.
+	 * @param t  The error.
+	 */
+	private synchronized void fail(Throwable t) {
+
+		if (failure == null)
+			failure = t;
+	}
+
+
+	/**
+	 * Transforms any pending records, waits until all their triples have been written, and terminates all threads.
+	 * Statistics and MBR collected by the workers are merged into the given generator.
+	 * @param generator  The generator of triples of the calling converter.
+	 * @throws Error  The irrecoverable error raised by a worker or the writer (if any); other failures are wrapped in a RuntimeException.
+	 */
+	public void close(TripleGenerator generator) {
+
+		try {
+			dispatch();
+			for (int i = 0; i < workers.size(); i++)
+				inbound.put(POISON);
+			for (Thread t: workers)
+				t.join();
+			outbound.put(POISON);
+			writer.join();
+		}
+		catch (InterruptedException e) {
+			ExceptionHandler.abort(e, "Transformation interrupted before all records were written.");
+		}
+
+		//Raise any failure of a worker or the writer, since some records have not been transformed
+		if (failure instanceof Error)
+			throw (Error) failure;
+		else if (failure != null)
+			throw new RuntimeException("Transformation of input records failed in a concurrent worker.", failure);
+
+		//Merge statistics collected by each worker
+		for (TripleGenerator g: generators)
+		{
+			for (Map.Entry<String, Integer> stat: g.getStatistics().entrySet())
+				generator.getStatistics().merge(stat.getKey(), stat.getValue(), Integer::sum);
+			Envelope env = g.getMBR();
+			if (env != null)
+				generator.mbr.expandToInclude(env);
+		}
+	}
+
+
+	/**
+	 * Provides the number of triples written by the pipeline.
+	 * @return  The number of triples.
+	 */
+	public int getNumTriples() {
+		return numTriples;
+	}
+
+
+	/**
+	 * Provides the number of input records rejected by the workers (e.g., due to spatial or thematic filters).
+	 * @return  The number of rejected records.
+	 */
+	public synchronized int getRejectedRecords() {
+		return rejectedRec;
+	}
+
+}
@@ -18,6 +18,7 @@
  */
 package eu.slipo.athenarc.triplegeo.utils;
 
+import eu.slipo.athenarc.triplegeo.partitioning.FileRange;
 import eu.slipo.athenarc.triplegeo.tools.CsvToRdf;
 import eu.slipo.athenarc.triplegeo.tools.GeoJsonToRdf;
 import eu.slipo.athenarc.triplegeo.tools.GpxToRdf;
@@ -26,6 +27,7 @@ import eu.slipo.athenarc.triplegeo.tools.RdbToRdf;
 import eu.slipo.athenarc.triplegeo.tools.ShpToRdf;
 import eu.slipo.athenarc.triplegeo.tools.OsmXmlToRdf;
 import eu.slipo.athenarc.triplegeo.tools.OsmPbfToRdf;
+import eu.slipo.athenarc.triplegeo.tools.OsmChangeToRdf;
 
 /**
  * Running a transformation task as a separate thread under the given configuration settings.
@@ -39,7 +41,9 @@ import eu.slipo.athenarc.triplegeo.tools.OsmPbfToRdf;
  * Modified: 8/11/2017, added support for system exit codes on abnormal termination
  * Modified: 21/11/2017, added support for user-specified classification schemes for shapefiles, CSV, and DBMS data sources 
  * Modified: 19/7/2018, added support for JSON and OSM PBF data sources 
- * Last modified by: Kostas Patroumpas, 31/10/2019
+ * Modified: 16/10/2026, added support for virtual partitions (ranges) over an input file
+ * Modified: 16/10/2026, added support for OSM change files
+ * Last modified by: Kostas Patroumpas, 16/10/2026
  */
 public class Task {
 
@@ -56,7 +60,7 @@ public class Task {
 	 */
 	public Task(Configuration config, Classification classific, String inFile, String outFile, int sourceSRID, int targetSRID) 
 	{
-    	currentFormat = config.inputFormat.toUpperCase();           //Possible values: SHAPEFILE, DBMS, CSV, GPX, GEOJSON, JSON, OSM_XML, OSM_PBF, XML
+    	currentFormat = config.inputFormat.toUpperCase();           //Possible values: SHAPEFILE, DBMS, CSV, GPX, GEOJSON, JSON, OSM_XML, OSM_PBF, OSM_CHANGE, XML
     	//System.out.println("Transforming " + inFile + " from " + currentFormat + " into " + outFile);
     	
         try {		
@@ -85,6 +89,10 @@ public class Task {
 				JsonToRdf conv = new JsonToRdf(config, classific, inFile, outFile, sourceSRID, targetSRID);
 				conv.apply();
 			}
+			else if (currentFormat.trim().contains("OSM_CHANGE")) {
+				OsmChangeToRdf conv = new OsmChangeToRdf(config, inFile, outFile, sourceSRID, targetSRID);
+				conv.apply();
+			}
 			else if (currentFormat.trim().contains("OSM_XML")) {
 				OsmXmlToRdf conv = new OsmXmlToRdf(config, inFile, outFile, sourceSRID, targetSRID);
 				conv.apply();
@@ -108,4 +116,37 @@ public class Task {
 		}
 	}   
 
+	
+	/**
+	 * Constructor for a transformation task over a virtual partition of an input file that will be executed at a separate thread.
+	 * CAUTION! Currently, only virtual partitions over .CSV files and shapefiles are supported.
+	 * @param config  Parameters to configure the transformation.
+	 * @param classific  Instantiation of the classification scheme that assigns categories to input features.
+	 * @param range  Range of the partition over the original input file.
+	 * @param outFile  Path to the output file that collects RDF triples.
+	 * @param sourceSRID  Spatial reference system (EPSG code) of the input data.
+	 * @param targetSRID  Spatial reference system (EPSG code) of geometries in the output RDF triples.
+	 */
+	public Task(Configuration config, Classification classific, FileRange range, String outFile, int sourceSRID, int targetSRID) 
+	{
+    	currentFormat = config.inputFormat.toUpperCase();
+    	
+        try {		
+			if (currentFormat.trim().contains("SHAPEFILE")) {
+				ShpToRdf conv = new ShpToRdf(config, classific, range, outFile, sourceSRID, targetSRID);
+				conv.apply();
+			}
+			else if (currentFormat.trim().contains("CSV")) {			
+				CsvToRdf conv = new CsvToRdf(config, classific, range, outFile, sourceSRID, targetSRID);
+				conv.apply();
+			}
+			else {
+				throw new IllegalArgumentException(Constants.INCORRECT_SETTING);
+			}
+				
+        } catch (Exception e) {
+        	ExceptionHandler.abort(e, Constants.INCORRECT_SETTING);      //Execution terminated abnormally
+		}
+	}
+
 }
@@ -0,0 +1,394 @@
+/*
+ * @(#) TaskScheduler.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FilenameUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import eu.slipo.athenarc.triplegeo.partitioning.FileRange;
+
+/**
+ * Schedules transformation tasks (one per input file or partition) on a bounded pool of threads.
+ * The number of concurrent tasks is determined by the available processors (taking into account the workers employed by each task) and by the memory available to each task within the maximum JVM heap, unless specified in the configuration.
+ * Tasks are executed in decreasing order of their input size (LPT scheduling), so that the largest inputs do not end up being transformed last; tiny inputs are batched together and transformed one after the other by the same thread.
+ * Unless specified in the configuration, the number of partitions for splitting large inputs is also suggested according to their size and the number of concurrent tasks.
+ * Queue length, active tasks, and the estimated duration of each task (based on the throughput of tasks completed so far) are reported in the log and included in the metadata.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class TaskScheduler {
+
+	private static final long MB = 1024L * 1024L;
+	private static final long SMALL_INPUT = MB;              //Inputs below 1MB are considered tiny and get batched
+	private static final long BATCH_SIZE = 16 * MB;          //Maximum total size of inputs in a batch
+	private static final int BATCH_TASKS = 64;               //Maximum number of inputs in a batch
+	private static final long MIN_PARTITION = 64 * MB;       //Inputs are not split into partitions smaller than 64MB
+
+	/**
+	 * A transformation task over a single input file or partition.
+	 */
+	private static class Item {
+		String name;                   //Name of the input file or partition
+		long size;                     //Size of the input (in bytes); zero if unknown
+		Callable<Task> task;           //Creates the task that carries out the transformation
+		String worker = null;          //Thread that executed this task
+		long estimated = -1;           //Estimated duration (in ms) when this task started; -1 if no estimate was available
+		long elapsed = -1;             //Actual duration (in ms)
+		String status = "QUEUED";
+	}
+
+	/**
+	 * Inputs assigned together to a thread: either a single input, or a batch of tiny ones.
+	 */
+	private static class Unit {
+		List<Item> items = new ArrayList<Item>();
+		long size = 0;
+	}
+
+	private Configuration currentConfig;
+	private Assistant myAssistant;
+	private List<Item> items = new ArrayList<Item>();
+	private int numBatches = 0;
+	private int concurrency;
+	private String basis;                                  //Explains how concurrency was determined
+
+	private AtomicInteger queued = new AtomicInteger();    //Tasks not started yet
+	private AtomicInteger active = new AtomicInteger();    //Tasks currently running
+	private long doneBytes = 0;                            //Input transformed by completed tasks...
+	private long doneMillis = 0;                           //...and the time spent in them, used for estimating durations
+
+
+	/**
+	 * Constructor of a scheduler.
+	 * @param config  User-specified configuration for the transformation process.
+	 * @param assist  Assistant used for timestamps in the log.
+	 */
+	public TaskScheduler(Configuration config, Assistant assist) {
+		this.currentConfig = config;
+		this.myAssistant = assist;
+	}
+
+
+	/**
+	 * Adds a task to be scheduled.
+	 * @param name  Name of the input file or partition.
+	 * @param size  Size of the input (in bytes); zero if unknown.
+	 * @param task  Creates the task that carries out the transformation.
+	 */
+	public void add(String name, long size, Callable<Task> task) {
+
+		Item i = new Item();
+		i.name = name;
+		i.size = size;
+		i.task = task;
+		items.add(i);
+	}
+
+
+	/**
+	 * Determines the number of tasks to be executed concurrently.
+	 */
+	private void size() {
+
+		if (currentConfig.maxTasks > 0)
+			basis = "as specified in the configuration";
+		else
+			basis = Runtime.getRuntime().availableProcessors() + " processors, " + threadsPerTask(currentConfig) + " worker(s) per task, " 
+					+ (Runtime.getRuntime().maxMemory() / MB) + " MB of heap, " + (Math.max(1, currentConfig.taskMemory)) + " MB per task";
+		concurrency = Math.max(1, Math.min(maxConcurrency(currentConfig), items.size()));
+	}
+
+
+	/**
+	 * Determines the maximum number of tasks that may be executed concurrently, regardless of the number of inputs.
+	 */
+	private static int maxConcurrency(Configuration config) {
+
+		if (config.maxTasks > 0)
+			return config.maxTasks;
+
+		int byCores = Math.max(1, Runtime.getRuntime().availableProcessors() / threadsPerTask(config));
+		int byMemory = (int) Math.max(1, Runtime.getRuntime().maxMemory() / (Math.max(1, config.taskMemory) * MB));
+		return Math.min(byCores, byMemory);
+	}
+
+
+	/**
+	 * Provides the number of threads employed by each task.
+	 */
+	private static int threadsPerTask(Configuration config) {
+		return config.mode.contains("STREAM") ? Math.max(1, config.numWorkers) : 1;
+	}
+
+
+	/**
+	 * Suggests the number of partitions for splitting large inputs, so that all tasks that may run concurrently are kept busy; each partition spans at least 64MB.
+	 * @param config  The configuration settings.
+	 * @param totalSize  Total size (in bytes) of the inputs that can be split.
+	 * @return  The number of partitions; 1 if the inputs are not large enough to be split.
+	 */
+	public static int suggestPartitions(Configuration config, long totalSize) {
+		return (int) Math.max(1, Math.min(maxConcurrency(config), totalSize / MIN_PARTITION));
+	}
+
+
+	/**
+	 * Arranges tasks into units in decreasing order of input size; tiny inputs are batched together, but still leaving enough units to keep all threads busy.
+	 */
+	private List<Unit> plan() {
+
+		List<Item> sorted = new ArrayList<Item>(items);
+		Collections.sort(sorted, (a, b) -> Long.compare(b.size, a.size));     //Stable, so inputs of unknown size retain their original order
+
+		int numTiny = 0;
+		for (Item i: sorted)
+			if ((i.size > 0) && (i.size < SMALL_INPUT))
+				numTiny++;
+		int maxBatch = Math.max(1, Math.min(BATCH_TASKS, numTiny / (2 * concurrency)));     //At least two batches per thread
+
+		List<Unit> units = new ArrayList<Unit>();
+		Unit batch = null;
+		for (Item i: sorted)
+		{
+			if ((i.size <= 0) || (i.size >= SMALL_INPUT))
+			{
+				Unit u = new Unit();
+				u.items.add(i);
+				u.size = i.size;
+				units.add(u);
+				continue;
+			}
+			if ((batch == null) || (batch.size + i.size > BATCH_SIZE) || (batch.items.size() >= maxBatch))
+			{
+				batch = new Unit();
+				units.add(batch);
+			}
+			batch.items.add(i);
+			batch.size += i.size;
+		}
+
+		for (Unit u: units)
+			if (u.items.size() > 1)
+				numBatches++;
+		Collections.sort(units, (a, b) -> Long.compare(b.size, a.size));      //Batches are placed among single inputs according to their total size
+		return units;
+	}
+
+
+	/**
+	 * Executes all tasks on a bounded pool of threads and waits for their completion.
+	 * @return  True, if all tasks concluded successfully; otherwise, False.
+	 */
+	public boolean run() {
+
+		size();
+		List<Unit> units = plan();
+		concurrency = Math.max(1, Math.min(concurrency, units.size()));
+		queued.set(items.size());
+		System.out.println(myAssistant.getGMTime() + " Scheduling " + items.size() + " task(s) in " + units.size() + " unit(s) (" + numBatches + " batches of tiny inputs), largest first, on " + concurrency + " concurrent thread(s) (" + basis + ").");
+
+		ExecutorService exec = Executors.newFixedThreadPool(concurrency);
+		boolean success = true;
+		try {
+			//Units are submitted in decreasing order of size, so each thread that becomes idle picks the largest remaining one
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (final Unit u: units)
+				results.add(exec.submit(() -> execute(u)));
+
+			//Inspect each unit on possible failure
+			for (Future<Boolean> r: results)
+			{
+				try {
+					if (!r.get())
+						success = false;            //At least one task has failed
+				} catch (ExecutionException e) {
+					success = false;
+					ExceptionHandler.warn(e, "A transformation task failed.");            //Execution aborted abnormally
+				} catch (InterruptedException e) {
+					success = false;
+					ExceptionHandler.warn(e, "A transformation task was interrupted.");   //Execution interrupted abnormally
+				}
+			}
+		} finally {
+			exec.shutdown();
+		}
+		return success;
+	}
+
+
+	/**
+	 * Executes the tasks of a unit one after the other.
+	 * @return  True, if all tasks concluded successfully; otherwise, False.
+	 */
+	private boolean execute(Unit u) {
+
+		boolean success = true;
+		for (Item i: u.items)
+		{
+			i.worker = Thread.currentThread().getName();
+			i.estimated = estimate(i.size);
+			i.status = "RUNNING";
+			int q = queued.decrementAndGet();
+			int a = active.incrementAndGet();
+			System.out.println(myAssistant.getGMTime() + " Thread " + i.worker + " started task " + i.name + " (" + ((i.size > 0) ? (i.size / 1024) + " KB" : "size unknown") + "). Queued: " + q + ", active: " + a + ((i.estimated >= 0) ? ", estimated duration: " + i.estimated + " ms." : "."));
+
+			long start = System.currentTimeMillis();
+			boolean completed = false;
+			try {
+				i.task.call();
+				completed = true;
+			} catch (Exception e) {
+				ExceptionHandler.warn(e, "Transformation task " + i.name + " failed.");
+			}
+			i.elapsed = System.currentTimeMillis() - start;
+			active.decrementAndGet();
+			if (!completed)
+			{
+				i.status = "FAILED";
+				success = false;
+				continue;
+			}
+			i.status = "COMPLETED";
+			synchronized (this) {
+				doneBytes += i.size;
+				doneMillis += i.elapsed;
+			}
+		}
+		return success;
+	}
+
+
+	/**
+	 * Estimates the duration of a task from the throughput of the tasks completed so far.
+	 * @param size  Size of its input (in bytes).
+	 * @return  The estimated duration (in ms); -1 if no estimate is available yet.
+	 */
+	private synchronized long estimate(long size) {
+
+		if ((size <= 0) || (doneBytes <= 0))
+			return -1;
+		return (long) ((double) size * doneMillis / doneBytes);
+	}
+
+
+	/**
+	 * Provides the number of tasks executed concurrently; determined once the scheduler runs.
+	 * @return  The number of threads.
+	 */
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+
+	/**
+	 * Provides statistics on the decisions of the scheduler and the execution of each task.
+	 * @return  A map with the statistics.
+	 */
+	public Map<String, Object> getStatistics() {
+
+		Map<String, Object> stats = new LinkedHashMap<String, Object>();
+		stats.put("Concurrent threads", concurrency);
+		stats.put("Basis of concurrency", basis);
+		stats.put("Tasks", items.size());
+		stats.put("Batches of tiny inputs", numBatches);
+		List<Map<String, Object>> tasks = new ArrayList<Map<String, Object>>();
+		for (Item i: items)
+		{
+			Map<String, Object> t = new LinkedHashMap<String, Object>();
+			t.put("Input", i.name);
+			t.put("Input size (bytes)", i.size);
+			t.put("Thread", i.worker);
+			t.put("Status", i.status);
+			t.put("Estimated duration (ms)", i.estimated);
+			t.put("Execution time (ms)", i.elapsed);
+			tasks.add(t);
+		}
+		stats.put("Task details", tasks);
+		return stats;
+	}
+
+
+	/**
+	 * Writes the statistics of the scheduler into a JSON file.
+	 * @param outputFile  Path to the file.
+	 */
+	public void writeMetadata(String outputFile) {
+
+		Map<String, Object> allStats = new LinkedHashMap<String, Object>();
+		allStats.put("Scheduler Metadata", getStatistics());
+		try {
+			new ObjectMapper().writeValue(new File(outputFile), allStats);
+		} catch (Exception e) {
+			ExceptionHandler.warn(e, "Metadata of the task scheduler were not written.");
+		}
+	}
+
+
+	/**
+	 * Provides the size of an input file; for shapefiles, this includes their attributes in the .dbf file.
+	 * @param path  Path to the input file.
+	 * @return  The size (in bytes); zero if the file does not exist (e.g., a table in a DBMS).
+	 */
+	public static long inputSize(String path) {
+
+		long size = new File(path).length();
+		if (FilenameUtils.getExtension(path).equalsIgnoreCase("shp"))
+			size += new File(FilenameUtils.removeExtension(path) + ".dbf").length();
+		return size;
+	}
+
+
+	/**
+	 * Provides the size of a virtual partition of an input file, i.e., its share of the file for ranges of records (e.g., in shapefiles).
+	 * @param range  The virtual partition.
+	 * @param ranges  All virtual partitions of the same file.
+	 * @return  The size (in bytes).
+	 */
+	public static long inputSize(FileRange range, FileRange[] ranges) {
+
+		if (!FilenameUtils.getExtension(range.getPath()).equalsIgnoreCase("shp"))
+			return range.getEnd() - range.getStart();        //Byte offsets
+		long numRecords = 0;
+		for (FileRange r: ranges)
+			if (r.getPath().equals(range.getPath()))
+				numRecords = Math.max(numRecords, r.getEnd());
+		return (numRecords > 0) ? inputSize(range.getPath()) * (range.getEnd() - range.getStart()) / numRecords : 0;
+	}
+
+}
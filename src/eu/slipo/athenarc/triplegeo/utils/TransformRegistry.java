@@ -0,0 +1,154 @@
+/*
+ * @(#) TransformRegistry.java  version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.geotools.factory.Hints;
+import org.geotools.referencing.CRS;
+import org.geotools.referencing.ReferencingFactoryFinder;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CRSAuthorityFactory;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
+
+/**
+ * Process-wide registry of coordinate reference systems and transformations among them, shared by all converters, tasks and workers.
+ * Decoding a CRS and finding a transformation are expensive, so each one is done once per (source, target) pair and then reused; MathTransform instances are immutable and thus thread-safe.
+ * Local metric projections (used in calculating area and length of geometries) are cached per UTM zone and hemisphere, which is exactly the information that determines an AUTO2:42001 projection.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified: 16/10/2026
+ */
+
+public class TransformRegistry {
+
+	//Factory of CRS with longitude-first axis order, as used by all converters
+	private static final CRSAuthorityFactory crsFactory = ReferencingFactoryFinder
+		       .getCRSAuthorityFactory("EPSG", new Hints(Hints.FORCE_LONGITUDE_FIRST_AXIS_ORDER, Boolean.TRUE));
+
+	private static final ConcurrentMap<String, CoordinateReferenceSystem> crsCache = new ConcurrentHashMap<String, CoordinateReferenceSystem>();
+	private static final ConcurrentMap<String, MathTransform> transformCache = new ConcurrentHashMap<String, MathTransform>();
+
+	private TransformRegistry() {
+	}
+
+
+	/**
+	 * Provides a coordinate reference system (with longitude-first axis order) as specified in the configuration settings.
+	 * @param code  Identifier of the CRS, e.g., "EPSG:4326".
+	 * @return  The coordinate reference system.
+	 * @throws FactoryException
+	 */
+	public static CoordinateReferenceSystem getCRS(String code) throws FactoryException {
+
+		CoordinateReferenceSystem crs = crsCache.get(code);
+		if (crs == null)
+		{
+			crs = crsFactory.createCoordinateReferenceSystem(code);
+			CoordinateReferenceSystem prev = crsCache.putIfAbsent(code, crs);
+			if (prev != null)
+				crs = prev;
+		}
+		return crs;
+	}
+
+
+	/**
+	 * Provides the transformation between two coordinate reference systems as specified in the configuration settings (e.g., for reprojection of input geometries).
+	 * Some error is allowed due to different datums.
+	 * @param sourceCRS  Identifier of the source CRS, e.g., "EPSG:2100".
+	 * @param targetCRS  Identifier of the target CRS, e.g., "EPSG:4326".
+	 * @return  The transformation from the source to the target CRS.
+	 * @throws FactoryException
+	 */
+	public static MathTransform getTransform(String sourceCRS, String targetCRS) throws FactoryException {
+
+		String key = sourceCRS + ">" + targetCRS;
+		MathTransform transform = transformCache.get(key);
+		if (transform == null)
+		{
+			boolean lenient = true; // allow for some error due to different datums
+			transform = cache(key, CRS.findMathTransform(getCRS(sourceCRS), getCRS(targetCRS), lenient));
+		}
+		return transform;
+	}
+
+
+	/**
+	 * Provides the transformation between two coordinate reference systems identified by their EPSG codes (e.g., for calculating lon/lat coordinates of geometries).
+	 * @param sourceSRID  EPSG code of the source CRS.
+	 * @param targetSRID  EPSG code of the target CRS.
+	 * @return  The transformation from the source to the target CRS.
+	 * @throws FactoryException
+	 */
+	public static MathTransform getTransform(int sourceSRID, int targetSRID) throws FactoryException {
+
+		String key = sourceSRID + ">" + targetSRID;
+		MathTransform transform = transformCache.get(key);
+		if (transform == null)
+			transform = cache(key, CRS.findMathTransform(CRS.decode("EPSG:" + sourceSRID), CRS.decode("EPSG:" + targetSRID)));
+		return transform;
+	}
+
+
+	/**
+	 * Provides the transformation from a coordinate reference system to a flat Cartesian plane (in meters) around a given location, using the GeoTools auto projection.
+	 * The resulting projection only depends on the UTM zone and the hemisphere of that location, so a single transformation is kept for each such bucket.
+	 * @param srid  EPSG code of the source CRS.
+	 * @param lon  Longitude of the location (e.g., the centroid of a geometry).
+	 * @param lat  Latitude of the location (e.g., the centroid of a geometry).
+	 * @return  The transformation to the local metric projection.
+	 * @throws FactoryException
+	 */
+	public static MathTransform getLocalMetricTransform(int srid, double lon, double lat) throws FactoryException {
+
+		int zone = (int) Math.min(Math.floor((lon + 180.0) / 6.0) + 1, 60);     //Same as in the AUTO2:42001 (Universal Transverse Mercator) projection
+		boolean south = (lat < 0.0);
+		String key = srid + ">UTM" + zone + (south ? "S" : "N");
+		MathTransform transform = transformCache.get(key);
+		if (transform == null)
+		{
+			//Any location in the same zone and hemisphere results in the same projection; its central meridian is used
+			String code = "AUTO2:42001," + (-183.0 + zone * 6.0) + "," + (south ? -1.0 : 1.0);
+			CoordinateReferenceSystem auto = CRS.decode(code, true);
+			transform = cache(key, CRS.findMathTransform(CRS.decode("EPSG:" + srid), auto));
+		}
+		return transform;
+	}
+
+
+	/**
+	 * Keeps a transformation in the cache, unless another thread has already done so.
+	 * @param key  Identifier of the transformation.
+	 * @param transform  The transformation.
+	 * @return  The cached transformation.
+	 */
+	private static MathTransform cache(String key, MathTransform transform) {
+
+		MathTransform prev = transformCache.putIfAbsent(key, transform);
+		return (prev != null) ? prev : transform;
+	}
+
+}
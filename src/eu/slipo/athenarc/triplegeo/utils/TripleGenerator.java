@@ -28,17 +28,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.jena.datatypes.RDFDatatype;
-import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.graph.Node;
 import org.apache.jena.graph.NodeFactory;
 import org.apache.jena.graph.Triple;
 import org.apache.jena.vocabulary.RDF;
 
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
-
-import eu.slipo.athenarc.triplegeo.utils.Mapping.mapProperties;
+import com.vividsolutions.jts.geom.Point;
 
 /**
  * Generates a collection of RDF triples from the (spatial & thematic) attributes of a given feature.
@@ -66,7 +64,12 @@ import eu.slipo.athenarc.triplegeo.utils.Mapping.mapProperties;
  * Modified: 4/7/2019; allowing string literals as arguments in dynamically executed built-in functions
  * Modified: 5/7/2019; allowing built-in functions to dynamically generate the resource type based on user mappings
  * Modified: 5/12/2019; allowing mapping files with URI definition only; a flat mapping will be applied to all thematic attributes (i.e., attribute name will become a property)
- * Last modified: 5/12/2019
+ * Modified: 16/10/2026; geometries handled natively; WKT serialized (or parsed) at most once per feature
+ * Modified: 16/10/2026; thematic attributes transformed according to a compiled mapping plan, resolving each attribute name only once
+ * Modified: 16/10/2026; built-in functions invoked through precompiled handles instead of the Java Reflection API
+ * Modified: 16/10/2026; RDF nodes for predicates, classes and data types created once and reused in all triples
+ * Modified: 16/10/2026; no encoding applied on auto-generated UUIDs in URIs of features
+ * Last modified: 16/10/2026
  */
 
 public class TripleGenerator {
@@ -78,7 +81,13 @@ public class TripleGenerator {
 	private List<Triple> results;          //Container of resulting triples from the given input data
 
 	Mapping attrMappings = null;           //Mapping of thematic attributes (input) to RDF predicates (output)
+	MappingPlan mappingPlan = null;        //Compiled form of the mapping, with attributes resolved only once
+	MappingPlan.Call uriCall = null;       //Compiled call of the built-in function that generates URIs of features, as specified in the mapping
+	boolean uuidCall = false;              //True, if URIs of features are generated by a built-in function that returns UUIDs
 	Map<String, String> prefixes;          //Prefixes for namespaces employed during transformation and serialization of RDF triples
+	NodeCache nodes;                       //Cache of RDF nodes for predicates, classes, data types and frequently repeated values
+	Map<String, Node> flatPredicates;      //Predicates for attributes transformed with their original names, keyed by attribute name
+	Map<String, Node> geometryClasses;     //Classes of geometry types (e.g., POINT, POLYGON), keyed by type name
 	String attrURI = null;                 //Attribute used for the URI of features, as specified in the mapping of thematic attributes
 	String attrCategoryURI = null;         //Attribute used for the URI of categories, as specified in the mapping of thematic attributes
 	String attrDataSource = null;          //Attribute used for the name of data source, as specified in the mapping of thematic attributes
@@ -92,6 +101,11 @@ public class TripleGenerator {
 	
 	public Envelope mbr;          //Minimum Bounding Rectangle (in WGS84) of all geometries handled during a given transformation process
 	
+	//Nodes and data types of the vocabulary used in triples of every feature
+	Node rdfType, featureClass, hasGeometry, asWKT, virtGeometry, posLongitude, posLatitude;
+	Node ontologyKey, ontologyValue, ontologyLanguage, ontologyTermClassification, ontologyTerm, ontologyParent;
+	RDFDatatype wktLiteral, virtGeometryLiteral, floatLiteral;
+	
     /**
      * Constructs a TripleGenerator for transforming a feature (as a record of attributes) into RDF triples
      * @param config  User-specified configuration for the transformation process.
@@ -121,6 +135,27 @@ public class TripleGenerator {
 	    for (int i=0; i<currentConfig.prefixes.length; i++)
 	    	prefixes.put(currentConfig.prefixes[i].trim(), currentConfig.namespaces[i].trim());
 	    
+	    //Create nodes of the vocabulary once
+	    nodes = new NodeCache(prefixes, currentConfig.nodeCacheSize);
+	    flatPredicates = new HashMap<String, Node>();
+	    geometryClasses = new HashMap<String, Node>();
+	    rdfType = RDF.type.asNode();
+	    featureClass = nodes.term(currentConfig.geometryNS + Constants.FEATURE);
+	    hasGeometry = nodes.predicate(Constants.NS_GEO + "hasGeometry");
+	    asWKT = nodes.predicate(Constants.NS_GEO + Constants.WKT);
+	    virtGeometry = nodes.predicate(Constants.NS_POS + Constants.GEOMETRY);
+	    posLongitude = nodes.predicate(Constants.NS_POS + Constants.LONGITUDE);
+	    posLatitude = nodes.predicate(Constants.NS_POS + Constants.LATITUDE);
+	    ontologyKey = nodes.predicate(currentConfig.ontologyNS + "key");
+	    ontologyValue = nodes.predicate(currentConfig.ontologyNS + "value");
+	    ontologyLanguage = nodes.predicate(currentConfig.ontologyNS + "language");
+	    ontologyTermClassification = nodes.predicate(currentConfig.ontologyNS + "termClassification");
+	    ontologyTerm = nodes.term(currentConfig.ontologyNS + "Term");
+	    ontologyParent = nodes.predicate(currentConfig.ontologyNS + "parent");
+	    wktLiteral = nodes.datatype(Constants.NS_GEO + Constants.WKTLiteral);
+	    virtGeometryLiteral = nodes.datatype(Constants.NS_VIRT + Constants.GEOMETRY);
+	    floatLiteral = nodes.datatype(Constants.NS_XSD + "float");
+	    
 	    //Attribute mappings should have been properly configured in a .YML file
 	    if (currentConfig.mappingSpec != null)
 	    {
@@ -128,6 +163,7 @@ public class TripleGenerator {
 
 		    //Read mapping file from the path specified in configuration settings
 		    attrMappings.createFromFile(currentConfig.mappingSpec); 
+		    mappingPlan = new MappingPlan(attrMappings, currentConfig, myAssistant, nodes);
 			
 		    //Identify the extra attributes for category URIs and name of data source as specified in the mapping file
 		    for (String key: attrMappings.getKeys())
@@ -155,6 +191,14 @@ public class TripleGenerator {
 	    	attrCategoryURI = "CATEGORY_URI";
 	    if (attrDataSource == null)
 	    	attrDataSource = "DATA_SOURCE";
+	    
+	    //Resolve the built-in function for URIs once; also, values of categories and data source are repeated in many features
+	    if (mappingPlan != null)
+	    {
+	    	uriCall = mappingPlan.compileCall(attrMappings.find(attrURI));
+	    	uuidCall = (uriCall != null) && ((uriCall.name.equals("getUUID")) || (uriCall.name.equals("getRandomUUID")));
+	    	mappingPlan.setRepeatedAttributes(attrCategoryURI, attrDataSource);
+	    }
 	 }
 
 	/**
@@ -224,6 +268,7 @@ public class TripleGenerator {
 
 	  /**
 	   * Converts the given feature (a tuple of thematic attributes and its geometry WKT) into RDF triples according to user-specified attribute mappings (in YML)
+	   * The WKT is parsed at most once, and only if its geometry is required in calculating extra attributes.
 	   * @param row  Attribute values for each thematic (non-spatial) attribute
 	   * @param wkt  Well-Known Text representation of the geometry  
 	   * @param targetSRID  The EPSG identifier of the Coordinate Reference System of the geometry
@@ -231,6 +276,37 @@ public class TripleGenerator {
 	   * @return  The URI assigned to this feature and used in its resulting RDF triples
 	   */
 	  public String transform(Map<String,String> row, String wkt, int targetSRID, Classification classific) {
+		  
+		  return transform(row, null, wkt, targetSRID, classific);
+	  }
+	  
+	  
+	  /**
+	   * Converts the given feature (a tuple of thematic attributes and its geometry) into RDF triples according to user-specified attribute mappings (in YML)
+	   * The geometry is serialized into WKT only once, when its literal is issued.
+	   * @param row  Attribute values for each thematic (non-spatial) attribute
+	   * @param geom  The geometry of the feature (already transformed into the target CRS)
+	   * @param targetSRID  The EPSG identifier of the Coordinate Reference System of the geometry
+	   * @param classific  The classification scheme used in the category assigned to the feature
+	   * @return  The URI assigned to this feature and used in its resulting RDF triples
+	   */
+	  public String transform(Map<String,String> row, Geometry geom, int targetSRID, Classification classific) {
+		  
+		  return transform(row, geom, null, targetSRID, classific);
+	  }
+	  
+	  
+	  /**
+	   * Converts the given feature (a tuple of thematic attributes and its geometry) into RDF triples according to user-specified attribute mappings (in YML)
+	   * Either the geometry or its WKT (or both, if already available) must be specified; the missing one is derived only if needed.
+	   * @param row  Attribute values for each thematic (non-spatial) attribute
+	   * @param geom  The geometry of the feature (already transformed into the target CRS); null if not available
+	   * @param wkt  Well-Known Text representation of the geometry to be used in its literal; null if it should be serialized from the geometry  
+	   * @param targetSRID  The EPSG identifier of the Coordinate Reference System of the geometry
+	   * @param classific  The classification scheme used in the category assigned to the feature
+	   * @return  The URI assigned to this feature and used in its resulting RDF triples
+	   */
+	  public String transform(Map<String,String> row, Geometry geom, String wkt, int targetSRID, Classification classific) {
 
 		String uri = null;	
 		try {
@@ -238,16 +314,15 @@ public class TripleGenerator {
   	        //First, assign a URI to this feature
 	        if (attrMappings != null) 
 	        {
-	        	if (attrMappings.find(attrURI) != null)
+	        	if (uriCall != null)
 	        	{	//Generate URI according to the specified YML mapping using a built-in function
-	        		List<String> argv = getArgValues(attrMappings.find(attrURI).getFunctionArguments(), row);
-	        		uuid = (String) myAssistant.applyRuntimeMethod(attrMappings.find(attrURI).getGeneratorFunction(), argv.toArray(new Object[argv.size()]));
+	        		uuid = invoke(uriCall, row);
 	        	}
 	        	else   //No mapping specified for URIs, so generate a random UUID
 	        		uuid = myAssistant.getRandomUUID();   
 
-	        	//Remove white space; characters like "/" in URIs should not be encoded!
-	        	String encodingResource = myChecker.replaceWhiteSpace(uuid);	  	    
+	        	//Remove white space; characters like "/" in URIs should not be encoded! UUIDs need no replacements
+	        	String encodingResource = (uuidCall) ? uuid : myChecker.replaceWhiteSpace(uuid);	  	    
 	        	//ALTERNATIVE (NOT USED): using standard UTF-8 encoding
 	        	//String encodingResource = URLEncoder.encode(uuid, Constants.UTF_8);
 	  	        uri = currentConfig.featureNS + encodingResource;
@@ -255,59 +330,68 @@ public class TripleGenerator {
 	        else
 	        {
 				//CAUTION! On-the-fly generation of a UUID for this feature, giving as seed the data source and the identifier of that feature
-				uuid = myAssistant.getUUID(currentConfig.featureSource, row.get(currentConfig.attrKey)).toString();
-				String encodingResource = myChecker.replaceWhiteSpace(URLEncoder.encode(uuid, Constants.UTF_8));	  	      
-	  	        uri = currentConfig.featureNS + encodingResource;
+				//UUIDs only consist of hexadecimal digits and hyphens, so no encoding is needed
+				uuid = myAssistant.getUUID(currentConfig.featureSource, row.get(currentConfig.attrKey));
+	  	        uri = currentConfig.featureNS + uuid;
 	        }
 	        
 	        //Then, parse geometric representation (including encoding to the target CRS)
-	        if (wkt != null)
+	        if ((geom != null) || (wkt != null))
 	        {
 		        //Detect geometry type from the WKT representation (i.e., getting the text before parentheses)
 		  	  	String geomType = " ";
-		  	  	int a = wkt.indexOf("(");
-		  	  	if (a > 0)
-		  	  		geomType = wkt.substring(0, a).trim();
+		  	  	if (wkt != null)
+		  	  	{
+			  	  	int a = wkt.indexOf("(");
+			  	  	if (a > 0)
+			  	  		geomType = wkt.substring(0, a).trim();
+		  	  	}
+		  	  	else if (!geom.isEmpty())      //Same as the type specified in the WKT representation
+		  	  		geomType = geom.getGeometryType().toUpperCase();
 
 		  	  	//Insert extra attributes derived from geometries
 		  	  	if (attrMappings != null)
 		  	  	{
+		  	  		//Parse the WKT representation only once; all derived attributes are calculated over this geometry
+		  	  		if (geom == null)
+		  	  			geom = myAssistant.WKT2Geometry(wkt);
+		  	  		
 			  	  	List<String> g;
 			  	  	//Insert extra attributes concerning the CALCULATED area OR perimeter for (multi)polygons
 			  	  	if (geomType.toUpperCase().contains("POLYGON"))
 			  	  	{
-			  	  		g = attrMappings.findExtraGeometricAttr("getArea");
+			  	  		g = mappingPlan.getGeometricAttributes("getArea");
 			  	  		if (!g.isEmpty())
-			  	  			row.put(g.get(0), (myAssistant.applyRuntimeMethod("getArea", new Object[]{wkt, targetSRID})).toString());
+			  	  			row.put(g.get(0), String.valueOf(myAssistant.getArea(geom, targetSRID)));
 	
-			  	  		g = attrMappings.findExtraGeometricAttr("getLength");
+			  	  		g = mappingPlan.getGeometricAttributes("getLength");
 			  	  		if (!g.isEmpty())
-			  	  			row.put(g.get(0), (myAssistant.applyRuntimeMethod("getLength", new Object[]{wkt, targetSRID})).toString());
+			  	  			row.put(g.get(0), String.valueOf(myAssistant.getLength(geom, targetSRID)));
 			  	  	}
 			  	  	//Insert an extra property concerning the CALCULATED length of (multi)linestrings
 			  	  	else if (geomType.toUpperCase().contains("LINE"))
 			  	  	{
-			  	  		g = attrMappings.findExtraGeometricAttr("getLength");
+			  	  		g = mappingPlan.getGeometricAttributes("getLength");
 			  	  		if (!g.isEmpty())
-			  	  			row.put(g.get(0), (myAssistant.applyRuntimeMethod("getLength", new Object[]{wkt, targetSRID})).toString());
+			  	  			row.put(g.get(0), String.valueOf(myAssistant.getLength(geom, targetSRID)));
 			  	  	}
 			  	  	
 			  	  	//Insert extra attributes concerning lon/lat coordinates for the centroid
-			  	  	Geometry geomProjected = myAssistant.geomTransformWGS84(wkt, targetSRID);
+			  	  	Geometry geomProjected = myAssistant.geomTransformWGS84(geom, targetSRID);
 			  	  	updateMBR(geomProjected);                 //Keep the MBR of transformed geometries up-to-date
-			  	  	g = attrMappings.findExtraGeometricAttr("getLongitude");
+			  	  	g = mappingPlan.getGeometricAttributes("getLongitude");
 			  	  	if (!g.isEmpty())  		
-			  	  	    row.put(g.get(0), myAssistant.applyRuntimeMethod("getLongitude", new Object[]{geomProjected}).toString());	  
-			  	  	g = attrMappings.findExtraGeometricAttr("getLatitude");
+			  	  	    row.put(g.get(0), String.valueOf(myAssistant.getLongitude(geomProjected)));	  
+			  	  	g = mappingPlan.getGeometricAttributes("getLatitude");
 			  	  	if (!g.isEmpty())
-			  	  	    row.put(g.get(0), myAssistant.applyRuntimeMethod("getLatitude", new Object[]{geomProjected}).toString());	
+			  	  	    row.put(g.get(0), String.valueOf(myAssistant.getLatitude(geomProjected)));	
 /*		  	  	
 			  	    //ALTERNATIVE (NOT USED): Insert extra attributes concerning lon/lat coordinates for the centroid 
-			  	  	g = attrMappings.findExtraGeometricAttr("getLonLatCoords");
+			  	  	g = mappingPlan.getGeometricAttributes("getLonLatCoords");
 			  	  	if (g != null)
 			  	  	{
 			  	  	    //Only used for issuing extra lon/lat triples according to WGS84 GeoPosition RDF Vocabulary			        	
-			        	double[] coords = (double[]) myAssistant.applyRuntimeMethod("getLonLatCoords", new Object[]{wkt, targetSRID});
+			        	double[] coords = myAssistant.getLonLatCoords(geom, targetSRID);
 			        	if (coords != null)
 			        	{
 			        		row.put(g.get(0), "" + coords[0]);   //Implicit assumption that the first attribute is always referring to longitude...
@@ -316,22 +400,16 @@ public class TripleGenerator {
 			  	  	}
 */	
 			  	  	//Insert extra attribute regarding a geoHash string for the geometry
-			  	  	g = attrMappings.findExtraGeometricAttr("getGeoHash");
+			  	  	g = mappingPlan.getGeometricAttributes("getGeoHash");
 			  	  	if (!g.isEmpty())  
 			  	  	{
-				  	  	List<String> args = attrMappings.find(attrMappings.findExtraGeometricAttr("getGeoHash").get(0)).getFunctionArguments();     //Identify any arguments that should be used by the generator function		      		 
-			      		//Call built-in function in order to compute geohashing according to the user-specified precision
-			      		if ((args != null) && (args.size()==1) && (args.get(0).matches("[0-9]+")))  //Only numeric values accepted in the parameter value
-			      		{
-			      			int precision = Integer.parseInt(args.get(0));
-			      			row.put(g.get(0), myAssistant.applyRuntimeMethod("getGeoHash", new Object[]{geomProjected.getCentroid().getX(),geomProjected.getCentroid().getY(),precision}).toString());
-			      		}
-			      		else  //Default precision for geohash is set to 8
-			      			row.put(g.get(0), myAssistant.applyRuntimeMethod("getGeoHash", new Object[]{geomProjected.getCentroid().getX(),geomProjected.getCentroid().getY(),8}).toString());
+			      		//Call built-in function in order to compute geohashing according to the user-specified precision (by default, 8)
+			  	  		Point centroid = geomProjected.getCentroid();
+			  	  		row.put(g.get(0), myAssistant.getGeoHash(centroid.getX(), centroid.getY(), mappingPlan.getGeoHashPrecision()));
 			  	  	}	  	  
 		  	  	}
 		  	  	//Apply transformation for the geometry
-	        	transformGeometry2RDF(uri, wkt, targetSRID, geomType);		        	
+	        	transformGeometry2RDF(uri, geom, wkt, targetSRID, geomType);		        	
 	        }
 	        
   	        //Finally, transform thematic (non-spatial) attributes
@@ -365,6 +443,7 @@ public class TripleGenerator {
 	      	//Also include information about the data source provider as specified in the configuration
 	      	attrValues.put(attrDataSource, currentConfig.featureSource);
 	      	
+	      	Node subject = NodeFactory.createURI(uri);
   	        //Insert literals for each attribute
   	        for (String key: attrValues.keySet())
   	        {
@@ -373,7 +452,7 @@ public class TripleGenerator {
   	        		String val = attrValues.get(key);
   	        		if ((val != null) && (!val.equals("")) && (!val.contains("Null")))       //Issue triples for NOT NULL/non-empty values only
   	        		{
-  	        			createTriple4PlainLiteral(uri, myChecker.replaceWhiteSpace(currentConfig.ontologyNS + URLEncoder.encode(key, Constants.UTF_8)), val);
+  	        			createTriple4PlainLiteral(subject, flatPredicate(key), val);
   	        			updateStatistics(key);                        //Update count of NOT NULL values transformed for this attribute
   	        		}
   	        	}
@@ -385,6 +464,24 @@ public class TripleGenerator {
     }
 	
 	
+	/**
+	 * Provides the predicate for an attribute transformed with its original name; this is created only once per attribute name.
+	 * @param key  The attribute name.
+	 * @return  The node of the predicate.
+	 * @throws UnsupportedEncodingException
+	 */
+	private Node flatPredicate(String key) throws UnsupportedEncodingException {
+		
+		Node p = flatPredicates.get(key);
+		if (p == null)
+		{
+			p = nodes.predicate(myChecker.replaceWhiteSpace(currentConfig.ontologyNS + URLEncoder.encode(key, Constants.UTF_8)));
+			flatPredicates.put(key, p);
+		}
+		return p;
+	}
+	
+	
 	/**
 	 * Converts representation of a geometry WKT into suitable RDF triple(s) depending on the specified spatial ontology	
 	 * @param uri  The URI assigned to this feature
@@ -394,18 +491,35 @@ public class TripleGenerator {
 	 */
 	public void transformGeometry2RDF(String uri, String wkt, int srid, String geomType) {	 
 		
+		transformGeometry2RDF(uri, null, wkt, srid, geomType);
+	}
+	
+	
+	/**
+	 * Converts a geometry into suitable RDF triple(s) depending on the specified spatial ontology.
+	 * Its WKT representation is serialized only once (if not already available) when the literal is issued.
+	 * @param uri  The URI assigned to this feature
+	 * @param geom  The geometry; null if not available
+	 * @param wkt  Well-Known Text representation of the geometry; null if it should be serialized from the geometry
+	 * @param srid  The EPSG identifier of the Coordinate Reference System of the geometry
+	 * @param geomType  The type of the geometry (e.g., POINT, POLYGON, etc.)
+	 */
+	public void transformGeometry2RDF(String uri, Geometry geom, String wkt, int srid, String geomType) {	 
+		
       try {
 
+        Node subject = NodeFactory.createURI(uri);
+        
         //Distinguish geometric representation according to the target store (e.g., Virtuoso, GeoSPARQL compliant etc.)
         if (currentConfig.targetGeoOntology.equalsIgnoreCase("wgs84_pos"))        //WGS84 Geoposition RDF vocabulary
-        	insertWGS84Point(uri, wkt);
+        	insertWGS84Point(subject, (geom != null) ? geom : myAssistant.WKT2Geometry(wkt));
         else if (currentConfig.targetGeoOntology.equalsIgnoreCase("Virtuoso"))    //Legacy Virtuoso RDF point geometries
-        	insertVirtuosoPoint(uri, wkt);
+        	insertVirtuosoPoint(subject, (wkt != null) ? wkt : myAssistant.geometry2WKT(geom, currentConfig.targetGeoOntology));
         else
-        	insertWKTGeometry(uri, wkt, srid, geomType);            //Encoding geometry with a specific CRS is allowed in GeoSPARQL only
+        	insertWKTGeometry(subject, uri, (wkt != null) ? wkt : myAssistant.geometry2WKT(geom, currentConfig.targetGeoOntology), srid, geomType);            //Encoding geometry with a specific CRS is allowed in GeoSPARQL only
         
         //Resource is considered as a spatial feature (usually according to GeoSPARQL)
-        createTriple4Resource(uri, RDF.type.getURI(), currentConfig.geometryNS + Constants.FEATURE);
+        createTriple(subject, rdfType, featureClass);
           
       } catch (Exception e) {
     	  ExceptionHandler.warn(e, " An error occurred during transformation of a geometry.");
@@ -415,82 +529,88 @@ public class TripleGenerator {
 
 	/**
 	 * Inserts a typical WKT geometry of a spatial feature into the Jena model (suitable for GeoSPARQL compliant stores)
+	 * @param subject  The node of this feature
 	 * @param uri  The URI assigned to this feature
 	 * @param wkt  Well-Known Text representation of the geometry 
 	 * @param srid  The EPSG identifier of the Coordinate Reference System of the geometry
 	 */
-	private void insertWKTGeometry(String uri, String wkt, int srid, String geomType) {	
+	private void insertWKTGeometry(Node subject, String uri, String wkt, int srid, String geomType) {	
 		
+	  	  Node geometry = NodeFactory.createURI(uri + Constants.GEO_URI_SUFFIX);
+	  	  
 	  	  //Create a link between a spatial feature and its respective geometry
-	  	  createTriple4Resource(uri, Constants.NS_GEO + "hasGeometry", uri + Constants.GEO_URI_SUFFIX);
+	  	  createTriple(subject, hasGeometry, geometry);
   	
 	  	  //Insert a triple for the geometry type (e.g., point, polygon, etc.) of a feature
-	  	  createTriple4Resource(uri + Constants.GEO_URI_SUFFIX, RDF.type.getURI(), Constants.NS_SF + geomType);
+	  	  Node geometryClass = geometryClasses.get(geomType);
+	  	  if (geometryClass == null)
+	  	  {
+	  		  geometryClass = nodes.term(Constants.NS_SF + geomType);
+	  		  geometryClasses.put(geomType, geometryClass);
+	  	  }
+	  	  createTriple(geometry, rdfType, geometryClass);
 
 	  	  //Encode SRID information before the WKT literal
 	  	  wkt = "<http://www.opengis.net/def/crs/EPSG/0/" + srid + "> " + wkt;
 
 	  	  //Triple with the WKT literal
-	  	  createTriple4TypedLiteral(uri + Constants.GEO_URI_SUFFIX, Constants.NS_GEO + Constants.WKT, wkt, TypeMapper.getInstance().getSafeTypeByName(Constants.NS_GEO + Constants.WKTLiteral));
+	  	  createTriple4TypedLiteral(geometry, asWKT, wkt, wktLiteral);
 	}
 
 
 	/**
 	 * Insert a Point geometry of a spatial feature into the Jena model according to legacy Virtuoso RDF geometry specifications (concerning point geometries only)
-	 * @param uri  The URI assigned to this feature
+	 * @param subject  The node of this feature
 	 * @param pointWKT  Well-Known Text representation of the (point) geometry 
 	 */
-	private void insertVirtuosoPoint(String uri, String pointWKT) {  
+	private void insertVirtuosoPoint(Node subject, String pointWKT) {  
 
-		createTriple4TypedLiteral(uri, Constants.NS_POS + Constants.GEOMETRY, pointWKT, TypeMapper.getInstance().getSafeTypeByName(Constants.NS_VIRT + Constants.GEOMETRY));	    
+		createTriple4TypedLiteral(subject, virtGeometry, pointWKT, virtGeometryLiteral);	    
 	}
 		  
 
 	/**
 	 * Insert a Point geometry of a spatial feature into the Jena model according to legacy WGS84 Geoposition RDF vocabulary
-	 * @param uri  The URI assigned to this feature
-	 * @param pointWKT  Well-Known Text representation of the (point) geometry
+	 * @param subject  The node of this feature
+	 * @param point  The (point) geometry
 	 */
-	private void insertWGS84Point(String uri, String pointWKT) {
+	private void insertWGS84Point(Node subject, Geometry point) {
 	    
-		//Get coordinates from the WKT representation
-		double coords[] = myAssistant.getLonLatCoords(pointWKT, 4326);     //Geoposition RDF vocabulary supports WGS84 coordinates only
+		//Get coordinates from the geometry
+		double coords[] = myAssistant.getLonLatCoords(point, 4326);     //Geoposition RDF vocabulary supports WGS84 coordinates only
 		
 	  	//X-ordinate as a property
-	  	createTriple4TypedLiteral(uri, Constants.NS_POS + Constants.LONGITUDE, ""+coords[0], TypeMapper.getInstance().getSafeTypeByName(Constants.NS_XSD + "float"));
+	  	createTriple4TypedLiteral(subject, posLongitude, ""+coords[0], floatLiteral);
 	  	 
 	  	//Y-ordinate as a property
-	  	createTriple4TypedLiteral(uri, Constants.NS_POS + Constants.LATITUDE, ""+coords[1], TypeMapper.getInstance().getSafeTypeByName(Constants.NS_XSD + "float"));
+	  	createTriple4TypedLiteral(subject, posLatitude, ""+coords[1], floatLiteral);
 	}
 
 	/**
-	 * Provides a list of argument values to be used in calling a built-in function.
-	 * @param args  List of arguments (parameters) of the built-in function.
+	 * Applies a built-in function on the values of a given feature, as specified in a compiled call.
+	 * @param call  Compiled call of the built-in function, including its arguments.
 	 * @param attrValues  List of pairs of attributes and their respective values for a given feature
-	 * @return  Argument values to be used in the function call.
+	 * @return  The value resulting from the function call.
 	 */
-	private List<String> getArgValues(List<String> args, Map<String, String> attrValues) {
+	private String invoke(MappingPlan.Call call, Map<String, String> attrValues) {
 		
       		//Also include information about the data source provider as specified in the configuration
 			attrValues.put(attrDataSource, currentConfig.featureSource);
 		
-			List<String> argv = new ArrayList<String>();
-			for (String arg: args)
+			String[] argv = new String[call.args.length];
+			for (int i = 0; i < argv.length; i++)
 			{
-				if (attrValues.containsKey(arg))   //Argument is an attribute name, ...
+				if (attrValues.containsKey(call.args[i]))   //Argument is an attribute name, ...
 				{
 				    //...so, get its actual value to be used by the built-in function
-					String val = attrValues.get(arg);
-					if (val == null)
-						val = "";
-					argv.add(val);    
-				}
-				else {										//Otherwise, this must be a string literal, ...
-					argv.add(arg.replaceAll("\"", ""));   	//... so, keep it intact without the quotes
+					String val = attrValues.get(call.args[i]);
+					argv[i] = (val != null) ? val : "";
 				}
+				else										//Otherwise, this must be a string literal, ...
+					argv[i] = call.literals[i];   			//... so, keep it intact without the quotes
 			}
 			
-			return argv;
+			return FunctionRegistry.apply(call.function, myAssistant, argv);
 	}
 
 	/**
@@ -530,167 +650,113 @@ public class TripleGenerator {
 		
   	    try 
   	    {
-  	    	mapProperties mapping;
   	    	Set<String> indexCompAttrs = new HashSet<String>();      //Retains an index for all composite entities consisting of multiple attributes (e.g., address)
   	        	    	
   	        //Include a category identifier, as found in the classification scheme and suffixed with the user-specified namespace
   	    	assignClassificationURI(attrValues, classific);
 	      	
+	      	Node subject = NodeFactory.createURI(uri);
+	      	
 	      	//Dynamically generate values for extra attributes using built-in functions
-	      	for (String extraAttr: attrMappings.getExtraThematicAttributes())
+	      	for (MappingPlan.ExtraAttribute extraAttr: mappingPlan.getExtraAttributes())
 	      	{	      		
-	      		mapping = attrMappings.find(extraAttr);                 //Mapping associated with this attribute
-	      		
-	      		List<String> args = mapping.getFunctionArguments();     //Identify any arguments that should be used by the generator function
-	      		 
 	      		//Call built-in function in order to assign a value to this extra attribute
-	      		if ((args != null) && (!args.isEmpty()))
-	      		{
-	      			List<String> argv = getArgValues(args, attrValues);
-	      			attrValues.put(extraAttr, (String) myAssistant.applyRuntimeMethod(mapping.getGeneratorFunction(), argv.toArray(new Object[argv.size()]))); 
-	      		}
-	      		else if (!mapping.getGeneratorFunction().equals("getEmbeddedCategory"))   //Assignment of embedded categories is carried out by the Classification class
-	      			attrValues.put(extraAttr, (String) myAssistant.applyRuntimeMethod(mapping.getGeneratorFunction(), new Object[]{}));
+	      		if (extraAttr.call != null)                            //Assignment of embedded categories is carried out by the Classification class
+	      			attrValues.put(extraAttr.key, invoke(extraAttr.call, attrValues)); 
 	      	}
 	      	
-  	        //Iterate over each attribute specified in the mapping and insert triple(s) according to its specifications
-  	        for (String key: attrValues.keySet())
+  	        //Iterate over each attribute and insert triple(s) according to the compiled specifications of its mapping
+  	        for (Map.Entry<String, String> attr: attrValues.entrySet())
   	        {
-  	        	if (!key.equals(currentConfig.attrGeometry))    //All thematic (non-spatial) attributes will be considered
+  	        	MappingPlan.Column col = mappingPlan.getColumn(attr.getKey());     //Resolved against the mapping only once per attribute name
+  	        	if (!col.isMapped())                                               //No triples for the geometry or for any attribute without a mapping
+  	        		continue;
+  	        	
+  	        	String val = attr.getValue();  	        		
+  	        	if ((val == null) || (val.equals("")) || (val.contains("Null")))     //Issue triples for NOT-NULL/non-empty values only
+  	        		continue;
+  	        	
+  	        	val = myChecker.removeIllegalChars(val);          //Replace special characters not allowed in literals
+  	        	String key = col.key;
+  	        	updateStatistics(key);                            //Update count of NOT NULL values transformed for this attribute
+  	        	
+  	        	if (col.generic)                                  //For any attribute not specifically mapped to the ontology, issue triples for (key, value) pairs
   	        	{
-  	        		String val = attrValues.get(key);  	        		
-  	        		if ((val != null) && (!val.equals("")) && (!val.contains("Null")))       //Issue triples for NOT-NULL/non-empty values only
-  	        		{
-  	        			val = myChecker.removeIllegalChars(val);          //Replace special characters not allowed in literals 	        			
-  	        			mapping = attrMappings.find(key);                 //Mapping associated with this attribute
-  	        			String lang = null;                               //Language used in string literals 
-  	        			String entityType = null;                         //Entity type used as a suffix to the URI
-  	        			
-  	        			if (mapping == null)                              //Cannot find a mapping that exactly matches this attribute
+  	        		Node entity = NodeFactory.createURI(uri + col.entitySuffix);
+  	        		createTriple(subject, col.predicate, entity);
+  	        		createTriple4PlainLiteral(entity, ontologyKey, key);
+  	        		createTriple4PlainLiteral(entity, ontologyValue, val);
+  	        		continue;
+  	        	}
+        				
+  	        	//Resource type is either constant or dynamically inferred using a built-in function
+  	        	String resType = col.resType;
+  	        	if (col.typeCall != null)
+  	        		resType = invoke(col.typeCall, attrValues);
+  	        	
+  	        	Node entity;
+  	        	Node part;
+  	        	//Handle value for this attribute according to its designated mapping profile
+  	        	switch (col.profile) {
+  	        		case IS_INSTANCE_TAG_LANGUAGE :       //Property is an instance of class in the ontology and also specifies language tag in literals 
+  	        			entity = NodeFactory.createURI(uri + col.entitySuffix);
+  	        			createTriple(subject, col.predicate, entity);
+  	        			if (col.validLang) {                              //Check for valid ISO 693-1 language codes
+  	        				createTriple4LanguageLiteral(entity, col.valuePredicate, val, col.lang);
+  	        				createTriple(entity, ontologyLanguage, nodes.literal(col.lang));
+  	        			}
+  	        			else                                              //This is not actually a language code, so treat it like a literal
+  	        				createTriple4PlainLiteral(entity, col.valuePredicate, val);
+
+  	        			if (!resType.trim().toUpperCase().equals("NONE"))     //Issue triple for resource type unless it is explicitly suppressed in the mapping
+  	        				createTriple(entity, col.typePredicate, nodes.literal(resType)); 
+  	        			//Also insert a triple for the RDF class of this entity
+  	        			createTriple(entity, rdfType, col.classURI);
+  	        			break;
+  	        		case IS_INSTANCE :                    //Property is an instance of class in the ontology without language tags
+  	        			entity = NodeFactory.createURI(uri + col.entitySuffix);
+  	        			createTriple(subject, col.predicate, entity);
+  	        			createTriple4PlainLiteral(entity, col.valuePredicate, val);
+  	        			createTriple(entity, col.typePredicate, nodes.literal(resType)); 
+  	        			//Also insert a triple for the RDF class of this entity
+  	        			createTriple(entity, rdfType, col.classURI);
+  	        			break;
+  	        		case IS_PART_TAG_LANGUAGE :          //Property is part of a composite class in the ontology and also specifies language tag in literals 
+  	        			part = NodeFactory.createURI(uri + col.partSuffix);
+  	        			if (indexCompAttrs.add(col.resPart))
   	        			{
-  	        				//Check whether this is a multi-faceted attribute (e.g., a name in various languages)
-  	        				//IMPORTANT! Wild char '%' should be used in YML mappings in order to specify such attributes
-  	        				String attrBase = attrMappings.findMultiFaceted(key);
-  	        				if (attrBase != null)                        //Multi-faceted attribute is specified in the YML mappings
-  	        					mapping = attrMappings.find(attrBase);   //Mapping associated with this multi-faceted attribute
-
-  	        				if (mapping == null)   //If still no mapping is found for this attribute, then ...
-  	        				{
-  	        					//For any attribute not specifically mapped to the ontology, issue triples for (key, value) pairs
-  	        					//IMPORTANT! Wild-card character '_' is used to denote any other attribute not specifically defined in the YML mapping 
-  	        					if (attrMappings.find("_") != null)      
-  	        					{
-  	        						mapping = attrMappings.find("_");
-		  	        				createTriple4Resource(uri, mapping.getPredicate(), uri + "/" + key);
-		  	        				createTriple4PlainLiteral(uri + "/" + key, currentConfig.ontologyNS + "key", key);
-		  	        				createTriple4PlainLiteral(uri + "/" + key, currentConfig.ontologyNS + "value", val);
-		  	        				updateStatistics(key);               //Update count of NOT NULL values transformed for this attribute
-  	        					}	        					
-	  	        				continue;
-  	        				}
-  	        				else if (attrBase.contains("*"))      	//IMPORTANT! Wildcard character * inside the mapping signifies a multi-valued property for the same entity 
-  	        				{                                       //Each value will be mapped to the same RDF property, but will generate a separate triple
-  	        					entityType = key;                   //The original key (attribute name) is used in the URI specification for the generated triple
-  	        				}
-  	        				else                                    //IMPORTANT! Handling multi-lingual attribute values, e.g., specified with attributes like name_en, name_fr, name_de, etc.
-  	        				{                                       //Placeholder %LANG should be used for language specifications in YML mapping (e.g., name_%LANG) in order to be recognized in the internal mapping representation 
-  	        					//Apply a built-in function 
-  	        					lang = (String) myAssistant.applyRuntimeMethod(mapping.getLanguage(), new Object[]{key, attrBase.length()}); //Language tag is dynamically inferred from the last part of the attribute name
-  	        					if (lang != null)
-  	        						entityType = mapping.getEntityType() + "_" + lang;                 //URIs will also include a language suffix in order to be distinguishable
-  	        					else
-  	        						continue;
-  	        				}
+  	        				createTriple(subject, col.partPredicate, part);
+  	        				//Also insert a triple for the RDF class of this entity
+  	        				createTriple(part, rdfType, col.partClassURI);
   	        			}
-  	        			else
+  	        			createTriple4LanguageLiteral(part, col.predicate, val, col.lang);
+  	        			break;
+  	        		case IS_PART :                        //Property is part of a composite class in the ontology without language tags
+  	        			part = NodeFactory.createURI(uri + col.partSuffix);
+  	        			if (indexCompAttrs.add(col.resPart))
   	        			{
-  	        				//Determine language and entity type
-  	        				lang = mapping.getLanguage();
-  	        				entityType = mapping.getEntityType();	
+  	        				createTriple(subject, col.partPredicate, part);
+  	        				//Also insert a triple for the RDF class of this entity
+  	        				createTriple(part, rdfType, col.partClassURI);
   	        			}
-    			
-  	        			updateStatistics(key);                          //Update count of NOT NULL values transformed for this attribute
+  	        			createTriple(part, col.predicate, col.repeated ? nodes.literal(val) : NodeFactory.createLiteral(val));
+  	        			break;
+  	        		case HAS_DATA_TYPE_URL :             //Property with a URL object; URLs must be valid, otherwise they may be corrected by the checker
+  	        			val = myChecker.cleanupURL(val);
+  	        			createTriple(subject, col.predicate, col.repeated ? nodes.resource(val) : NodeFactory.createURI(val));
+  	        			break;
+  	        		case HAS_DATA_TYPE :                  //Property with a literal having data type specification
+  	        			createTriple4TypedLiteral(subject, col.predicate, val, col.dataType);
+  	        			break;
+  	        		case IS_LITERAL_TAG_LANGUAGE :        //Property with a plain literal having a language tag
+  	        			createTriple4LanguageLiteral(subject, col.predicate, val, col.lang);
+  	        			break;
+  	        		case IS_LITERAL :                     //Property with a plain literal without further specifications
+  	        			createTriple(subject, col.predicate, col.repeated ? nodes.literal(val) : NodeFactory.createLiteral(val));
+  	        			break;
+  	        		default:                              //No action
   	        			
-  	        			//User specifications for transforming this attribute
-  	        			String resPart = mapping.getPart();             //This resource is part of another entity (e.g., streetname is part of address)
-  	        			String resClass = mapping.getInstance();        //This resource instantiates a class (e.g., email instantiates a contact)	
-        				String predicate = mapping.getPredicate();      //Predicate according to the ontology     				             
-        				RDFDatatype dataType = mapping.getDataType();   //Data type for literals
-        				
-        				//Resource type can be specified either with a string literal (constant) or based on an attribute in the input data. 
-        				String resType;
-        				String[] t = mapping.getResourceTypeFunction();    //In the latter case, its value (e.g., type of phone numbers) can be extracted by a custom built-in function. 
-        				if (t != null)                                     //This array provides the built-in function to be called, along with its arguments, e.g., "generateWith.getResourceType(TEL_TYPE)"
-        				{
-        					//Determine actual values for the arguments of the built-in function
-        					List<String> argv = ((t.length >= 1) ? getArgValues(Arrays.asList(ArrayUtils.subarray(t, 0, t.length-1)), attrValues) : null);
-
-        					//Resource type is dynamically inferred using a built-in function (function name is the LAST item in the array)
-        					resType = (String) myAssistant.applyRuntimeMethod(t[t.length-1], argv.toArray(new Object[argv.size()]));	        					
-        				}
-        				else
-        					resType = mapping.getResourceType();
-        				
-        				//Handle value for this attribute according to its designated mapping profile
-        				switch (mapping.getMappingProfile()) {
-        					case IS_INSTANCE_TAG_LANGUAGE :       //Property is an instance of class in the ontology and also specifies language tag in literals 
-        						createTriple4Resource(uri, predicate, uri + "/" + entityType);
-        						if (myAssistant.isValidISOLanguage(lang)) {      //Check for valid ISO 693-1 language codes
-        							createTriple4LanguageLiteral(uri + "/" + entityType, currentConfig.ontologyNS + resClass + "Value", val, lang);
-        							createTriple4PlainLiteral(uri + "/" + entityType, currentConfig.ontologyNS + "language", lang);
-        						}
-        						else                                              //This is not actually a language code, so treat it like a literal
-        							createTriple4PlainLiteral(uri + "/" + entityType, currentConfig.ontologyNS + resClass + "Value", val);
-        							
-        						if (!resType.trim().toUpperCase().equals("NONE"))     //Issue triple for resource type unless it is explicitly suppressed in the mapping
-        							createTriple4PlainLiteral(uri + "/" + entityType, currentConfig.ontologyNS + resClass + "Type", resType); 
-        						//Also insert a triple for the RDF class of this entity
-        						createTriple4Resource(uri + "/" + entityType, RDF.type.getURI(), currentConfig.ontologyNS + resClass);
-        						break;
-        					case IS_INSTANCE :                    //Property is an instance of class in the ontology without language tags
-        						createTriple4Resource(uri, predicate, uri + "/" + entityType);
-            					createTriple4PlainLiteral(uri + "/" + entityType, currentConfig.ontologyNS + resClass + "Value", val);
-            					createTriple4PlainLiteral(uri + "/" + entityType, currentConfig.ontologyNS + resClass + "Type", resType); 
-            					//Also insert a triple for the RDF class of this entity
-            					createTriple4Resource(uri + "/" + entityType, RDF.type.getURI(), currentConfig.ontologyNS + resClass);
-            					break;
-        					case IS_PART_TAG_LANGUAGE :          //Property is part of a composite class in the ontology and also specifies language tag in literals 
-        						if (!indexCompAttrs.contains(resPart))
-            					{
-            						createTriple4Resource(uri, currentConfig.ontologyNS + entityType, uri + "/" + resPart);
-            						indexCompAttrs.add(resPart);
-            						//Also insert a triple for the RDF class of this entity
-            						createTriple4Resource(uri + "/" + resPart, RDF.type.getURI(), currentConfig.ontologyNS + resPart);
-            					}
-            					createTriple4LanguageLiteral(uri + "/" + resPart, predicate, val, lang);
-            					break;
-        					case IS_PART :                        //Property is part of a composite class in the ontology without language tags
-        						if (!indexCompAttrs.contains(resPart))
-            					{
-            						createTriple4Resource(uri, currentConfig.ontologyNS + entityType, uri + "/" + resPart);
-            						indexCompAttrs.add(resPart);
-            						//Also insert a triple for the RDF class of this entity
-            						createTriple4Resource(uri + "/" + resPart, RDF.type.getURI(), currentConfig.ontologyNS + resPart);
-            					}
-            					createTriple4PlainLiteral(uri + "/" + resPart, predicate, val);
-            					break;
-        					case HAS_DATA_TYPE_URL :             //Property with a URL object; URLs must be valid, otherwise they may be corrected by the checker
-        						createTriple4Resource(uri, predicate, myChecker.cleanupURL(val));
-        						break;
-        					case HAS_DATA_TYPE :                  //Property with a literal having data type specification
-        						createTriple4TypedLiteral(uri, expandNamespace(predicate), val, dataType);
-        						break;
-        					case IS_LITERAL_TAG_LANGUAGE :        //Property with a plain literal having a language tag
-        						createTriple4LanguageLiteral(uri, predicate, val, lang);
-        						break;
-        					case IS_LITERAL :                     //Property with a plain literal without further specifications
-        						createTriple4PlainLiteral(uri, predicate, val);
-        						break;
-        					default:                              //No action
-        							
-        				};			
-  	        		}
-        		}
+  	        	};			
         	}    
   	    }
   	    catch(Exception e) { 
@@ -715,14 +781,14 @@ public class TripleGenerator {
   	    	
   	    	//Create an identifier for the RDF resource
   	        String encodingResource = myChecker.replaceWhiteSpace(URLEncoder.encode(uuid, Constants.UTF_8));	  	      
-  	        String uri = currentConfig.featureClassNS + encodingResource;
+  	        Node subject = NodeFactory.createURI(currentConfig.featureClassNS + encodingResource);
 	      	  	
   	        //Create triples
-  	        createTriple4Resource(uri, currentConfig.ontologyNS + "termClassification", currentConfig.featureClassificationNS + classificSource);
-  	        createTriple4Resource(uri, RDF.type.getURI(), currentConfig.ontologyNS + "Term");
-  	        createTriple4PlainLiteral(uri, currentConfig.ontologyNS + "value", name); 
+  	        createTriple(subject, ontologyTermClassification, nodes.resource(currentConfig.featureClassificationNS + classificSource));
+  	        createTriple(subject, rdfType, ontologyTerm);
+  	        createTriple4PlainLiteral(subject, ontologyValue, name); 
   	    	if (parent_uuid != null)
-  	    		createTriple4Resource(uri, currentConfig.ontologyNS + "parent", currentConfig.featureClassNS + myChecker.replaceWhiteSpace(URLEncoder.encode(parent_uuid, Constants.UTF_8)));	  
+  	    		createTriple(subject, ontologyParent, nodes.resource(currentConfig.featureClassNS + myChecker.replaceWhiteSpace(URLEncoder.encode(parent_uuid, Constants.UTF_8))));	  
   	    }
   	    catch(Exception e) { 
   	    	ExceptionHandler.warn(e, " An error occurred when attempting transformation of a thematic attribute value.");
@@ -730,22 +796,6 @@ public class TripleGenerator {
 	}
 
 	
-	/**
-	 * Expands the prefix into the full namespace of a given RDF node (usually, a predicate)
-	 * @param s  A prefixed name with a prefix label and a local part, separated by a colon ":"
-	 * @return  A URI by concatenating the expanded namespace associated with the prefix and the local part
-	 */
-	private String expandNamespace(String s) {
-		
-		String prefix = s.substring(0, s.indexOf(':'));  //Get the prefix
-		String namespace = prefixes.get(prefix);         //Identify its respective full namespace
-		if (namespace != null)
-			return s.replace(prefix + ":", namespace);   //... and replace it
-		
-		return s;	 //No replacement took place
-	}
-
-
 	/**
 	 * Creates an RDF triple with specific handling of literals having a language tag
 	 * @param s  Triple subject
@@ -753,9 +803,9 @@ public class TripleGenerator {
 	 * @param o  Triple object literal
 	 * @param lang -- Language specification of the literal value
 	 */
-	private void createTriple4LanguageLiteral(String s, String p, String o, String lang) { 
+	private void createTriple4LanguageLiteral(Node s, Node p, String o, String lang) { 
 		
-	    results.add(new Triple(NodeFactory.createURI(s), NodeFactory.createURI(expandNamespace(p)), NodeFactory.createLiteral(o, lang)));
+	    results.add(new Triple(s, p, NodeFactory.createLiteral(o, lang)));
 	}
 
 	
@@ -765,20 +815,20 @@ public class TripleGenerator {
 	 * @param p -- Triple predicate
 	 * @param o -- Triple object literal
 	 */
-	private void createTriple4PlainLiteral(String s, String p, String o) { 
+	private void createTriple4PlainLiteral(Node s, Node p, String o) { 
 		
-	    results.add(new Triple(NodeFactory.createURI(s), NodeFactory.createURI(expandNamespace(p)), NodeFactory.createLiteral(o)));
+	    results.add(new Triple(s, p, NodeFactory.createLiteral(o)));
 	}
 
 	/**
-	 * Creates an RDF triple with a resource as its object (i.e., non literal values)
+	 * Creates an RDF triple with an object node already available, i.e., a resource or a literal obtained from the node cache
 	 * @param s -- Triple subject
 	 * @param p -- Triple predicate
-	 * @param o -- Triple object resource
+	 * @param o -- Triple object
 	 */
-	private void createTriple4Resource(String s, String p, String o) { 
+	private void createTriple(Node s, Node p, Node o) { 
 		
-	    results.add(new Triple(NodeFactory.createURI(s), NodeFactory.createURI(expandNamespace(p)), NodeFactory.createURI(o)));
+	    results.add(new Triple(s, p, o));
 	}
 	
 
@@ -789,9 +839,9 @@ public class TripleGenerator {
 	 * @param o -- Triple object literal
 	 * @param d -- Data type specification of the literal value
 	 */
-	private void createTriple4TypedLiteral(String s, String p, String o, RDFDatatype d) { 
+	private void createTriple4TypedLiteral(Node s, Node p, String o, RDFDatatype d) { 
 
-	    results.add(new Triple(NodeFactory.createURI(s), NodeFactory.createURI(p), NodeFactory.createLiteral(o, d)));
+	    results.add(new Triple(s, p, NodeFactory.createLiteral(o, d)));
 	}
 	
 }
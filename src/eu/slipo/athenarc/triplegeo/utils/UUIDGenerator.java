@@ -0,0 +1,282 @@
+/*
+ * @(#) UUIDGenerator.java  version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Generator of deterministic (name-based) UUIDs used in the URIs of transformed features.
+ * By default, UUIDs are identical to those of java.util.UUID.nameUUIDFromBytes() (MD5 hashing, version 3), so URIs remain the same as in previous transformations.
+ * Alternatively, a faster non-cryptographic 128-bit hash (MurmurHash3) may be used, resulting in stable UUIDs of a custom version (8) that differ from the MD5-based ones.
+ * Each thread keeps its own digest and buffer, where the name of the data source (i.e., the common prefix of all hashed names) is encoded only once.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified: 16/10/2026
+ */
+
+public class UUIDGenerator {
+
+	public static final String MD5 = "MD5";
+	public static final String MURMUR3 = "MURMUR3";
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/**
+	 * Reusable state of a thread generating UUIDs.
+	 */
+	private static class State {
+		MessageDigest digest;              //MD5 digest; reset after each use
+		byte[] buffer = new byte[256];     //Encoded bytes of the prefix, followed by those of the current name
+		String prefix = "";                //Prefix currently encoded at the start of the buffer
+		int prefixLength = 0;              //Number of bytes of the encoded prefix
+		char[] chars = new char[36];       //Characters of the resulting UUID string
+	}
+
+	private static final ThreadLocal<State> states = ThreadLocal.withInitial(() -> {
+		State s = new State();
+		try {
+			s.digest = MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new InternalError("MD5 not supported", e);
+		}
+		return s;
+	});
+
+	private boolean fast;      //True, if the non-cryptographic hash is used instead of MD5
+
+
+	/**
+	 * Constructor of a UUID generator.
+	 * @param hash  The hash function to be used: MD5 (default, also if null) or MURMUR3.
+	 */
+	public UUIDGenerator(String hash) {
+
+		fast = MURMUR3.equalsIgnoreCase((hash != null) ? hash.trim() : null);
+	}
+
+
+	/**
+	 * Provides a UUID by hashing over the concatenation of a prefix (e.g., the name of the data source) and a name (e.g., the identifier of a feature).
+	 * @param prefix  The prefix of the hashed name; this is usually the same in successive calls.
+	 * @param name  The rest of the hashed name.
+	 * @return  A UUID string.
+	 */
+	public String nameUUID(String prefix, String name) {
+
+		State s = states.get();
+		if (!prefix.equals(s.prefix))
+		{
+			byte[] p = prefix.getBytes(StandardCharsets.UTF_8);
+			s.buffer = ensureCapacity(s.buffer, p.length, 0);
+			System.arraycopy(p, 0, s.buffer, 0, p.length);
+			s.prefix = prefix;
+			s.prefixLength = p.length;
+		}
+		int len = encode(s, name);
+
+		byte[] hash;
+		if (fast)
+		{
+			hash = murmur3(s.buffer, len);
+			hash[6] &= 0x0f;                 //Custom version (8)
+			hash[6] |= 0x80;
+		}
+		else
+		{
+			s.digest.update(s.buffer, 0, len);
+			hash = s.digest.digest();
+			hash[6] &= 0x0f;                 //Name-based version (3), same as in java.util.UUID
+			hash[6] |= 0x30;
+		}
+		hash[8] &= 0x3f;                     //IETF variant
+		hash[8] |= 0x80;
+
+		return format(s.chars, hash);
+	}
+
+
+	/**
+	 * Provides a UUID by hashing over a given name.
+	 * @param name  The hashed name (e.g., the identifier of a feature).
+	 * @return  A UUID string.
+	 */
+	public String nameUUID(String name) {
+		return nameUUID("", name);
+	}
+
+
+	/**
+	 * Encodes a name in UTF-8 right after the prefix in the buffer; ASCII characters are copied directly.
+	 * @param s  The state of this thread.
+	 * @param name  The name to be encoded.
+	 * @return  The total number of bytes of the prefix and the name.
+	 */
+	private static int encode(State s, String name) {
+
+		int n = name.length();
+		s.buffer = ensureCapacity(s.buffer, s.prefixLength + n, s.prefixLength);
+		int pos = s.prefixLength;
+		for (int i = 0; i < n; i++)
+		{
+			char c = name.charAt(i);
+			if (c >= 0x80)             //Non-ASCII characters; encode the whole name with the standard encoder
+			{
+				byte[] b = name.getBytes(StandardCharsets.UTF_8);
+				s.buffer = ensureCapacity(s.buffer, s.prefixLength + b.length, s.prefixLength);
+				System.arraycopy(b, 0, s.buffer, s.prefixLength, b.length);
+				return s.prefixLength + b.length;
+			}
+			s.buffer[pos++] = (byte) c;
+		}
+		return pos;
+	}
+
+
+	/**
+	 * Enlarges a buffer if needed, retaining its first bytes.
+	 * @param buffer  The buffer.
+	 * @param size  The required size.
+	 * @param retain  Number of bytes to be retained.
+	 * @return  A buffer with (at least) the required size.
+	 */
+	private static byte[] ensureCapacity(byte[] buffer, int size, int retain) {
+
+		if (buffer.length >= size)
+			return buffer;
+		byte[] b = new byte[Math.max(size, 2 * buffer.length)];
+		System.arraycopy(buffer, 0, b, 0, retain);
+		return b;
+	}
+
+
+	/**
+	 * Formats a 128-bit value as a UUID string, i.e., in hexadecimal digits like 8-4-4-4-12.
+	 * @param chars  Array of 36 characters to be filled.
+	 * @param b  The 16 bytes of the value.
+	 * @return  The UUID string.
+	 */
+	private static String format(char[] chars, byte[] b) {
+
+		int pos = 0;
+		for (int i = 0; i < 16; i++)
+		{
+			if ((i == 4) || (i == 6) || (i == 8) || (i == 10))
+				chars[pos++] = '-';
+			chars[pos++] = HEX[(b[i] >> 4) & 0x0f];
+			chars[pos++] = HEX[b[i] & 0x0f];
+		}
+		return new String(chars);
+	}
+
+
+	/**
+	 * Calculates the 128-bit MurmurHash3 (x64 variant, seed 0) of the given bytes.
+	 * @param data  The bytes to be hashed.
+	 * @param len  Number of bytes to be hashed.
+	 * @return  The 16 bytes of the hash value.
+	 */
+	private static byte[] murmur3(byte[] data, int len) {
+
+		final long c1 = 0x87c37b91114253d5L;
+		final long c2 = 0x4cf5ad432745937fL;
+		long h1 = 0;
+		long h2 = 0;
+
+		int nblocks = len / 16;
+		for (int i = 0; i < nblocks; i++)
+		{
+			long k1 = getLong(data, i * 16);
+			long k2 = getLong(data, i * 16 + 8);
+
+			k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+			h1 = Long.rotateLeft(h1, 27); h1 += h2; h1 = h1 * 5 + 0x52dce729;
+
+			k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+			h2 = Long.rotateLeft(h2, 31); h2 += h1; h2 = h2 * 5 + 0x38495ab5;
+		}
+
+		//Remaining bytes
+		long k1 = 0;
+		long k2 = 0;
+		int tail = nblocks * 16;
+		switch (len & 15) {
+			case 15: k2 ^= ((long) data[tail + 14] & 0xff) << 48;
+			case 14: k2 ^= ((long) data[tail + 13] & 0xff) << 40;
+			case 13: k2 ^= ((long) data[tail + 12] & 0xff) << 32;
+			case 12: k2 ^= ((long) data[tail + 11] & 0xff) << 24;
+			case 11: k2 ^= ((long) data[tail + 10] & 0xff) << 16;
+			case 10: k2 ^= ((long) data[tail + 9] & 0xff) << 8;
+			case 9:  k2 ^= ((long) data[tail + 8] & 0xff);
+					 k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+			case 8:  k1 ^= ((long) data[tail + 7] & 0xff) << 56;
+			case 7:  k1 ^= ((long) data[tail + 6] & 0xff) << 48;
+			case 6:  k1 ^= ((long) data[tail + 5] & 0xff) << 40;
+			case 5:  k1 ^= ((long) data[tail + 4] & 0xff) << 32;
+			case 4:  k1 ^= ((long) data[tail + 3] & 0xff) << 24;
+			case 3:  k1 ^= ((long) data[tail + 2] & 0xff) << 16;
+			case 2:  k1 ^= ((long) data[tail + 1] & 0xff) << 8;
+			case 1:  k1 ^= ((long) data[tail] & 0xff);
+					 k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+			default:
+		}
+
+		//Finalization
+		h1 ^= len; h2 ^= len;
+		h1 += h2; h2 += h1;
+		h1 = fmix(h1); h2 = fmix(h2);
+		h1 += h2; h2 += h1;
+
+		byte[] b = new byte[16];
+		for (int i = 0; i < 8; i++)
+		{
+			b[i] = (byte) (h1 >>> (56 - 8 * i));
+			b[i + 8] = (byte) (h2 >>> (56 - 8 * i));
+		}
+		return b;
+	}
+
+
+	/**
+	 * Reads 8 bytes in little-endian order.
+	 */
+	private static long getLong(byte[] b, int i) {
+		return ((long) b[i] & 0xff) | (((long) b[i+1] & 0xff) << 8) | (((long) b[i+2] & 0xff) << 16) | (((long) b[i+3] & 0xff) << 24)
+			| (((long) b[i+4] & 0xff) << 32) | (((long) b[i+5] & 0xff) << 40) | (((long) b[i+6] & 0xff) << 48) | (((long) b[i+7] & 0xff) << 56);
+	}
+
+
+	/**
+	 * Final mixing of a 64-bit hash value.
+	 */
+	private static long fmix(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+ * @(#) OSMChangeStateTest.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.osm;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests on applying changes of OSM ways against a persistent state of OSM data.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OSMChangeStateTest {
+
+	private static final Map<String, String> TAGS = Collections.singletonMap("highway", "residential");
+
+	private File dir;
+	private OSMChangeState state;
+
+
+	/**
+	 * Initializes a state with five nodes, two transformed ways and an untracked one.
+	 */
+	@Before
+	public void initialize() throws IOException {
+
+		dir = new File(Files.createTempDirectory("osm_state").toFile(), "state");
+		state = OSMChangeState.open(dir);
+		assertTrue(state.isInitializing());
+		state.putNode(1, 23.70, 37.90, null);
+		state.putNode(2, 23.71, 37.91, null);
+		state.putNode(3, 23.72, 37.92, null);
+		state.putNode(4, 23.73, 37.93, null);
+		state.putNode(5, 23.74, 37.94, null);
+		state.putWay(10, new long[] {1, 2, 3}, TAGS);
+		state.putWay(11, new long[] {2, 3, 4}, TAGS);
+		state.putWay(12, new long[] {3, 4, 5}, null);       //Node 5 is only contained in this way
+		state.commit();
+		state.close();
+
+		state = OSMChangeState.open(dir);
+		assertFalse(state.isInitializing());
+	}
+
+
+	@After
+	public void cleanup() throws IOException {
+
+		state.close();
+		FileUtils.deleteDirectory(dir.getParentFile());
+	}
+
+
+	/**
+	 * Deleting a way, as well as modifying a way so that it no longer contains some nodes, removes the last references to these nodes.
+	 */
+	@Test
+	public void deleteWayAndDropNode() throws IOException {
+
+		state.deleteWay(10);                                   //Node 1 is no longer contained in any way
+		state.putWay(11, new long[] {2, 3}, TAGS);             //Node 4 is only contained in the untracked way
+		List<String> changed = state.getChangedElements();
+		assertTrue(changed.contains("way/11"));
+		state.commit();
+
+		//Moving dropped nodes must not affect the ways that no longer contain them
+		state.putNode(1, 23.80, 37.80, null);
+		state.putNode(4, 23.83, 37.83, null);
+		assertFalse(state.getChangedElements().contains("way/10"));
+		assertFalse(state.getChangedElements().contains("way/11"));
+
+		//Moving a node still contained in a transformed way affects this way
+		state.putNode(3, 23.82, 37.82, null);
+		assertTrue(state.getChangedElements().contains("way/11"));
+		state.commit();
+	}
+
+
+	/**
+	 * Deleting (or untagging) a way that was never transformed leaves its nodes without any references.
+	 */
+	@Test
+	public void deleteUntrackedWay() throws IOException {
+
+		state.deleteWay(12);
+		state.putWay(11, new long[] {2, 3, 4}, null);          //No longer transformed
+		state.commit();
+		state.putNode(4, 23.83, 37.83, null);
+		assertFalse(state.getChangedElements().contains("way/11"));
+		state.commit();
+	}
+
+}
@@ -0,0 +1,145 @@
+/*
+ * @(#) OSMIdSetTest.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.osm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests on the memory occupied by compact sets of OSM identifiers with synthetic distributions of identifiers.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OSMIdSetTest {
+
+	private static final long BITMAP_CHUNK = 64 + 8192;      //Memory of a chunk kept as a bitmap, including the overhead of the map entry
+
+
+	/**
+	 * Number of chunks of 65536 identifiers spanned by the set.
+	 */
+	private static long spannedChunks(OSMIdSet set) {
+		return (set.max() >> 16) - (set.min() >> 16) + 1;
+	}
+
+
+	/**
+	 * Identifiers clustered in runs of 500 consecutive values every 1000 values, as nodes of OSM ways usually are.
+	 * Runs occupy a small fraction of the bitmaps that would otherwise be needed for half-full chunks.
+	 */
+	@Test
+	public void clusteredIdentifiers() {
+
+		OSMIdSet set = new OSMIdSet();
+		long[] expected = new long[500000];
+		int n = 0;
+		for (long id = 10000000; id < 11000000; id++)
+		{
+			if (id % 1000 < 500)
+			{
+				assertTrue(set.add(id));
+				expected[n++] = id;
+			}
+		}
+		assertFalse(set.add(10000000));
+		assertEquals(expected.length, set.size());
+
+		long bytes = set.memorySize();
+		System.out.println("Clustered identifiers: " + set.size() + " in " + bytes + " bytes.");
+		assertTrue(bytes < spannedChunks(set) * BITMAP_CHUNK / 10);
+		assertTrue(bytes < set.size() / 50);
+
+		assertTrue(set.contains(10000499));
+		assertFalse(set.contains(10000500));
+		assertFalse(set.contains(10000999));
+		assertTrue(set.contains(10001000));
+		assertArrayEquals(expected, set.toSortedArray());
+	}
+
+
+	/**
+	 * Identifiers spread evenly, 37 values apart; these do not form runs, so each one occupies 2 bytes in a sorted array.
+	 */
+	@Test
+	public void sparseIdentifiers() {
+
+		OSMIdSet set = new OSMIdSet();
+		for (long i = 0; i < 1000000; i++)
+			set.add(5000000000L + 37 * i);
+		set.optimize();
+
+		long bytes = set.memorySize();
+		System.out.println("Sparse identifiers: " + set.size() + " in " + bytes + " bytes.");
+		assertEquals(2 * set.size() + 64 * spannedChunks(set), bytes);
+
+		assertTrue(set.contains(5000000037L));
+		assertFalse(set.contains(5000000038L));
+		long[] ids = set.toSortedArray();
+		assertEquals(1000000, ids.length);
+		assertEquals(5000000000L + 37 * 999999, ids[ids.length - 1]);
+	}
+
+
+	/**
+	 * Identifiers added in random order fill a bitmap, which turns into a single run once optimized; identifiers can still be added afterwards.
+	 */
+	@Test
+	public void optimizedBitmap() {
+
+		List<Long> ids = new ArrayList<Long>();
+		for (long id = 65536; id < 2 * 65536; id++)
+			ids.add(id);
+		Collections.shuffle(ids, new Random(42));
+		OSMIdSet set = new OSMIdSet();
+		for (long id: ids)
+			set.add(id);
+		assertEquals(BITMAP_CHUNK, set.memorySize());
+
+		set.optimize();
+		System.out.println("Optimized bitmap: " + set.size() + " in " + set.memorySize() + " bytes.");
+		assertTrue(set.memorySize() < 100);
+		assertEquals(65536, set.size());
+		assertTrue(set.contains(65536));
+		assertTrue(set.contains(2 * 65536 - 1));
+		assertFalse(set.contains(2 * 65536));
+
+		assertTrue(set.add(2 * 65536 + 10));
+		assertFalse(set.add(70000));
+		long[] sorted = set.toSortedArray();
+		assertEquals(65537, sorted.length);
+		assertEquals(65536, sorted[0]);
+		assertEquals(2 * 65536 + 10, sorted[65536]);
+	}
+
+}
@@ -0,0 +1,184 @@
+/*
+ * @(#) OSMMultipolygonAssemblerTest.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.osm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.operation.linemerge.LineMerger;
+
+/**
+ * Tests on the assembly of OSM multipolygons, checked against the geometries formerly constructed for such relations.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OSMMultipolygonAssemblerTest {
+
+	private GeometryFactory geometryFactory = new GeometryFactory();
+	private OSMMultipolygonAssembler assembler = new OSMMultipolygonAssembler(geometryFactory);
+
+
+	/**
+	 * An outer ring split into two member ways, with a closed inner way as its hole.
+	 */
+	@Test
+	public void outerWithHole() {
+
+		List<Geometry> outers = Arrays.asList(line(0,0, 10,0, 10,10), line(0,0, 0,10, 10,10));
+		List<Geometry> inners = Arrays.asList(line(2,2, 4,2, 4,4, 2,4, 2,2));
+
+		Geometry g = check(outers, inners);
+		assertTrue(g instanceof Polygon);
+		assertEquals(1, ((Polygon) g).getNumInteriorRing());
+		assertEquals(96.0, g.getArea(), 0.0);
+	}
+
+
+	/**
+	 * Two disjoint outer rings given as member ways in arbitrary order and direction; the hole lies within the second one only.
+	 */
+	@Test
+	public void twoOuters() {
+
+		List<Geometry> outers = Arrays.asList(line(20,0, 30,0, 30,10), line(0,0, 10,0, 10,10, 0,10), line(20,10, 30,10), line(0,0, 0,10), line(20,0, 20,10));
+		List<Geometry> inners = Arrays.asList(line(22,2, 24,2, 24,4), line(24,4, 22,4, 22,2));
+
+		Geometry g = check(outers, inners);
+		assertTrue(g instanceof MultiPolygon);
+		assertEquals(2, g.getNumGeometries());
+		assertEquals(196.0, g.getArea(), 0.0);
+		for (int i = 0; i < g.getNumGeometries(); i++)
+		{
+			Polygon p = (Polygon) g.getGeometryN(i);
+			assertEquals(p.getEnvelopeInternal().getMinX() > 10 ? 1 : 0, p.getNumInteriorRing());
+		}
+	}
+
+
+	/**
+	 * Member ways that cannot be joined into a closed ring are ignored.
+	 */
+	@Test
+	public void unclosedRing() {
+
+		//A closed outer ring, along with a dangling way and an inner ring left open
+		List<Geometry> outers = Arrays.asList(line(0,0, 10,0, 10,10, 0,10, 0,0), line(20,0, 30,0, 30,10));
+		List<Geometry> inners = Arrays.asList(line(2,2, 4,2, 4,4));
+
+		Geometry g = check(outers, inners);
+		assertTrue(g instanceof Polygon);
+		assertEquals(0, ((Polygon) g).getNumInteriorRing());
+		assertEquals(100.0, g.getArea(), 0.0);
+
+		//No outer ring can be formed at all
+		g = check(Arrays.asList(line(0,0, 10,0, 10,10), line(10,10, 0,10)), Collections.<Geometry>emptyList());
+		assertTrue(g instanceof MultiPolygon);
+		assertTrue(g.isEmpty());
+	}
+
+
+	/**
+	 * Assembles the members and verifies that the resulting geometry is the same as the one formerly constructed (up to the order and orientation of rings).
+	 * @return  The assembled geometry.
+	 */
+	private Geometry check(List<Geometry> outers, List<Geometry> inners) {
+
+		Geometry g = assembler.assemble(outers, inners);
+		Geometry expected = baseline(outers, inners);
+		assertEquals(expected.getGeometryType(), g.getGeometryType());
+		assertTrue(normalized(expected).equalsExact(normalized(g)));
+		return g;
+	}
+
+
+	private Geometry normalized(Geometry g) {
+
+		Geometry n = (Geometry) g.clone();
+		n.normalize();
+		return n;
+	}
+
+
+	private LineString line(double... xy) {
+
+		Coordinate[] coords = new Coordinate[xy.length / 2];
+		for (int i = 0; i < coords.length; i++)
+			coords[i] = new Coordinate(xy[2 * i], xy[2 * i + 1]);
+		return geometryFactory.createLineString(coords);
+	}
+
+
+	/**
+	 * Constructs the geometry of a relation as formerly done: member lines are merged into rings, and every inner ring becomes a hole of each outer ring containing it.
+	 */
+	private Geometry baseline(List<Geometry> outers, List<Geometry> inners) {
+
+		List<LinearRing> outerRings = baselineRings(outers);
+		List<LinearRing> innerRings = baselineRings(inners);
+		if (outerRings.size() == 1)
+			return geometryFactory.createPolygon(outerRings.get(0), innerRings.isEmpty() ? null : innerRings.toArray(new LinearRing[innerRings.size()]));
+
+		Polygon[] polygons = new Polygon[outerRings.size()];
+		for (int i = 0; i < outerRings.size(); i++)
+		{
+			List<LinearRing> holes = new ArrayList<LinearRing>();
+			for (LinearRing inner: innerRings)
+				if (geometryFactory.createPolygon(outerRings.get(i), null).contains(geometryFactory.createPolygon(inner, null)))
+					holes.add(inner);
+			polygons[i] = geometryFactory.createPolygon(outerRings.get(i), holes.isEmpty() ? null : holes.toArray(new LinearRing[holes.size()]));
+		}
+		return geometryFactory.createMultiPolygon(polygons);
+	}
+
+
+	@SuppressWarnings("unchecked")
+	private List<LinearRing> baselineRings(List<Geometry> members) {
+
+		LineMerger merger = new LineMerger();
+		for (Geometry g: members)
+			merger.add(g);
+		List<LinearRing> rings = new ArrayList<LinearRing>();
+		for (LineString l: (Collection<LineString>) merger.getMergedLineStrings())
+			if (l.isClosed())
+				rings.add(geometryFactory.createLinearRing(l.getCoordinates()));
+		return rings;
+	}
+
+}
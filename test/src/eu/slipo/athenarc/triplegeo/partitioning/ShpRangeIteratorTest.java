@@ -0,0 +1,141 @@
+/*
+ * @(#) ShpRangeIteratorTest.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.partitioning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.geotools.data.shapefile.ShapefileDataStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+/**
+ * Tests on iterating over a range of records of a shapefile, whose .dbf file contains records marked as deleted.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class ShpRangeIteratorTest {
+
+	private static final String[] EXTENSIONS = {".shp", ".shx", ".dbf", ".prj"};
+
+	private File dir;
+	private File shpFile;
+	private int numRecords;         //Number of records in the .dbf file, including deleted ones
+
+
+	/**
+	 * Copies the sample shapefile into a temporary directory and marks its second and its last record as deleted in the .dbf file.
+	 */
+	@Before
+	public void initialize() throws IOException {
+
+		dir = Files.createTempDirectory("shp_range").toFile();
+		for (String ext: EXTENSIONS)
+			FileUtils.copyFile(new File("./test/data/points" + ext), new File(dir, "points" + ext));
+		shpFile = new File(dir, "points.shp");
+
+		try (RandomAccessFile dbf = new RandomAccessFile(new File(dir, "points.dbf"), "rw"))
+		{
+			//Header: number of records (4 bytes), header length (2 bytes), record length (2 bytes), all little-endian, starting at byte 4
+			dbf.seek(4);
+			numRecords = Integer.reverseBytes(dbf.readInt());
+			int headerLength = Short.reverseBytes(dbf.readShort()) & 0xFFFF;
+			int recordLength = Short.reverseBytes(dbf.readShort()) & 0xFFFF;
+			for (int recno: new int[]{1, numRecords - 1})
+			{
+				dbf.seek(headerLength + (long) recno * recordLength);
+				dbf.writeByte('*');           //Deletion flag of the record
+			}
+		}
+	}
+
+
+	@After
+	public void cleanup() throws IOException {
+		FileUtils.deleteDirectory(dir);
+	}
+
+
+	/**
+	 * Collects the identifiers of the features in the given range of records.
+	 */
+	private List<String> read(SimpleFeatureType schema, long start, long end) throws IOException {
+
+		List<String> ids = new ArrayList<String>();
+		ShpRangeIterator it = new ShpRangeIterator(shpFile, schema, new FileRange(shpFile.getPath(), 0, start, end), "UTF-8");
+		try {
+			while (it.hasNext())
+				ids.add(it.next().getID());
+		}
+		finally {
+			it.close();
+		}
+		return ids;
+	}
+
+
+	/**
+	 * Deleted records are skipped both in a range starting at the first record and in a range ending at the last one, as by the shapefile data store.
+	 */
+	@Test
+	public void skipDeletedRecords() throws IOException {
+
+		ShapefileDataStore store = new ShapefileDataStore(shpFile.toURI().toURL());
+		try {
+			SimpleFeatureType schema = store.getSchema();
+
+			List<String> first = read(schema, 0, 3);
+			assertEquals(2, first.size());
+			assertEquals("points.1", first.get(0));
+			assertEquals("points.3", first.get(1));
+
+			List<String> last = read(schema, numRecords - 2, numRecords);
+			assertEquals(1, last.size());
+			assertEquals("points." + (numRecords - 1), last.get(0));
+
+			List<String> all = read(schema, 0, numRecords);
+			assertEquals(numRecords - 2, all.size());
+			assertFalse(all.contains("points.2"));
+			assertFalse(all.contains("points." + numRecords));
+			assertTrue(all.contains("points." + (numRecords - 1)));
+		}
+		finally {
+			store.dispose();
+		}
+	}
+
+}
@@ -0,0 +1,260 @@
+/*
+ * @(#) OsmChangeToRdfTest.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.tools;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.slipo.athenarc.triplegeo.utils.Configuration;
+
+/**
+ * Tests on applying an OSM change file against the state initialized from an OSM extract, so that only triples that differ are deleted or inserted.
+ * The extract contains a tagged node (a cafe), a tagged way (a street) and a tagged relation (a museum) whose only member is an untagged way.
+ * The change file moves the cafe, deletes the street, and moves a node of the member way of the museum.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OsmChangeToRdfTest {
+
+	private static final String EXTRACT =
+		"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+		"<osm version=\"0.6\">\n" +
+		"  <node id=\"1\" lon=\"23.7\" lat=\"37.9\"><tag k=\"amenity\" v=\"cafe\"/><tag k=\"name\" v=\"Central Cafe\"/></node>\n" +
+		"  <node id=\"2\" lon=\"23.71\" lat=\"37.91\"/>\n" +
+		"  <node id=\"3\" lon=\"23.72\" lat=\"37.92\"/>\n" +
+		"  <node id=\"4\" lon=\"23.73\" lat=\"37.93\"/>\n" +
+		"  <node id=\"5\" lon=\"23.74\" lat=\"37.94\"/>\n" +
+		"  <node id=\"6\" lon=\"23.75\" lat=\"37.95\"/>\n" +
+		"  <way id=\"10\"><nd ref=\"2\"/><nd ref=\"3\"/><tag k=\"tourism\" v=\"attraction\"/><tag k=\"name\" v=\"Old Street\"/></way>\n" +
+		"  <way id=\"11\"><nd ref=\"4\"/><nd ref=\"5\"/><nd ref=\"6\"/></way>\n" +
+		"  <relation id=\"20\"><member type=\"way\" ref=\"11\" role=\"\"/><tag k=\"type\" v=\"site\"/><tag k=\"tourism\" v=\"museum\"/><tag k=\"name\" v=\"City Museum\"/></relation>\n" +
+		"</osm>\n";
+
+	private static final String CHANGES =
+		"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+		"<osmChange version=\"0.6\">\n" +
+		"  <modify>\n" +
+		"    <node id=\"1\" lon=\"23.6\" lat=\"37.8\"><tag k=\"amenity\" v=\"cafe\"/><tag k=\"name\" v=\"Central Cafe\"/></node>\n" +
+		"    <node id=\"6\" lon=\"23.85\" lat=\"37.85\"/>\n" +
+		"  </modify>\n" +
+		"  <delete>\n" +
+		"    <way id=\"10\"/>\n" +
+		"  </delete>\n" +
+		"</osmChange>\n";
+
+	private File dir;
+
+
+	/**
+	 * Writes the OSM extract and the change file into a temporary directory.
+	 */
+	@Before
+	public void initialize() throws IOException {
+
+		dir = Files.createTempDirectory("osm_change").toFile();
+		FileUtils.writeStringToFile(new File(dir, "extract.osm"), EXTRACT, StandardCharsets.UTF_8);
+		FileUtils.writeStringToFile(new File(dir, "changes.osc"), CHANGES, StandardCharsets.UTF_8);
+	}
+
+
+	@After
+	public void cleanup() throws IOException {
+		FileUtils.deleteDirectory(dir);
+	}
+
+
+	/**
+	 * Creates a configuration for applying changes against a state in the temporary directory, with output either as DELTA or SPARQL.
+	 */
+	private Configuration configure(String output) throws IOException {
+
+		File conf = new File(dir, output + ".conf");
+		try (PrintWriter out = new PrintWriter(conf, StandardCharsets.UTF_8.name())) {
+			out.println("mode = STREAM");
+			out.println("inputFormat = OSM_XML");
+			out.println("tmpDir = " + dir.getPath());
+			out.println("outputDir = " + dir.getPath());
+			out.println("serialization = N-TRIPLES");
+			out.println("targetGeoOntology = GeoSPARQL");
+			out.println("mappingSpec = ./test/conf/OSM_Europe_slipo_mappings_XML_PBF.yml");
+			out.println("classificationSpec = ./test/classification/osm_xml_tags_classification.yml");
+			out.println("attrKey = osm_id");
+			out.println("attrName = name");
+			out.println("attrCategory = category");
+			out.println("registerFeatures = true");
+			out.println("featureSource = OpenStreetMap");
+			out.println("nsOntology = http://slipo.eu/def#");
+			out.println("nsGeometry = http://www.opengis.net/ont/geosparql#");
+			out.println("nsFeatureURI = http://slipo.eu/id/poi/");
+			out.println("nsClassURI = http://slipo.eu/id/term/");
+			out.println("nsClassificationURI = http://slipo.eu/id/classification/");
+			out.println("nsDataSourceURI = http://slipo.eu/id/poisource/");
+			out.println("prefixes = slipo, geo, xsd, rdfs, wgs84_pos");
+			out.println("namespaces = http://slipo.eu/def#, http://www.opengis.net/ont/geosparql#, http://www.w3.org/2001/XMLSchema#, http://www.w3.org/1999/02/22-rdf-syntax-ns#, http://www.w3.org/2003/01/geo/wgs84_pos#");
+			out.println("defaultLang = en");
+			out.println("osmStateDir = " + new File(dir, "state_" + output).getPath());
+			out.println("osmChangeOutput = " + output);
+		}
+		return new Configuration(conf.getPath());
+	}
+
+
+	/**
+	 * Applies an input file against the state with the given configuration; output files are named after the given name.
+	 */
+	private void apply(Configuration config, String inputFile, String name) {
+
+		new OsmChangeToRdf(config, new File(dir, inputFile).getPath(), new File(dir, name + ".nt").getPath(), 4326, 4326).apply();
+	}
+
+
+	private static Set<String> lines(File file) throws IOException {
+
+		Set<String> result = new LinkedHashSet<String>();
+		for (String line: FileUtils.readLines(file, StandardCharsets.UTF_8))
+			if (!line.trim().isEmpty())
+				result.add(line.trim());
+		return result;
+	}
+
+
+	/**
+	 * Collects the triples of one of the sections of a SPARQL Update request, i.e., DELETE DATA or INSERT DATA.
+	 */
+	private static Set<String> section(File file, String header) throws IOException {
+
+		Set<String> result = new LinkedHashSet<String>();
+		boolean inside = false;
+		List<String> lines = FileUtils.readLines(file, StandardCharsets.UTF_8);
+		for (String line: lines)
+		{
+			if (line.startsWith(header))
+				inside = true;
+			else if (line.startsWith("}"))
+				inside = false;
+			else if ((inside) && (!line.trim().isEmpty()))
+				result.add(line.trim());
+		}
+		return result;
+	}
+
+
+	private static boolean contains(Set<String> triples, String text) {
+
+		for (String t: triples)
+			if (t.contains(text))
+				return true;
+		return false;
+	}
+
+
+	/**
+	 * Checks the triples deleted and inserted due to the change file against those initially issued.
+	 */
+	private static void check(Set<String> initial, Set<String> deleted, Set<String> inserted) {
+
+		//All elements are transformed initially
+		assertTrue(contains(initial, "POINT (23.7 37.9)"));
+		assertTrue(contains(initial, "LINESTRING (23.71 37.91, 23.72 37.92)"));
+		assertTrue(contains(initial, "LINESTRING (23.73 37.93, 23.74 37.94, 23.75 37.95)"));
+
+		//Only triples previously issued are deleted, and none is both deleted and inserted
+		assertTrue(initial.containsAll(deleted));
+		for (String t: deleted)
+			assertFalse(inserted.contains(t));
+
+		//Modified node: its geometry changes, but not its name
+		assertTrue(contains(deleted, "POINT (23.7 37.9)"));
+		assertTrue(contains(inserted, "POINT (23.6 37.8)"));
+		assertFalse(contains(deleted, "Central Cafe"));
+		assertFalse(contains(inserted, "Central Cafe"));
+
+		//Deleted way: all its triples are deleted, and none is inserted
+		for (String t: initial)
+			if ((t.contains("Old Street")) || (t.contains("LINESTRING (23.71 37.91, 23.72 37.92)")))
+				assertTrue(deleted.contains(t));
+		assertFalse(contains(inserted, "Old Street"));
+		assertFalse(contains(inserted, "23.71 37.91"));
+
+		//Relation whose member moved: its geometry changes, but not its name
+		assertTrue(contains(deleted, "LINESTRING (23.73 37.93, 23.74 37.94, 23.75 37.95)"));
+		assertTrue(contains(inserted, "LINESTRING (23.73 37.93, 23.74 37.94, 23.85 37.85)"));
+		assertFalse(contains(deleted, "City Museum"));
+		assertFalse(contains(inserted, "City Museum"));
+	}
+
+
+	/**
+	 * Changes are written as N-Triples to be deleted (_delete.nt) and to be inserted (_insert.nt).
+	 */
+	@Test
+	public void deltaOutput() throws IOException {
+
+		Configuration config = configure("DELTA");
+		apply(config, "extract.osm", "initial");
+		assertTrue(lines(new File(dir, "initial_delete.nt")).isEmpty());
+		Set<String> initial = lines(new File(dir, "initial_insert.nt"));
+
+		apply(config, "changes.osc", "changes");
+		check(initial, lines(new File(dir, "changes_delete.nt")), lines(new File(dir, "changes_insert.nt")));
+	}
+
+
+	/**
+	 * Changes are written as a single SPARQL Update request (.ru), with deletions before insertions.
+	 */
+	@Test
+	public void sparqlOutput() throws IOException {
+
+		Configuration config = configure("SPARQL");
+		apply(config, "extract.osm", "initial");
+		File initialFile = new File(dir, "initial.ru");
+		assertTrue(section(initialFile, "DELETE DATA").isEmpty());
+		Set<String> initial = section(initialFile, "INSERT DATA");
+
+		apply(config, "changes.osc", "changes");
+		File changesFile = new File(dir, "changes.ru");
+		assertFalse(new File(dir, "changes_delete.tmp").exists());
+		assertFalse(new File(dir, "changes_insert.tmp").exists());
+		String request = FileUtils.readFileToString(changesFile, StandardCharsets.UTF_8);
+		assertTrue(request.indexOf("DELETE DATA") < request.indexOf("INSERT DATA"));
+		check(initial, section(changesFile, "DELETE DATA"), section(changesFile, "INSERT DATA"));
+	}
+
+}
@@ -0,0 +1,151 @@
+/*
+ * @(#) OsmXmlToRdfTest.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.slipo.athenarc.triplegeo.utils.Configuration;
+
+/**
+ * Tests on transforming OSM relations with concurrent workers: records of relations are assembled concurrently and handed over to the pipeline of the converter,
+ * whose workers generate their triples with their own generators, so the output must be the same as with a single thread.
+ * The extract contains a relation with a single member way, and a relation containing that relation and another way.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class OsmXmlToRdfTest {
+
+	private static final String EXTRACT =
+		"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+		"<osm version=\"0.6\">\n" +
+		"  <node id=\"1\" lon=\"23.7\" lat=\"37.9\"><tag k=\"amenity\" v=\"cafe\"/><tag k=\"name\" v=\"Central Cafe\"/></node>\n" +
+		"  <node id=\"2\" lon=\"23.71\" lat=\"37.91\"/>\n" +
+		"  <node id=\"3\" lon=\"23.72\" lat=\"37.92\"/>\n" +
+		"  <node id=\"4\" lon=\"23.73\" lat=\"37.93\"/>\n" +
+		"  <node id=\"5\" lon=\"23.74\" lat=\"37.94\"/>\n" +
+		"  <way id=\"10\"><nd ref=\"2\"/><nd ref=\"3\"/></way>\n" +
+		"  <way id=\"11\"><nd ref=\"4\"/><nd ref=\"5\"/></way>\n" +
+		"  <relation id=\"20\"><member type=\"way\" ref=\"10\" role=\"\"/><tag k=\"type\" v=\"site\"/><tag k=\"tourism\" v=\"museum\"/><tag k=\"name\" v=\"City Museum\"/></relation>\n" +
+		"  <relation id=\"21\"><member type=\"relation\" ref=\"20\" role=\"\"/><member type=\"way\" ref=\"11\" role=\"\"/><tag k=\"type\" v=\"site\"/><tag k=\"tourism\" v=\"attraction\"/><tag k=\"name\" v=\"Old Town\"/></relation>\n" +
+		"</osm>\n";
+
+	private File dir;
+
+
+	/**
+	 * Writes the OSM extract into a temporary directory.
+	 */
+	@Before
+	public void initialize() throws IOException {
+
+		dir = Files.createTempDirectory("osm_xml").toFile();
+		FileUtils.writeStringToFile(new File(dir, "extract.osm"), EXTRACT, StandardCharsets.UTF_8);
+	}
+
+
+	@After
+	public void cleanup() throws IOException {
+		FileUtils.deleteDirectory(dir);
+	}
+
+
+	/**
+	 * Transforms the extract in STREAM mode with the given number of workers, and collects the resulting triples.
+	 */
+	private Set<String> transform(int numWorkers) throws IOException {
+
+		File conf = new File(dir, "workers" + numWorkers + ".conf");
+		try (PrintWriter out = new PrintWriter(conf, StandardCharsets.UTF_8.name())) {
+			out.println("mode = STREAM");
+			out.println("inputFormat = OSM_XML");
+			out.println("tmpDir = " + dir.getPath());
+			out.println("outputDir = " + dir.getPath());
+			out.println("serialization = N-TRIPLES");
+			out.println("targetGeoOntology = GeoSPARQL");
+			out.println("mappingSpec = ./test/conf/OSM_Europe_slipo_mappings_XML_PBF.yml");
+			out.println("classificationSpec = ./test/classification/osm_xml_tags_classification.yml");
+			out.println("attrKey = osm_id");
+			out.println("attrName = name");
+			out.println("attrCategory = category");
+			out.println("featureSource = OpenStreetMap");
+			out.println("nsOntology = http://slipo.eu/def#");
+			out.println("nsGeometry = http://www.opengis.net/ont/geosparql#");
+			out.println("nsFeatureURI = http://slipo.eu/id/poi/");
+			out.println("nsClassURI = http://slipo.eu/id/term/");
+			out.println("nsClassificationURI = http://slipo.eu/id/classification/");
+			out.println("nsDataSourceURI = http://slipo.eu/id/poisource/");
+			out.println("prefixes = slipo, geo, xsd, rdfs, wgs84_pos");
+			out.println("namespaces = http://slipo.eu/def#, http://www.opengis.net/ont/geosparql#, http://www.w3.org/2001/XMLSchema#, http://www.w3.org/1999/02/22-rdf-syntax-ns#, http://www.w3.org/2003/01/geo/wgs84_pos#");
+			out.println("defaultLang = en");
+			out.println("numWorkers = " + numWorkers);
+		}
+		File output = new File(dir, "workers" + numWorkers + ".nt");
+		new OsmXmlToRdf(new Configuration(conf.getPath()), new File(dir, "extract.osm").getPath(), output.getPath(), 4326, 4326).apply();
+
+		Set<String> triples = new HashSet<String>();
+		for (String line: FileUtils.readLines(output, StandardCharsets.UTF_8))
+			if (!line.trim().isEmpty())
+				triples.add(line.trim());
+		return triples;
+	}
+
+
+	private static boolean contains(Set<String> triples, String text) {
+
+		for (String t: triples)
+			if (t.contains(text))
+				return true;
+		return false;
+	}
+
+
+	/**
+	 * Triples of relations generated by concurrent workers are the same as those generated by a single thread.
+	 */
+	@Test
+	public void concurrentRelations() throws IOException {
+
+		Set<String> serial = transform(1);
+		assertTrue(contains(serial, "Central Cafe"));
+		assertTrue(contains(serial, "City Museum"));
+		assertTrue(contains(serial, "Old Town"));
+		assertEquals(serial, transform(4));
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * @(#) FunctionRegistryTest.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Tests on resolving built-in functions whose name and number of arguments are shared by several methods of the Assistant class, as well as on loading extensions.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class FunctionRegistryTest {
+
+	private static final String WKT = "POLYGON ((23.70 37.90, 23.71 37.90, 23.71 37.91, 23.70 37.91, 23.70 37.90))";
+
+	/**
+	 * Extension that registers a function returning its argument in upper case.
+	 */
+	public static class UpperCase implements FunctionRegistry.Extension {
+
+		@Override
+		public void register() {
+			FunctionRegistry.register("toUpperCase", 1, (assist, args) -> args[0].toString().toUpperCase());
+		}
+	}
+
+
+	/**
+	 * getArea with 2 arguments is declared both as getArea(String,int) and as getArea(Geometry,int); each one must be invoked for the respective type of its first argument.
+	 */
+	@Test
+	public void overloadByArgumentTypes() {
+
+		Assistant assist = new Assistant();
+		Geometry g = assist.WKT2Geometry(WKT);
+		double expected = assist.getArea(g, 4326);
+
+		FunctionRegistry.BuiltInFunction f = FunctionRegistry.resolve("getArea", 2);
+		assertEquals(String.valueOf(expected), FunctionRegistry.apply(f, assist, new Object[]{WKT, 4326}));
+		assertEquals(String.valueOf(expected), FunctionRegistry.apply(f, assist, new Object[]{g, 4326}));
+	}
+
+
+	/**
+	 * Values of attributes and literals in mappings are given as strings, so numeric arguments are converted as needed.
+	 */
+	@Test
+	public void numericArgumentsAsStrings() {
+
+		Assistant assist = new Assistant();
+		double expected = assist.getArea(WKT, 4326);
+
+		FunctionRegistry.BuiltInFunction f = FunctionRegistry.resolve("getArea", 2);
+		assertEquals(String.valueOf(expected), FunctionRegistry.apply(f, assist, new String[]{WKT, "4326"}));
+		assertNull(FunctionRegistry.apply(f, assist, new String[]{WKT, "EPSG:4326"}));
+	}
+
+
+	/**
+	 * Extensions are instantiated through their constructor without arguments.
+	 */
+	@Test
+	public void loadExtension() {
+
+		FunctionRegistry.loadExtensions(UpperCase.class.getName());
+		FunctionRegistry.BuiltInFunction f = FunctionRegistry.find("toUpperCase", 1);
+		assertNotNull(f);
+		assertEquals("CAFE", FunctionRegistry.apply(f, new Assistant(), new String[]{"cafe"}));
+	}
+
+}
@@ -0,0 +1,187 @@
+/*
+ * @(#) TaskSchedulerTest.java 	 version 2.0   16/10/2026
+ *
+ * Copyright (C) 2013-2019 Information Management Systems Institute, Athena R.C., Greece.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.slipo.athenarc.triplegeo.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests on the order of execution, the batching of tiny inputs, the handling of failures, and the suggested number of partitions by the scheduler of transformation tasks.
+ * @author Kostas Patroumpas
+ * @version 2.0
+ */
+
+/* DEVELOPMENT HISTORY
+ * Created by: Kostas Patroumpas, 16/10/2026
+ * Last modified by: Kostas Patroumpas, 16/10/2026
+ */
+
+public class TaskSchedulerTest {
+
+	private static final long KB = 1024L;
+	private static final long MB = 1024L * 1024L;
+
+	private File conf;
+	private List<String> executed;
+
+
+	/**
+	 * Creates a configuration for transforming inputs in STREAM mode with a single worker per task.
+	 */
+	@Before
+	public void initialize() throws IOException {
+
+		conf = Files.createTempFile("scheduler", ".conf").toFile();
+		try (PrintWriter out = new PrintWriter(conf)) {
+			out.println("mode = STREAM");
+			out.println("numWorkers = 1");
+		}
+		executed = Collections.synchronizedList(new ArrayList<String>());
+	}
+
+
+	@After
+	public void cleanup() {
+		conf.delete();
+	}
+
+
+	/**
+	 * Creates a scheduler that executes at most the given number of tasks concurrently.
+	 */
+	private TaskScheduler scheduler(int maxTasks) {
+
+		Configuration config = new Configuration(conf.getAbsolutePath());
+		config.maxTasks = maxTasks;
+		return new TaskScheduler(config, new Assistant());
+	}
+
+
+	/**
+	 * Schedules a task that only records its execution.
+	 */
+	private void add(TaskScheduler scheduler, final String name, long size) {
+
+		scheduler.add(name, size, () -> { executed.add(name); return null; });
+	}
+
+
+	/**
+	 * Inputs are executed in decreasing order of size; those of unknown size come last in their original order.
+	 */
+	@Test
+	public void largestFirst() {
+
+		TaskScheduler scheduler = scheduler(1);
+		add(scheduler, "a", 2 * MB);
+		add(scheduler, "b", 0);
+		add(scheduler, "c", 5 * MB);
+		add(scheduler, "d", 0);
+		add(scheduler, "e", 3 * MB);
+		assertTrue(scheduler.run());
+		assertEquals(Arrays.asList("c", "e", "a", "b", "d"), executed);
+		assertEquals(0, scheduler.getStatistics().get("Batches of tiny inputs"));
+	}
+
+
+	/**
+	 * Tiny inputs are batched so that each thread still gets at least two batches.
+	 */
+	@Test
+	public void batchesPerThread() {
+
+		TaskScheduler scheduler = scheduler(2);
+		add(scheduler, "large1", 8 * MB);
+		add(scheduler, "large2", 4 * MB);
+		for (int i = 0; i < 40; i++)
+			add(scheduler, "tiny" + i, KB);
+		assertTrue(scheduler.run());
+		assertEquals(2, scheduler.getConcurrency());
+		assertEquals(42, executed.size());
+		assertEquals(4, scheduler.getStatistics().get("Batches of tiny inputs"));        //At most 40 / (2 * 2) = 10 inputs per batch
+	}
+
+
+	/**
+	 * A batch never exceeds the total size of inputs allowed for a batch.
+	 */
+	@Test
+	public void batchesBySize() {
+
+		TaskScheduler scheduler = scheduler(1);
+		for (int i = 0; i < 200; i++)
+			add(scheduler, "small" + i, 512 * KB);
+		assertTrue(scheduler.run());
+		assertEquals(200, executed.size());
+		assertEquals(7, scheduler.getStatistics().get("Batches of tiny inputs"));        //At most 16 MB / 512 KB = 32 inputs per batch
+	}
+
+
+	/**
+	 * A failing task is reported without preventing the execution of the remaining tasks.
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void failedTask() {
+
+		TaskScheduler scheduler = scheduler(2);
+		add(scheduler, "first", 2 * MB);
+		scheduler.add("broken", 50 * KB, () -> { throw new IOException("Unreadable input"); });
+		add(scheduler, "tiny", 10 * KB);
+		add(scheduler, "last", 1 * MB);
+		assertFalse(scheduler.run());
+		assertEquals(3, executed.size());
+
+		List<Map<String, Object>> tasks = (List<Map<String, Object>>) scheduler.getStatistics().get("Task details");
+		for (Map<String, Object> t: tasks)
+			assertEquals(t.get("Input").equals("broken") ? "FAILED" : "COMPLETED", t.get("Status"));
+	}
+
+
+	/**
+	 * Unless specified in the configuration, large inputs are split into as many partitions as the concurrent tasks, but none smaller than 64MB.
+	 */
+	@Test
+	public void suggestedPartitions() {
+
+		Configuration config = new Configuration(conf.getAbsolutePath());
+		assertTrue(config.autoPartitions);
+		config.maxTasks = 4;
+		assertEquals(1, TaskScheduler.suggestPartitions(config, 0));
+		assertEquals(1, TaskScheduler.suggestPartitions(config, 100 * MB));
+		assertEquals(2, TaskScheduler.suggestPartitions(config, 150 * MB));
+		assertEquals(4, TaskScheduler.suggestPartitions(config, 4096 * MB));
+	}
+
+}